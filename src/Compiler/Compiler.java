@@ -0,0 +1,29 @@
+package Compiler;
+
+import Parser.ASTNodes.Program;
+import Util.Logger;
+
+/**
+ * Compiles a validated .fml program. The conditions of the program are turned into compiled
+ * conditions, which are evaluated without allocating terms or resetting the AST.
+ */
+public class Compiler {
+
+    static Logger logger = Logger.get();
+
+    /**
+     * Compiles the given program. Programs that have not been validated are left as they are,
+     * since the Executor will not execute them.
+     *
+     * @param program the program to compile
+     */
+    public static void compile(Program program) {
+        if (!program.isValidated()) {
+            logger.log("The program has not been validated. Will not compile.");
+            return;
+        }
+        logger.log("Starting script compilation");
+        program.compile();
+        logger.log("Script compilation complete");
+    }
+}
@@ -0,0 +1,35 @@
+package Compiler;
+
+/**
+ * Identifies the type of an AST node in a cached program. Written as a single byte.
+ * New node types must be added at the end, and FMLGrammar.VERSION raised.
+ */
+public enum NodeTag {
+    NULL,
+    PROGRAM,
+    PATH,
+    ACTION,
+    DIRECT_DECLARATION,
+    REFERENCE_DECLARATION,
+    IF,
+    FOR,
+    PARALLEL_FOR,
+    RETURN,
+    COPY,
+    MOVE,
+    DELETE,
+    RENAME,
+    CREATE,
+    COMPRESS,
+    OR,
+    AND,
+    NEGATION,
+    TRUE,
+    FALSE,
+    BOOLEAN_CONDITION,
+    COMPARISON,
+    ATTRIBUTE_TERM,
+    NUMBER_TERM,
+    STRING_TERM,
+    BOOLEAN_TERM
+}
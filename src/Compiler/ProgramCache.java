@@ -0,0 +1,123 @@
+package Compiler;
+
+import Language.FMLGrammar;
+import Parser.ASTNodes.Program;
+import Util.Logger;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Keeps validated programs on disk, so that a script that has not changed since it was last run
+ * skips tokenizing, parsing and validating. The variables a cached program uses are stored resolved, as the
+ * validator left them (see VariableReference), so a loaded program is executed as it is.
+ *
+ * Programs are stored in the format written by ProgramWriter, under the SHA-256 hash of the script
+ * contents and the FML version. The cache is kept in ~/.fml/cache, or in the folder given by the fml.cache.dir
+ * system property. It is turned off by setting the fml.cache system property to false.
+ */
+public class ProgramCache {
+
+    static Logger logger = Logger.get();
+
+    private static final String EXTENSION = ".ast";
+
+    private static ProgramCache cache;
+
+    private final Path directory;    // null if the cache is turned off
+
+    ProgramCache(Path directory) {
+        this.directory = directory;
+    }
+
+    public static synchronized ProgramCache get() {
+        if (cache == null) {
+            if (Boolean.parseBoolean(System.getProperty("fml.cache", "true"))) {
+                String directory = System.getProperty("fml.cache.dir",
+                        Paths.get(System.getProperty("user.home"), ".fml", "cache").toString());
+                cache = new ProgramCache(Paths.get(directory));
+            } else {
+                cache = new ProgramCache(null);
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * @param script contents of a .fml script
+     * @return the validated program cached for the script, or null if there is none
+     */
+    public Program load(String script) {
+        if (directory == null) {
+            return null;
+        }
+        Path file = directory.resolve(getKey(script) + EXTENSION);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            Program program = new ProgramReader(in).readProgram();
+            logger.log("Loaded validated program from " + file);
+            return program;
+        } catch (IOException | RuntimeException e) {
+            // written by a different version of FML, or damaged. It will be replaced.
+            logger.log("Ignoring cached program " + file + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Caches the given program if it is valid. Failing to write the cache does not fail the script.
+     *
+     * @param script  contents of a .fml script
+     * @param program the program parsed from the script, after validation
+     */
+    public void store(String script, Program program) {
+        if (directory == null || !program.isValidated()) {
+            return;
+        }
+        Path file = directory.resolve(getKey(script) + EXTENSION);
+        Path temp = null;
+        try {
+            Files.createDirectories(directory);
+            // other runs of the same script may read the cache while it is being written
+            temp = Files.createTempFile(directory, "program", ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                new ProgramWriter(out).writeProgram(program);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.log("Stored validated program in " + file);
+        } catch (IOException e) {
+            logger.log("Failed to cache program: " + e);
+            if (temp != null) {
+                temp.toFile().delete();
+            }
+        }
+    }
+
+    /**
+     * @return the hex encoded SHA-256 hash of the FML version and the script
+     */
+    public static String getKey(String script) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        digest.update(FMLGrammar.VERSION.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        byte[] hash = digest.digest(script.getBytes(StandardCharsets.UTF_8));
+        StringBuilder key = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,248 @@
+package Compiler;
+
+import Language.FMLGrammar;
+import Language.FMLGrammar.AttributeName;
+import Language.FMLGrammar.ComparisonOperator;
+import Language.FMLGrammar.FileSizeUnit;
+import Parser.ASTNodes.ASTNode;
+import Parser.ASTNodes.Commands.*;
+import Parser.ASTNodes.Conditions.AndCondition;
+import Parser.ASTNodes.Conditions.Booleans.*;
+import Parser.ASTNodes.Conditions.Condition;
+import Parser.ASTNodes.Conditions.Negation;
+import Parser.ASTNodes.Conditions.OrCondition;
+import Parser.ASTNodes.Conditions.Terms.*;
+import Parser.ASTNodes.Program;
+import Parser.ASTNodes.VariableReference;
+import Parser.ASTNodes.Statements.*;
+import Parser.ASTNodes.Statements.Declarations.DirectDeclaration;
+import Parser.ASTNodes.Statements.Declarations.Paths.FMLPath;
+import Parser.ASTNodes.Statements.Declarations.ReferenceDeclaration;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a program written by ProgramWriter, building its nodes with the same constructors the parser uses.
+ * The slots of the programs and the locations of the variable references are restored as the validator
+ * resolved them.
+ */
+public class ProgramReader {
+
+    /**
+     * Counts are not trusted for sizing lists up front, since a damaged file may hold any count
+     */
+    private static final int MAX_INITIAL_CAPACITY = 1024;
+
+    private static final NodeTag[] TAGS = NodeTag.values();
+
+    private final DataInputStream in;
+    private final List<String> strings = new ArrayList<>();
+
+    public ProgramReader(InputStream in) {
+        this.in = new DataInputStream(in);
+    }
+
+    /**
+     * Reads the header and the program. The program is marked as validated, since only validated
+     * programs are written, and its variables are resolved.
+     *
+     * @throws IOException if the program was written by another version of FML or is damaged
+     */
+    public Program readProgram() throws IOException {
+        if (in.readInt() != ProgramWriter.MAGIC) {
+            throw new IOException("Not a cached program");
+        }
+        String version = readString();
+        if (!FMLGrammar.VERSION.equals(version)) {
+            throw new IOException("Program was cached by FML version " + version);
+        }
+        Program program = readNode(Program.class);
+        if (program == null || in.read() != -1) {
+            throw new IOException("Unexpected content in cached program");
+        }
+        program.setValidated();
+        return program;
+    }
+
+    private ASTNode readNode() throws IOException {
+        ASTNode node = readFields();
+        if (node != null) {
+            for (VariableReference reference : node.getReferences()) {
+                reference.setLocation(readCount() - 1);
+            }
+        }
+        return node;
+    }
+
+    private ASTNode readFields() throws IOException {
+        int tag = in.readUnsignedByte();
+        if (tag >= TAGS.length) {
+            throw new IOException("Unknown node type " + tag);
+        }
+        switch (TAGS[tag]) {
+            case NULL:
+                return null;
+            case PROGRAM: {
+                Program program = new Program(readNodes(Statement.class));
+                int slots = readCount();
+                for (int slot = 0; slot < slots; slot++) {
+                    program.addIdentifierDeclaration(readString());
+                }
+                return program;
+            }
+            case PATH: {
+                String root = readString();
+                String path = readString();
+                return root == null ? new FMLPath(path) : new FMLPath(root, path);
+            }
+            case ACTION: {
+                Command command = readNode(Command.class);
+                String target = readString();
+                String destination = readString();
+                return new ActionStatement(command, target, destination, in.readBoolean());
+            }
+            case DIRECT_DECLARATION: {
+                String identifier = readString();
+                FMLPath path = readNode(FMLPath.class);
+                boolean lazy = in.readBoolean();
+                return new DirectDeclaration(identifier, path, lazy, readNode(OrCondition.class));
+            }
+            case REFERENCE_DECLARATION: {
+                String left = readString();
+                return new ReferenceDeclaration(left, readString());
+            }
+            case IF: {
+                OrCondition condition = readNode(OrCondition.class);
+                Program innerProgram = readNode(Program.class);
+                return new IfStatement(condition, innerProgram, readNode(Program.class));
+            }
+            case FOR: {
+                String target = readString();
+                Program loopProgram = readNode(Program.class);
+                return new ForLoop(target, loopProgram, readString());
+            }
+            case PARALLEL_FOR: {
+                String target = readString();
+                Program loopProgram = readNode(Program.class);
+                return new ParallelForLoop(target, loopProgram, readString());
+            }
+            case RETURN:
+                return new ReturnStatement();
+            case COPY: {
+                String target = readString();
+                return new Copy(target, readString());
+            }
+            case MOVE: {
+                String target = readString();
+                return new Move(target, readString());
+            }
+            case RENAME: {
+                String target = readString();
+                return new Rename(target, readString());
+            }
+            case DELETE:
+                return new Delete(readString());
+            case CREATE:
+                return new Create(readString());
+            case COMPRESS: {
+                String target = readString();
+                return new Compress(target, in.readInt());
+            }
+            case OR:
+                return new OrCondition(readNodes(AndCondition.class));
+            case AND:
+                return new AndCondition(readNodes(Negation.class));
+            case NEGATION: {
+                Negation innerNegation = readNode(Negation.class);
+                FMLBoolean bool = readNode(FMLBoolean.class);
+                return innerNegation != null ? new Negation(innerNegation) : new Negation(bool);
+            }
+            case TRUE:
+                return new True();
+            case FALSE:
+                return new False();
+            case BOOLEAN_CONDITION:
+                return new BooleanCondition(readNode(Condition.class));
+            case COMPARISON: {
+                Term left = readNode(Term.class);
+                Term right = readNode(Term.class);
+                return new Comparison(left, right, ComparisonOperator.fromString(readString()));
+            }
+            case ATTRIBUTE_TERM: {
+                String identifier = readString();
+                return new AttributeTerm(identifier, AttributeName.fromString(readString()));
+            }
+            case NUMBER_TERM: {
+                String value = readString();
+                String unit = readString();
+                return new NumberTerm(value == null ? null : new BigDecimal(value),
+                        unit == null ? null : FileSizeUnit.fromString(unit));
+            }
+            case STRING_TERM:
+                return new StringTerm(readString());
+            case BOOLEAN_TERM:
+                return new BooleanTerm(readNode(FMLBoolean.class));
+        }
+        throw new IOException("Unknown node type " + tag);
+    }
+
+    /**
+     * @return the next node, or null if a null node was written
+     * @throws IOException if the next node is not of the given type
+     */
+    private <T extends ASTNode> T readNode(Class<T> type) throws IOException {
+        ASTNode node = readNode();
+        if (node != null && !type.isInstance(node)) {
+            throw new IOException("Expected " + type.getSimpleName() + " but found " + node.getClass().getSimpleName());
+        }
+        return type.cast(node);
+    }
+
+    private <T extends ASTNode> List<T> readNodes(Class<T> type) throws IOException {
+        int size = readCount();
+        List<T> nodes = new ArrayList<>(Math.min(size, MAX_INITIAL_CAPACITY));
+        for (int i = 0; i < size; i++) {
+            nodes.add(readNode(type));
+        }
+        return nodes;
+    }
+
+    private String readString() throws IOException {
+        int reference = readCount();
+        if (reference == 0) {
+            return null;
+        }
+        if (reference > 1) {
+            if (reference - 2 >= strings.size()) {
+                throw new IOException("Unknown string " + (reference - 2));
+            }
+            return strings.get(reference - 2);
+        }
+        byte[] bytes = new byte[readCount()];
+        in.readFully(bytes);
+        String s = new String(bytes, StandardCharsets.UTF_8);
+        strings.add(s);
+        return s;
+    }
+
+    private int readCount() throws IOException {
+        int count = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            count |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (count < 0) {
+                    throw new IOException("Invalid count");
+                }
+                return count;
+            }
+        }
+        throw new IOException("Invalid count");
+    }
+}
@@ -0,0 +1,110 @@
+package Compiler;
+
+import Language.FMLGrammar;
+import Parser.ASTNodes.ASTNode;
+import Parser.ASTNodes.Program;
+import Parser.ASTNodes.VariableReference;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a program in the compact binary format read by ProgramReader.
+ *
+ * Every node is written as its NodeTag followed by its fields, by the node itself, then the slots its
+ * variable references were resolved to (see ASTNode.getReferences), and each program lists the identifiers
+ * of its slots. A program read back is therefore ready to run without being validated again. Counts are written
+ * as variable length integers, and each distinct string is written once and then referred to by its
+ * index, since scripts repeat the same identifiers and paths many times.
+ */
+public class ProgramWriter {
+
+    static final int MAGIC = 0x464D4C42; // "FMLB"
+
+    private final DataOutputStream out;
+    private final Map<String, Integer> strings = new HashMap<>();
+
+    public ProgramWriter(OutputStream out) {
+        this.out = new DataOutputStream(out);
+    }
+
+    /**
+     * Writes the header and the given program
+     */
+    public void writeProgram(Program program) throws IOException {
+        out.writeInt(MAGIC);
+        writeString(FMLGrammar.VERSION);
+        writeNode(program);
+        out.flush();
+    }
+
+    public void writeTag(NodeTag tag) throws IOException {
+        out.writeByte(tag.ordinal());
+    }
+
+    /**
+     * @param node node to write, may be null
+     */
+    public void writeNode(ASTNode node) throws IOException {
+        if (node == null) {
+            writeTag(NodeTag.NULL);
+            return;
+        }
+        node.write(this);
+        for (VariableReference reference : node.getReferences()) {
+            int location = reference.getLocation();
+            writeCount(location >= 0 && location < Integer.MAX_VALUE ? location + 1 : 0);
+        }
+    }
+
+    public void writeNodes(List<? extends ASTNode> nodes) throws IOException {
+        writeCount(nodes.size());
+        for (ASTNode node : nodes) {
+            writeNode(node);
+        }
+    }
+
+    /**
+     * @param s string to write, may be null
+     */
+    public void writeString(String s) throws IOException {
+        if (s == null) {
+            writeCount(0);
+            return;
+        }
+        Integer index = strings.get(s);
+        if (index != null) {
+            writeCount(index + 2);
+            return;
+        }
+        strings.put(s, strings.size());
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeCount(1);
+        writeCount(bytes.length);
+        out.write(bytes);
+    }
+
+    public void writeBoolean(boolean b) throws IOException {
+        out.writeBoolean(b);
+    }
+
+    public void writeInt(int i) throws IOException {
+        out.writeInt(i);
+    }
+
+    /**
+     * Writes a non-negative integer in as few bytes as possible, 7 bits per byte
+     */
+    public void writeCount(int count) throws IOException {
+        while ((count & ~0x7F) != 0) {
+            out.writeByte((count & 0x7F) | 0x80);
+            count >>>= 7;
+        }
+        out.writeByte(count);
+    }
+}
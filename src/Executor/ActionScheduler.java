@@ -0,0 +1,95 @@
+package Executor;
+
+import Exceptions.FMLExecutionException;
+import Parser.ASTNodes.Commands.Command;
+import Parser.ASTNodes.Commands.FileAccess;
+import Parser.ASTNodes.Program;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Runs actions that follow each other in a script at the same time, where they do not depend on each other.
+ * "compress logsA", "compress logsB" and "copy reports to backup" all run at once, while "copy f to backup"
+ * then "delete f" still copies f first.
+ *
+ * The actions form a graph: an action depends on every earlier action it conflicts with (see FileAccess),
+ * and starts once they are done. The files of the actions are found when the run of actions is reached,
+ * since no statement in between can point their variables to other files.
+ *
+ * If an action fails, the actions that have not started are skipped, and the error of the first failed
+ * action in the script is thrown once the others are done. Actions after it that do not depend on it may
+ * already have run.
+ */
+public class ActionScheduler {
+
+    /**
+     * Maximum number of actions that run at the same time. Actions mostly wait on the disk.
+     */
+    private static final int PARALLELISM = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    private static ForkJoinPool pool;
+
+    /**
+     * Runs the given commands, in parallel where they do not conflict
+     *
+     * @param commands commands in the order they appear in the script
+     * @param program  scope the commands are evaluated in
+     * @throws FMLExecutionException the error of the first command that failed
+     */
+    public static void run(List<Command> commands, Program program) throws FMLExecutionException {
+        int count = commands.size();
+        FileAccess[] access = new FileAccess[count];
+        for (int i = 0; i < count; i++) {
+            access[i] = commands.get(i).getFileAccess(program);
+        }
+
+        FMLExecutionException[] errors = new FMLExecutionException[count];
+        CompletableFuture<?>[] done = new CompletableFuture<?>[count];
+        Failure failure = new Failure();
+        for (int i = 0; i < count; i++) {
+            List<CompletableFuture<?>> before = new ArrayList<>();
+            for (int j = 0; j < i; j++) {
+                if (access[j].conflicts(access[i])) {
+                    before.add(done[j]);
+                }
+            }
+            Command command = commands.get(i);
+            int index = i;
+            done[i] = CompletableFuture.allOf(before.toArray(new CompletableFuture<?>[0])).thenRunAsync(() -> {
+                if (failure.failed) {
+                    return;
+                }
+                try {
+                    command.run(program);
+                } catch (FMLExecutionException e) {
+                    errors[index] = e;
+                    failure.failed = true;
+                } catch (RuntimeException e) {
+                    errors[index] = new FMLExecutionException("Failed to run " + command, e);
+                    failure.failed = true;
+                }
+            }, getPool());
+        }
+
+        CompletableFuture.allOf(done).join();
+        for (FMLExecutionException error : errors) {
+            if (error != null) {
+                throw error;
+            }
+        }
+    }
+
+    private static synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(PARALLELISM);
+        }
+        return pool;
+    }
+
+    private static class Failure {
+        private volatile boolean failed = false;
+    }
+}
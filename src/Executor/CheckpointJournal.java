@@ -0,0 +1,356 @@
+package Executor;
+
+import Compiler.ProgramCache;
+import Exceptions.FMLExecutionException;
+import Parser.ASTNodes.Program;
+import Parser.ASTNodes.Variables.FileVariable;
+import Util.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records the work a run of a script has completed, so that a run that was interrupted can be resumed with
+ * --resume instead of starting over. The journal holds the statements of the script that were completed,
+ * and for the loops of the script itself, the files whose iterations were completed. On resume, completed
+ * statements are skipped, except declarations, and loops skip the files they completed.
+ *
+ * Entries are appended to the journal and forced to disk in batches, at most BATCH_SIZE entries or
+ * BATCH_MILLIS apart. A crash loses the last batch, whose work is then done again. Before a batch is
+ * written, the commands running in the background are waited for (see CommandPipeline), so that no entry
+ * is written before the work it records is done. The batch is taken from the journal first, so that other
+ * statements keep recording entries while the commands are waited for and the batch is written.
+ *
+ * A worker process of a sharded loop keeps no journal of its own. It prints the files it completes, in the
+ * same batches, for the coordinator to journal, see ShardWorker.
+ *
+ * The journal is kept under the same key as the cached program (see ProgramCache), in ~/.fml/journal or in
+ * the folder given by the fml.journal.dir system property, and deleted once a run completes. It is turned off
+ * by setting the fml.journal system property to false. Failing to write the journal does not fail the script.
+ */
+public class CheckpointJournal {
+
+    public static final String RESUME_FLAG = "--resume";
+
+    static final int BATCH_SIZE = 256;
+    static final long BATCH_MILLIS = 1000;
+
+    private static final String HEADER = "fml-journal 1 ";
+    private static final String STATEMENT = "S ";       // S statement
+    private static final String FILE = "F ";            // F statement path
+
+    static Logger logger = Logger.get();
+
+    private static CheckpointJournal journal;
+
+    private final Path directory;                                   // null if the journal is turned off
+    private boolean resume = false;
+
+    private volatile FileChannel channel;                           // null if no run is journaled
+    private volatile boolean reporting = false;                     // true if completed files are printed instead
+    private Path file;
+    private final StringBuilder batch = new StringBuilder();        // guarded by this, as are the fields below
+    private int batchEntries = 0;
+    private long batchStart;
+
+    private Set<Integer> completedStatements = new HashSet<>();                 // of the run being resumed
+    private Map<Integer, Set<String>> completedFiles = new HashMap<>();         // Map<statement, paths>
+    private volatile int statement = 0;                                         // statement of the script being run
+
+    CheckpointJournal(Path directory) {
+        this.directory = directory;
+    }
+
+    public static synchronized CheckpointJournal get() {
+        if (journal == null) {
+            if (Boolean.parseBoolean(System.getProperty("fml.journal", "true"))) {
+                String directory = System.getProperty("fml.journal.dir",
+                        Paths.get(System.getProperty("user.home"), ".fml", "journal").toString());
+                journal = new CheckpointJournal(Paths.get(directory));
+            } else {
+                journal = new CheckpointJournal(null);
+            }
+        }
+        return journal;
+    }
+
+    /**
+     * Replaces the journal of this process, e.g. with one in a temporary folder in tests
+     *
+     * @param journal the journal, or null to create it again from the system properties
+     */
+    static synchronized void set(CheckpointJournal journal) {
+        CheckpointJournal.journal = journal;
+    }
+
+    /**
+     * @param resume true if the following runs skip the work completed by the last run of the same script
+     */
+    public void setResume(boolean resume) {
+        this.resume = resume;
+    }
+
+    /**
+     * Starts the journal of a run of the given script. With resume, reads the work the last run completed,
+     * unless it was run from another folder, since its relative paths then pointed to other files.
+     *
+     * @param script contents of the .fml script
+     */
+    public void open(String script) {
+        close();
+        if (directory == null) {
+            return;
+        }
+        synchronized (this) {
+            String header = HEADER + Paths.get("").toAbsolutePath();
+            file = directory.resolve(ProgramCache.getKey(script) + ".journal");
+            try {
+                Files.createDirectories(directory);
+                boolean resumed = resume && read(header);
+                if (resumed) {
+                    channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                    channel.write(ByteBuffer.wrap("\n".getBytes(StandardCharsets.UTF_8)));  // ends a line cut by a crash
+                    logger.log(String.format("Resuming run: %d statements and %d files were completed", completedStatements.size(),
+                            completedFiles.values().stream().mapToInt(Set::size).sum()));
+                } else {
+                    channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                            StandardOpenOption.TRUNCATE_EXISTING);
+                    channel.write(ByteBuffer.wrap((header + "\n").getBytes(StandardCharsets.UTF_8)));
+                    channel.force(false);
+                }
+                batchStart = System.currentTimeMillis();
+            } catch (IOException e) {
+                logger.log("Failed to open the journal: " + e);
+                stop();
+            }
+        }
+    }
+
+    /**
+     * Prints the files the loop of a worker process completes, for the coordinator to journal, instead of
+     * writing them. See ShardWorker.
+     */
+    public synchronized void report() {
+        reporting = true;
+        batchStart = System.currentTimeMillis();
+    }
+
+    /**
+     * Marks the start of the given statement of the script
+     *
+     * @param statement number of the statement among the statements of the script, from 1
+     */
+    public void begin(int statement) {
+        this.statement = statement;
+    }
+
+    /**
+     * @return true if the run being resumed completed the given statement of the script
+     */
+    public boolean isCompleted(int statement) {
+        return completedStatements.contains(statement);
+    }
+
+    /**
+     * @param program scope of the loop
+     * @return true if the run being resumed completed the iteration of the file, in the current loop of the script.
+     * Loops nested in other statements are not journaled.
+     */
+    public boolean isCompleted(Program program, FileVariable file) {
+        if (completedFiles.isEmpty() || !program.isTopLevel()) {
+            return false;
+        }
+        Set<String> files = completedFiles.get(statement);
+        return files != null && files.contains(file.getAbsolutePath());
+    }
+
+    /**
+     * Records that the given statement of the script is completed
+     */
+    public void complete(int statement) {
+        append(STATEMENT + statement);
+    }
+
+    /**
+     * Records that the iteration of the file is completed, in the current loop of the script
+     *
+     * @param program scope of the loop
+     */
+    public void complete(Program program, FileVariable file) {
+        if ((channel == null && !reporting) || !program.isTopLevel()) {
+            return;
+        }
+        String path = file.getAbsolutePath();
+        if (path.indexOf('\n') < 0) {
+            append(FILE + statement + " " + path);
+        }
+    }
+
+    /**
+     * Ends the journal of a run that completed. There is nothing left to resume, so the journal is deleted.
+     */
+    public synchronized void finish() {
+        if (channel == null) {
+            return;
+        }
+        Path file = this.file;
+        stop();
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.log("Failed to delete the journal: " + e);
+        }
+    }
+
+    /**
+     * Ends the journal of a run that failed or was stopped, keeping the work it recorded for --resume
+     */
+    public void close() {
+        FileChannel channel;
+        String entries;
+        synchronized (this) {
+            channel = this.channel;
+            if (channel == null && !reporting) {
+                return;
+            }
+            entries = takeBatch();
+            reporting = false;
+        }
+        try {
+            write(channel, entries);
+        } catch (FMLExecutionException e) {
+            // a background command failed, so the entries of the last batch may record work that was not done
+        }
+        synchronized (this) {
+            if (this.channel == channel) {
+                stop();
+            }
+        }
+    }
+
+    /**
+     * @return true if the journal was written by a run from the same folder, and its work was read
+     */
+    private boolean read(String header) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (!header.equals(reader.readLine())) {
+                return false;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                try {
+                    if (line.startsWith(STATEMENT)) {
+                        completedStatements.add(Integer.parseInt(line.substring(STATEMENT.length())));
+                    } else if (line.startsWith(FILE)) {
+                        int space = line.indexOf(' ', FILE.length());
+                        int statement = Integer.parseInt(line.substring(FILE.length(), space));
+                        completedFiles.computeIfAbsent(statement, key -> new HashSet<>()).add(line.substring(space + 1));
+                    }
+                } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                    // the last line of a run that crashed while writing it
+                }
+            }
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private void append(String entry) {
+        FileChannel channel;
+        String entries;
+        synchronized (this) {
+            channel = this.channel;
+            if (channel == null && !reporting) {
+                return;
+            }
+            batch.append(entry).append('\n');
+            batchEntries++;
+            if (batchEntries < BATCH_SIZE && System.currentTimeMillis() - batchStart < BATCH_MILLIS) {
+                return;
+            }
+            entries = takeBatch();
+        }
+        try {
+            write(channel, entries);
+        } catch (FMLExecutionException e) {
+            // reported by the statement that submitted the command. The batch is dropped, and its work done again.
+        }
+    }
+
+    /**
+     * @return the entries of the batch, which starts over empty
+     */
+    private String takeBatch() {
+        String entries = batch.toString();
+        batch.setLength(0);
+        batchEntries = 0;
+        batchStart = System.currentTimeMillis();
+        return entries;
+    }
+
+    /**
+     * Writes a batch once the commands it records are done, and forces it to disk. Called without holding the
+     * monitor of the journal, since the commands may take long.
+     *
+     * @param channel journal the batch was taken from, or null to print the completed files of a worker
+     * @throws FMLExecutionException if a background command failed. The batch is dropped then.
+     */
+    private void write(FileChannel channel, String entries) throws FMLExecutionException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        CommandPipeline.get().awaitCommands();
+        if (channel == null) {
+            for (String entry : entries.split("\n")) {
+                if (entry.startsWith(FILE)) {       // F statement path
+                    System.out.println(ShardWorker.COMPLETED + " " + entry.substring(entry.indexOf(' ', FILE.length()) + 1));
+                }
+            }
+            return;
+        }
+        try {
+            channel.write(ByteBuffer.wrap(entries.getBytes(StandardCharsets.UTF_8)));
+            channel.force(false);
+        } catch (IOException e) {
+            synchronized (this) {
+                if (this.channel == channel) {      // not closed by the end of the run in the meantime
+                    logger.log("Failed to write the journal: " + e);
+                    stop();
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops journaling, and forgets the work of the run being resumed
+     */
+    private void stop() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // nothing left to write
+            }
+        }
+        channel = null;
+        file = null;
+        batch.setLength(0);
+        batchEntries = 0;
+        completedStatements = new HashSet<>();
+        completedFiles = new HashMap<>();
+        statement = 0;
+    }
+}
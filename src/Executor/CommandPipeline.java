@@ -0,0 +1,438 @@
+package Executor;
+
+import Exceptions.FMLExecutionException;
+import Parser.ASTNodes.Commands.Command;
+import Parser.ASTNodes.Commands.FileAccess;
+import Parser.ASTNodes.Program;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Runs the commands of a script in the background, so that a loop can test the conditions for its next
+ * files while the commands for earlier files are still copying or compressing. Off by default, and turned
+ * on with --async, see Main.
+ *
+ * At most a given number of commands are in flight at once. Once the limit is reached, the statement that
+ * submits the next command waits for one of them to finish. A second limit caps the commands that run at
+ * once on each mount, see MountLimits, so that a large number can be in flight against slow network shares.
+ * A command whose mounts are full waits in a queue without taking a thread or the place of a running
+ * command, and the commands behind it on other mounts run meanwhile. With a limit per mount, as many
+ * commands again as the limit may wait in the queue, so that a busy mount does not hold up the others.
+ * Each command runs on its own virtual thread where the runtime has them (Java 21 and later), and on a pool
+ * of as many threads as the limit otherwise.
+ *
+ * Commands are only reordered when they do not conflict, see FileAccess. A command waits for every earlier
+ * command that changes the files it uses, so "copy f to backup" then "delete f" still copies f first. Reads
+ * wait in the same way: the attributes of a file and the files of a list are only read once the commands
+ * that change them are done, so conditions see the files as if each command ran in place.
+ *
+ * After a command fails, no queued command is run. The next command that is submitted fails with its error,
+ * or the run fails with it once the script ends.
+ */
+public class CommandPipeline {
+
+    public static final String FLAG = "--async";
+
+    /**
+     * Number of commands in flight with --async and no limit
+     */
+    public static final int DEFAULT_LIMIT = 16;
+
+    /**
+     * Commands per mount with no limit given, i.e. only the number of commands in flight is limited
+     */
+    public static final int NO_MOUNT_LIMIT = 0;
+
+    private static CommandPipeline pipeline;
+
+    /**
+     * True on threads that are running a command. They must not wait for their own command.
+     */
+    private static final ThreadLocal<Boolean> runningCommand = ThreadLocal.withInitial(() -> false);
+
+    private volatile boolean enabled = false;
+    private Semaphore inFlight;
+    private ExecutorService pool;
+    private MountLimits mountLimits;                               // null if there is no limit per mount
+    private int limit;
+    private int running = 0;                                       // guarded by this, commands started in the background
+    private final List<Operation> pending = new ArrayList<>();     // guarded by this, in submission order
+    private final List<Operation> ready = new ArrayList<>();       // guarded by this, commands waiting for room to run
+    private volatile FMLExecutionException failure;                // first failure of the current run
+
+    public static synchronized CommandPipeline get() {
+        if (pipeline == null) {
+            pipeline = new CommandPipeline();
+        }
+        return pipeline;
+    }
+
+    /**
+     * @return true if the argument turns on the pipeline, i.e. --async, --async=limit or --async=limit,perMount
+     */
+    public static boolean isFlag(String arg) {
+        return arg.equals(FLAG) || arg.startsWith(FLAG + "=");
+    }
+
+    /**
+     * @param flag --async, --async=limit or --async=limit,perMount
+     * @return the number of commands in flight given by the flag
+     * @throws IllegalArgumentException if the limit is not a positive number
+     */
+    public static int parseLimit(String flag) throws IllegalArgumentException {
+        if (flag.equals(FLAG)) {
+            return DEFAULT_LIMIT;
+        }
+        String limits = flag.substring(FLAG.length() + 1);
+        int comma = limits.indexOf(',');
+        return parseCount(comma < 0 ? limits : limits.substring(0, comma), "commands in flight");
+    }
+
+    /**
+     * @param flag --async, --async=limit or --async=limit,perMount
+     * @return the number of commands per mount given by the flag, or NO_MOUNT_LIMIT
+     * @throws IllegalArgumentException if the limit per mount is not a positive number
+     */
+    public static int parseMountLimit(String flag) throws IllegalArgumentException {
+        int comma = flag.indexOf(',');
+        if (comma < 0) {
+            return NO_MOUNT_LIMIT;
+        }
+        return parseCount(flag.substring(comma + 1), "commands per mount");
+    }
+
+    private static int parseCount(String count, String what) throws IllegalArgumentException {
+        try {
+            int parsed = Integer.parseInt(count);
+            if (parsed > 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Expected a positive number of " + what + ", found " + count);
+    }
+
+    /**
+     * Runs the commands of the following runs in the background
+     *
+     * @param limit maximum number of commands in flight
+     */
+    public void enable(int limit) {
+        enable(limit, NO_MOUNT_LIMIT);
+    }
+
+    /**
+     * Runs the commands of the following runs in the background
+     *
+     * @param limit      maximum number of commands in flight
+     * @param mountLimit maximum number of commands that run at once on one mount, or NO_MOUNT_LIMIT
+     */
+    public void enable(int limit, int mountLimit) {
+        enable(limit, mountLimit == NO_MOUNT_LIMIT ? null : new MountLimits(mountLimit));
+    }
+
+    /**
+     * @param mountLimits limits of the mounts, or null if there is no limit per mount
+     */
+    void enable(int limit, MountLimits mountLimits) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Expected a positive number of commands in flight, found " + limit);
+        }
+        disable();
+        synchronized (this) {
+            inFlight = new Semaphore(mountLimits == null ? limit : 2 * limit);
+            pool = newPool(limit);
+            this.mountLimits = mountLimits;
+            this.limit = limit;
+            enabled = true;
+        }
+    }
+
+    /**
+     * Waits for the commands in flight, then runs the commands of the following runs in place
+     */
+    public void disable() {
+        awaitAll();
+        synchronized (this) {
+            enabled = false;
+            failure = null;
+            mountLimits = null;
+            if (pool != null) {
+                pool.shutdown();
+                pool = null;
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Runs the command in the background, once the earlier commands on its files are done. The variables
+     * of the command keep the files they refer to now, even if the loop it is in moves on to the next file.
+     * Commands that change their variables, i.e. rename, are run in place after the earlier commands on
+     * their files.
+     *
+     * @param program scope the command is evaluated in
+     * @throws FMLExecutionException if an earlier command failed, or the files of the command cannot be found
+     */
+    public void submit(Command command, Program program) throws FMLExecutionException {
+        throwFailure();
+        Program scope = command.bindVariables(program);
+        FileAccess access = command.getFileAccess(scope);
+        MountLimits mountLimits = this.mountLimits;
+        Operation operation = new Operation(access, mountLimits);
+        if (!command.canRunInBackground()) {
+            runInPlace(command, scope, operation);
+            return;
+        }
+
+        Semaphore inFlight = this.inFlight;
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FMLExecutionException("Interrupted while waiting to run " + command, e);
+        }
+        operation.background = true;
+        operation.run = () -> {
+            runningCommand.set(true);
+            try {
+                if (failure == null) {
+                    command.run(scope);
+                }
+            } catch (FMLExecutionException e) {
+                fail(e);
+            } catch (RuntimeException e) {
+                fail(new FMLExecutionException("Failed to run " + command, e));
+            } finally {
+                runningCommand.set(false);
+                complete(operation);
+                inFlight.release();
+            }
+        };
+        CompletableFuture<?>[] before = register(operation);
+        if (before.length == 0) {
+            ready(operation);
+        } else {
+            CompletableFuture.allOf(before).whenComplete((result, error) -> ready(operation));
+        }
+    }
+
+    /**
+     * Waits for the commands in flight that change the given file, files inside it, or the folders around it.
+     * Does nothing on the threads that run the commands.
+     */
+    public void awaitFile(File file) {
+        if (!enabled || runningCommand.get()) {
+            return;
+        }
+        CompletableFuture<?>[] before;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            before = conflicts(FileAccess.reading(file));
+        }
+        CompletableFuture.allOf(before).join();
+    }
+
+    /**
+     * Waits for the commands in flight at the end of a run
+     *
+     * @throws FMLExecutionException if any command of the run failed
+     */
+    public void finish() throws FMLExecutionException {
+        awaitAll();
+        FMLExecutionException failure = this.failure;
+        this.failure = null;
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Waits for the commands in flight, e.g. before recording them as done, see CheckpointJournal
+     *
+     * @throws FMLExecutionException if any command of the run failed. The run still fails with it once it ends.
+     */
+    public void awaitCommands() throws FMLExecutionException {
+        if (!enabled) {
+            return;
+        }
+        awaitAll();
+        throwFailure();
+    }
+
+    /**
+     * Waits for the commands in flight at the end of a run that failed, and forgets their failures
+     */
+    public void reset() {
+        awaitAll();
+        this.failure = null;
+    }
+
+    private void runInPlace(Command command, Program scope, Operation operation) throws FMLExecutionException {
+        CompletableFuture.allOf(register(operation)).join();
+        runningCommand.set(true);
+        try {
+            throwFailure();
+            awaitMounts(operation, command);
+            command.run(scope);
+        } finally {
+            runningCommand.set(false);
+            complete(operation);
+        }
+    }
+
+    /**
+     * Waits until the mounts of a command run in place have room for it
+     */
+    private synchronized void awaitMounts(Operation operation, Command command) throws FMLExecutionException {
+        if (operation.mountLimits == null) {
+            return;
+        }
+        try {
+            while (!operation.mountLimits.tryAcquire(operation.mounts)) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FMLExecutionException("Interrupted while waiting to run " + command, e);
+        }
+        operation.holdsMounts = true;
+    }
+
+    /**
+     * Queues a command whose earlier commands are done, and starts it if there is room
+     */
+    private synchronized void ready(Operation operation) {
+        ready.add(operation);
+        startReady();
+    }
+
+    /**
+     * Starts the queued commands that have room to run, in order. A command whose mounts are full is
+     * passed over by the commands behind it.
+     */
+    private void startReady() {
+        for (Iterator<Operation> queued = ready.iterator(); queued.hasNext() && running < limit; ) {
+            Operation operation = queued.next();
+            if (operation.mountLimits == null || operation.mountLimits.tryAcquire(operation.mounts)) {
+                queued.remove();
+                operation.holdsMounts = operation.mountLimits != null;
+                running++;
+                pool.execute(operation.run);
+            }
+        }
+    }
+
+    /**
+     * @return an executor that runs each command on a new virtual thread if the runtime has them, and
+     * otherwise on a pool of the given number of daemon threads
+     */
+    private static ExecutorService newPool(int threads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            // before Java 21, or virtual threads are not enabled
+        }
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "fml-command");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Adds the operation to the pending ones
+     *
+     * @return the pending operations it has to wait for
+     */
+    private synchronized CompletableFuture<?>[] register(Operation operation) {
+        CompletableFuture<?>[] before = conflicts(operation.access);
+        pending.add(operation);
+        return before;
+    }
+
+    private void complete(Operation operation) {
+        synchronized (this) {
+            pending.remove(operation);
+            if (operation.holdsMounts) {
+                operation.mountLimits.release(operation.mounts);
+                operation.holdsMounts = false;
+                notifyAll();
+            }
+            if (operation.background) {
+                running--;
+                startReady();
+            }
+        }
+        operation.done.complete(null);
+    }
+
+    /**
+     * @return the pending operations that conflict with the given access
+     */
+    private CompletableFuture<?>[] conflicts(FileAccess access) {
+        List<CompletableFuture<Void>> conflicts = new ArrayList<>();
+        for (Operation operation : pending) {
+            if (operation.access.conflicts(access)) {
+                conflicts.add(operation.done);
+            }
+        }
+        return conflicts.toArray(new CompletableFuture<?>[0]);
+    }
+
+    private void awaitAll() {
+        while (true) {
+            CompletableFuture<?>[] running;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                running = pending.stream().map(operation -> operation.done).toArray(CompletableFuture<?>[]::new);
+            }
+            CompletableFuture.allOf(running).join();
+        }
+    }
+
+    private synchronized void fail(FMLExecutionException e) {
+        if (failure == null) {
+            failure = e;
+        }
+    }
+
+    private void throwFailure() throws FMLExecutionException {
+        FMLExecutionException failure = this.failure;
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * A submitted command, until it is done
+     */
+    private static class Operation {
+
+        private final FileAccess access;
+        private final MountLimits mountLimits;          // null if there is no limit per mount
+        private final List<MountLimits.Mount> mounts;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private boolean background = false;             // true if run by the pool, see startReady
+        private boolean holdsMounts = false;            // guarded by the pipeline
+        private Runnable run;
+
+        Operation(FileAccess access, MountLimits mountLimits) {
+            this.access = access;
+            this.mountLimits = mountLimits;
+            this.mounts = mountLimits == null ? List.of() : mountLimits.mountsOf(access);
+        }
+    }
+}
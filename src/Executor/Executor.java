@@ -1,7 +1,9 @@
 package Executor;
 
 import Exceptions.FMLExecutionException;
+import Parser.ASTNodes.Commands.PathLocks;
 import Parser.ASTNodes.Program;
+import Parser.ASTNodes.Variables.FileAttributeCache;
 import Util.Logger;
 
 /**
@@ -22,10 +24,23 @@ public class Executor {
             throw new IllegalArgumentException("The program has not been validated. Will not execute.");
         }
         logger.log("Starting script execution");
+        FileAttributeCache.get().enable();
+        PathLocks.get().resetMetrics();
         try {
-            program.evaluate(null);
+            if (ShardWorker.get().isEnabled()) {
+                ShardWorker.get().evaluate(program);
+            } else {
+                program.evaluate(null);
+            }
+            CommandPipeline.get().finish();
+            CheckpointJournal.get().finish();
         } catch (IllegalArgumentException e) {
             System.out.println(e.getMessage());
+        } finally {
+            CheckpointJournal.get().close();        // keeps the work of a run that failed, for --resume
+            CommandPipeline.get().reset();
+            FileAttributeCache.get().disable();
+            logger.log(PathLocks.get().getMetrics().toString());
         }
     }
 }
@@ -0,0 +1,107 @@
+package Executor;
+
+import Parser.ASTNodes.Commands.FileAccess;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Limits the number of commands that run at the same time on each mount, i.e. each file store. On network
+ * shares every stat or rename waits on the server, so many commands can be in flight in total while each
+ * share only sees a few of them at once.
+ *
+ * A command takes a permit of every mount of its files at once, or none of them, so that it never holds the
+ * permit of one mount while it waits for another. Commands whose mounts are full are kept waiting by the
+ * CommandPipeline, without taking the place of the commands for other mounts. Permits are only taken and
+ * released while holding the lock of the CommandPipeline.
+ */
+class MountLimits {
+
+    private final int limit;
+    private final Map<Object, Mount> mounts = new ConcurrentHashMap<>();       // Map<file store, mount>
+    private final Map<Path, Object> stores = new ConcurrentHashMap<>();        // Map<folder, file store>
+
+    /**
+     * @param limit maximum number of commands that run at the same time on one mount
+     */
+    MountLimits(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Expected a positive number of commands per mount, found " + limit);
+        }
+        this.limit = limit;
+    }
+
+    /**
+     * @return the mounts of the files of a command, each once. Reads the file stores of folders not seen yet.
+     */
+    List<Mount> mountsOf(FileAccess access) {
+        List<Mount> needed = new ArrayList<>();
+        for (Path path : access.getPaths()) {
+            Mount mount = mountOf(path);
+            if (!needed.contains(mount)) {
+                needed.add(mount);
+            }
+        }
+        return needed;
+    }
+
+    /**
+     * Takes a permit of each of the mounts if all of them have room, and none otherwise
+     *
+     * @param needed mounts of the files of a command, see mountsOf
+     * @return true if the permits were taken, to be given back with release once the command is done
+     */
+    boolean tryAcquire(List<Mount> needed) {
+        for (Mount mount : needed) {
+            if (mount.running >= limit) {
+                return false;
+            }
+        }
+        for (Mount mount : needed) {
+            mount.running++;
+        }
+        return true;
+    }
+
+    void release(List<Mount> taken) {
+        for (Mount mount : taken) {
+            mount.running--;
+        }
+    }
+
+    /**
+     * @return the mount of the given file. Files that do not exist yet belong to the mount of their folder.
+     */
+    private Mount mountOf(Path path) {
+        Path folder = path.getParent() == null ? path : path.getParent();
+        Object store = stores.computeIfAbsent(folder, this::findStore);
+        return mounts.computeIfAbsent(store, key -> new Mount());
+    }
+
+    /**
+     * @return the file store of the closest existing folder, or the root of the path if it has none
+     */
+    Object findStore(Path folder) {
+        for (Path existing = folder; existing != null; existing = existing.getParent()) {
+            try {
+                return Files.getFileStore(existing);
+            } catch (IOException e) {
+                // does not exist (yet), or cannot be read: try the folder around it
+            }
+        }
+        return folder.getRoot() == null ? folder : folder.getRoot();
+    }
+
+    /**
+     * Commands running on a mount
+     */
+    static class Mount {
+
+        private int running = 0;        // guarded by the lock of the CommandPipeline
+    }
+}
@@ -0,0 +1,318 @@
+package Executor;
+
+import Exceptions.FMLExecutionException;
+import Parser.ASTNodes.Program;
+import Parser.ASTNodes.Statements.ForLoop;
+import Parser.ASTNodes.Statements.Statement;
+import Parser.ASTNodes.Variables.FileVariable;
+import Parser.ASTNodes.Variables.ListVariable;
+import Util.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Splits the loops of a script across worker processes, so that the largest trees are not bound by the
+ * heap of one JVM. Off by default, and turned on with --shards=count or --shards=count,folder, see Main.
+ *
+ * The script runs in this process as usual, up to a loop of the script itself. The files of its list are
+ * split into shares, and a worker is started for each share with the same arguments as this process and
+ * the variables of the script as they are at the loop, see ShardWorker. Once every worker is done, the script moves on to the statement after the loop. Files are
+ * split by the hash of their path, or with the folder option, by the folder right under the folder of the
+ * list, so that the files of a folder stay in one share.
+ *
+ * With --resume, the files the loop completed in the run being resumed are left out of the shares. Workers
+ * print the files they complete, which are journaled here, see CheckpointJournal.
+ *
+ * The output of the workers is printed with the number of their share. If any worker fails, the loop fails
+ * once the others are done. Loops that may return, and loops inside other statements, run in this process,
+ * since a return in one share could not stop the others.
+ */
+public class ShardCoordinator {
+
+    public static final String FLAG = "--shards";
+
+    private static final String MAIN_CLASS = "Main.Main";
+
+    enum Partition {
+        HASH,
+        FOLDER
+    }
+
+    static Logger logger = Logger.get();
+
+    private static ShardCoordinator coordinator;
+
+    private int shards = 0;                 // 0 if loops run in this process
+    private Partition partition;
+    private List<String> workerArgs;
+
+    public static synchronized ShardCoordinator get() {
+        if (coordinator == null) {
+            coordinator = new ShardCoordinator();
+        }
+        return coordinator;
+    }
+
+    /**
+     * @return true if the argument splits loops across processes, i.e. --shards=count or --shards=count,folder
+     */
+    public static boolean isFlag(String arg) {
+        return arg.startsWith(FLAG + "=");
+    }
+
+    /**
+     * Splits the loops of the following runs across worker processes
+     *
+     * @param flag       --shards=count, --shards=count,hash or --shards=count,folder
+     * @param workerArgs arguments the workers are started with, after the share they run
+     * @throws IllegalArgumentException if the flag is malformed
+     */
+    public void enable(String flag, String[] workerArgs) throws IllegalArgumentException {
+        String value = flag.substring(FLAG.length() + 1);
+        int comma = value.indexOf(',');
+        String count = comma < 0 ? value : value.substring(0, comma);
+        Partition partition = Partition.HASH;
+        if (comma >= 0) {
+            try {
+                partition = Partition.valueOf(value.substring(comma + 1).toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Expected shards by hash or folder, found " + value.substring(comma + 1));
+            }
+        }
+        int shards;
+        try {
+            shards = Integer.parseInt(count);
+        } catch (NumberFormatException e) {
+            shards = 0;
+        }
+        if (shards < 1) {
+            throw new IllegalArgumentException("Expected a positive number of shards, found " + count);
+        }
+        this.shards = shards;
+        this.partition = partition;
+        this.workerArgs = List.of(workerArgs);
+    }
+
+    public void disable() {
+        shards = 0;
+    }
+
+    public boolean isEnabled() {
+        return shards > 0;
+    }
+
+    /**
+     * Runs the loop in worker processes, each over a share of the files of the list
+     *
+     * @param loop    a loop of the script itself
+     * @param files   files of the list of the loop
+     * @param program the script
+     * @throws FMLExecutionException if a worker cannot be started, or fails
+     */
+    public void run(ForLoop loop, ListVariable files, Program program) throws FMLExecutionException {
+        int index = indexOf(loop, program.getStatements());
+        CommandPipeline.get().finish();        // workers must see the files as the commands before the loop left them
+
+        CheckpointJournal journal = CheckpointJournal.get();
+        List<String> paths = new ArrayList<>();
+        files.forEachFile(file -> {
+            if (!journal.isCompleted(program, file)) {
+                paths.add(file.getAbsolutePath());
+            }
+            return true;
+        });
+        List<List<String>> shares = partition(paths, shards, partition);
+        List<String> variables = ShardWorker.write(program.getVariables(), loop.getTargetCollectionIdentifier());
+
+        List<Worker> workers = new ArrayList<>();
+        try {
+            for (int i = 0; i < shares.size(); i++) {
+                if (!shares.get(i).isEmpty()) {
+                    workers.add(new Worker(i, index, variables, shares.get(i), program));
+                }
+            }
+            logger.log(String.format("Running %d files on %d worker processes", paths.size(), workers.size()));
+            long[] totals = new long[4];
+            FMLExecutionException failure = null;
+            for (Worker worker : workers) {
+                int status = worker.await();
+                for (int i = 0; i < totals.length; i++) {
+                    totals[i] += worker.metrics[i];
+                }
+                if (status != 0 && failure == null) {
+                    failure = new FMLExecutionException(String.format("Shard %d failed with exit status %d: %s",
+                            worker.shard, status, worker.lastLine));
+                }
+            }
+            logger.log(String.format("Shards ran %d files, %d commands locked their files, %d locks waited for %d ms",
+                    totals[0], totals[1], totals[2], totals[3]));
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            for (Worker worker : workers) {
+                worker.close();
+            }
+        }
+    }
+
+    /**
+     * @return the files of each share. Every run with the same files returns the same shares.
+     */
+    static List<List<String>> partition(List<String> paths, int shards, Partition partition) {
+        List<List<String>> shares = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            shares.add(new ArrayList<>());
+        }
+        if (partition == Partition.HASH) {
+            for (String path : paths) {
+                shares.get(Math.floorMod(path.hashCode(), shards)).add(path);
+            }
+            return shares;
+        }
+
+        // the largest folders first, each to the share with the fewest files so far
+        Map<Path, List<String>> folders = new TreeMap<>();
+        Path root = commonFolder(paths);
+        for (String path : paths) {
+            Path relative = root.relativize(Paths.get(path));
+            Path folder = relative.getNameCount() == 0 ? relative : relative.getName(0);
+            folders.computeIfAbsent(folder, key -> new ArrayList<>()).add(path);
+        }
+        List<List<String>> bySize = new ArrayList<>(folders.values());
+        bySize.sort((a, b) -> Integer.compare(b.size(), a.size()));
+        for (List<String> folder : bySize) {
+            List<String> smallest = shares.get(0);
+            for (List<String> share : shares) {
+                if (share.size() < smallest.size()) {
+                    smallest = share;
+                }
+            }
+            smallest.addAll(folder);
+        }
+        return shares;
+    }
+
+    /**
+     * @return the deepest folder that holds all of the files
+     */
+    private static Path commonFolder(List<String> paths) {
+        Path root = null;
+        for (String path : paths) {
+            Path parent = Paths.get(path).getParent();
+            if (root == null) {
+                root = parent;
+            }
+            while (root != null && (parent == null || !parent.startsWith(root))) {
+                root = root.getParent();
+            }
+            if (root == null) {
+                return Paths.get("");
+            }
+        }
+        return root == null ? Paths.get("") : root;
+    }
+
+    private static int indexOf(ForLoop loop, List<Statement> statements) throws FMLExecutionException {
+        for (int i = 0; i < statements.size(); i++) {
+            if (statements.get(i) == loop) {
+                return i;
+            }
+        }
+        throw new FMLExecutionException("Only loops of the script itself can be split into shards");
+    }
+
+    /**
+     * A worker process, and the thread that prints its output
+     */
+    private class Worker {
+
+        private final int shard;
+        private final Program program;
+        private final Path share;
+        private final Process process;
+        private final Thread output;
+        private final long[] metrics = new long[4];
+        private volatile String lastLine = "no output";
+
+        Worker(int shard, int loopIndex, List<String> variables, List<String> paths, Program program)
+                throws FMLExecutionException {
+            this.shard = shard;
+            this.program = program;
+            try {
+                share = Files.createTempFile("fml-shard", ".txt");
+                Files.write(share, variables, StandardCharsets.UTF_8);
+                Files.write(share, paths, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+                List<String> command = new ArrayList<>();
+                command.add(ProcessHandle.current().info().command().orElse("java"));
+                command.add("-cp");
+                command.add(System.getProperty("java.class.path"));
+                command.add(MAIN_CLASS);
+                command.add(ShardWorker.FLAG + "=" + loopIndex + ":" + share);
+                command.addAll(workerArgs);
+                process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            } catch (IOException e) {
+                throw new FMLExecutionException("Cannot start the worker of shard " + shard, e);
+            }
+            output = new Thread(this::printOutput, "fml-shard-" + shard);
+            output.setDaemon(true);
+            output.start();
+        }
+
+        private void printOutput() {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith(ShardWorker.METRICS)) {
+                        String[] counts = line.substring(ShardWorker.METRICS.length()).trim().split(" ");
+                        for (int i = 0; i < metrics.length && i < counts.length; i++) {
+                            metrics[i] = Long.parseLong(counts[i]);
+                        }
+                        continue;
+                    }
+                    if (line.startsWith(ShardWorker.COMPLETED)) {
+                        String path = line.substring(ShardWorker.COMPLETED.length()).trim();
+                        CheckpointJournal.get().complete(program, new FileVariable(path));
+                        continue;
+                    }
+                    lastLine = line;
+                    System.out.println("[shard " + shard + "] " + line);
+                }
+            } catch (IOException | NumberFormatException | FMLExecutionException e) {
+                lastLine = "cannot read output: " + e.getMessage();
+            }
+        }
+
+        /**
+         * @return exit status of the worker, once its output is printed
+         */
+        int await() throws FMLExecutionException {
+            try {
+                int status = process.waitFor();
+                output.join();
+                return status;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new FMLExecutionException("Interrupted while waiting for shard " + shard, e);
+            }
+        }
+
+        void close() {
+            process.destroy();
+            try {
+                Files.deleteIfExists(share);
+            } catch (IOException e) {
+                // left in the temporary folder
+            }
+        }
+    }
+}
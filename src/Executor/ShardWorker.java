@@ -0,0 +1,212 @@
+package Executor;
+
+import Exceptions.FMLExecutionException;
+import Parser.ASTNodes.Commands.PathLocks;
+import Parser.ASTNodes.Program;
+import Parser.ASTNodes.Statements.ForLoop;
+import Parser.ASTNodes.Statements.Statement;
+import Parser.ASTNodes.Variables.FileVariable;
+import Parser.ASTNodes.Variables.ListVariable;
+import Parser.ASTNodes.Variables.Variable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs one loop of a script over a share of the files of its list, in a worker process started by
+ * ShardCoordinator. The worker is started with --shard=statement:file, where statement is the index of
+ * the loop among the statements of the script, and file holds the variables of the script, see write, then
+ * the paths of the share, one per line.
+ *
+ * The statements before the loop were already run by the coordinator, and may have changed its variables,
+ * e.g. a rename. The worker runs none of them: it takes the variables the coordinator had when it reached
+ * the loop, so that the loop sees the same files without listing them again, then runs the loop over its
+ * share. It prints the files it completes for the coordinator to journal, see COMPLETED, and once done, a
+ * line with its counts, see METRICS.
+ */
+public class ShardWorker {
+
+    public static final String FLAG = "--shard";
+
+    /**
+     * Start of the line a worker prints its counts on, followed by: files, commands that locked their files,
+     * locks that waited, and milliseconds waited
+     */
+    static final String METRICS = "#shard-metrics";
+
+    /**
+     * Start of the line a worker prints for each file it completed, followed by its path. Printed in the
+     * batches of the journal, once the commands of the files are done, see CheckpointJournal.
+     */
+    static final String COMPLETED = "#shard-completed";
+
+    private static final String FILE = "#file ";        // #file name path
+    private static final String LIST = "#list ";        // #list name count, followed by a path per line
+
+    private static ShardWorker worker;
+
+    private int loopIndex = -1;                 // -1 if this process is not a worker
+    private Map<String, String> files;          // Map<identifier, path> of the file variables of the coordinator
+    private Map<String, List<String>> lists;    // Map<identifier, paths> of its list variables
+    private List<String> paths;
+
+    public static synchronized ShardWorker get() {
+        if (worker == null) {
+            worker = new ShardWorker();
+        }
+        return worker;
+    }
+
+    /**
+     * @return true if the argument starts a worker, i.e. --shard=statement:file
+     */
+    public static boolean isFlag(String arg) {
+        return arg.startsWith(FLAG + "=");
+    }
+
+    /**
+     * Runs only the given share of a loop in the following runs
+     *
+     * @param flag --shard=statement:file
+     * @throws IllegalArgumentException if the flag is malformed, or the file cannot be read
+     */
+    public void enable(String flag) throws IllegalArgumentException {
+        String shard = flag.substring(FLAG.length() + 1);
+        int colon = shard.indexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Expected --shard=statement:file, found " + flag);
+        }
+        int index;
+        try {
+            index = Integer.parseInt(shard.substring(0, colon));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected the index of a statement, found " + shard.substring(0, colon));
+        }
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(Paths.get(shard.substring(colon + 1)), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read the files of the shard: " + e.getMessage());
+        }
+        read(lines);
+        loopIndex = index;
+    }
+
+    public void disable() {
+        loopIndex = -1;
+        files = null;
+        lists = null;
+        paths = null;
+    }
+
+    public boolean isEnabled() {
+        return loopIndex >= 0;
+    }
+
+    /**
+     * Sets the variables of the coordinator, then runs the loop of the shard over the files of the shard
+     *
+     * @param program the script
+     * @throws FMLExecutionException if the statement of the shard is not a loop, or the loop fails
+     */
+    public void evaluate(Program program) throws FMLExecutionException {
+        List<Statement> statements = program.getStatements();
+        if (loopIndex >= statements.size() || !(statements.get(loopIndex) instanceof ForLoop)) {
+            throw new FMLExecutionException("Statement " + (loopIndex + 1) + " of the script is not a loop");
+        }
+        ForLoop loop = (ForLoop) statements.get(loopIndex);
+
+        for (Map.Entry<String, String> file : files.entrySet()) {
+            program.addVariable(file.getKey(), new FileVariable(file.getValue()));
+        }
+        for (Map.Entry<String, List<String>> list : lists.entrySet()) {
+            program.addVariable(list.getKey(), new ListVariable(toFiles(list.getValue())));
+        }
+        List<FileVariable> share = toFiles(paths);
+        program.addVariable(loop.getTargetCollectionIdentifier(), new ListVariable(share));
+        program.setLine(loopIndex + 1);
+        CheckpointJournal.get().report();
+        loop.evaluate(program);
+
+        PathLocks.Metrics metrics = PathLocks.get().getMetrics();
+        System.out.printf("%s %d %d %d %d%n", METRICS, share.size(), metrics.getAcquired(), metrics.getContended(),
+                metrics.getWaitMillis());
+    }
+
+    /**
+     * Writes the variables of the coordinator for its workers, except the list of the loop, which each worker
+     * gets its share of. Lists are written with the files they hold at the loop, so that workers do not list
+     * them again.
+     *
+     * @param variables variables of the script
+     * @param exclude   identifier of the list of the loop
+     * @return the lines to write before the paths of the share
+     */
+    static List<String> write(Map<String, Variable> variables, String exclude) throws FMLExecutionException {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, Variable> variable : variables.entrySet()) {
+            if (variable.getKey().equals(exclude)) {
+                continue;
+            }
+            if (variable.getValue() instanceof FileVariable) {
+                lines.add(FILE + variable.getKey() + " " + ((FileVariable) variable.getValue()).getAbsolutePath());
+            } else if (variable.getValue() instanceof ListVariable) {
+                List<String> paths = new ArrayList<>();
+                ((ListVariable) variable.getValue()).forEachFile(file -> paths.add(file.getAbsolutePath()));
+                lines.add(LIST + variable.getKey() + " " + paths.size());
+                lines.addAll(paths);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Reads the variables written by write, and the paths of the share after them
+     *
+     * @throws IllegalArgumentException if a variable is malformed
+     */
+    private void read(List<String> lines) throws IllegalArgumentException {
+        files = new LinkedHashMap<>();
+        lists = new LinkedHashMap<>();
+        int i = 0;
+        while (i < lines.size() && (lines.get(i).startsWith(FILE) || lines.get(i).startsWith(LIST))) {
+            String line = lines.get(i++);
+            String variable = line.substring(FILE.length());      // both prefixes have the same length
+            int space = variable.indexOf(' ');
+            if (space < 0) {
+                throw new IllegalArgumentException("Expected a variable and its value, found " + line);
+            }
+            String identifier = variable.substring(0, space);
+            if (line.startsWith(FILE)) {
+                files.put(identifier, variable.substring(space + 1));
+                continue;
+            }
+            int count;
+            try {
+                count = Integer.parseInt(variable.substring(space + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Expected the number of files of a list, found " + line);
+            }
+            if (count < 0 || i + count > lines.size()) {
+                throw new IllegalArgumentException("Expected " + count + " files of the list " + identifier);
+            }
+            lists.put(identifier, new ArrayList<>(lines.subList(i, i + count)));
+            i += count;
+        }
+        paths = new ArrayList<>(lines.subList(i, lines.size()));
+    }
+
+    private static List<FileVariable> toFiles(List<String> paths) throws FMLExecutionException {
+        List<FileVariable> files = new ArrayList<>(paths.size());
+        for (String path : paths) {
+            files.add(new FileVariable(path));
+        }
+        return files;
+    }
+}
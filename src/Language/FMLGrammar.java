@@ -9,12 +9,22 @@ import java.util.regex.Pattern;
  */
 public class FMLGrammar {
 
+    /**
+     * Version of the language and of the AST it is parsed into. Programs cached by other versions are not used.
+     */
+    public static String VERSION = "1.3";
+
     /* Fixed Literals */
     public static String IF = "if";
     public static String ELSE = "else";
     public static String FOR = "for";
+    public static String PARALLEL = "parallel";
+    public static String LAZY = "lazy";
+    public static String WHERE = "where";
     public static String RETURN = "return";
     public static String PREPOSITION = "to";
+    public static String LEVEL = "level";
+    public static String STORE = "store";
     public static String RIGHT_ARROW = "->";
     public static String EQUALS = "=";
     public static String LIST_SYMBOL = "[]";
@@ -27,20 +37,25 @@ public class FMLGrammar {
     public static String NEWLINE = "NEWLINE";
     public static String SEMI_COLON = ";";
 
+    /**
+     * Identifier of the file a where clause is tested against. Attributes written without a variable in a
+     * where clause, e.g. "size" in "where size > 1 GB", are read from it. It is not a valid variable name,
+     * so it never hides a variable of the script.
+     */
+    public static String WHERE_ENTRY = "_entry";
+
     /* Groups of Fixed Literals */
     public static List<String> COMMAND_STRINGS = CommandEnum.toListOfString();
     public static List<String> COMPARISON_OPERATORS = ComparisonOperator.toListOfString();
     public static List<String> LOGICAL_OPERATORS = Arrays.asList(AND, OR, NOT);
     public static List<String> ATTRIBUTES = AttributeName.toListOfString();
     public static List<String> SIZES = FileSizeUnit.toListOfString();
-    public static List<String> SEPARATORS = Arrays.asList("\r\n", "{", "}", NEWLINE);
 
     /* Regex Patterns */
     public static Pattern USER_DEFINED_STRING_REGEX = Pattern.compile("\"(.)*\"");
     public static Pattern WILDCARD_PATH = Pattern.compile("(.)*\\*(.)*");
     public static Pattern FILE_VARIABLE_IDENTIFIER = Pattern.compile("[a-zA-Z0-9]+$");
     public static Pattern LIST_VARIABLE_IDENTIFIER = Pattern.compile("[a-zA-Z0-9]+\\[\\]$");
-    public static Pattern COMMENT = Pattern.compile("\\/\\/(.*)\r\n");
 
     public enum ComparisonOperator {
         LESS_THAN("<"),
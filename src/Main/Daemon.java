@@ -0,0 +1,123 @@
+package Main;
+
+import Util.Logger;
+
+import java.io.*;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+/**
+ * Runs scripts sent over a UNIX domain socket in a JVM that stays up, so that a run does not pay for
+ * starting the JVM and loading the interpreter.
+ *
+ * A client connects, writes the arguments it would give to Main on one line, e.g. "-v /path/to/script.fml",
+ * and reads the output of the run until the daemon closes the connection. Relative paths are resolved
+ * against the working directory of the daemon.
+ *
+ * Every request gets its own Program, loaded from the ProgramCache or parsed from the script. Requests
+ * are run one at a time, since the Logger and the file attribute cache are shared by the whole JVM, and
+ * the output of a run, including that of its worker threads, is sent to the client that requested it.
+ */
+public class Daemon {
+
+    public static final String FLAG = "--daemon";
+
+    static Logger logger = Logger.get();
+
+    private final Path socket;
+    private ServerSocketChannel server;
+
+    public Daemon(Path socket) {
+        this.socket = socket;
+    }
+
+    /**
+     * Listens on the socket and runs requests until the daemon is closed
+     */
+    public void serve() throws IOException {
+        // left behind by a daemon that was killed
+        Files.deleteIfExists(socket);
+        synchronized (this) {
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            server.bind(UnixDomainSocketAddress.of(socket));
+        }
+        try {
+            restrictToOwner();
+            logger.log("Listening on " + socket);
+            while (true) {
+                try (SocketChannel client = server.accept()) {
+                    handle(client);
+                } catch (ClosedChannelException e) {
+                    return;
+                } catch (IOException e) {
+                    logger.log("Failed to handle request: " + e.getMessage());
+                }
+            }
+        } finally {
+            close();
+            Files.deleteIfExists(socket);
+        }
+    }
+
+    /**
+     * Stops accepting requests. A request that is running is completed.
+     */
+    public synchronized void close() throws IOException {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    /**
+     * Other users may not run scripts as the user of the daemon
+     */
+    private void restrictToOwner() throws IOException {
+        try {
+            Files.setPosixFilePermissions(socket, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException e) {
+            // not a POSIX file system
+        }
+    }
+
+    private void handle(SocketChannel client) throws IOException {
+        BufferedReader in = new BufferedReader(
+                new InputStreamReader(Channels.newInputStream(client), StandardCharsets.UTF_8));
+        String request = in.readLine();
+        if (request == null || request.isBlank()) {
+            return;
+        }
+
+        PrintStream out = new PrintStream(
+                new BufferedOutputStream(Channels.newOutputStream(client)), false, StandardCharsets.UTF_8);
+        PrintStream console = System.out;
+        Boolean logging = Logger.isEnabled();
+        System.setOut(out);
+        try {
+            Main.run(parseArguments(request.trim()));
+        } finally {
+            out.flush();
+            System.setOut(console);
+            Logger.setEnabled(logging);
+            Logger.setStage(Logger.Stage.UNKNOWN);
+        }
+    }
+
+    /**
+     * @param request a request line, e.g. "-v /path/to/script.fml". The path may contain spaces.
+     * @return the arguments for Main
+     */
+    static String[] parseArguments(String request) {
+        if (request.startsWith("-v ")) {
+            return new String[]{"-v", request.substring(3).trim()};
+        }
+        return new String[]{request};
+    }
+}
@@ -1,15 +1,24 @@
 package Main;
 
+import Compiler.Compiler;
+import Executor.CheckpointJournal;
+import Compiler.ProgramCache;
+import Executor.CommandPipeline;
 import Executor.Executor;
-import Language.FMLGrammar;
+import Executor.ShardCoordinator;
+import Executor.ShardWorker;
 import Parser.ASTNodes.Program;
 import Parser.Parser;
+import Parser.TokenStream;
+import Tokenizer.Token;
 import Tokenizer.Tokenizer;
 import Util.FMLReader;
 import Util.Logger;
 import Validator.Validator;
 
-import java.util.Queue;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Entry-point to the File Management Language compiler and executor
@@ -18,35 +27,138 @@ public class Main {
 
     static Logger logger = Logger.get();
     /**
-     * Takes the path to a .fml file as an argument, parses it, and executes the FML script
+     * Takes the path to a .fml file as an argument, parses it, and executes the FML script.
+     * With --daemon and the path of a socket, runs scripts sent to the socket instead. See Daemon.
+     * With --watch before the other arguments, keeps running the script as files are added. See Watcher.
+     * With --async, --async=limit or --async=limit,perMount first, runs commands in the background. See CommandPipeline.
+     * With --resume first, skips the work completed by the last run of the script, if it was stopped. See CheckpointJournal.
+     * With --shards=count or --shards=count,folder first, runs the loops of the script in worker processes, which
+     * are started with --shard=statement:file and the arguments after --shards. See ShardCoordinator and ShardWorker.
      *
      * @param args path to .fml file to execute
      */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals(CheckpointJournal.RESUME_FLAG)) {
+            CheckpointJournal.get().setResume(true);
+            args = Arrays.copyOfRange(args, 1, args.length);
+        }
+        if (args.length > 0 && ShardWorker.isFlag(args[0])) {
+            try {
+                ShardWorker.get().enable(args[0]);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Failed to run shard: " + e.getMessage());
+                System.exit(1);
+            }
+            args = Arrays.copyOfRange(args, 1, args.length);
+        }
+        if (args.length > 0 && ShardCoordinator.isFlag(args[0])) {
+            try {
+                ShardCoordinator.get().enable(args[0], Arrays.copyOfRange(args, 1, args.length));
+            } catch (IllegalArgumentException e) {
+                logger.log("Failed to run script: " + e.getMessage());
+                return;
+            }
+            args = Arrays.copyOfRange(args, 1, args.length);
+        }
+        if (args.length > 0 && CommandPipeline.isFlag(args[0])) {
+            try {
+                CommandPipeline.get().enable(CommandPipeline.parseLimit(args[0]), CommandPipeline.parseMountLimit(args[0]));
+            } catch (IllegalArgumentException e) {
+                logger.log("Failed to run script: " + e.getMessage());
+                return;
+            }
+            args = Arrays.copyOfRange(args, 1, args.length);
+        }
+        if (args.length == 2 && args[0].equals(Daemon.FLAG)) {
+            try {
+                new Daemon(Paths.get(args[1])).serve();
+            } catch (Exception e) {
+                logger.log("Daemon stopped: " + e.getMessage());
+            }
+            return;
+        }
+        if (args.length > 0 && args[0].equals(Watcher.FLAG)) {
+            watch(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        boolean ran = run(args);
+        if (ShardWorker.get().isEnabled()) {
+            System.exit(ran ? 0 : 1);       // read by the coordinator
+        }
+    }
+
+    /**
+     * Runs the script given by the arguments, see main
+     *
+     * @return true if the script ran to the end
+     */
+    static boolean run(String[] args) {
         try {
             Logger.setStage(Logger.Stage.LOADING);
             String path = getFilePath(args);
             String data = FMLReader.read(path);
-            logger.logSeparator();
+            Program program = build(data);
+            if (!ShardWorker.get().isEnabled()) {
+                CheckpointJournal.get().open(data);     // workers print the files they complete for the coordinator to journal
+            }
+
+            Logger.setStage(Logger.Stage.EVALUATING);
+            Executor.execute(program);
+            logger.log("Done!");
+            return true;
+        } catch (Exception e) {
+            logger.log("Failed to run script: " + e.getMessage());
+            if (ShardWorker.get().isEnabled()) {
+                System.err.println("Failed to run shard: " + e.getMessage());     // printed by the coordinator
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Runs the script given by the arguments, then runs it again whenever files are added to its lists.
+     * See Watcher.
+     */
+    static void watch(String[] args) {
+        try {
+            Logger.setStage(Logger.Stage.LOADING);
+            String path = getFilePath(args);
+            String data = FMLReader.read(path);
+            new Watcher(data).watch();
+        } catch (Exception e) {
+            logger.log("Stopped watching: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Builds a validated and compiled program from the contents of a script. Each call returns a new program.
+     *
+     * @param data contents of a .fml script
+     * @return the program, ready to be executed
+     */
+    static Program build(String data) throws Exception {
+        Program program = ProgramCache.get().load(data);
+        logger.logSeparator();
 
+        if (program == null) {
             Logger.setStage(Logger.Stage.TOKENIZING);
-            Queue<String> tokens = Tokenizer.getTokens(data, FMLGrammar.SEPARATORS);
+            List<Token> tokens = Tokenizer.tokenize(data);
             logger.logSeparator();
 
             Logger.setStage(Logger.Stage.PARSING);
-            Program program = Parser.parse(tokens);
+            program = Parser.parse(new TokenStream(tokens));
             logger.logSeparator();
 
             Logger.setStage(Logger.Stage.VALIDATING);
             Validator.validate(program);
+            ProgramCache.get().store(data, program);
             logger.logSeparator();
-
-            Logger.setStage(Logger.Stage.EVALUATING);
-            Executor.execute(program);
-            logger.log("Done!");
-        } catch (Exception e) {
-            logger.log("Failed to run script: " + e.getMessage());
         }
+
+        Logger.setStage(Logger.Stage.COMPILING);
+        Compiler.compile(program);
+        logger.logSeparator();
+        return program;
     }
 
     /**
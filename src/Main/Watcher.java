@@ -0,0 +1,187 @@
+package Main;
+
+import Executor.Executor;
+import Parser.ASTNodes.Variables.ChangedFiles;
+import Parser.ASTNodes.Variables.FileAttributeCache;
+import Util.Logger;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Runs a script, then runs it again each time files are created or modified in the folders of its
+ * wildcard lists. On these runs the lists only hold the files that changed, so loops only visit new and
+ * modified files. See ChangedFiles.
+ *
+ * Events are collected until no new event arrives for QUIET_PERIOD, or for at most MAX_DELAY after the
+ * first one, so that a burst of changes, e.g. a large copy into a watched folder, leads to a single run.
+ * If events were lost, the folder is listed in full on the next run. A folder is watched from the first time
+ * a list reads it, before it is read, so that no file created while it is read is missed.
+ *
+ * Files the script itself creates or changes in its watched folders do not trigger another run, so that a
+ * script that renames or writes files in the folders it watches does not run forever. The paths a run
+ * invalidated in the FileAttributeCache are recorded, and events for them are dropped, unless the file was
+ * modified again after the run.
+ */
+public class Watcher {
+
+    public static final String FLAG = "--watch";
+
+    private static final long QUIET_PERIOD = 250;   // ms
+    private static final long MAX_DELAY = 2000;     // ms
+
+    static Logger logger = Logger.get();
+
+    private final String script;
+    private final Map<WatchKey, Path> folders = new ConcurrentHashMap<>();     // registered by the threads of the lists
+    private WatchService service;
+    private Set<Path> ownChanges = Set.of();        // paths changed by the last run
+    private long runEnd;                            // ms
+
+    /**
+     * @param script contents of the .fml script to run
+     */
+    public Watcher(String script) {
+        this.script = script;
+    }
+
+    /**
+     * Runs the script and watches its folders until the watcher is closed
+     */
+    public void watch() throws IOException {
+        ChangedFiles changedFiles = ChangedFiles.get();
+        synchronized (this) {
+            service = FileSystems.getDefault().newWatchService();
+        }
+        try {
+            changedFiles.setFolderListener(this::register);
+            changedFiles.watchAll();
+            run();
+            while (true) {
+                Map<Path, Set<Path>> changes = collectChanges();
+                if (changes.isEmpty()) {
+                    continue;
+                }
+                logger.log(String.format("Running script for changes in %d folder(s)", changes.size()));
+                changedFiles.watchChanges(changes);
+                run();
+            }
+        } catch (ClosedWatchServiceException e) {
+            // closed
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            changedFiles.disable();
+            close();
+        }
+    }
+
+    /**
+     * Stops watching. A run that has started is completed.
+     */
+    public synchronized void close() throws IOException {
+        if (service != null) {
+            service.close();
+        }
+    }
+
+    /**
+     * Runs the script. The folders of its lists are watched as they are read, see register.
+     */
+    private void run() {
+        FileAttributeCache.get().startRecording();
+        try {
+            Executor.execute(Main.build(script));
+            logger.log("Done!");
+        } catch (Exception e) {
+            // the script may succeed once the files it failed on change
+            logger.log("Failed to run script: " + e.getMessage());
+        } finally {
+            Set<Path> changed = new HashSet<>();
+            for (String path : FileAttributeCache.get().stopRecording()) {
+                changed.add(Paths.get(path).normalize());
+            }
+            ownChanges = changed;
+            runEnd = System.currentTimeMillis();
+        }
+        for (Path folder : ChangedFiles.get().getFolders()) {
+            register(folder);       // folders that were deleted, and created again since
+        }
+    }
+
+    /**
+     * Watches a folder of a list, before the list reads it
+     */
+    private synchronized void register(Path folder) {
+        if (folders.containsValue(folder) || !Files.isDirectory(folder)) {
+            return;
+        }
+        try {
+            folders.put(folder.register(service, ENTRY_CREATE, ENTRY_MODIFY), folder);
+            logger.log("Watching " + folder);
+        } catch (IOException | ClosedWatchServiceException e) {
+            logger.log("Cannot watch " + folder + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Waits for changes in the watched folders
+     *
+     * @return Map<folder, files created or modified in folder>. A null set if events were lost for the folder.
+     */
+    private Map<Path, Set<Path>> collectChanges() throws InterruptedException {
+        Map<Path, Set<Path>> changes = new HashMap<>();
+        WatchKey key = service.take();
+        long deadline = System.currentTimeMillis() + MAX_DELAY;
+        while (key != null) {
+            Path folder = folders.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (folder == null) {
+                    continue;
+                }
+                if (event.kind() == OVERFLOW) {
+                    changes.put(folder, null);
+                    continue;
+                }
+                Path path = folder.resolve((Path) event.context());
+                if (isOwnChange(path)) {
+                    continue;
+                }
+                if (!changes.containsKey(folder) || changes.get(folder) != null) {
+                    changes.computeIfAbsent(folder, f -> new LinkedHashSet<>()).add(path);
+                }
+            }
+            if (!key.reset()) {
+                // the folder was deleted. It is watched again if a list is built for it later.
+                folders.remove(key);
+            }
+
+            long wait = Math.min(QUIET_PERIOD, deadline - System.currentTimeMillis());
+            key = wait > 0 ? service.poll(wait, TimeUnit.MILLISECONDS) : null;
+        }
+        return changes;
+    }
+
+    /**
+     * @return true if the last run created or changed the path, or a folder around it, and it was not
+     * modified since
+     */
+    private boolean isOwnChange(Path path) {
+        for (Path changed = path; changed != null; changed = changed.getParent()) {
+            if (ownChanges.contains(changed)) {
+                try {
+                    return Files.getLastModifiedTime(path).toMillis() <= runEnd;
+                } catch (IOException e) {
+                    // removed since, so there is nothing to run for
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -1,9 +1,13 @@
 package Parser.ASTNodes;
 
+import Compiler.ProgramWriter;
 import Exceptions.FMLExecutionException;
 import Exceptions.InvalidFMLException;
 import Util.Logger;
 
+import java.io.IOException;
+import java.util.List;
+
 /**
  * Represents a node in the AST representation of an FML program
  */
@@ -45,4 +49,18 @@ public abstract class ASTNode {
     public abstract void evaluate(Program program) throws FMLExecutionException;
 
     public abstract void reset() throws FMLExecutionException;
+
+    /**
+     * Writes the subtree starting at this Node, so that it can be read back by ProgramReader.
+     * Only the fields set by the parser are written.
+     */
+    public abstract void write(ProgramWriter out) throws IOException;
+
+    /**
+     * @return the uses of variables by this node itself, not by the nodes under it. Their resolved slots are
+     * written along with the node, see ProgramWriter.writeNode.
+     */
+    public List<VariableReference> getReferences() {
+        return List.of();
+    }
 }
@@ -1,18 +1,25 @@
 package Parser.ASTNodes.Commands;
 
+import Exceptions.FMLExecutionException;
 import Parser.ASTNodes.ASTNode;
+import Parser.ASTNodes.Program;
+import Parser.ASTNodes.VariableReference;
 import Util.Logger;
 
+import java.util.List;
+
 import static Util.ObjectUtil.nullOrEqual;
 
 public abstract class Command extends ASTNode {
 
     protected String targetIdentifier;
     protected String destination;
+    protected final VariableReference target;
 
     public Command(String targetIdentifier, String destination) {
         this.targetIdentifier = targetIdentifier;
         this.destination = destination;
+        this.target = new VariableReference(targetIdentifier);
     }
 
     public String getTargetIdentifier() {
@@ -23,6 +30,65 @@ public abstract class Command extends ASTNode {
         return destination;
     }
 
+    /**
+     * @return the files the command reads and changes. Commands on the same files are run in order,
+     * see CommandPipeline and ActionScheduler.
+     */
+    public FileAccess getFileAccess(Program program) throws FMLExecutionException {
+        return new FileAccess(List.of(), List.of(target.getFileVariable(program).getInnerFileObject()));
+    }
+
+    /**
+     * Evaluates the command while it holds the locks of its files, see PathLocks. Commands that run at the
+     * same time on the same files wait for each other.
+     *
+     * @param program scope the command is evaluated in
+     * @throws FMLExecutionException if the command fails, or is interrupted while waiting for its files
+     */
+    public void run(Program program) throws FMLExecutionException {
+        PathLocks.Held held;
+        try {
+            held = PathLocks.get().lock(getFileAccess(program));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FMLExecutionException("Interrupted while waiting for the files of " + this, e);
+        }
+        try {
+            evaluate(program);
+        } finally {
+            held.release();
+        }
+    }
+
+    /**
+     * @return a scope in which the variables of the command keep the files they refer to now, even if
+     * the given program binds them to other files later, e.g. in the next iteration of a loop
+     */
+    public Program bindVariables(Program program) {
+        return program.snapshot();
+    }
+
+    /**
+     * @return false if the command changes its variables, so that later statements must wait for it
+     */
+    public boolean canRunInBackground() {
+        return true;
+    }
+
+    /**
+     * Points the variables of the command to the files an earlier run of it left them on, without running it
+     * again, e.g. for a statement completed by the run being resumed. See CheckpointJournal.
+     * Commands that do not change their variables have nothing to do.
+     */
+    public void replay(Program program) throws FMLExecutionException {
+        // nothing to do here
+    }
+
+    @Override
+    public List<VariableReference> getReferences() {
+        return List.of(target);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (!this.getClass().isInstance(obj)) {
@@ -1,23 +1,39 @@
 package Parser.ASTNodes.Commands;
 
+import Compiler.NodeTag;
+import Compiler.ProgramWriter;
 import Exceptions.FMLExecutionException;
 import Exceptions.InvalidFMLException;
 import Parser.ASTNodes.Program;
+import Parser.ASTNodes.Variables.FileAttributeCache;
 import Parser.ASTNodes.Variables.FileVariable;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
 
 public class Compress extends Command {
 
+    /**
+     * Level meaning files are stored in the archive without being compressed
+     */
+    public static final int STORE = 0;
+    public static final int DEFAULT_LEVEL = Deflater.DEFAULT_COMPRESSION;
+
+    private final int level;
+
     public Compress(String target) {
+        this(target, DEFAULT_LEVEL);
+    }
+
+    /**
+     * @param level deflate level from 1 (fastest) to 9 (smallest), DEFAULT_LEVEL or STORE
+     */
+    public Compress(String target, int level) {
         super(target, null);
+        this.level = level;
     }
 
     /**
@@ -26,60 +42,50 @@ public class Compress extends Command {
      */
     @Override
     public void evaluate(Program program) throws FMLExecutionException {
-        FileVariable fileVariable = program.getFileVariable(targetIdentifier);
-        File file = fileVariable.getInnerFileObject();
+        FileVariable fileVariable = target.getFileVariable(program);
+        File file = fileVariable.getInnerFileObject().getAbsoluteFile();
         logger.log("Compressing " + file.getAbsolutePath());
 
-        try {
-            String compressedFileName = file.getName().concat(".zip");
-            String fileToWriteTo = new File(file.getParentFile(), compressedFileName).getAbsolutePath();
-            FileOutputStream fos = new FileOutputStream(fileToWriteTo);
-            ZipOutputStream zos = new ZipOutputStream(fos);
-            if (!file.isDirectory()) {
-                zos.putNextEntry(new ZipEntry(file.getName()));
-
-                byte[] bytes = Files.readAllBytes(Paths.get(file.getAbsolutePath()));
-                zos.write(bytes,0, bytes.length);
-                zos.closeEntry();
-                zos.close();
-            } else {
-                zipFile(file, file.getName(), zos);
-                zos.close();
-                fos.close();
-            }
+        if (!file.exists()) {
+            throw new FMLExecutionException(String.format("Cannot compress %s: the file/folder does not exist", file.getName()));
+        }
 
+        File zipFile = new File(file.getParentFile(), file.getName().concat(".zip"));
+        try {
+            List<ParallelZipWriter.Entry> entries = new ArrayList<>();
+            addEntries(file, file.getName(), entries);
+            new ParallelZipWriter(zipFile, level).write(entries);
         } catch (Exception e) {
             throw new FMLExecutionException("Failed to compress indicated file,", e);
+        } finally {
+            FileAttributeCache.get().invalidate(zipFile);
         }
     }
 
-    private void zipFile(File fileToZip, String fileName, ZipOutputStream zipOut) throws IOException {
-        if (fileToZip.isHidden()) {
+    @Override
+    public FileAccess getFileAccess(Program program) throws FMLExecutionException {
+        File file = target.getFileVariable(program).getInnerFileObject().getAbsoluteFile();
+        return new FileAccess(List.of(file), List.of(new File(file.getParentFile(), file.getName().concat(".zip"))));
+    }
+
+    /**
+     * Adds the given file, or the given folder and everything in it, to the entries of the archive.
+     * Hidden files and folders inside the folder are left out, the given file is always added.
+     */
+    private void addEntries(File file, String entryName, List<ParallelZipWriter.Entry> entries) throws IOException {
+        entries.add(new ParallelZipWriter.Entry(file, entryName));
+        if (!file.isDirectory()) {
             return;
         }
-        if (fileToZip.isDirectory()) {
-            if (fileName.endsWith("/")) {
-                zipOut.putNextEntry(new ZipEntry(fileName));
-                zipOut.closeEntry();
-            } else {
-                zipOut.putNextEntry(new ZipEntry(fileName + "/"));
-                zipOut.closeEntry();
-            }
-            File[] children = fileToZip.listFiles();
-            for (File childFile : children) {
-                zipFile(childFile, fileName + "/" + childFile.getName(), zipOut);
-            }
-            return;
+        File[] children = file.listFiles();
+        if (children == null) {
+            throw new IOException("Cannot read folder " + file.getAbsolutePath());
         }
-        FileInputStream fis = new FileInputStream(fileToZip);
-        ZipEntry zipEntry = new ZipEntry(fileName);
-        zipOut.putNextEntry(zipEntry);
-        byte[] bytes = new byte[1024];
-        int length;
-        while ((length = fis.read(bytes)) >= 0) {
-            zipOut.write(bytes, 0, length);
+        for (File child : children) {
+            if (!child.isHidden()) {
+                addEntries(child, entryName + "/" + child.getName(), entries);
+            }
         }
-        fis.close();
     }
 
     @Override
@@ -89,15 +95,26 @@ public class Compress extends Command {
         } else if (!program.identifierIsDeclared(targetIdentifier)) {
             throw new InvalidFMLException("Invalid Command Structure: Target is not declared");
         }
+        target.resolve(program);
+    }
+
+    @Override
+    public void write(ProgramWriter out) throws IOException {
+        out.writeTag(NodeTag.COMPRESS);
+        out.writeString(targetIdentifier);
+        out.writeInt(level);
     }
 
     @Override
     public boolean equals(Object obj) {
-        return (this.getClass().isInstance(obj) && super.equals(obj));
+        return (this.getClass().isInstance(obj) && super.equals(obj) && ((Compress) obj).level == this.level);
     }
 
     @Override
     public String toString() {
-        return "compress " + targetIdentifier;
+        if (level == DEFAULT_LEVEL) {
+            return "compress " + targetIdentifier;
+        }
+        return "compress " + targetIdentifier + " level " + (level == STORE ? "store" : String.valueOf(level));
     }
 }
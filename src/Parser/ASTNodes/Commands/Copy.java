@@ -1,15 +1,22 @@
 package Parser.ASTNodes.Commands;
 
+import Compiler.NodeTag;
+import Compiler.ProgramWriter;
 import Exceptions.FMLExecutionException;
 import Exceptions.InvalidFMLException;
 import Parser.ASTNodes.Program;
+import Parser.ASTNodes.VariableReference;
+import Parser.ASTNodes.Variables.FileAttributeCache;
 import Parser.ASTNodes.Variables.FileVariable;
-import org.apache.commons.io.FileUtils;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.List;
 
 public class Copy extends Command {
 
+    private final VariableReference destinationFolder = new VariableReference(destination);
+
     public Copy(String target, String destination) {
         super(target, destination);
     }
@@ -20,8 +27,8 @@ public class Copy extends Command {
      */
     @Override
     public void evaluate(Program program) throws FMLExecutionException {
-        FileVariable targetVar = program.getFileVariable(this.targetIdentifier);
-        FileVariable destFolderVar = program.getFileVariable(this.destination);
+        FileVariable targetVar = target.getFileVariable(program);
+        FileVariable destFolderVar = destinationFolder.getFileVariable(program);
         logger.log(String.format("Copying %s to %s", targetVar.getAbsolutePath(), destFolderVar.getAbsolutePath()));
 
         if (!destFolderVar.isDirectory()) {
@@ -30,20 +37,30 @@ public class Copy extends Command {
 
         File targetFile = targetVar.getInnerFileObject();
         File destFold = destFolderVar.getInnerFileObject();
+        File copiedFile = new File(destFold, targetFile.getName());
         try {
             if (targetFile.isFile()) {
-                FileUtils.copyFileToDirectory(targetFile, destFold);
+                CopyEngine.copyFile(targetFile.toPath(), copiedFile.toPath());
             } else if (targetFile.isDirectory()) {
-                FileUtils.copyDirectoryToDirectory(targetFile, destFold);
+                CopyEngine.copyDirectory(targetFile.toPath(), copiedFile.toPath());
             } else {
                 throw new FMLExecutionException("target file cannot be recognized as a valid file type.");
             }
 
         } catch (Exception e) {
             throw new FMLExecutionException("API failed to execute copy " + this.targetIdentifier + " to " + this.destination, e);
+        } finally {
+            FileAttributeCache.get().invalidate(copiedFile);
         }
     }
 
+    @Override
+    public FileAccess getFileAccess(Program program) throws FMLExecutionException {
+        File targetFile = target.getFileVariable(program).getInnerFileObject();
+        File destFolder = destinationFolder.getFileVariable(program).getInnerFileObject();
+        return new FileAccess(List.of(targetFile), List.of(new File(destFolder, targetFile.getName())));
+    }
+
     @Override
     public void validate(Program program) throws InvalidFMLException, FMLExecutionException {
         if (!(this.targetIdentifier != null &&
@@ -52,6 +69,20 @@ public class Copy extends Command {
                 program.identifierIsDeclared(this.destination))) {
             throw new InvalidFMLException("Invalid Copy Command structure! Cannot validate copy" + this.targetIdentifier + " to " + this.destination);
         }
+        target.resolve(program);
+        destinationFolder.resolve(program);
+    }
+
+    @Override
+    public void write(ProgramWriter out) throws IOException {
+        out.writeTag(NodeTag.COPY);
+        out.writeString(targetIdentifier);
+        out.writeString(destination);
+    }
+
+    @Override
+    public List<VariableReference> getReferences() {
+        return List.of(target, destinationFolder);
     }
 
     @Override
@@ -0,0 +1,206 @@
+package Parser.ASTNodes.Commands;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Copies files and folders the same way FileUtils.copyFileToDirectory and copyDirectoryToDirectory do
+ * (existing files are replaced, existing folders are merged and last modified times are kept), but:
+ * - large files are copied with FileChannel.transferTo, so the bytes do not go through the JVM
+ * - the files and sub folders of a folder are copied concurrently on a bounded pool
+ */
+class CopyEngine {
+
+    /**
+     * Files at least this large are copied with transferTo. Smaller files are copied with Files.copy.
+     */
+    private static final long TRANSFER_THRESHOLD = 1024 * 1024;
+
+    /**
+     * Maximum number of files that are copied at the same time
+     */
+    private static final int PARALLELISM = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Maximum number of files of a folder that are copied by one task
+     */
+    private static final int FILES_PER_TASK = 32;
+
+    private static ForkJoinPool pool;
+
+    /**
+     * Copies the given file, replacing the destination if it exists
+     *
+     * @param source      file to copy
+     * @param destination path of the copy
+     */
+    static void copyFile(Path source, Path destination) throws IOException {
+        checkNotSame(source, destination);
+        FileTime lastModified = Files.getLastModifiedTime(source);
+        long size = Files.size(source);
+
+        if (size < TRANSFER_THRESHOLD) {
+            Files.copy(source, destination, StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(destination, StandardOpenOption.WRITE,
+                         StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long position = 0;
+                while (position < size) {
+                    // transferTo may copy fewer bytes than asked for
+                    long transferred = in.transferTo(position, size - position, out);
+                    if (transferred <= 0) {
+                        break;
+                    }
+                    position += transferred;
+                }
+            }
+            if (Files.size(destination) != size) {
+                throw new IOException("Failed to copy full contents from " + source + " to " + destination);
+            }
+        }
+        Files.setLastModifiedTime(destination, lastModified);
+    }
+
+    /**
+     * Copies the given folder and everything in it, merging it into the destination if it exists
+     *
+     * @param source      folder to copy
+     * @param destination path of the copy
+     */
+    static void copyDirectory(Path source, Path destination) throws IOException {
+        checkNotSame(source, destination);
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        // a folder copied into itself must not copy its own copy
+        Path absoluteDestination = destination.toAbsolutePath().normalize();
+        Path exclude = absoluteDestination.startsWith(source.toAbsolutePath().normalize()) ? absoluteDestination : null;
+        getPool().invoke(new DirectoryTask(source, destination, exclude, failure));
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    private static void checkNotSame(Path source, Path destination) throws IOException {
+        if (source.toAbsolutePath().normalize().equals(destination.toAbsolutePath().normalize())) {
+            throw new IOException("Source '" + source + "' and destination '" + destination + "' are the same");
+        }
+    }
+
+    private static synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(PARALLELISM);
+        }
+        return pool;
+    }
+
+    /**
+     * Copies one folder. Its files are copied in batches and each sub folder gets its own task.
+     * The last modified time of the folder is set once everything in it has been copied.
+     */
+    @SuppressWarnings("serial")     // tasks are never serialized
+    private static class DirectoryTask extends RecursiveAction {
+
+        private final Path source;
+        private final Path destination;
+        private final Path exclude;
+        private final AtomicReference<IOException> failure;
+
+        DirectoryTask(Path source, Path destination, Path exclude, AtomicReference<IOException> failure) {
+            this.source = source;
+            this.destination = destination;
+            this.exclude = exclude;
+            this.failure = failure;
+        }
+
+        @Override
+        protected void compute() {
+            List<RecursiveAction> tasks = new ArrayList<>();
+            try {
+                Files.createDirectories(destination);
+                List<Path> files = new ArrayList<>();
+                try (DirectoryStream<Path> entries = Files.newDirectoryStream(source)) {
+                    for (Path entry : entries) {
+                        if (failure.get() != null) {
+                            return;
+                        }
+                        Path copy = destination.resolve(entry.getFileName().toString());
+                        if (Files.isDirectory(entry)) {
+                            if (exclude != null && entry.toAbsolutePath().normalize().equals(exclude)) {
+                                continue;
+                            }
+                            tasks.add(new DirectoryTask(entry, copy, exclude, failure));
+                        } else {
+                            files.add(entry);
+                            if (files.size() == FILES_PER_TASK) {
+                                tasks.add(new FilesTask(files, destination, failure));
+                                files = new ArrayList<>();
+                            }
+                        }
+                    }
+                }
+                if (!files.isEmpty()) {
+                    tasks.add(new FilesTask(files, destination, failure));
+                }
+            } catch (IOException e) {
+                failure.compareAndSet(null, e);
+                return;
+            } catch (DirectoryIteratorException e) {
+                failure.compareAndSet(null, e.getCause());
+                return;
+            }
+
+            invokeAll(tasks);
+            if (failure.get() != null) {
+                return;
+            }
+            try {
+                Files.setLastModifiedTime(destination, Files.getLastModifiedTime(source));
+            } catch (IOException e) {
+                failure.compareAndSet(null, e);
+            }
+        }
+    }
+
+    /**
+     * Copies a batch of files into a folder
+     */
+    @SuppressWarnings("serial")     // tasks are never serialized
+    private static class FilesTask extends RecursiveAction {
+
+        private final List<Path> files;
+        private final Path destination;
+        private final AtomicReference<IOException> failure;
+
+        FilesTask(List<Path> files, Path destination, AtomicReference<IOException> failure) {
+            this.files = files;
+            this.destination = destination;
+            this.failure = failure;
+        }
+
+        @Override
+        protected void compute() {
+            for (Path file : files) {
+                if (failure.get() != null) {
+                    return;
+                }
+                try {
+                    copyFile(file, destination.resolve(file.getFileName().toString()));
+                } catch (IOException e) {
+                    failure.compareAndSet(null, e);
+                }
+            }
+        }
+    }
+}
@@ -1,12 +1,16 @@
 package Parser.ASTNodes.Commands;
 
+import Compiler.NodeTag;
+import Compiler.ProgramWriter;
 import Exceptions.FMLExecutionException;
 import Exceptions.InvalidFMLException;
 import Parser.ASTNodes.Program;
+import Parser.ASTNodes.Variables.FileAttributeCache;
 import Parser.ASTNodes.Variables.FileVariable;
 import org.apache.commons.io.FileUtils;
 
 import java.io.File;
+import java.io.IOException;
 
 public class Create extends Command {
 
@@ -20,7 +24,7 @@ public class Create extends Command {
      */
     @Override
     public void evaluate(Program program) throws FMLExecutionException {
-        FileVariable var = program.getFileVariable(targetIdentifier);
+        FileVariable var = target.getFileVariable(program);
         File file = var.getInnerFileObject();
         logger.log(String.format("Creating %s", var.getAbsolutePath()));
 
@@ -28,6 +32,11 @@ public class Create extends Command {
             FileUtils.forceMkdir(file);
         } catch (Exception e) {
             throw new FMLExecutionException("Failed to create indicated folder,", e);
+        } finally {
+            // missing parent folders are created too
+            for (File created = file; created != null; created = created.getAbsoluteFile().getParentFile()) {
+                FileAttributeCache.get().invalidate(created);
+            }
         }
     }
 
@@ -38,6 +47,13 @@ public class Create extends Command {
         } else if (!program.identifierIsDeclared(targetIdentifier)) {
             throw new InvalidFMLException("Invalid Command Structure: Target is not declared");
         }
+        target.resolve(program);
+    }
+
+    @Override
+    public void write(ProgramWriter out) throws IOException {
+        out.writeTag(NodeTag.CREATE);
+        out.writeString(targetIdentifier);
     }
 
     @Override
@@ -1,12 +1,16 @@
 package Parser.ASTNodes.Commands;
 
+import Compiler.NodeTag;
+import Compiler.ProgramWriter;
 import Exceptions.FMLExecutionException;
 import Exceptions.InvalidFMLException;
 import Parser.ASTNodes.Program;
+import Parser.ASTNodes.Variables.FileAttributeCache;
 import Parser.ASTNodes.Variables.FileVariable;
 import org.apache.commons.io.FileUtils;
 
 import java.io.File;
+import java.io.IOException;
 
 public class Delete extends Command {
 
@@ -19,7 +23,7 @@ public class Delete extends Command {
      */
     @Override
     public void evaluate(Program program) throws FMLExecutionException {
-        FileVariable var = program.getFileVariable(targetIdentifier);
+        FileVariable var = target.getFileVariable(program);
         File file = var.getInnerFileObject();
         logger.log(String.format("Deleting %s", var.getAbsolutePath()));
 
@@ -30,6 +34,8 @@ public class Delete extends Command {
             FileUtils.forceDelete(file);
         } catch (Exception e) {
             throw new FMLExecutionException("Failed to delete indicated file,", e);
+        } finally {
+            FileAttributeCache.get().invalidate(file);
         }
     }
 
@@ -40,6 +46,13 @@ public class Delete extends Command {
         } else if (!program.identifierIsDeclared(targetIdentifier)) {
             throw new InvalidFMLException("Invalid Command Structure: Target is not declared");
         }
+        target.resolve(program);
+    }
+
+    @Override
+    public void write(ProgramWriter out) throws IOException {
+        out.writeTag(NodeTag.DELETE);
+        out.writeString(targetIdentifier);
     }
 
     @Override
@@ -0,0 +1,83 @@
+package Parser.ASTNodes.Commands;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The files a command reads and the files it changes. A change to a folder covers the files inside it,
+ * and a change to a file covers the folders around it, so two commands conflict if one changes a file
+ * the other reads or changes, or a file inside or around it. Commands that do not conflict can run at
+ * the same time, in any order.
+ */
+public class FileAccess {
+
+    private final List<Path> read;
+    private final List<Path> changed;
+
+    /**
+     * @param read    files that are read but left as they are
+     * @param changed files that are created, changed or deleted
+     */
+    public FileAccess(List<File> read, List<File> changed) {
+        this.read = normalize(read);
+        this.changed = normalize(changed);
+    }
+
+    /**
+     * @return the access of a statement that only reads the given file, e.g. to test its attributes
+     */
+    public static FileAccess reading(File file) {
+        return new FileAccess(List.of(file), List.of());
+    }
+
+    /**
+     * @return the absolute paths of the files that are read but left as they are
+     */
+    public List<Path> getRead() {
+        return read;
+    }
+
+    /**
+     * @return the absolute paths of the files that are created, changed or deleted
+     */
+    public List<Path> getChanged() {
+        return changed;
+    }
+
+    /**
+     * @return the absolute paths of the files that are read or changed
+     */
+    public List<Path> getPaths() {
+        List<Path> paths = new ArrayList<>(read);
+        paths.addAll(changed);
+        return paths;
+    }
+
+    /**
+     * @return true if the two cannot run at the same time
+     */
+    public boolean conflicts(FileAccess other) {
+        return overlap(changed, other.changed) || overlap(changed, other.read) || overlap(read, other.changed);
+    }
+
+    private static boolean overlap(List<Path> paths, List<Path> others) {
+        for (Path path : paths) {
+            for (Path other : others) {
+                if (path.startsWith(other) || other.startsWith(path)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static List<Path> normalize(List<File> files) {
+        List<Path> paths = new ArrayList<>(files.size());
+        for (File file : files) {
+            paths.add(file.toPath().toAbsolutePath().normalize());
+        }
+        return paths;
+    }
+}
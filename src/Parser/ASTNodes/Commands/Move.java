@@ -1,11 +1,24 @@
 package Parser.ASTNodes.Commands;
 
+import Compiler.NodeTag;
+import Compiler.ProgramWriter;
 import Exceptions.FMLExecutionException;
 import Exceptions.InvalidFMLException;
 import Parser.ASTNodes.Program;
+import Parser.ASTNodes.VariableReference;
+import Parser.ASTNodes.Variables.FileAttributeCache;
+import Parser.ASTNodes.Variables.FileVariable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.util.List;
 
 public class Move extends Command {
 
+    private final VariableReference destinationFolder = new VariableReference(destination);
+
     public Move(String target, String destination) {
         super(target, destination);
     }
@@ -13,11 +26,27 @@ public class Move extends Command {
     /**
      * Moves the target file to the destination path.
      * Must set target and destination first.
+     * Within one file store the target is renamed into the destination folder. Otherwise,
+     * or if the destination folder already has a file or folder with the same name, it is copied then deleted.
+     * The rename itself fails if the name is taken, so a file created at the destination in the meantime
+     * is never replaced.
      */
     @Override
     public void evaluate(Program program) throws FMLExecutionException {
-        logger.log("Executing Move as Copy + Delete");
+        FileVariable targetVar = target.getFileVariable(program);
+        FileVariable destFolderVar = destinationFolder.getFileVariable(program);
+        File targetFile = targetVar.getInnerFileObject();
+        File movedFile = new File(destFolderVar.getInnerFileObject(), targetFile.getName());
+
         try {
+            if (targetVar.exists() && destFolderVar.isDirectory()
+                    && sameFileStore(targetFile, destFolderVar.getInnerFileObject())) {
+                logger.log(String.format("Moving %s to %s by renaming it", targetVar.getAbsolutePath(), destFolderVar.getAbsolutePath()));
+                if (rename(targetFile, movedFile)) {
+                    return;
+                }
+            }
+            logger.log("Executing Move as Copy + Delete");
             Copy cp = new Copy(this.targetIdentifier, this.destination);
             Delete del = new Delete(this.targetIdentifier);
             cp.evaluate(program);
@@ -27,6 +56,39 @@ public class Move extends Command {
         }
     }
 
+    /**
+     * @return true if the given file was renamed, false if it must be copied instead
+     */
+    private boolean rename(File targetFile, File movedFile) throws FMLExecutionException {
+        try {
+            Files.move(targetFile.toPath(), movedFile.toPath());      // without REPLACE_EXISTING
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            logger.log("Destination folder already has " + movedFile.getName());
+            return false;
+        } catch (IOException e) {
+            throw new FMLExecutionException("Failed to move " + targetFile.getName(), e);
+        } finally {
+            FileAttributeCache.get().invalidate(targetFile);
+            FileAttributeCache.get().invalidate(movedFile);
+        }
+    }
+
+    private static boolean sameFileStore(File targetFile, File destFolder) {
+        try {
+            return Files.getFileStore(targetFile.toPath()).equals(Files.getFileStore(destFolder.toPath()));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public FileAccess getFileAccess(Program program) throws FMLExecutionException {
+        File targetFile = target.getFileVariable(program).getInnerFileObject();
+        File destFolder = destinationFolder.getFileVariable(program).getInnerFileObject();
+        return new FileAccess(List.of(), List.of(targetFile, new File(destFolder, targetFile.getName())));
+    }
+
     @Override
     public void validate(Program program) throws InvalidFMLException, FMLExecutionException {
         if (!(this.targetIdentifier != null &&
@@ -35,6 +97,20 @@ public class Move extends Command {
                 program.identifierIsDeclared(this.destination))) {
             throw new InvalidFMLException("Invalid Move Command structure! Cannot validate move" + this.targetIdentifier + " to " + this.destination);
         }
+        target.resolve(program);
+        destinationFolder.resolve(program);
+    }
+
+    @Override
+    public void write(ProgramWriter out) throws IOException {
+        out.writeTag(NodeTag.MOVE);
+        out.writeString(targetIdentifier);
+        out.writeString(destination);
+    }
+
+    @Override
+    public List<VariableReference> getReferences() {
+        return List.of(target, destinationFolder);
     }
 
     @Override
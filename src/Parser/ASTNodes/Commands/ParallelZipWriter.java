@@ -0,0 +1,431 @@
+package Parser.ASTNodes.Commands;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes a zip archive whose entries are compressed concurrently.
+ *
+ * java.util.zip.ZipOutputStream compresses each entry as it is written, so it can only use one thread.
+ * Here every file is compressed by a worker, either into memory or, for large files, into a temporary
+ * file, and the compressed entries are then written to the archive one at a time and in order.
+ * Zip64 records are written when the archive or one of its files is too large for a regular zip.
+ */
+class ParallelZipWriter {
+
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Maximum number of compressed entries that wait to be written. Bounds the memory held by compressed entries.
+     */
+    private static final int MAX_PENDING = PARALLELISM * 2;
+
+    /**
+     * Files up to this size are compressed into memory. Larger files are compressed into a temporary file.
+     */
+    private static final long IN_MEMORY_LIMIT = 4 * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private static final long ZIP64_LIMIT = 0xFFFFFFFFL;
+    private static final int ZIP64_ENTRY_LIMIT = 0xFFFF;
+
+    private static ForkJoinPool pool;
+
+    private final File zipFile;
+    private final int level;
+    private final List<CentralRecord> centralDirectory = new ArrayList<>();
+    private long offset = 0;
+
+    /**
+     * @param zipFile path of the archive to write
+     * @param level   deflate level from 1 to 9, Compress.DEFAULT_LEVEL, or Compress.STORE
+     */
+    ParallelZipWriter(File zipFile, int level) {
+        this.zipFile = zipFile;
+        this.level = level;
+    }
+
+    /**
+     * Writes the archive. The archive is removed if any entry cannot be written.
+     *
+     * @param entries the files and folders to add, in order
+     */
+    void write(List<Entry> entries) throws IOException {
+        Deque<Future<Compressed>> pending = new ArrayDeque<>();
+        boolean written = false;
+        try (FileOutputStream fos = new FileOutputStream(zipFile);
+             BufferedOutputStream out = new BufferedOutputStream(fos, BUFFER_SIZE)) {
+            for (Entry entry : entries) {
+                if (pending.size() == MAX_PENDING) {
+                    writeEntry(fos, out, await(pending.poll()));
+                }
+                pending.add(getPool().submit(() -> compress(entry)));
+            }
+            while (!pending.isEmpty()) {
+                writeEntry(fos, out, await(pending.poll()));
+            }
+            writeCentralDirectory(out);
+            written = true;
+        } finally {
+            if (!written) {
+                discard(pending);
+                Files.deleteIfExists(zipFile.toPath());
+            }
+        }
+    }
+
+    /**
+     * A file or folder to add to the archive
+     */
+    static class Entry {
+        private final File file;
+        private final String name;
+        private final boolean directory;
+        private final long length;
+        private final long lastModified;
+
+        /**
+         * @param file the file or folder
+         * @param name the path of the entry in the archive, using "/" as separator
+         */
+        Entry(File file, String name) throws IOException {
+            BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+            this.file = file;
+            this.directory = attributes.isDirectory();
+            this.name = directory && !name.endsWith("/") ? name + "/" : name;
+            this.length = attributes.size();
+            this.lastModified = attributes.lastModifiedTime().toMillis();
+        }
+    }
+
+    private static synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(PARALLELISM);
+        }
+        return pool;
+    }
+
+    /**
+     * Runs on a worker. Reads the file once, computing its checksum and compressing it.
+     */
+    private Compressed compress(Entry entry) throws IOException {
+        Compressed compressed = new Compressed(entry);
+        if (entry.directory) {
+            return compressed;
+        }
+
+        CRC32 crc = new CRC32();
+        int bufferSize = (int) Math.max(512, Math.min(entry.length, BUFFER_SIZE));
+        byte[] buffer = new byte[bufferSize];
+        if (level == Compress.STORE) {
+            // the data is copied straight from the file when the entry is written
+            try (InputStream in = Files.newInputStream(entry.file.toPath())) {
+                compressed.size = readInto(in, buffer, crc, null);
+            }
+            compressed.compressedSize = compressed.size;
+            compressed.crc = crc.getValue();
+            return compressed;
+        }
+
+        OutputStream target;
+        if (entry.length <= IN_MEMORY_LIMIT) {
+            compressed.data = new ByteArrayOutputStream(bufferSize);
+            target = compressed.data;
+        } else {
+            compressed.tempFile = Files.createTempFile("fml-compress", ".deflate");
+            target = Files.newOutputStream(compressed.tempFile);
+        }
+
+        Deflater deflater = new Deflater(level, true);
+        try (InputStream in = Files.newInputStream(entry.file.toPath());
+             DeflaterOutputStream deflated = new DeflaterOutputStream(target, deflater, bufferSize)) {
+            compressed.size = readInto(in, buffer, crc, deflated);
+        } catch (IOException e) {
+            compressed.discard();
+            throw e;
+        } finally {
+            deflater.end();
+        }
+        compressed.compressedSize = compressed.data != null ? compressed.data.size() : Files.size(compressed.tempFile);
+        compressed.crc = crc.getValue();
+        return compressed;
+    }
+
+    private static long readInto(InputStream in, byte[] buffer, CRC32 crc, OutputStream out) throws IOException {
+        long size = 0;
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            crc.update(buffer, 0, read);
+            if (out != null) {
+                out.write(buffer, 0, read);
+            }
+            size += read;
+        }
+        return size;
+    }
+
+    private static Compressed await(Future<Compressed> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while compressing", e);
+        } catch (ExecutionException e) {
+            // the pool may wrap the exception thrown by the worker
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Waits for the entries that are still being compressed and removes their temporary files
+     */
+    private static void discard(Deque<Future<Compressed>> pending) {
+        for (Future<Compressed> future : pending) {
+            try {
+                future.get().discard();
+            } catch (Exception e) {
+                // failed, nothing was kept
+            }
+        }
+    }
+
+    private void writeEntry(FileOutputStream fos, BufferedOutputStream out, Compressed entry) throws IOException {
+        try {
+            byte[] name = entry.name.getBytes(StandardCharsets.UTF_8);
+            boolean zip64 = entry.size >= ZIP64_LIMIT || entry.compressedSize >= ZIP64_LIMIT;
+            centralDirectory.add(new CentralRecord(entry, offset));
+
+            writeInt(out, 0x04034b50);
+            writeShort(out, zip64 ? 45 : 20);
+            writeShort(out, 1 << 11); // names are UTF-8
+            writeShort(out, entry.method());
+            writeInt(out, entry.dosTime);
+            writeInt(out, (int) entry.crc);
+            writeInt(out, zip64 ? (int) ZIP64_LIMIT : (int) entry.compressedSize);
+            writeInt(out, zip64 ? (int) ZIP64_LIMIT : (int) entry.size);
+            writeShort(out, name.length);
+            writeShort(out, zip64 ? 20 : 0);
+            write(out, name);
+            if (zip64) {
+                writeShort(out, 0x0001);
+                writeShort(out, 16);
+                writeLong(out, entry.size);
+                writeLong(out, entry.compressedSize);
+            }
+
+            if (entry.data != null) {
+                entry.data.writeTo(out);
+            } else if (entry.compressedSize > 0) {
+                // large entries are copied by the kernel, straight from the source or temporary file
+                out.flush();
+                Path source = entry.tempFile != null ? entry.tempFile : entry.file.toPath();
+                try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+                    long position = 0;
+                    while (position < entry.compressedSize) {
+                        long transferred = in.transferTo(position, entry.compressedSize - position, fos.getChannel());
+                        if (transferred <= 0) {
+                            throw new IOException(entry.file + " changed while it was being compressed");
+                        }
+                        position += transferred;
+                    }
+                }
+            }
+            offset += entry.compressedSize;
+        } finally {
+            entry.discard();
+        }
+    }
+
+    private void writeCentralDirectory(OutputStream out) throws IOException {
+        long start = offset;
+        for (CentralRecord record : centralDirectory) {
+            byte[] name = record.name.getBytes(StandardCharsets.UTF_8);
+            boolean sizes64 = record.size >= ZIP64_LIMIT || record.compressedSize >= ZIP64_LIMIT;
+            boolean offset64 = record.offset >= ZIP64_LIMIT;
+            int extraLength = (sizes64 ? 16 : 0) + (offset64 ? 8 : 0);
+
+            writeInt(out, 0x02014b50);
+            writeShort(out, 45);
+            writeShort(out, extraLength > 0 ? 45 : 20);
+            writeShort(out, 1 << 11);
+            writeShort(out, record.method);
+            writeInt(out, record.dosTime);
+            writeInt(out, (int) record.crc);
+            writeInt(out, sizes64 ? (int) ZIP64_LIMIT : (int) record.compressedSize);
+            writeInt(out, sizes64 ? (int) ZIP64_LIMIT : (int) record.size);
+            writeShort(out, name.length);
+            writeShort(out, extraLength > 0 ? extraLength + 4 : 0);
+            writeShort(out, 0); // comment length
+            writeShort(out, 0); // disk number
+            writeShort(out, 0); // internal attributes
+            writeInt(out, record.name.endsWith("/") ? 0x10 : 0); // external attributes, 0x10 for folders
+            writeInt(out, offset64 ? (int) ZIP64_LIMIT : (int) record.offset);
+            write(out, name);
+            if (extraLength > 0) {
+                writeShort(out, 0x0001);
+                writeShort(out, extraLength);
+                if (sizes64) {
+                    writeLong(out, record.size);
+                    writeLong(out, record.compressedSize);
+                }
+                if (offset64) {
+                    writeLong(out, record.offset);
+                }
+            }
+        }
+        long size = offset - start;
+        int count = centralDirectory.size();
+
+        if (count >= ZIP64_ENTRY_LIMIT || size >= ZIP64_LIMIT || start >= ZIP64_LIMIT) {
+            long zip64End = offset;
+            writeInt(out, 0x06064b50);
+            writeLong(out, 44);
+            writeShort(out, 45);
+            writeShort(out, 45);
+            writeInt(out, 0);
+            writeInt(out, 0);
+            writeLong(out, count);
+            writeLong(out, count);
+            writeLong(out, size);
+            writeLong(out, start);
+
+            writeInt(out, 0x07064b50);
+            writeInt(out, 0);
+            writeLong(out, zip64End);
+            writeInt(out, 1);
+        }
+
+        writeInt(out, 0x06054b50);
+        writeShort(out, 0);
+        writeShort(out, 0);
+        writeShort(out, Math.min(count, ZIP64_ENTRY_LIMIT));
+        writeShort(out, Math.min(count, ZIP64_ENTRY_LIMIT));
+        writeInt(out, (int) Math.min(size, ZIP64_LIMIT));
+        writeInt(out, (int) Math.min(start, ZIP64_LIMIT));
+        writeShort(out, 0);
+    }
+
+    private void write(OutputStream out, byte[] bytes) throws IOException {
+        out.write(bytes);
+        offset += bytes.length;
+    }
+
+    private void writeShort(OutputStream out, int value) throws IOException {
+        out.write(value & 0xFF);
+        out.write((value >>> 8) & 0xFF);
+        offset += 2;
+    }
+
+    private void writeInt(OutputStream out, int value) throws IOException {
+        writeShort(out, value & 0xFFFF);
+        writeShort(out, (value >>> 16) & 0xFFFF);
+    }
+
+    private void writeLong(OutputStream out, long value) throws IOException {
+        writeInt(out, (int) value);
+        writeInt(out, (int) (value >>> 32));
+    }
+
+    /**
+     * @return the time in the MS-DOS format used by zip headers
+     */
+    private static int toDosTime(long millis) {
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+        if (time.getYear() < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return (time.getYear() - 1980) << 25 | time.getMonthValue() << 21 | time.getDayOfMonth() << 16
+                | time.getHour() << 11 | time.getMinute() << 5 | time.getSecond() >> 1;
+    }
+
+    /**
+     * An entry that has been compressed and is waiting to be written
+     */
+    private class Compressed {
+        private final File file;
+        private final String name;
+        private final boolean directory;
+        private final int dosTime;
+        private long size;
+        private long compressedSize;
+        private long crc;
+        private ByteArrayOutputStream data;
+        private Path tempFile;
+
+        Compressed(Entry entry) {
+            this.file = entry.file;
+            this.name = entry.name;
+            this.directory = entry.directory;
+            this.dosTime = toDosTime(entry.lastModified);
+        }
+
+        int method() {
+            return level == Compress.STORE || directory ? 0 : 8;
+        }
+
+        void discard() {
+            data = null;
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException e) {
+                    tempFile.toFile().deleteOnExit();
+                }
+                tempFile = null;
+            }
+        }
+    }
+
+    /**
+     * What the central directory needs to know about an entry once its data has been written
+     */
+    private static class CentralRecord {
+        private final String name;
+        private final int method;
+        private final int dosTime;
+        private final long crc;
+        private final long size;
+        private final long compressedSize;
+        private final long offset;
+
+        CentralRecord(Compressed entry, long offset) {
+            this.name = entry.name;
+            this.method = entry.method();
+            this.dosTime = entry.dosTime;
+            this.crc = entry.crc;
+            this.size = entry.size;
+            this.compressedSize = entry.compressedSize;
+            this.offset = offset;
+        }
+    }
+}
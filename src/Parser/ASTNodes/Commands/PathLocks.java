@@ -0,0 +1,326 @@
+package Parser.ASTNodes.Commands;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Locks on the files that commands use, so that commands that run at the same time on the same files, e.g.
+ * in the iterations of a parallel loop, wait for each other instead of racing. A command locks the files it
+ * reads as shared and the files it changes as exclusive, see FileAccess.
+ *
+ * Locks are hierarchical: a command also takes an intent lock on every folder around its files. Locking a
+ * folder exclusively therefore waits for the commands on any file inside it, and the other way around, while
+ * commands on different files of the same folder do not wait for each other.
+ *
+ * The locks held on each path are counted with atomic updates, without taking any monitor, so that the
+ * intent locks every command takes on the folders up to the root do not serialize the commands. A command
+ * only blocks on the path it has to wait for, and a release only wakes the commands waiting on that path.
+ * A command takes its locks in the order of their paths, so that two commands never wait for each other.
+ */
+public class PathLocks {
+
+    private static PathLocks locks;
+
+    private final Map<Path, Holders> holders = new ConcurrentHashMap<>();    // paths that are locked or waited for
+
+    private final LongAdder acquired = new LongAdder();       // commands that took their locks
+    private final LongAdder contended = new LongAdder();      // locks that had to wait for another command
+    private final LongAdder waitNanos = new LongAdder();      // time spent waiting for those locks
+
+    PathLocks() {
+    }
+
+    public static synchronized PathLocks get() {
+        if (locks == null) {
+            locks = new PathLocks();
+        }
+        return locks;
+    }
+
+    /**
+     * Waits until no other command holds a conflicting lock on the files, or the folders around them
+     *
+     * @param access files the command reads and changes
+     * @return the locks taken, to be released once the command is done
+     * @throws InterruptedException if interrupted while waiting. No locks are held then.
+     */
+    public Held lock(FileAccess access) throws InterruptedException {
+        Map<Path, Mode> requests = new TreeMap<>();
+        for (Path path : access.getRead()) {
+            request(requests, path, Mode.SHARED, Mode.INTENT_SHARED);
+        }
+        for (Path path : access.getChanged()) {
+            request(requests, path, Mode.EXCLUSIVE, Mode.INTENT_EXCLUSIVE);
+        }
+
+        Held held = new Held();
+        try {
+            for (Map.Entry<Path, Mode> request : requests.entrySet()) {
+                held.holders.add(acquire(request.getKey(), request.getValue()));
+                held.modes.add(request.getValue());
+            }
+        } catch (InterruptedException e) {
+            held.release();
+            throw e;
+        }
+        acquired.increment();
+        return held;
+    }
+
+    /**
+     * @return the counts of locks taken and waited for since the last reset
+     */
+    public Metrics getMetrics() {
+        return new Metrics(acquired.sum(), contended.sum(), TimeUnit.NANOSECONDS.toMillis(waitNanos.sum()));
+    }
+
+    public void resetMetrics() {
+        acquired.reset();
+        contended.reset();
+        waitNanos.reset();
+    }
+
+    /**
+     * Adds the lock of the path, and the intent locks of the folders around it, to the requests
+     */
+    private static void request(Map<Path, Mode> requests, Path path, Mode mode, Mode intent) {
+        requests.merge(path, mode, Mode::join);
+        for (Path folder = path.getParent(); folder != null; folder = folder.getParent()) {
+            requests.merge(folder, intent, Mode::join);
+        }
+    }
+
+    /**
+     * Waits until the lock of the path can be taken in the given mode, and takes it
+     *
+     * @return the holders of the path, to release the lock with
+     */
+    private Holders acquire(Path path, Mode mode) throws InterruptedException {
+        while (true) {
+            Holders current = holders.computeIfAbsent(path, Holders::new);
+            int result = current.tryAcquire(mode);
+            if (result == Holders.BLOCKED) {
+                result = await(current, mode);
+            }
+            if (result == Holders.ACQUIRED) {
+                return current;
+            }
+            holders.remove(path, current);      // retired once its last lock was released
+        }
+    }
+
+    /**
+     * Waits on the holders of a path until the lock can be taken, or the holders are retired
+     *
+     * @return ACQUIRED or RETIRED
+     */
+    private int await(Holders current, Mode mode) throws InterruptedException {
+        contended.increment();
+        long start = System.nanoTime();
+        current.waiters.incrementAndGet();
+        try {
+            synchronized (current) {
+                int result;
+                while ((result = current.tryAcquire(mode)) == Holders.BLOCKED) {
+                    current.wait();
+                }
+                return result;
+            }
+        } finally {
+            current.waiters.decrementAndGet();
+            waitNanos.add(System.nanoTime() - start);
+            retireIfIdle(current);
+        }
+    }
+
+    private void release(Holders current, Mode mode) {
+        current.release(mode);
+        if (current.waiters.get() > 0) {
+            synchronized (current) {
+                current.notifyAll();
+            }
+        }
+        retireIfIdle(current);
+    }
+
+    /**
+     * Removes the holders of a path once no lock is held on it and no command waits for it
+     */
+    private void retireIfIdle(Holders current) {
+        if (current.waiters.get() == 0 && current.retire()) {
+            holders.remove(current.path, current);
+        }
+    }
+
+    /**
+     * Lock modes, from weakest to strongest
+     */
+    enum Mode {
+        INTENT_SHARED,          // a file inside the folder is read
+        INTENT_EXCLUSIVE,       // a file inside the folder is changed
+        SHARED,                 // the file, and anything inside it, is read
+        EXCLUSIVE;              // the file, and anything inside it, is changed
+
+        private static final Mode[] MODES = values();
+
+        /**
+         * @return true if a command may take this mode while another command holds the other
+         */
+        boolean compatible(Mode other) {
+            switch (this) {
+                case INTENT_SHARED:
+                    return other != EXCLUSIVE;
+                case INTENT_EXCLUSIVE:
+                    return other == INTENT_SHARED || other == INTENT_EXCLUSIVE;
+                case SHARED:
+                    return other == INTENT_SHARED || other == SHARED;
+                default:
+                    return false;
+            }
+        }
+
+        /**
+         * @return the weakest mode that covers both. Reading a folder and changing a file inside it needs
+         * the folder exclusively.
+         */
+        static Mode join(Mode a, Mode b) {
+            if ((a == SHARED && b == INTENT_EXCLUSIVE) || (a == INTENT_EXCLUSIVE && b == SHARED)) {
+                return EXCLUSIVE;
+            }
+            return a.compareTo(b) >= 0 ? a : b;
+        }
+    }
+
+    /**
+     * Locks held by one command
+     */
+    public class Held {
+
+        private final List<Holders> holders = new ArrayList<>();
+        private final List<Mode> modes = new ArrayList<>();
+
+        private Held() {
+        }
+
+        public void release() {
+            for (int i = holders.size() - 1; i >= 0; i--) {
+                PathLocks.this.release(holders.get(i), modes.get(i));
+            }
+            holders.clear();
+            modes.clear();
+        }
+    }
+
+    /**
+     * Number of locks of each mode held on a path, in one atomic state: COUNT_BITS bits per mode, and a flag
+     * once the holders are retired. Retired holders are removed from the map and never hold a lock again.
+     */
+    private static class Holders {
+
+        static final int ACQUIRED = 0;
+        static final int BLOCKED = 1;
+        static final int RETIRED = 2;
+
+        private static final int COUNT_BITS = 15;
+        private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+        private static final long RETIRED_FLAG = 1L << 62;
+
+        private final Path path;
+        private final AtomicLong state = new AtomicLong();
+        private final AtomicInteger waiters = new AtomicInteger();     // commands waiting on the monitor
+
+        Holders(Path path) {
+            this.path = path;
+        }
+
+        /**
+         * @return ACQUIRED if the lock was taken, BLOCKED if a conflicting lock is held, or RETIRED
+         */
+        int tryAcquire(Mode mode) {
+            while (true) {
+                long current = state.get();
+                if ((current & RETIRED_FLAG) != 0) {
+                    return RETIRED;
+                }
+                for (Mode held : Mode.MODES) {
+                    if (count(current, held) > 0 && !mode.compatible(held)) {
+                        return BLOCKED;
+                    }
+                }
+                if (count(current, mode) == COUNT_MASK) {
+                    return BLOCKED;     // as many holders as can be counted
+                }
+                if (state.compareAndSet(current, current + unit(mode))) {
+                    return ACQUIRED;
+                }
+            }
+        }
+
+        void release(Mode mode) {
+            state.addAndGet(-unit(mode));
+        }
+
+        /**
+         * @return true if no lock was held, and the holders are now retired
+         */
+        boolean retire() {
+            return state.compareAndSet(0, RETIRED_FLAG);
+        }
+
+        private static long count(long state, Mode mode) {
+            return (state >>> (mode.ordinal() * COUNT_BITS)) & COUNT_MASK;
+        }
+
+        private static long unit(Mode mode) {
+            return 1L << (mode.ordinal() * COUNT_BITS);
+        }
+    }
+
+    /**
+     * Counts of the locks taken by commands
+     */
+    public static class Metrics {
+
+        private final long acquired;
+        private final long contended;
+        private final long waitMillis;
+
+        Metrics(long acquired, long contended, long waitMillis) {
+            this.acquired = acquired;
+            this.contended = contended;
+            this.waitMillis = waitMillis;
+        }
+
+        /**
+         * @return number of commands that took their locks
+         */
+        public long getAcquired() {
+            return acquired;
+        }
+
+        /**
+         * @return number of locks that had to wait for another command
+         */
+        public long getContended() {
+            return contended;
+        }
+
+        public long getWaitMillis() {
+            return waitMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d commands locked their files, %d locks waited for %d ms in total",
+                    acquired, contended, waitMillis);
+        }
+    }
+}
@@ -1,12 +1,17 @@
 
 package Parser.ASTNodes.Commands;
 
+import Compiler.NodeTag;
+import Compiler.ProgramWriter;
 import Exceptions.FMLExecutionException;
 import Exceptions.InvalidFMLException;
 import Parser.ASTNodes.Program;
+import Parser.ASTNodes.Variables.FileAttributeCache;
 import Parser.ASTNodes.Variables.FileVariable;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.List;
 
 public class Rename extends Command {
 
@@ -21,12 +26,15 @@ public class Rename extends Command {
     @Override
     public void evaluate(Program program) throws FMLExecutionException {
         try {
-            FileVariable targetFileVariable = program.getFileVariable(this.targetIdentifier);
+            FileVariable targetFileVariable = target.getFileVariable(program);
             File targetFileObject = targetFileVariable.getInnerFileObject();
             File parentFileObject = targetFileVariable.getParent().getInnerFileObject();
             File destinationFileObject = new File(parentFileObject, destination);
             logger.log(String.format("Renaming %s to %s", targetFileObject.getAbsolutePath(), destination));
-            if (!targetFileObject.renameTo(destinationFileObject)) {
+            boolean renamed = targetFileObject.renameTo(destinationFileObject);
+            FileAttributeCache.get().invalidate(targetFileObject);
+            FileAttributeCache.get().invalidate(destinationFileObject);
+            if (!renamed) {
                 throw new FMLExecutionException("Rename API execution error");
             }
             targetFileVariable.setInnerFileObject(destinationFileObject);
@@ -35,6 +43,32 @@ public class Rename extends Command {
         }
     }
 
+    @Override
+    public FileAccess getFileAccess(Program program) throws FMLExecutionException {
+        FileVariable targetFileVariable = target.getFileVariable(program);
+        File parentFileObject = targetFileVariable.getParent().getInnerFileObject();
+        return new FileAccess(List.of(),
+                List.of(targetFileVariable.getInnerFileObject(), new File(parentFileObject, destination)));
+    }
+
+    /**
+     * Renaming points the target variable to the renamed file, which later statements rely on
+     */
+    @Override
+    public boolean canRunInBackground() {
+        return false;
+    }
+
+    /**
+     * Points the target variable to the renamed file
+     */
+    @Override
+    public void replay(Program program) throws FMLExecutionException {
+        FileVariable targetFileVariable = target.getFileVariable(program);
+        File parentFileObject = targetFileVariable.getParent().getInnerFileObject();
+        targetFileVariable.setInnerFileObject(new File(parentFileObject, destination));
+    }
+
     @Override
     public void validate(Program program) throws InvalidFMLException {
         if (targetIdentifier == null) {
@@ -44,6 +78,14 @@ public class Rename extends Command {
         } else if (destination == null) {
             throw new InvalidFMLException("Invalid Command Structure: Destination is null");
         }
+        target.resolve(program);
+    }
+
+    @Override
+    public void write(ProgramWriter out) throws IOException {
+        out.writeTag(NodeTag.RENAME);
+        out.writeString(targetIdentifier);
+        out.writeString(destination);
     }
 
     @Override
@@ -1,12 +1,17 @@
 package Parser.ASTNodes.Conditions;
 
+import Compiler.NodeTag;
+import Compiler.ProgramWriter;
 import Exceptions.FMLExecutionException;
 import Exceptions.InvalidFMLException;
 import Parser.ASTNodes.Program;
 
+import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
+import static Language.FMLGrammar.AND;
 import static Util.ObjectUtil.nullOrEqual;
 
 public class AndCondition extends Condition {
@@ -35,6 +40,22 @@ public class AndCondition extends Condition {
         this.andResult = true;
     }
 
+    @Override
+    public CompiledCondition compile() {
+        CompiledCondition[] compiled = new CompiledCondition[innerConditions.size()];
+        for (int i = 0; i < compiled.length; i++) {
+            compiled[i] = innerConditions.get(i).compile();
+        }
+        return program -> {
+            for (CompiledCondition neg : compiled) {
+                if (!neg.test(program)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
     @Override
     public void validate(Program program) throws InvalidFMLException, FMLExecutionException {
         if (this.innerConditions == null || this.innerConditions.size() < 1) {
@@ -53,6 +74,12 @@ public class AndCondition extends Condition {
         return this.andResult;
     }
 
+    @Override
+    public void write(ProgramWriter out) throws IOException {
+        out.writeTag(NodeTag.AND);
+        out.writeNodes(innerConditions);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (!(obj instanceof AndCondition)) {
@@ -69,4 +96,9 @@ public class AndCondition extends Condition {
             n.reset();
         }
     }
+
+    @Override
+    public String toString() {
+        return innerConditions.stream().map(Negation::toString).collect(Collectors.joining(" " + AND + " "));
+    }
 }
@@ -1,10 +1,15 @@
 package Parser.ASTNodes.Conditions.Booleans;
 
+import Compiler.NodeTag;
+import Compiler.ProgramWriter;
 import Exceptions.FMLExecutionException;
 import Exceptions.InvalidFMLException;
+import Parser.ASTNodes.Conditions.CompiledCondition;
 import Parser.ASTNodes.Conditions.Condition;
 import Parser.ASTNodes.Program;
 
+import java.io.IOException;
+
 import static Util.ObjectUtil.nullOrEqual;
 
 /**
@@ -24,6 +29,11 @@ public class BooleanCondition extends FMLBoolean {
         return condition.getResult();
     }
 
+    @Override
+    public CompiledCondition compile() {
+        return condition.compile();
+    }
+
     @Override
     public void validate(Program program) throws InvalidFMLException, FMLExecutionException {
         condition.validate(program);
@@ -34,6 +44,12 @@ public class BooleanCondition extends FMLBoolean {
         condition.evaluate(program);
     }
 
+    @Override
+    public void write(ProgramWriter out) throws IOException {
+        out.writeTag(NodeTag.BOOLEAN_CONDITION);
+        out.writeNode(condition);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (!(obj instanceof BooleanCondition)) {
@@ -47,4 +63,9 @@ public class BooleanCondition extends FMLBoolean {
     public void reset() throws FMLExecutionException {
         condition.reset();
     }
+
+    @Override
+    public String toString() {
+        return "(" + condition + ")";
+    }
 }
@@ -1,13 +1,18 @@
 package Parser.ASTNodes.Conditions.Booleans;
 
+import Compiler.NodeTag;
+import Compiler.ProgramWriter;
 import Exceptions.FMLExecutionException;
 import Exceptions.InvalidFMLException;
 import Language.FMLGrammar.ComparisonOperator;
+import Parser.ASTNodes.Conditions.CompiledCondition;
 import Parser.ASTNodes.Conditions.Terms.*;
 import Parser.ASTNodes.Program;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.function.IntPredicate;
 
 import static Util.ObjectUtil.nullOrEqual;
 
@@ -29,6 +34,13 @@ public class Comparison extends FMLBoolean {
 
     @Override
     public void evaluate(Program program) throws FMLExecutionException {
+        if (leftTerm instanceof AttributeTerm && rightTerm instanceof NumberTerm) {
+            rightTerm.evaluate(program);
+            limitSize((AttributeTerm) leftTerm, rightTerm.getNumericValue());
+        } else if (leftTerm instanceof NumberTerm && rightTerm instanceof AttributeTerm) {
+            leftTerm.evaluate(program);
+            limitSize((AttributeTerm) rightTerm, leftTerm.getNumericValue());
+        }
         leftTerm.evaluate(program);
         rightTerm.evaluate(program);
         if (leftTerm instanceof BooleanTerm && rightTerm instanceof BooleanTerm) {
@@ -51,9 +63,9 @@ public class Comparison extends FMLBoolean {
             }
         } else if (leftTerm instanceof NumberTerm && rightTerm instanceof NumberTerm) {
             if (operator.toString().equals("==")) {
-                result = leftTerm.getNumericValue().equals(rightTerm.getNumericValue());
+                result = leftTerm.getNumericValue().compareTo(rightTerm.getNumericValue()) == 0;
             } else if (operator.toString().equals("!=")) {
-                result = !leftTerm.getNumericValue().equals(rightTerm.getNumericValue());
+                result = leftTerm.getNumericValue().compareTo(rightTerm.getNumericValue()) != 0;
             } else if (operator.toString().equals("<")) {
                 result = leftTerm.getNumericValue().compareTo(rightTerm.getNumericValue()) < 0;
             } else if (operator.toString().equals("<=")) {
@@ -113,6 +125,115 @@ public class Comparison extends FMLBoolean {
         }
     }
 
+    /**
+     * Compiles the comparison for the types of its terms. Comparisons that cannot be evaluated
+     * still compile, and throw the same exception as evaluate when they are tested.
+     */
+    @Override
+    public CompiledCondition compile() {
+        Term left = leftTermOG;
+        Term right = rightTermOG;
+        if (left.getType() != right.getType()) {
+            return unsupported(String.format("Comparison between values of type %s and %s is not supported.",
+                    left.getClass(), right.getClass()));
+        }
+
+        switch (left.getType()) {
+            case BOOLEAN: {
+                CompiledCondition leftValue = left.compileBoolean();
+                CompiledCondition rightValue = right.compileBoolean();
+                switch (operator) {
+                    case EQUAL_TO:
+                        return program -> leftValue.test(program) == rightValue.test(program);
+                    case NOT_EQUAL_TO:
+                        return program -> leftValue.test(program) != rightValue.test(program);
+                }
+                return unsupported(String.format("Expected an == or != comparison operators but received %s", operator.toString()));
+            }
+            case STRING: {
+                CompiledTerm<String> leftValue = left.compileString();
+                CompiledTerm<String> rightValue = right.compileString();
+                switch (operator) {
+                    case EQUAL_TO:
+                        return program -> leftValue.get(program).equals(rightValue.get(program));
+                    case NOT_EQUAL_TO:
+                        return program -> !leftValue.get(program).equals(rightValue.get(program));
+                }
+                return unsupported(String.format("Expected an == or != comparison operators but received %s", operator.toString()));
+            }
+            case NUMBER: {
+                IntPredicate accepts = acceptedComparisons(operator);
+                if (left.hasLongValue() && right.hasLongValue()) {
+                    CompiledLongTerm leftValue = compileLong(left, right);
+                    CompiledLongTerm rightValue = compileLong(right, left);
+                    return program -> accepts.test(Long.compare(leftValue.get(program), rightValue.get(program)));
+                }
+                // fractional or very large numbers
+                CompiledTerm<BigDecimal> leftValue = compileNumeric(left, right);
+                CompiledTerm<BigDecimal> rightValue = compileNumeric(right, left);
+                return program -> accepts.test(leftValue.get(program).compareTo(rightValue.get(program)));
+            }
+        }
+        return unsupported(String.format("Comparison between values of type %s and %s is not supported.",
+                left.getClass(), right.getClass()));
+    }
+
+    /**
+     * Compiles a numeric term. A size compared against a number only needs to be computed up to that number.
+     */
+    private static CompiledTerm<BigDecimal> compileNumeric(Term term, Term comparedTo) {
+        if (term instanceof AttributeTerm && ((AttributeTerm) term).isSize() && comparedTo instanceof NumberTerm) {
+            return ((AttributeTerm) term).compileNumeric(((NumberTerm) comparedTo).getConstantValue());
+        }
+        return term.compileNumeric();
+    }
+
+    /**
+     * Same as compileNumeric, for terms that have long values
+     */
+    private static CompiledLongTerm compileLong(Term term, Term comparedTo) {
+        if (term instanceof AttributeTerm && ((AttributeTerm) term).isSize() && comparedTo instanceof NumberTerm) {
+            return ((AttributeTerm) term).compileLong(((NumberTerm) comparedTo).getConstantValue());
+        }
+        return term.compileLong();
+    }
+
+    /**
+     * @return a predicate accepting the results of compareTo for which the operator is true
+     */
+    private static IntPredicate acceptedComparisons(ComparisonOperator operator) {
+        switch (operator) {
+            case LESS_THAN:
+                return c -> c < 0;
+            case LESS_THAN_EQUAL_TO:
+                return c -> c <= 0;
+            case GREATER_THAN:
+                return c -> c > 0;
+            case GREATER_THAN_EQUAL_TO:
+                return c -> c >= 0;
+            case NOT_EQUAL_TO:
+                return c -> c != 0;
+            default:
+                return c -> c == 0;
+        }
+    }
+
+    private static CompiledCondition unsupported(String message) {
+        return program -> {
+            throw new UnsupportedOperationException(message);
+        };
+    }
+
+    /**
+     * Folder sizes are only compared against the number, so the folder does not need to be
+     * walked any further once it is larger than the number
+     */
+    private void limitSize(AttributeTerm attributeTerm, BigDecimal comparedValue) {
+        if (attributeTerm.isSize()) {
+            attributeTerm.setSizeLimit(comparedValue);
+        }
+    }
+
     @Override
     public void validate(Program program) throws InvalidFMLException {
         if (leftTerm == null || rightTerm == null || operator == null) {
@@ -125,6 +246,14 @@ public class Comparison extends FMLBoolean {
         return result;
     }
 
+    @Override
+    public void write(ProgramWriter out) throws IOException {
+        out.writeTag(NodeTag.COMPARISON);
+        out.writeNode(leftTermOG);
+        out.writeNode(rightTermOG);
+        out.writeString(operator.toString());
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (!(obj instanceof Comparison)) {
@@ -143,4 +272,9 @@ public class Comparison extends FMLBoolean {
         this.rightTerm.reset();
         this.leftTerm.reset();
     }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s %s", leftTermOG, operator, rightTermOG);
+    }
 }
@@ -1,8 +1,15 @@
 package Parser.ASTNodes.Conditions.Booleans;
 
+import Compiler.NodeTag;
+import Compiler.ProgramWriter;
 import Exceptions.InvalidFMLException;
+import Parser.ASTNodes.Conditions.CompiledCondition;
 import Parser.ASTNodes.Program;
 
+import java.io.IOException;
+
+import static Language.FMLGrammar.FALSE;
+
 public class False extends FMLBoolean {
 
     @Override
@@ -10,6 +17,11 @@ public class False extends FMLBoolean {
         // Nothing to do here
     }
 
+    @Override
+    public CompiledCondition compile() {
+        return program -> false;
+    }
+
     @Override
     public void validate(Program program) throws InvalidFMLException {
         // Nothing to do here
@@ -20,6 +32,11 @@ public class False extends FMLBoolean {
         return false;
     }
 
+    @Override
+    public void write(ProgramWriter out) throws IOException {
+        out.writeTag(NodeTag.FALSE);
+    }
+
     @Override
     public boolean equals(Object obj) {
         return (obj instanceof False);
@@ -29,4 +46,9 @@ public class False extends FMLBoolean {
     public void reset() {
         // nothing to do here
     }
+
+    @Override
+    public String toString() {
+        return FALSE;
+    }
 }
@@ -1,9 +1,16 @@
 package Parser.ASTNodes.Conditions.Booleans;
 
+import Compiler.NodeTag;
+import Compiler.ProgramWriter;
 import Exceptions.InvalidFMLException;
+import Parser.ASTNodes.Conditions.CompiledCondition;
 import Parser.ASTNodes.Conditions.Negation;
 import Parser.ASTNodes.Program;
 
+import java.io.IOException;
+
+import static Language.FMLGrammar.TRUE;
+
 public class True extends FMLBoolean {
 
     @Override
@@ -11,6 +18,11 @@ public class True extends FMLBoolean {
         // Nothing to do here
     }
 
+    @Override
+    public CompiledCondition compile() {
+        return program -> true;
+    }
+
     @Override
     public void validate(Program program) throws InvalidFMLException {
         // Nothing to do here
@@ -21,6 +33,11 @@ public class True extends FMLBoolean {
         return true;
     }
 
+    @Override
+    public void write(ProgramWriter out) throws IOException {
+        out.writeTag(NodeTag.TRUE);
+    }
+
     @Override
     public boolean equals(Object obj) {
         return (obj instanceof True);
@@ -30,4 +47,9 @@ public class True extends FMLBoolean {
     public void reset() {
         // Nothing to do here
     }
+
+    @Override
+    public String toString() {
+        return TRUE;
+    }
 }
@@ -0,0 +1,18 @@
+package Parser.ASTNodes.Conditions;
+
+import Exceptions.FMLExecutionException;
+import Parser.ASTNodes.Program;
+
+/**
+ * The compiled form of a condition. Unlike the condition it was compiled from, it holds
+ * no evaluation state, so it never needs to be reset and can be tested from any thread.
+ */
+@FunctionalInterface
+public interface CompiledCondition {
+
+    /**
+     * @param program the program whose variables the condition reads
+     * @return the result of the condition
+     */
+    boolean test(Program program) throws FMLExecutionException;
+}
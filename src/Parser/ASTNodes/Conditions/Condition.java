@@ -12,5 +12,13 @@ public abstract class Condition extends ASTNode {
      */
     public abstract boolean getResult() throws FMLExecutionException;
 
+    /**
+     * Compiles this condition. The compiled condition gives the same result as evaluating
+     * this condition, without changing it.
+     *
+     * @return the compiled condition
+     */
+    public abstract CompiledCondition compile();
+
     public abstract void reset() throws FMLExecutionException;
 }
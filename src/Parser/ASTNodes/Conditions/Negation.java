@@ -1,10 +1,15 @@
 package Parser.ASTNodes.Conditions;
 
+import Compiler.NodeTag;
+import Compiler.ProgramWriter;
 import Exceptions.FMLExecutionException;
 import Exceptions.InvalidFMLException;
 import Parser.ASTNodes.Conditions.Booleans.FMLBoolean;
 import Parser.ASTNodes.Program;
 
+import java.io.IOException;
+
+import static Language.FMLGrammar.NOT;
 import static Util.ObjectUtil.nullOrEqual;
 
 public class Negation extends Condition {
@@ -37,6 +42,15 @@ public class Negation extends Condition {
         }
     }
 
+    @Override
+    public CompiledCondition compile() {
+        if (innerNegation != null) {
+            CompiledCondition inner = innerNegation.compile();
+            return program -> !inner.test(program);
+        }
+        return bool.compile();
+    }
+
     @Override
     public void validate(Program program) throws InvalidFMLException, FMLExecutionException {
         if (innerNegation == null && bool == null) {
@@ -66,6 +80,13 @@ public class Negation extends Condition {
         return this.negResult;
     }
 
+    @Override
+    public void write(ProgramWriter out) throws IOException {
+        out.writeTag(NodeTag.NEGATION);
+        out.writeNode(innerNegation);
+        out.writeNode(bool);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (!(obj instanceof Negation)) {
@@ -85,4 +106,9 @@ public class Negation extends Condition {
         }
         negResult = null;
     }
+
+    @Override
+    public String toString() {
+        return innerNegation != null ? NOT + " " + innerNegation : String.valueOf(bool);
+    }
 }
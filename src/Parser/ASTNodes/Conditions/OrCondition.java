@@ -1,14 +1,19 @@
 package Parser.ASTNodes.Conditions;
 
+import Compiler.NodeTag;
+import Compiler.ProgramWriter;
 import Exceptions.FMLExecutionException;
 import Exceptions.InvalidFMLException;
 import Parser.ASTNodes.Program;
 import org.mockito.internal.matchers.And;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
+import static Language.FMLGrammar.OR;
 import static Util.ObjectUtil.nullOrEqual;
 
 public class OrCondition extends Condition {
@@ -37,6 +42,22 @@ public class OrCondition extends Condition {
         this.orResult = false;
     }
 
+    @Override
+    public CompiledCondition compile() {
+        CompiledCondition[] compiled = new CompiledCondition[innerConditions.size()];
+        for (int i = 0; i < compiled.length; i++) {
+            compiled[i] = innerConditions.get(i).compile();
+        }
+        return program -> {
+            for (CompiledCondition andCond : compiled) {
+                if (andCond.test(program)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
     @Override
     public void validate(Program program) throws InvalidFMLException, FMLExecutionException {
         if (this.innerConditions == null || this.innerConditions.size() < 1) {
@@ -55,6 +76,12 @@ public class OrCondition extends Condition {
         return this.orResult;
     }
 
+    @Override
+    public void write(ProgramWriter out) throws IOException {
+        out.writeTag(NodeTag.OR);
+        out.writeNodes(innerConditions);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (!(obj instanceof OrCondition)) {
@@ -71,4 +98,9 @@ public class OrCondition extends Condition {
             a.reset();
         }
     }
+
+    @Override
+    public String toString() {
+        return innerConditions.stream().map(AndCondition::toString).collect(Collectors.joining(" " + OR + " "));
+    }
 }
@@ -1,24 +1,35 @@
 package Parser.ASTNodes.Conditions.Terms;
 
+import Compiler.NodeTag;
+import Compiler.ProgramWriter;
 import Exceptions.FMLExecutionException;
 import Exceptions.InvalidFMLException;
 import Language.FMLGrammar.AttributeName;
+import Parser.ASTNodes.Conditions.CompiledCondition;
 import Parser.ASTNodes.Program;
+import Parser.ASTNodes.VariableReference;
+import Parser.ASTNodes.Variables.DirectorySizeCache;
 import Parser.ASTNodes.Variables.FileVariable;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.List;
 
+import static Language.FMLGrammar.WHERE_ENTRY;
 import static Util.ObjectUtil.nullOrEqual;
 
 public class AttributeTerm extends Term {
 
     private String fileVarIdentifier;
+    private final VariableReference fileVariable;
     private AttributeName attributeName;
     private Object result;
+    private long sizeLimit = DirectorySizeCache.NO_LIMIT;
 
     public AttributeTerm(String fileVarIdentifier, AttributeName attributeName) {
         this.fileVarIdentifier = fileVarIdentifier;
+        this.fileVariable = new VariableReference(fileVarIdentifier);
         this.attributeName = attributeName;
     }
 
@@ -26,6 +37,125 @@ public class AttributeTerm extends Term {
         return result;
     }
 
+    /**
+     * @return true if this term reads the size of a file or folder
+     */
+    public boolean isSize() {
+        return attributeName == AttributeName.SIZE;
+    }
+
+    /**
+     * Allows a folder size to stop being computed once it is known to be larger than the given value.
+     * The result is then some value larger than the given value, which still compares the same way against it.
+     *
+     * @param value the value the size is compared against
+     */
+    public void setSizeLimit(BigDecimal value) {
+        sizeLimit = toSizeLimit(value);
+    }
+
+    private static long toSizeLimit(BigDecimal value) {
+        if (value.signum() < 0) {
+            return DirectorySizeCache.NO_LIMIT;
+        } else if (value.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) >= 0) {
+            return Long.MAX_VALUE;
+        }
+        return value.longValue();
+    }
+
+    @Override
+    public Type getType() {
+        switch (attributeName) {
+            case IS_DIRECTORY:
+            case IS_FILE:
+                return Type.BOOLEAN;
+            case NAME:
+            case EXTENSION:
+                return Type.STRING;
+            case CREATED:
+            case MODIFIED:
+            case SIZE:
+                return Type.NUMBER;
+            default:
+                return Type.FILE;
+        }
+    }
+
+    @Override
+    public CompiledCondition compileBoolean() throws UnsupportedOperationException {
+        VariableReference reference = fileVariable;
+        switch (attributeName) {
+            case IS_DIRECTORY:
+                return program -> reference.getFileVariable(program).isDirectory();
+            case IS_FILE:
+                return program -> reference.getFileVariable(program).isFile();
+        }
+        return super.compileBoolean();
+    }
+
+    @Override
+    public CompiledTerm<String> compileString() throws UnsupportedOperationException {
+        VariableReference reference = fileVariable;
+        switch (attributeName) {
+            case NAME:
+                return program -> reference.getFileVariable(program).getName();
+            case EXTENSION:
+                return program -> reference.getFileVariable(program).getExtension();
+        }
+        return super.compileString();
+    }
+
+    @Override
+    public CompiledTerm<BigDecimal> compileNumeric() throws UnsupportedOperationException {
+        return compileNumeric(DirectorySizeCache.NO_LIMIT);
+    }
+
+    /**
+     * Compiles a size that is only compared against the given value. See setSizeLimit.
+     *
+     * @param comparedValue the value the size is compared against
+     */
+    public CompiledTerm<BigDecimal> compileNumeric(BigDecimal comparedValue) throws UnsupportedOperationException {
+        return compileNumeric(toSizeLimit(comparedValue));
+    }
+
+    private CompiledTerm<BigDecimal> compileNumeric(long sizeLimit) throws UnsupportedOperationException {
+        CompiledLongTerm compiled = compileLong(sizeLimit);
+        return program -> BigDecimal.valueOf(compiled.get(program));
+    }
+
+    @Override
+    public boolean hasLongValue() {
+        return getType() == Type.NUMBER;
+    }
+
+    @Override
+    public CompiledLongTerm compileLong() throws UnsupportedOperationException {
+        return compileLong(DirectorySizeCache.NO_LIMIT);
+    }
+
+    /**
+     * Compiles a size that is only compared against the given value. See setSizeLimit.
+     *
+     * @param comparedValue the value the size is compared against
+     */
+    public CompiledLongTerm compileLong(BigDecimal comparedValue) throws UnsupportedOperationException {
+        return compileLong(toSizeLimit(comparedValue));
+    }
+
+    private CompiledLongTerm compileLong(long sizeLimit) throws UnsupportedOperationException {
+        VariableReference reference = fileVariable;
+        switch (attributeName) {
+            case CREATED:
+                return program -> reference.getFileVariable(program).getSecondsCreated();
+            case MODIFIED:
+                return program -> reference.getFileVariable(program).getSecondsModified();
+            case SIZE:
+                return program -> reference.getFileVariable(program).getSizeInBytes(sizeLimit);
+        }
+        return super.compileLong();
+    }
+
     @Override
     public boolean getBooleanValue() throws UnsupportedOperationException {
         if (attributeName == AttributeName.IS_DIRECTORY ||attributeName == AttributeName.IS_FILE){
@@ -76,11 +206,12 @@ public class AttributeTerm extends Term {
         } else if (!program.identifierIsDeclared(fileVarIdentifier)){
             throw new InvalidFMLException("File variable identifier is not declared in program");
         }
+        fileVariable.resolve(program);
     }
 
     @Override
     public void evaluate(Program program) throws FMLExecutionException {
-        FileVariable file = program.getFileVariable(fileVarIdentifier);
+        FileVariable file = fileVariable.getFileVariable(program);
         switch (attributeName){
             case CREATED:
                 result = file.getTimeCreated();
@@ -104,11 +235,23 @@ public class AttributeTerm extends Term {
                 result = file.getParent();
                 break;
             case SIZE:
-                result = file.getSize();
+                result = file.getSize(sizeLimit);
                 break;
         }
     }
 
+    @Override
+    public void write(ProgramWriter out) throws IOException {
+        out.writeTag(NodeTag.ATTRIBUTE_TERM);
+        out.writeString(fileVarIdentifier);
+        out.writeString(attributeName == null ? null : attributeName.toString());
+    }
+
+    @Override
+    public List<VariableReference> getReferences() {
+        return List.of(fileVariable);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (!(obj instanceof AttributeTerm)) {
@@ -123,4 +266,15 @@ public class AttributeTerm extends Term {
     public void reset() {
         result = null;
     }
+
+    /**
+     * @return the term as written in the script. Attributes of the entry of a where clause are written without a variable.
+     */
+    @Override
+    public String toString() {
+        if (WHERE_ENTRY.equals(fileVarIdentifier)) {
+            return attributeName.toString().substring(1);
+        }
+        return fileVarIdentifier + attributeName;
+    }
 }
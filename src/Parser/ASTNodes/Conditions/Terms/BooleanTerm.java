@@ -1,10 +1,15 @@
 package Parser.ASTNodes.Conditions.Terms;
 
+import Compiler.NodeTag;
+import Compiler.ProgramWriter;
 import Exceptions.FMLExecutionException;
 import Exceptions.InvalidFMLException;
 import Parser.ASTNodes.Conditions.Booleans.FMLBoolean;
+import Parser.ASTNodes.Conditions.CompiledCondition;
 import Parser.ASTNodes.Program;
 
+import java.io.IOException;
+
 import static Util.ObjectUtil.nullOrEqual;
 
 /**
@@ -23,6 +28,16 @@ public class BooleanTerm extends Term {
         return value.getResult();
     }
 
+    @Override
+    public Type getType() {
+        return Type.BOOLEAN;
+    }
+
+    @Override
+    public CompiledCondition compileBoolean() {
+        return value.compile();
+    }
+
     @Override
     public void validate(Program program) throws InvalidFMLException, FMLExecutionException {
         if (value == null) {
@@ -36,6 +51,12 @@ public class BooleanTerm extends Term {
         value.evaluate(program);
     }
 
+    @Override
+    public void write(ProgramWriter out) throws IOException {
+        out.writeTag(NodeTag.BOOLEAN_TERM);
+        out.writeNode(value);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (!(obj instanceof BooleanTerm)) {
@@ -49,4 +70,9 @@ public class BooleanTerm extends Term {
     public void reset() throws FMLExecutionException {
         value.reset();
     }
+
+    @Override
+    public String toString() {
+        return String.valueOf(value);
+    }
 }
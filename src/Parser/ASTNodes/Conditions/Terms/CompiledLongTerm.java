@@ -0,0 +1,18 @@
+package Parser.ASTNodes.Conditions.Terms;
+
+import Exceptions.FMLExecutionException;
+import Parser.ASTNodes.Program;
+
+/**
+ * The compiled form of a numeric term whose values always fit in a long, such as sizes,
+ * timestamps and whole numbers. Lets comparisons use primitive longs instead of BigDecimal.
+ */
+@FunctionalInterface
+public interface CompiledLongTerm {
+
+    /**
+     * @param program the program whose variables the term reads
+     * @return the value of the term
+     */
+    long get(Program program) throws FMLExecutionException;
+}
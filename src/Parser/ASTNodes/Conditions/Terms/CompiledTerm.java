@@ -0,0 +1,20 @@
+package Parser.ASTNodes.Conditions.Terms;
+
+import Exceptions.FMLExecutionException;
+import Parser.ASTNodes.Program;
+
+/**
+ * The compiled form of a string or numeric term. Reads the value of the term without
+ * storing it in the term.
+ *
+ * @param <T> type of the value
+ */
+@FunctionalInterface
+public interface CompiledTerm<T> {
+
+    /**
+     * @param program the program whose variables the term reads
+     * @return the value of the term
+     */
+    T get(Program program) throws FMLExecutionException;
+}
@@ -1,10 +1,13 @@
 package Parser.ASTNodes.Conditions.Terms;
 
+import Compiler.NodeTag;
+import Compiler.ProgramWriter;
 import Exceptions.FMLExecutionException;
 import Exceptions.InvalidFMLException;
 import Language.FMLGrammar.FileSizeUnit;
 import Parser.ASTNodes.Program;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 
 import static Util.ObjectUtil.nullOrEqual;
@@ -14,15 +17,34 @@ public class NumberTerm extends Term {
     private BigDecimal value;
     private FileSizeUnit unit; // may be null
 
+    /**
+     * The value with its unit applied, computed once when the term is built
+     */
+    private final BigDecimal constantValue;
+    private final Long longValue; // null if the value is fractional or too large for a long
+
     private BigDecimal evaluatedValue;
 
     public NumberTerm(BigDecimal value) {
-        this.value = value;
+        this(value, null);
     }
 
     public NumberTerm(BigDecimal value, FileSizeUnit unit) {
         this.value = value;
         this.unit = unit;
+        this.constantValue = value == null || unit == null ? value : value.multiply(unit.getMultiplier());
+        this.longValue = toLong(constantValue);
+    }
+
+    private static Long toLong(BigDecimal value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return value.longValueExact();
+        } catch (ArithmeticException e) {
+            return null;
+        }
     }
 
     @Override
@@ -30,6 +52,38 @@ public class NumberTerm extends Term {
         return evaluatedValue;
     }
 
+    @Override
+    public Type getType() {
+        return Type.NUMBER;
+    }
+
+    @Override
+    public CompiledTerm<BigDecimal> compileNumeric() {
+        BigDecimal constant = getConstantValue();
+        return program -> constant;
+    }
+
+    /**
+     * @return the value of this term, with its unit applied
+     */
+    public BigDecimal getConstantValue() {
+        return constantValue;
+    }
+
+    @Override
+    public boolean hasLongValue() {
+        return longValue != null;
+    }
+
+    @Override
+    public CompiledLongTerm compileLong() throws UnsupportedOperationException {
+        if (longValue == null) {
+            return super.compileLong();
+        }
+        long constant = longValue;
+        return program -> constant;
+    }
+
     @Override
     public void validate(Program program) throws InvalidFMLException {
         if (value == null) {
@@ -39,10 +93,14 @@ public class NumberTerm extends Term {
 
     @Override
     public void evaluate(Program program) {
-        evaluatedValue = value;
-        if (unit != null) {
-            evaluatedValue = evaluatedValue.multiply(unit.getMultiplier());
-        }
+        evaluatedValue = constantValue;
+    }
+
+    @Override
+    public void write(ProgramWriter out) throws IOException {
+        out.writeTag(NodeTag.NUMBER_TERM);
+        out.writeString(value == null ? null : value.toString());
+        out.writeString(unit == null ? null : unit.toString());
     }
 
     @Override
@@ -58,4 +116,9 @@ public class NumberTerm extends Term {
     public void reset() throws FMLExecutionException {
         evaluatedValue = null;
     }
+
+    @Override
+    public String toString() {
+        return unit == null ? value.toPlainString() : value.toPlainString() + " " + unit;
+    }
 }
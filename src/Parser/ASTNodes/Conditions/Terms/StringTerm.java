@@ -1,9 +1,13 @@
 package Parser.ASTNodes.Conditions.Terms;
 
+import Compiler.NodeTag;
+import Compiler.ProgramWriter;
 import Exceptions.FMLExecutionException;
 import Exceptions.InvalidFMLException;
 import Parser.ASTNodes.Program;
 
+import java.io.IOException;
+
 import static Util.ObjectUtil.nullOrEqual;
 
 public class StringTerm extends Term {
@@ -19,6 +23,17 @@ public class StringTerm extends Term {
         return this.value;
     }
 
+    @Override
+    public Type getType() {
+        return Type.STRING;
+    }
+
+    @Override
+    public CompiledTerm<String> compileString() {
+        String value = this.value;
+        return program -> value;
+    }
+
     @Override
     public void validate(Program program) throws InvalidFMLException {
         if (value == null) {
@@ -31,6 +46,12 @@ public class StringTerm extends Term {
         // nothing to do here
     }
 
+    @Override
+    public void write(ProgramWriter out) throws IOException {
+        out.writeTag(NodeTag.STRING_TERM);
+        out.writeString(value);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (!(obj instanceof StringTerm)) {
@@ -44,4 +65,9 @@ public class StringTerm extends Term {
     public void reset() throws FMLExecutionException {
         // nothing to do here
     }
+
+    @Override
+    public String toString() {
+        return "\"" + value + "\"";
+    }
 }
@@ -2,11 +2,50 @@ package Parser.ASTNodes.Conditions.Terms;
 
 import Exceptions.FMLExecutionException;
 import Parser.ASTNodes.ASTNode;
+import Parser.ASTNodes.Conditions.CompiledCondition;
 
 import java.math.BigDecimal;
 
 public abstract class Term extends ASTNode {
 
+    /**
+     * Types of values a term can have. Only terms of the same type can be compared.
+     */
+    public enum Type {
+        BOOLEAN,
+        STRING,
+        NUMBER,
+        FILE
+    }
+
+    /**
+     * @return the type of the value of this term
+     */
+    public abstract Type getType();
+
+    public CompiledCondition compileBoolean() throws UnsupportedOperationException {
+        throw new UnsupportedOperationException("Term does not support boolean values");
+    }
+
+    public CompiledTerm<String> compileString() throws UnsupportedOperationException {
+        throw new UnsupportedOperationException("Term does not support string values");
+    }
+
+    public CompiledTerm<BigDecimal> compileNumeric() throws UnsupportedOperationException {
+        throw new UnsupportedOperationException("Term does not support numeric values");
+    }
+
+    /**
+     * @return true if compileLong is supported, i.e. the values of this term always fit in a long
+     */
+    public boolean hasLongValue() {
+        return false;
+    }
+
+    public CompiledLongTerm compileLong() throws UnsupportedOperationException {
+        throw new UnsupportedOperationException("Term does not support long values");
+    }
+
     public boolean getBooleanValue() throws UnsupportedOperationException, FMLExecutionException {
         throw new UnsupportedOperationException("Term does not support boolean values");
     }
@@ -1,12 +1,21 @@
 package Parser.ASTNodes;
 
+import Compiler.NodeTag;
+import Compiler.ProgramWriter;
 import Exceptions.FMLExecutionException;
 import Exceptions.InvalidFMLException;
+import Executor.ActionScheduler;
+import Executor.CheckpointJournal;
+import Executor.CommandPipeline;
+import Parser.ASTNodes.Commands.Command;
+import Parser.ASTNodes.Statements.ActionStatement;
+import Parser.ASTNodes.Statements.Declarations.DeclarationStatement;
 import Parser.ASTNodes.Statements.Statement;
 import Parser.ASTNodes.Variables.FileVariable;
 import Parser.ASTNodes.Variables.ListVariable;
 import Parser.ASTNodes.Variables.Variable;
 
+import java.io.IOException;
 import java.util.*;
 
 import static Util.ObjectUtil.nullOrEqual;
@@ -18,9 +27,26 @@ public class Program extends ASTNode {
 
     private List<Statement> statements;
     private Set<String> identifiers;                 // identifiers declared. Used at validation time.
-    private Map<String, Variable> variables;         // Map<identifier, Variable object>. Used at evaluation time.
+
+    /*
+     * Variables are kept in a frame with one slot per identifier of this scope. Slots are assigned as
+     * identifiers are declared by the validator, or when a variable is first added to a program that was
+     * not validated here. The validator resolves each VariableReference to the scope and slot of its
+     * variable, so that variables are not searched for by name on each access.
+     */
+    private Map<String, Integer> slots;              // Map<identifier, slot>
+    private String[] names;                          // identifier of each slot
+    private Variable[] frame;                        // variable of each slot, null until set. Used at evaluation time.
+    private boolean sharedSlots = false;             // true if slots and names are shared with another scope of the program
     private Program parent;
-    private boolean terminate = false;
+    private boolean ownLine = false;                 // true if the line of the parent is left as it is
+    private volatile boolean terminate = false;
+
+    /**
+     * The statements split into steps, once compiled. A step is either a single statement, or a run of
+     * actions that follow each other and may run at the same time, see ActionScheduler.
+     */
+    private List<List<Statement>> steps;
 
     private Integer line;
 
@@ -31,10 +57,28 @@ public class Program extends ASTNode {
      */
     public Program(List<Statement> statements) {
         this.identifiers = new HashSet<>();
-        this.variables = new HashMap<>();
+        this.slots = new HashMap<>();
+        this.names = new String[0];
+        this.frame = new Variable[0];
         this.statements = statements;
     }
 
+    /**
+     * A scope of the given program: its statements and slots, with variables of its own
+     */
+    private Program(Program program, Program parent) {
+        this.statements = program.statements;
+        this.steps = program.steps;
+        this.identifiers = program.identifiers;
+        this.slots = program.slots;
+        this.names = program.names;
+        this.frame = new Variable[program.names.length];
+        this.sharedSlots = true;
+        program.sharedSlots = true;         // either copies the slots before adding one
+        this.parent = parent;
+        this.line = parent == null ? null : parent.getLine();
+    }
+
     public Integer getLine() {
         return line;
     }
@@ -59,6 +103,7 @@ public class Program extends ASTNode {
      */
     public void addIdentifierDeclaration(String identifier) {
         this.identifiers.add(identifier);
+        slotOf(identifier);
     }
 
     /**
@@ -75,6 +120,12 @@ public class Program extends ASTNode {
      * @return a map of the variables in this programs outer scope
      */
     public Map<String, Variable> getVariables() {
+        Map<String, Variable> variables = new HashMap<>();
+        for (int slot = 0; slot < slots.size(); slot++) {
+            if (frame[slot] != null) {
+                variables.put(names[slot], frame[slot]);
+            }
+        }
         return variables;
     }
 
@@ -86,14 +137,58 @@ public class Program extends ASTNode {
      * @throws FMLExecutionException if there is no variable with the given identifier
      */
     public Variable getVariable(String identifier) throws FMLExecutionException {
-        if (variables.containsKey(identifier)) {
-            return variables.get(identifier);
-        } else if (parent != null) {
-            return parent.getVariable(identifier);
+        for (Program scope = this; scope != null; scope = scope.parent) {
+            Integer slot = scope.slots.get(identifier);
+            if (slot != null && scope.frame[slot] != null) {
+                return scope.frame[slot];
+            }
         }
         throw new FMLExecutionException("Variable " + identifier + " accessed before initialization");
     }
 
+    /**
+     * Resolves the reference to the slot of its variable, in the nearest scope around this one that declares
+     * it. Called by the validator, so the scope is known from the declarations before the use, and a variable
+     * declared in a nearer scope later on cannot change it. References that are not resolved, e.g. to
+     * variables that are not declared, are looked up by name.
+     *
+     * @param reference use of a variable in this scope
+     */
+    public void resolve(VariableReference reference) {
+        String identifier = reference.getIdentifier();
+        int depth = 0;
+        for (Program scope = this; scope != null; scope = scope.parent, depth++) {
+            if (scope.identifiers.contains(identifier)) {
+                reference.setLocation(depth, scope.slots.get(identifier));
+                return;
+            }
+        }
+    }
+
+    /**
+     * Finds the variable of the given reference, in the slot it was resolved to.
+     * See VariableReference.getVariable, which looks up references that were not resolved by name.
+     *
+     * @param reference use of the variable
+     * @return the associated Variable object, or null if the reference was not resolved or the slot is empty
+     */
+    public Variable findVariable(VariableReference reference) {
+        int location = reference.getLocation();
+        if (location == VariableReference.NONE) {
+            return null;
+        }
+        Program scope = this;
+        for (int depth = VariableReference.depthOf(location); depth > 0 && scope != null; depth--) {
+            scope = scope.parent;
+        }
+        if (scope == null) {
+            return null;
+        }
+        Variable[] frame = scope.frame;
+        int slot = VariableReference.slotOf(location);
+        return slot < frame.length ? frame[slot] : null;
+    }
+
     /**
      * Get the FileVariable associated with the given name/identifier
      *
@@ -132,7 +227,48 @@ public class Program extends ASTNode {
      * @param variable   variable to add to scope
      */
     public void addVariable(String identifier, Variable variable) {
-        variables.put(identifier, variable);
+        int slot = slotOf(identifier);
+        frame[slot] = variable;
+    }
+
+    /**
+     * Add a variable to this program's outer scope, in the slot the declaration was resolved to.
+     *
+     * @param reference the declaration of the variable
+     * @param variable  variable to add to scope
+     */
+    public void addVariable(VariableReference reference, Variable variable) {
+        int location = reference.getLocation();
+        if (location != VariableReference.NONE && VariableReference.depthOf(location) == 0
+                && VariableReference.slotOf(location) < slots.size()) {
+            frame[VariableReference.slotOf(location)] = variable;
+            return;
+        }
+        addVariable(reference.getIdentifier(), variable);
+    }
+
+    /**
+     * @return the slot of the identifier in this scope. A new slot is added if it has none yet.
+     */
+    private int slotOf(String identifier) {
+        Integer slot = slots.get(identifier);
+        if (slot != null) {
+            return slot;
+        }
+        if (sharedSlots) {
+            slots = new HashMap<>(slots);
+            names = names.clone();
+            sharedSlots = false;
+        }
+        slot = slots.size();
+        if (slot == names.length) {
+            int length = Math.max(4, names.length * 2);
+            names = Arrays.copyOf(names, length);
+            frame = Arrays.copyOf(frame, length);
+        }
+        names[slot] = identifier;
+        slots.put(identifier, slot);
+        return slot;
     }
 
     /**
@@ -155,32 +291,191 @@ public class Program extends ASTNode {
         this.setValidated();
     }
 
+    /**
+     * Compiles the conditions of this program, and groups the actions that follow each other. See Compiler.
+     */
+    public void compile() {
+        List<List<Statement>> steps = new ArrayList<>();
+        List<Statement> step = null;
+        for (Statement s : this.statements) {
+            s.compile();
+            if (step == null || !isSchedulable(s) || !isSchedulable(step.get(0))) {
+                step = new ArrayList<>();
+                steps.add(step);
+            }
+            step.add(s);
+        }
+        this.steps = steps;
+    }
+
+    /**
+     * @return true if the program was compiled, see compile
+     */
+    public boolean isCompiled() {
+        return steps != null;
+    }
+
     /**
      * Evaluates the program by evaluating all the statements that
-     * are within this program in order.
+     * are within this program in order. In a compiled script, actions that
+     * follow each other run at the same time where they do not conflict.
+     *
+     * The script itself is evaluated in place. A block is evaluated in a new scope of its program each
+     * time, see newScope, so its variables are never shared with another evaluation of the same block.
      */
     @Override
     public void evaluate(Program program) throws FMLExecutionException {
-        this.parent = program;
+        if (program != null) {
+            newScope(program).run();
+            return;
+        }
+        this.parent = null;
+        run();
+    }
+
+    /**
+     * Evaluates the statements of the program with the variables of this scope
+     */
+    public void run() throws FMLExecutionException {
         line = parent == null ? 0 : parent.getLine();
+        if (parent == null && steps != null && !CommandPipeline.get().isEnabled()) {
+            evaluateSteps();
+            return;
+        }
+        int statement = 0;
         for (Statement s : this.statements) {
             line++;
+            statement++;
             logger.log(s.toString(), line);
             if (terminate) {
                 break;
             }
+            if (!begin(statement, s)) {
+                continue;
+            }
             s.evaluate(this);
+            complete(statement);
         }
-        if (parent != null) {
+        if (parent != null && !ownLine) {
             parent.setLine(line);
         }
     }
 
+    private void evaluateSteps() throws FMLExecutionException {
+        int statement = 0;
+        for (List<Statement> step : steps) {
+            if (step.size() == 1) {
+                line++;
+                statement++;
+                logger.log(step.get(0).toString(), line);
+                if (terminate) {
+                    break;
+                }
+                if (begin(statement, step.get(0))) {
+                    step.get(0).evaluate(this);
+                    complete(statement);
+                }
+                continue;
+            }
+            if (terminate) {
+                break;
+            }
+            List<Command> commands = new ArrayList<>();
+            List<Integer> started = new ArrayList<>();
+            for (Statement s : step) {
+                line++;
+                statement++;
+                logger.log(s.toString(), line);
+                if (begin(statement, s)) {
+                    commands.add(((ActionStatement) s).getCommand());
+                    started.add(statement);
+                }
+            }
+            ActionScheduler.run(commands, this);
+            for (int completed : started) {
+                complete(completed);
+            }
+        }
+    }
+
+    /**
+     * Marks the start of a statement of the script in the journal, see CheckpointJournal
+     *
+     * @param statement number of the statement in this program
+     * @return false if the statement was completed by the run being resumed. Declarations are evaluated
+     * again, since the statements after them need their variables, and completed actions that change their
+     * variables, e.g. a rename, point them to the files they left them on.
+     * @throws FMLExecutionException if a completed if or loop changed variables, which cannot be replayed
+     */
+    private boolean begin(int statement, Statement s) throws FMLExecutionException {
+        if (parent != null) {
+            return true;
+        }
+        CheckpointJournal journal = CheckpointJournal.get();
+        journal.begin(statement);
+        if (!(s instanceof DeclarationStatement) && journal.isCompleted(statement)) {
+            if (s instanceof ActionStatement) {
+                ((ActionStatement) s).getCommand().replay(this);
+            } else if (s.changesVariables()) {
+                throw new FMLExecutionException("Cannot resume: statement " + statement
+                        + " changed variables the statements after it use. Run the script without " + CheckpointJournal.RESUME_FLAG);
+            }
+            logger.log("Completed by an earlier run", line);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return true if a statement of this program, or a statement nested in one, points a variable to
+     * another file, see Statement.changesVariables
+     */
+    public boolean changesVariables() {
+        for (Statement s : this.statements) {
+            if (s.changesVariables()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void complete(int statement) {
+        if (parent == null) {
+            CheckpointJournal.get().complete(statement);
+        }
+    }
+
+    /**
+     * @return true if a statement of this program, or a statement nested in one, is a return statement
+     */
+    public boolean canReturn() {
+        for (Statement s : this.statements) {
+            if (s.canReturn()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if this is the program of the script itself, and not the program of a block in it
+     */
+    public boolean isTopLevel() {
+        return parent == null;
+    }
+
+    /**
+     * @return true if the statement is an action that can run alongside the actions around it
+     */
+    private static boolean isSchedulable(Statement s) {
+        return s instanceof ActionStatement && ((ActionStatement) s).getCommand().canRunInBackground();
+    }
+
     /**
      * Resets the program runtime state
      */
     public void reset() {
-        this.variables.clear();
+        Arrays.fill(this.frame, null);
         // TODO: reset all statements
     }
 
@@ -189,6 +484,73 @@ public class Program extends ASTNode {
         if (parent != null) parent.terminate();
     }
 
+    /**
+     * @return true if a return statement has been evaluated within this program
+     */
+    public boolean isTerminated() {
+        return this.terminate;
+    }
+
+    /**
+     * Creates a scope of this program nested under the given scope. The scope has the statements and slots of
+     * this program, and variables of its own, so that iterations of a loop can each evaluate the same
+     * validated program without sharing variables. A scope can be run again after a reset.
+     *
+     * @param parent scope the program is evaluated in
+     * @return a new scope of this program
+     */
+    public Program newScope(Program parent) {
+        return new Program(this, parent);
+    }
+
+    /**
+     * Same as newScope, for scopes that are run at the same time as other scopes of the same parent.
+     * They leave the line of the parent as it is, so that they do not race on it.
+     */
+    public Program newConcurrentScope(Program parent) {
+        Program scope = new Program(this, parent);
+        scope.ownLine = true;
+        return scope;
+    }
+
+    /**
+     * Creates an empty program nested under this one. Variables and line numbers of the
+     * child scope are private to it, while lookups of outer variables and termination
+     * still go through this program.
+     *
+     * @return a new child scope of this program
+     */
+    public Program newChildScope() {
+        Program scope = new Program(new LinkedList<>());
+        scope.parent = this;
+        scope.line = this.line;
+        return scope;
+    }
+
+    /**
+     * Copies this scope and the scopes around it. Variables of the copies stay bound to the files they
+     * refer to now, even if the scopes they were copied from bind them to other files later.
+     *
+     * @return a copy of this scope, with copies of the scopes around it as parents
+     */
+    public Program snapshot() {
+        Program copy = new Program(this, parent == null ? null : parent.snapshot());
+        copy.frame = frame.clone();
+        copy.line = line;
+        copy.terminate = terminate;
+        return copy;
+    }
+
+    @Override
+    public void write(ProgramWriter out) throws IOException {
+        out.writeTag(NodeTag.PROGRAM);
+        out.writeNodes(statements);
+        out.writeCount(slots.size());       // the identifiers declared, in the order of their slots
+        for (int slot = 0; slot < slots.size(); slot++) {
+            out.writeString(names[slot]);
+        }
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (!(obj instanceof Program)) {
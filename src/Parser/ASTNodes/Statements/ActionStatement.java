@@ -1,10 +1,15 @@
 package Parser.ASTNodes.Statements;
 
+import Compiler.NodeTag;
+import Compiler.ProgramWriter;
+import Executor.CommandPipeline;
 import Exceptions.FMLExecutionException;
 import Exceptions.InvalidFMLException;
 import Parser.ASTNodes.Commands.Command;
 import Parser.ASTNodes.Program;
 
+import java.io.IOException;
+
 import static Util.ObjectUtil.nullOrEqual;
 
 /**
@@ -41,6 +46,10 @@ public class ActionStatement extends Statement {
         }
     }
 
+    public Command getCommand() {
+        return command;
+    }
+
     @Override
     public void validate(Program program) throws InvalidFMLException, FMLExecutionException {
         command.validate(program);
@@ -48,11 +57,30 @@ public class ActionStatement extends Statement {
     }
 
     /**
-     * Performs the action associated with this action statement
+     * Performs the action associated with this action statement, or queues it if commands run in the background
      */
     @Override
     public void evaluate(Program program) throws FMLExecutionException {
-        command.evaluate(program);
+        CommandPipeline pipeline = CommandPipeline.get();
+        if (pipeline.isEnabled()) {
+            pipeline.submit(command, program);
+        } else {
+            command.run(program);
+        }
+    }
+
+    @Override
+    public boolean changesVariables() {
+        return !command.canRunInBackground();
+    }
+
+    @Override
+    public void write(ProgramWriter out) throws IOException {
+        out.writeTag(NodeTag.ACTION);
+        out.writeNode(command);
+        out.writeString(targetIdentifier);
+        out.writeString(stringDestination != null ? stringDestination : fileDestinationIdentifier);
+        out.writeBoolean(stringDestination != null);
     }
 
     @Override
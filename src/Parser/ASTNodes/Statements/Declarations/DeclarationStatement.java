@@ -3,4 +3,9 @@ package Parser.ASTNodes.Statements.Declarations;
 import Parser.ASTNodes.Statements.Statement;
 
 public abstract class DeclarationStatement extends Statement {
+
+    /**
+     * @return identifier of the declared variable
+     */
+    public abstract String getIdentifier();
 }
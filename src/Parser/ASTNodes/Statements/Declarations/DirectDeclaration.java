@@ -1,24 +1,65 @@
 package Parser.ASTNodes.Statements.Declarations;
 
+import Compiler.NodeTag;
+import Compiler.ProgramWriter;
 import Exceptions.FMLExecutionException;
 import Exceptions.InvalidFMLException;
+import Parser.ASTNodes.Conditions.CompiledCondition;
+import Parser.ASTNodes.Conditions.OrCondition;
 import Parser.ASTNodes.Program;
 import Parser.ASTNodes.Statements.Declarations.Paths.FMLPath;
+import Parser.ASTNodes.VariableReference;
+import Parser.ASTNodes.Variables.EntryFilter;
 import Parser.ASTNodes.Variables.FileVariable;
+import Parser.ASTNodes.Variables.LazyListVariable;
 import Parser.ASTNodes.Variables.ListVariable;
 
+import java.io.IOException;
+import java.util.List;
+
 import static Language.FMLGrammar.FILE_VARIABLE_IDENTIFIER;
+import static Language.FMLGrammar.LAZY;
 import static Language.FMLGrammar.LIST_VARIABLE_IDENTIFIER;
+import static Language.FMLGrammar.WHERE;
+import static Language.FMLGrammar.WHERE_ENTRY;
 import static Util.ObjectUtil.nullOrEqual;
 
 public class DirectDeclaration extends DeclarationStatement {
 
     private FMLPath path;
     private String identifier;
+    private final VariableReference variable;
+
+    /**
+     * If true, the list is read from disk as it is iterated instead of when it is declared
+     */
+    private boolean lazy;
+
+    /**
+     * Condition the files of the list must meet, tested while the folder is read. May be null (no where clause).
+     */
+    private OrCondition where;
+    private CompiledCondition compiledWhere;    // null until compiled
 
     public DirectDeclaration(String identifier, FMLPath path) {
+        this(identifier, path, false);
+    }
+
+    public DirectDeclaration(String identifier, FMLPath path, boolean lazy) {
+        this(identifier, path, lazy, null);
+    }
+
+    public DirectDeclaration(String identifier, FMLPath path, boolean lazy, OrCondition where) {
         this.identifier = identifier;
+        this.variable = new VariableReference(identifier);
         this.path = path;
+        this.lazy = lazy;
+        this.where = where;
+    }
+
+    @Override
+    public String getIdentifier() {
+        return identifier;
     }
 
     @Override
@@ -28,21 +69,92 @@ public class DirectDeclaration extends DeclarationStatement {
         }
         path.validate(program);
         validateIdentifierFormat();
+        if (where != null) {
+            Program whereScope = program.newChildScope();
+            whereScope.addIdentifierDeclaration(WHERE_ENTRY);
+            try {
+                where.validate(whereScope);
+            } catch (FMLExecutionException e) {
+                throw new InvalidFMLException("Invalid where clause: " + e.getMessage());
+            }
+        }
         program.addIdentifierDeclaration(identifier);
+        variable.resolve(program);
         this.setValidated();
     }
 
     @Override
     public void evaluate(Program program) throws FMLExecutionException {
-        path.evaluate(program);
+        String absolutePath = path.resolve(program);
         boolean identifierIsList = LIST_VARIABLE_IDENTIFIER.matcher(identifier).matches();
-        if (identifierIsList) {
-            program.addVariable(identifier, new ListVariable(path.getAbsolutePath()));
+        if (identifierIsList && lazy) {
+            program.addVariable(variable, new LazyListVariable(absolutePath, buildFilter(program)));
+        } else if (identifierIsList) {
+            program.addVariable(variable, new ListVariable(absolutePath, buildFilter(program)));
         } else {
-            program.addVariable(identifier, new FileVariable(path.getAbsolutePath()));
+            program.addVariable(variable, new FileVariable(absolutePath));
         }
     }
 
+    @Override
+    public void compile() {
+        if (where != null) {
+            compiledWhere = where.compile();
+        }
+    }
+
+    /**
+     * Files are tested in a scope where WHERE_ENTRY is the file with the attributes read while listing it,
+     * so the condition never reads the file from disk again. Folders may be listed by several threads, so
+     * each thread reuses its own scope and entry for every file it tests.
+     *
+     * @return the filter of the where clause, or null if there is none
+     */
+    private EntryFilter buildFilter(Program program) {
+        if (where == null) {
+            return null;
+        }
+        CompiledCondition condition = compiledWhere != null ? compiledWhere : where.compile();
+        ThreadLocal<WhereScope> scopes = ThreadLocal.withInitial(() -> new WhereScope(program));
+        return (file, attributes) -> {
+            WhereScope scope = scopes.get();
+            scope.entry.setInnerFileObject(file.toFile(), attributes);
+            return condition.test(scope.program);
+        };
+    }
+
+    /**
+     * Scope of the where clause, and the entry it binds to WHERE_ENTRY
+     */
+    private static class WhereScope {
+        private final Program program;
+        private final FileVariable entry;
+
+        WhereScope(Program parent) {
+            program = parent.newChildScope();
+            try {
+                entry = new FileVariable("");
+            } catch (FMLExecutionException e) {
+                throw new IllegalStateException(e);
+            }
+            program.addVariable(WHERE_ENTRY, entry);
+        }
+    }
+
+    @Override
+    public void write(ProgramWriter out) throws IOException {
+        out.writeTag(NodeTag.DIRECT_DECLARATION);
+        out.writeString(identifier);
+        out.writeNode(path);
+        out.writeBoolean(lazy);
+        out.writeNode(where);
+    }
+
+    @Override
+    public List<VariableReference> getReferences() {
+        return List.of(variable);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (!(obj instanceof DirectDeclaration)) {
@@ -50,7 +162,8 @@ public class DirectDeclaration extends DeclarationStatement {
         }
 
         DirectDeclaration other = (DirectDeclaration) obj;
-        return nullOrEqual(this.path, other.path) && nullOrEqual(this.identifier, other.identifier);
+        return nullOrEqual(this.path, other.path) && nullOrEqual(this.identifier, other.identifier)
+                && this.lazy == other.lazy && nullOrEqual(this.where, other.where);
     }
 
     private void validateIdentifierFormat() throws InvalidFMLException {
@@ -62,15 +175,27 @@ public class DirectDeclaration extends DeclarationStatement {
         if (path.isWildCardPath() && !identifierIsList) {
             throw new InvalidFMLException("Invalid identifier for list variable - must end in []");
         }
+        if (lazy && !identifierIsList) {
+            throw new InvalidFMLException("Invalid declaration. Only list variables can be lazy: " + identifier);
+        }
+        if (where != null && !identifierIsList) {
+            throw new InvalidFMLException("Invalid declaration. Only list variables can have a where clause: " + identifier);
+        }
     }
 
     @Override
     public void reset() throws FMLExecutionException {
         path.reset();
+        if (where != null) {
+            where.reset();
+        }
     }
 
     @Override
     public String toString() {
-        return String.format("%s = %s", identifier, path.toString());
+        String declaration = String.format("%s = %s", identifier, path.toString());
+        if (lazy) declaration = String.format("%s %s", LAZY, declaration);
+        if (where != null) declaration = String.format("%s %s %s", declaration, WHERE, where.toString());
+        return declaration;
     }
 }
@@ -1,13 +1,18 @@
 package Parser.ASTNodes.Statements.Declarations.Paths;
 
+import Compiler.NodeTag;
+import Compiler.ProgramWriter;
 import Exceptions.FMLExecutionException;
 import Exceptions.InvalidFMLException;
 import Parser.ASTNodes.ASTNode;
 import Parser.ASTNodes.Program;
+import Parser.ASTNodes.VariableReference;
 import Parser.ASTNodes.Variables.FileVariable;
 
+import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 
 import static Language.FMLGrammar.WILDCARD_PATH;
 import static Util.ObjectUtil.nullOrEqual;
@@ -24,6 +29,7 @@ public class FMLPath extends ASTNode {
      * FMLPath is relative to this file variable
      */
     String rootVarIdentifier;    // may be null
+    VariableReference rootVariable;     // null if there is no root variable
 
     /**
      * Built at evaluation time
@@ -36,6 +42,7 @@ public class FMLPath extends ASTNode {
 
     public FMLPath(String rootVariableIdentifier, String relativePath) {
         this.rootVarIdentifier = rootVariableIdentifier;
+        this.rootVariable = rootVariableIdentifier == null ? null : new VariableReference(rootVariableIdentifier);
         this.path = removeEscapedQuotes(relativePath);
     }
 
@@ -65,26 +72,52 @@ public class FMLPath extends ASTNode {
             String message = String.format("Cannot use variable %s before declaration", rootVarIdentifier);
             throw new InvalidFMLException(message);
         }
+        if (rootVariable != null) {
+            rootVariable.resolve(program);
+        }
         this.setValidated();
     }
 
     @Override
     public void evaluate(Program program) throws FMLExecutionException {
+        this.absolutePath = resolve(program);
+    }
+
+    /**
+     * Same as evaluate, but returns the absolute path instead of keeping it, so the same path can be
+     * resolved in several scopes at the same time, e.g. in the iterations of a parallel loop
+     *
+     * @param program scope the path is used in
+     * @return the absolute path represented by this FMLPath object in the given scope
+     */
+    public String resolve(Program program) throws FMLExecutionException {
         String rootPath = null;
         if (rootVarIdentifier != null) {
-            FileVariable fileRoot = program.getFileVariable(rootVarIdentifier);
+            FileVariable fileRoot = rootVariable.getFileVariable(program);
             if (!fileRoot.isDirectory()) {
                 throw new FMLExecutionException("The root of a relative path cannot be a file.");
             }
             rootPath = fileRoot.getAbsolutePath();
         }
         try {
-            this.absolutePath = buildAbsPath(rootPath, this.path);
+            return buildAbsPath(rootPath, this.path);
         } catch (Exception e) {
             throw new FMLExecutionException("Failed to build path", e);
         }
     }
 
+    @Override
+    public void write(ProgramWriter out) throws IOException {
+        out.writeTag(NodeTag.PATH);
+        out.writeString(rootVarIdentifier);
+        out.writeString(path);
+    }
+
+    @Override
+    public List<VariableReference> getReferences() {
+        return rootVariable == null ? List.of() : List.of(rootVariable);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (!(obj instanceof FMLPath)) {
@@ -1,8 +1,14 @@
 package Parser.ASTNodes.Statements.Declarations;
 
+import Compiler.NodeTag;
+import Compiler.ProgramWriter;
 import Exceptions.FMLExecutionException;
 import Exceptions.InvalidFMLException;
 import Parser.ASTNodes.Program;
+import Parser.ASTNodes.VariableReference;
+
+import java.io.IOException;
+import java.util.List;
 
 import static Language.FMLGrammar.FILE_VARIABLE_IDENTIFIER;
 import static Language.FMLGrammar.LIST_VARIABLE_IDENTIFIER;
@@ -13,9 +19,19 @@ public class ReferenceDeclaration extends DeclarationStatement {
     String leftIdentifier;        // string on the left side of the '='
     String rightIdentifier;       // variable name on the right hand side (i.e. the one that already exists)
 
+    private final VariableReference left;
+    private final VariableReference right;
+
     public ReferenceDeclaration(String leftIdentifier, String rightIdentifier) {
         this.leftIdentifier = leftIdentifier;
         this.rightIdentifier = rightIdentifier;
+        this.left = new VariableReference(leftIdentifier);
+        this.right = new VariableReference(rightIdentifier);
+    }
+
+    @Override
+    public String getIdentifier() {
+        return leftIdentifier;
     }
 
     @Override
@@ -29,13 +45,15 @@ public class ReferenceDeclaration extends DeclarationStatement {
             String message = String.format("Invalid variable declaration. Cannot use %s before declaration", rightIdentifier);
             throw new InvalidFMLException(message);
         }
+        right.resolve(program);
         program.addIdentifierDeclaration(leftIdentifier);
+        left.resolve(program);
         this.setValidated();
     }
 
     @Override
     public void evaluate(Program program) throws FMLExecutionException {
-        program.addVariable(leftIdentifier, program.getVariable(rightIdentifier));
+        program.addVariable(left, right.getVariable(program));
     }
 
     private void validateIdentifierFormats() throws InvalidFMLException {
@@ -56,6 +74,18 @@ public class ReferenceDeclaration extends DeclarationStatement {
         }
     }
 
+    @Override
+    public void write(ProgramWriter out) throws IOException {
+        out.writeTag(NodeTag.REFERENCE_DECLARATION);
+        out.writeString(leftIdentifier);
+        out.writeString(rightIdentifier);
+    }
+
+    @Override
+    public List<VariableReference> getReferences() {
+        return List.of(left, right);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (!(obj instanceof ReferenceDeclaration)) {
@@ -1,11 +1,16 @@
 package Parser.ASTNodes.Statements;
 
+import Compiler.NodeTag;
+import Compiler.ProgramWriter;
 import Exceptions.FMLExecutionException;
 import Exceptions.InvalidFMLException;
+import Executor.CheckpointJournal;
+import Executor.ShardCoordinator;
 import Parser.ASTNodes.Program;
-import Parser.ASTNodes.Variables.FileVariable;
+import Parser.ASTNodes.VariableReference;
 import Parser.ASTNodes.Variables.ListVariable;
 
+import java.io.IOException;
 import java.util.List;
 
 import static Util.ObjectUtil.nullOrEqual;
@@ -15,41 +20,86 @@ public class ForLoop extends Statement {
     /**
      * The list of file paths to execute the loop for.
      */
-    private final String targetCollectionIdentifier;
+    protected final String targetCollectionIdentifier;
 
     /**
      * The program within the loop
      */
-    private final Program loopProgram;
+    protected final Program loopProgram;
 
     /**
      * The identifier used in the iterator for each element of the list
      */
-    private final String loopIdentifier; // inject this in program on each iteration with different value
+    protected final String loopIdentifier; // inject this in program on each iteration with different value
+
+    protected final VariableReference targetCollection;
+    protected final VariableReference loopVariable;
 
     public ForLoop(String targetCollectionIdentifier, Program loopProgram, String loopIdentifier) {
         this.targetCollectionIdentifier = targetCollectionIdentifier;
         this.loopProgram = loopProgram;
         this.loopIdentifier = loopIdentifier;
+        this.targetCollection = new VariableReference(targetCollectionIdentifier);
+        this.loopVariable = new VariableReference(loopIdentifier);
+    }
+
+    public String getTargetCollectionIdentifier() {
+        return targetCollectionIdentifier;
     }
 
+    /**
+     * Runs the loop program for each file of the list. A loop of the script itself is split across worker
+     * processes when the script is run with --shards, see ShardCoordinator.
+     */
     @Override
     public void evaluate(Program program) throws FMLExecutionException {
-        ListVariable targetCollection = program.getListVariable(targetCollectionIdentifier);
-        List<FileVariable> fileVars = targetCollection.getInnerList();
+        ListVariable targetCollection = this.targetCollection.getListVariable(program);
+        ShardCoordinator shards = ShardCoordinator.get();
+        if (shards.isEnabled() && program.isTopLevel() && !loopProgram.canReturn()) {
+            shards.run(this, targetCollection, program);
+            return;
+        }
+        iterate(targetCollection, program);
+    }
 
-        for (FileVariable fv : fileVars) {
+    /**
+     * Runs the loop program for each file of the list, in this process
+     */
+    protected void iterate(ListVariable targetCollection, Program program) throws FMLExecutionException {
+        CheckpointJournal journal = CheckpointJournal.get();
+        Program scope = loopProgram.newScope(program);
+        targetCollection.forEachFile(fv -> {
+            if (journal.isCompleted(program, fv)) {
+                return true;
+            }
             try {
-                // inject the current file variable into the loop program so it can be identified
-                loopProgram.addVariable(this.loopIdentifier, fv);
+                // inject the current file variable into the loop scope so it can be identified
+                scope.addVariable(loopVariable, fv);
                 // execute loop program, including updated value for the file variable
-                loopProgram.evaluate(program);
+                scope.run();
                 // cleanup
-                loopProgram.reset();
+                scope.reset();
+                journal.complete(program, fv);
             } catch (FMLExecutionException e) {
-                throw new FMLExecutionException("For loop failed to execute program for file variable" + fv.getName(), e);
+                throw new FMLExecutionException("For loop failed to execute program for file variable " + fv.getName(), e);
             }
-        }
+            return !program.isTerminated();
+        });
+    }
+
+    @Override
+    public void compile() {
+        loopProgram.compile();
+    }
+
+    @Override
+    public boolean canReturn() {
+        return loopProgram.canReturn();
+    }
+
+    @Override
+    public boolean changesVariables() {
+        return loopProgram.changesVariables();
     }
 
     @Override
@@ -66,13 +116,28 @@ public class ForLoop extends Statement {
         if (!program.identifierIsDeclared(targetCollectionIdentifier)) {
             throw new FMLExecutionException("Cannot use variable before declaration: " + targetCollectionIdentifier);
         }
+        targetCollection.resolve(program);
         loopProgram.addIdentifierDeclaration(loopIdentifier);
+        loopVariable.resolve(loopProgram);
         loopProgram.validate(program);
     }
 
+    @Override
+    public void write(ProgramWriter out) throws IOException {
+        out.writeTag(NodeTag.FOR);
+        out.writeString(targetCollectionIdentifier);
+        out.writeNode(loopProgram);
+        out.writeString(loopIdentifier);
+    }
+
+    @Override
+    public List<VariableReference> getReferences() {
+        return List.of(targetCollection, loopVariable);
+    }
+
     @Override
     public boolean equals(Object obj) {
-        if (!(obj instanceof ForLoop)) {
+        if (!(obj instanceof ForLoop) || obj.getClass() != this.getClass()) {
             return false;
         }
         ForLoop other = (ForLoop) obj;
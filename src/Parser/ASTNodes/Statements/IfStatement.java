@@ -1,10 +1,15 @@
 package Parser.ASTNodes.Statements;
 
+import Compiler.NodeTag;
+import Compiler.ProgramWriter;
 import Exceptions.FMLExecutionException;
 import Exceptions.InvalidFMLException;
+import Parser.ASTNodes.Conditions.CompiledCondition;
 import Parser.ASTNodes.Conditions.OrCondition;
 import Parser.ASTNodes.Program;
 
+import java.io.IOException;
+
 import static Util.ObjectUtil.nullOrEqual;
 
 public class IfStatement extends Statement {
@@ -12,6 +17,7 @@ public class IfStatement extends Statement {
     private OrCondition condition;
     private Program innerProgram;
     private Program elseProgram;    // may be null (no else block)
+    private CompiledCondition compiledCondition;    // null until compiled
 
     public IfStatement(OrCondition condition, Program innerProgram, Program elseProgram) {
         this.condition = condition;
@@ -29,13 +35,39 @@ public class IfStatement extends Statement {
      */
     @Override
     public void evaluate(Program program) throws FMLExecutionException {
-        condition.evaluate(program);
-        if (condition.getResult()) {
+        boolean result;
+        if (compiledCondition != null) {
+            result = compiledCondition.test(program);
+        } else {
+            condition.evaluate(program);
+            result = condition.getResult();
+            condition.reset();
+        }
+
+        if (result) {
             innerProgram.evaluate(program);
         } else if (elseProgram != null) {
             elseProgram.evaluate(program);
         }
-        condition.reset();
+    }
+
+    @Override
+    public void compile() {
+        compiledCondition = condition.compile();
+        innerProgram.compile();
+        if (elseProgram != null) {
+            elseProgram.compile();
+        }
+    }
+
+    @Override
+    public boolean canReturn() {
+        return innerProgram.canReturn() || (elseProgram != null && elseProgram.canReturn());
+    }
+
+    @Override
+    public boolean changesVariables() {
+        return innerProgram.changesVariables() || (elseProgram != null && elseProgram.changesVariables());
     }
 
     @Override
@@ -50,6 +82,14 @@ public class IfStatement extends Statement {
         }
     }
 
+    @Override
+    public void write(ProgramWriter out) throws IOException {
+        out.writeTag(NodeTag.IF);
+        out.writeNode(condition);
+        out.writeNode(innerProgram);
+        out.writeNode(elseProgram);
+    }
+
     @Override
     public boolean equals(Object other) {
         if (!(other instanceof IfStatement)) {
@@ -0,0 +1,167 @@
+package Parser.ASTNodes.Statements;
+
+import Compiler.NodeTag;
+import Compiler.ProgramWriter;
+import Exceptions.FMLExecutionException;
+import Executor.CheckpointJournal;
+import Parser.ASTNodes.Program;
+import Parser.ASTNodes.Variables.FileVariable;
+import Parser.ASTNodes.Variables.ListVariable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A for loop whose iterations are evaluated concurrently on a bounded fork/join pool.
+ *
+ * All iterations evaluate the same validated and compiled loop program. Variables live in scopes,
+ * not in the program, so every batch of iterations evaluates the program in a scope of its own
+ * (see Program.newScope), and compiled conditions hold no evaluation state.
+ */
+public class ParallelForLoop extends ForLoop {
+
+    /**
+     * Maximum number of iterations that are evaluated at the same time
+     */
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Number of batches each worker should get, so that idle workers have work to steal
+     */
+    private static final int BATCHES_PER_WORKER = 4;
+
+    /**
+     * Maximum number of files that are read from the list before their iterations are started
+     */
+    private static final int CHUNK_SIZE = 4096;
+
+    private static ForkJoinPool pool;
+
+    public ParallelForLoop(String targetCollectionIdentifier, Program loopProgram, String loopIdentifier) {
+        super(targetCollectionIdentifier, loopProgram, loopIdentifier);
+    }
+
+    @Override
+    protected void iterate(ListVariable targetCollection, Program program) throws FMLExecutionException {
+        logger.log(String.format("Running iterations on up to %d threads", PARALLELISM));
+        if (!loopProgram.isCompiled()) {
+            loopProgram.compile();      // conditions that are not compiled keep their results in the AST
+        }
+
+        // lists may be streamed from disk, so only a chunk of the files is held in memory at a time
+        List<FileVariable> chunk = new ArrayList<>(CHUNK_SIZE);
+        CheckpointJournal journal = CheckpointJournal.get();
+        targetCollection.forEachFile(fv -> {
+            if (journal.isCompleted(program, fv)) {
+                return true;
+            }
+            chunk.add(fv);
+            if (chunk.size() == CHUNK_SIZE) {
+                evaluateChunk(program, chunk);
+                chunk.clear();
+            }
+            return !program.isTerminated();
+        });
+        evaluateChunk(program, chunk);
+    }
+
+    private void evaluateChunk(Program program, List<FileVariable> fileVars) throws FMLExecutionException {
+        if (fileVars.isEmpty() || program.isTerminated()) {
+            return;
+        }
+
+        int batchSize = Math.max(1, fileVars.size() / (PARALLELISM * BATCHES_PER_WORKER));
+        AtomicReference<FMLExecutionException> failure = new AtomicReference<>();
+        getPool().invoke(new IterationTask(program, fileVars, 0, fileVars.size(), batchSize, failure));
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    private static synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(PARALLELISM);
+        }
+        return pool;
+    }
+
+    @Override
+    public void write(ProgramWriter out) throws IOException {
+        out.writeTag(NodeTag.PARALLEL_FOR);
+        out.writeString(targetCollectionIdentifier);
+        out.writeNode(loopProgram);
+        out.writeString(loopIdentifier);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof ParallelForLoop && super.equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+        // the loop program is compared by equals but left out here, since Program does not override hashCode
+        return Objects.hash(loopIdentifier, targetCollectionIdentifier);
+    }
+
+    @Override
+    public String toString() {
+        return "parallel for loop";
+    }
+
+    /**
+     * Evaluates the iterations in [start, end). Splits itself in half until it is at most one batch long.
+     */
+    @SuppressWarnings("serial")     // tasks are never serialized
+    private class IterationTask extends RecursiveAction {
+
+        private final Program program;
+        private final List<FileVariable> fileVars;
+        private final int start;
+        private final int end;
+        private final int batchSize;
+        private final AtomicReference<FMLExecutionException> failure;
+
+        IterationTask(Program program, List<FileVariable> fileVars, int start, int end, int batchSize,
+                      AtomicReference<FMLExecutionException> failure) {
+            this.program = program;
+            this.fileVars = fileVars;
+            this.start = start;
+            this.end = end;
+            this.batchSize = batchSize;
+            this.failure = failure;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > batchSize) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new IterationTask(program, fileVars, start, middle, batchSize, failure),
+                        new IterationTask(program, fileVars, middle, end, batchSize, failure));
+                return;
+            }
+
+            Program scope = loopProgram.newConcurrentScope(program);
+
+            for (int i = start; i < end && failure.get() == null && !program.isTerminated(); i++) {
+                FileVariable fv = fileVars.get(i);
+                try {
+                    scope.addVariable(loopVariable, fv);
+                    scope.run();
+                    scope.reset();
+                    CheckpointJournal.get().complete(program, fv);
+                } catch (FMLExecutionException e) {
+                    failure.compareAndSet(null,
+                            new FMLExecutionException("For loop failed to execute program for file variable " + fv.getName(), e));
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package Parser.ASTNodes.Statements;
 
+import Compiler.NodeTag;
+import Compiler.ProgramWriter;
 import Exceptions.FMLExecutionException;
 import Exceptions.InvalidFMLException;
 import Parser.ASTNodes.Program;
 import org.apache.commons.lang3.NotImplementedException;
 
+import java.io.IOException;
+
 public class ReturnStatement extends Statement {
 
     @Override
@@ -12,11 +16,21 @@ public class ReturnStatement extends Statement {
         program.terminate();
     }
 
+    @Override
+    public boolean canReturn() {
+        return true;
+    }
+
     @Override
     public void validate(Program program) throws InvalidFMLException {
         // Nothing to do here
     }
 
+    @Override
+    public void write(ProgramWriter out) throws IOException {
+        out.writeTag(NodeTag.RETURN);
+    }
+
     @Override
     public boolean equals(Object other) {
         return other instanceof ReturnStatement; // all return statements are equal
@@ -6,4 +6,27 @@ import Parser.ASTNodes.ASTNode;
  * Represents a statement in an FML program
  */
 public abstract class Statement extends ASTNode {
+
+    /**
+     * Compiles the conditions of this statement and of the statements nested in it.
+     * Statements without conditions have nothing to compile.
+     */
+    public void compile() {
+        // nothing to do here
+    }
+
+    /**
+     * @return true if this statement, or a statement nested in it, is a return statement
+     */
+    public boolean canReturn() {
+        return false;
+    }
+
+    /**
+     * @return true if this statement, or a statement nested in it, points a variable to another file, e.g. a
+     * rename, so that the statements after it rely on having run it
+     */
+    public boolean changesVariables() {
+        return false;
+    }
 }
@@ -0,0 +1,115 @@
+package Parser.ASTNodes;
+
+import Exceptions.FMLExecutionException;
+import Parser.ASTNodes.Variables.FileVariable;
+import Parser.ASTNodes.Variables.ListVariable;
+import Parser.ASTNodes.Variables.Variable;
+
+/**
+ * A use of a variable by a statement or condition.
+ *
+ * The validator resolves the reference to the scope that declares the variable, as a number of scopes up
+ * from the one it is used in, and the slot of the variable in that scope (see Program.resolve). Lookups
+ * then go straight to that slot. References that were not resolved are looked up by name.
+ */
+public class VariableReference {
+
+    public static final int NONE = -1;
+    private static final int MAX_SLOT = 0xFFFF;
+
+    private final String identifier;
+
+    /**
+     * depth << 16 | slot of the variable, or NONE until resolved. Kept in one int, so that threads
+     * evaluating the same statement never see the depth of one resolution with the slot of another.
+     */
+    private int location = NONE;
+
+    public VariableReference(String identifier) {
+        this.identifier = identifier;
+    }
+
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    /**
+     * Resolves the reference to the slot of its variable, see Program.resolve. Called when the statement
+     * or condition that uses the variable is validated.
+     *
+     * @param program scope the variable is used in
+     */
+    public void resolve(Program program) {
+        program.resolve(this);
+    }
+
+    /**
+     * @param program scope the variable is used in
+     * @return the variable
+     * @throws FMLExecutionException if there is no variable with the identifier
+     */
+    public Variable getVariable(Program program) throws FMLExecutionException {
+        Variable variable = program.findVariable(this);
+        return variable != null ? variable : program.getVariable(identifier);
+    }
+
+    /**
+     * @param program scope the variable is used in
+     * @return the variable
+     * @throws FMLExecutionException if there is no variable, or variable is not FileVariable
+     */
+    public FileVariable getFileVariable(Program program) throws FMLExecutionException {
+        Variable variable = program.findVariable(this);
+        return variable instanceof FileVariable ? (FileVariable) variable : program.getFileVariable(identifier);
+    }
+
+    /**
+     * @param program scope the variable is used in
+     * @return the variable
+     * @throws FMLExecutionException if there is no variable, or variable is not ListVariable
+     */
+    public ListVariable getListVariable(Program program) throws FMLExecutionException {
+        Variable variable = program.findVariable(this);
+        return variable instanceof ListVariable ? (ListVariable) variable : program.getListVariable(identifier);
+    }
+
+    /**
+     * @return depth << 16 | slot of the variable, or NONE
+     */
+    public int getLocation() {
+        return location;
+    }
+
+    /**
+     * Restores the location the reference was resolved to, e.g. in a program read from the cache
+     *
+     * @param location depth << 16 | slot of the variable, or NONE
+     */
+    public void setLocation(int location) {
+        if (location >= NONE) {
+            this.location = location;
+        }
+    }
+
+    /**
+     * @return the number of scopes between the use and the scope of the variable
+     */
+    static int depthOf(int location) {
+        return location >>> 16;
+    }
+
+    static int slotOf(int location) {
+        return location & MAX_SLOT;
+    }
+
+    void setLocation(int depth, int slot) {
+        if (depth <= MAX_SLOT && slot <= MAX_SLOT) {
+            this.location = depth << 16 | slot;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return identifier;
+    }
+}
@@ -0,0 +1,120 @@
+package Parser.ASTNodes.Variables;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Limits wildcard lists to the files that changed since the script last ran, so that a script that is
+ * watched only loops over new and modified files instead of reading its folders again.
+ *
+ * Outside of watch mode this does nothing and lists hold every file that matches them. In watch mode the
+ * folders of all wildcard lists are recorded so that they can be watched. A folder is listed in full the
+ * first time it is seen, and after that only its changed files are listed. Lists with wildcards in
+ * folder names are always read in full, see GlobWalker.
+ *
+ * A folder is handed to the FolderListener the first time it is seen, before the list reads it, so that
+ * a file created while the list is read is either listed or reported as a change.
+ */
+public class ChangedFiles {
+
+    private static ChangedFiles changedFiles;
+
+    private final Set<Path> folders = ConcurrentHashMap.newKeySet();
+    private volatile boolean watching = false;
+    private volatile FolderListener listener;       // null if new folders are only recorded
+
+    /**
+     * Map<folder, files changed in folder>. A null set means the whole folder has to be listed.
+     * Null if the current run lists every folder in full.
+     */
+    private volatile Map<Path, Set<Path>> changes;
+
+    public static synchronized ChangedFiles get() {
+        if (changedFiles == null) {
+            changedFiles = new ChangedFiles();
+        }
+        return changedFiles;
+    }
+
+    /**
+     * Starts recording the folders of wildcard lists, for a run that lists every folder in full
+     */
+    public void watchAll() {
+        this.changes = null;
+        this.watching = true;
+    }
+
+    /**
+     * @param listener called with each folder of a wildcard list the first time it is seen, or null
+     */
+    public void setFolderListener(FolderListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Limits the lists of the next run to the given changes
+     *
+     * @param changes Map<folder, files created or modified in folder>. A null set lists the folder in full.
+     */
+    public void watchChanges(Map<Path, Set<Path>> changes) {
+        Map<Path, Set<Path>> normalized = new HashMap<>();
+        changes.forEach((folder, files) -> normalized.put(normalize(folder), files == null ? null
+                : files.stream().map(ChangedFiles::normalize).collect(Collectors.toCollection(LinkedHashSet::new))));
+        this.changes = normalized;
+        this.watching = true;
+    }
+
+    /**
+     * Stops watching and forgets the recorded folders
+     */
+    public void disable() {
+        watching = false;
+        changes = null;
+        listener = null;
+        folders.clear();
+    }
+
+    /**
+     * @return the folders of the wildcard lists that were built while watching
+     */
+    public Set<Path> getFolders() {
+        return new HashSet<>(folders);
+    }
+
+    /**
+     * @param folder folder of a wildcard list
+     * @return the files of the folder that the list should be limited to, or null if all files should be listed
+     */
+    public Collection<Path> getChangedFiles(Path folder) {
+        if (!watching) {
+            return null;
+        }
+        folder = normalize(folder);
+        boolean seenBefore = !folders.add(folder);
+        FolderListener listener = this.listener;
+        if (!seenBefore && listener != null) {
+            listener.folderSeen(folder);
+        }
+        Map<Path, Set<Path>> changes = this.changes;
+        if (changes == null || !seenBefore) {
+            return null;
+        }
+        if (!changes.containsKey(folder)) {
+            return Collections.emptyList();
+        }
+        return changes.get(folder);
+    }
+
+    private static Path normalize(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+
+    public interface FolderListener {
+        /**
+         * @param folder absolute path of a folder of a wildcard list, seen for the first time
+         */
+        void folderSeen(Path folder);
+    }
+}
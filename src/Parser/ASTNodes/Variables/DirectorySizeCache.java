@@ -0,0 +1,192 @@
+package Parser.ASTNodes.Variables;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Computes the size of folders. Sub folders are walked in parallel, and the total of every folder
+ * that is walked completely is kept for the rest of the run, so sizing a folder again, or sizing
+ * one of its parents, does not walk the folders that were already sized.
+ *
+ * Like the FileAttributeCache, totals are only kept while a script runs. The FileAttributeCache
+ * enables, disables and invalidates this cache along with itself.
+ */
+public class DirectorySizeCache {
+
+    /**
+     * Size limit meaning the whole folder must be walked
+     */
+    public static final long NO_LIMIT = -1;
+
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    private static DirectorySizeCache cache;
+    private static ForkJoinPool pool;
+
+    /**
+     * Map<absolute path of folder, total size in bytes>. Sorted so the entries under a folder can be removed together.
+     */
+    private final ConcurrentNavigableMap<String, Long> totals = new ConcurrentSkipListMap<>();
+    private volatile boolean enabled = false;
+
+    public static synchronized DirectorySizeCache get() {
+        if (cache == null) {
+            cache = new DirectorySizeCache();
+        }
+        return cache;
+    }
+
+    void enable() {
+        totals.clear();
+        enabled = true;
+    }
+
+    void disable() {
+        enabled = false;
+        totals.clear();
+    }
+
+    /**
+     * Removes the totals of the given path, of everything under it and of every folder above it
+     *
+     * @param file the file or folder that changed
+     */
+    void invalidate(File file) {
+        if (!enabled) {
+            return;
+        }
+        String path = file.getAbsolutePath();
+        totals.subMap(path + File.separator, path + File.separator + Character.MAX_VALUE).clear();
+        for (File current = file.getAbsoluteFile(); current != null; current = current.getParentFile()) {
+            totals.remove(current.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Get the total size of the files in the given folder and all its sub folders.
+     * Symbolic links are not followed, and folders that cannot be read count as empty.
+     *
+     * @param folder the folder to size
+     * @param limit  stop walking once the size is known to be greater than this many bytes, or NO_LIMIT
+     * @return the size of the folder in bytes. If the folder is larger than the limit, any value
+     * greater than the limit (but not greater than the size of the folder) may be returned.
+     */
+    public long getSize(File folder, long limit) {
+        Walk walk = new Walk(limit);
+        Long total = getPool().invoke(new SizeTask(folder.getAbsoluteFile().toPath(), walk));
+        return total != null ? total : walk.size.sum();
+    }
+
+    private static synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(PARALLELISM);
+        }
+        return pool;
+    }
+
+    /**
+     * State shared by all the folders of one call to getSize
+     */
+    private static class Walk {
+        private final long limit;
+        private final LongAdder size = new LongAdder();
+
+        Walk(long limit) {
+            this.limit = limit;
+        }
+
+        boolean exceeded() {
+            return limit != NO_LIMIT && size.sum() > limit;
+        }
+    }
+
+    /**
+     * Sizes one folder and forks a task for each of its sub folders.
+     * Returns null if the walk was stopped before the folder was completely sized.
+     */
+    @SuppressWarnings("serial")     // tasks are never serialized
+    private class SizeTask extends RecursiveTask<Long> {
+
+        private final Path folder;
+        private final Walk walk;
+
+        SizeTask(Path folder, Walk walk) {
+            this.folder = folder;
+            this.walk = walk;
+        }
+
+        @Override
+        protected Long compute() {
+            String key = folder.toString();
+            Long cached = enabled ? totals.get(key) : null;
+            if (cached != null) {
+                walk.size.add(cached);
+                return cached;
+            }
+
+            long total = 0;
+            boolean complete = true;
+            List<SizeTask> subFolders = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(folder)) {
+                for (Path entry : entries) {
+                    if (walk.exceeded()) {
+                        complete = false;
+                        break;
+                    }
+                    BasicFileAttributes attributes = readAttributes(entry);
+                    if (attributes == null || attributes.isSymbolicLink()) {
+                        continue;
+                    }
+                    if (attributes.isDirectory()) {
+                        SizeTask subFolder = new SizeTask(entry, walk);
+                        subFolder.fork();
+                        subFolders.add(subFolder);
+                    } else {
+                        total += attributes.size();
+                        walk.size.add(attributes.size());
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                // same as FileUtils.sizeOfDirectory: a folder that cannot be read has no size
+            }
+
+            for (SizeTask subFolder : subFolders) {
+                Long subTotal = subFolder.join();
+                if (subTotal == null) {
+                    complete = false;
+                } else {
+                    total += subTotal;
+                }
+            }
+
+            if (!complete) {
+                return null;
+            }
+            if (enabled) {
+                totals.put(key, total);
+            }
+            return total;
+        }
+
+        private BasicFileAttributes readAttributes(Path entry) {
+            try {
+                return Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            } catch (IOException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package Parser.ASTNodes.Variables;
+
+import Exceptions.FMLExecutionException;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Decides whether a file belongs to a list while its folder is read. The attributes of each file are read
+ * once, and files that are not accepted are never added to the list.
+ */
+@FunctionalInterface
+public interface EntryFilter {
+
+    /**
+     * @param file       the file being listed
+     * @param attributes attributes of the file, read while listing its folder
+     * @return true if the file belongs to the list
+     */
+    boolean accepts(Path file, BasicFileAttributes attributes) throws FMLExecutionException;
+}
@@ -0,0 +1,193 @@
+package Parser.ASTNodes.Variables;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Caches the attributes of files and folders for the duration of a script run, so that each
+ * path is read from disk at most once no matter how many conditions check it.
+ *
+ * Commands that change a path on disk must invalidate it. Outside of a run the cache is
+ * disabled and attributes are always read from disk.
+ *
+ * A FileVariable keeps the snapshot of its attributes, so that it does not look up its path again
+ * each time an attribute is read. Snapshots are marked as outdated when they are removed from the cache.
+ *
+ * The paths that are invalidated can also be recorded, so that the Watcher can tell the changes made by the
+ * script itself from the changes made by others.
+ */
+public class FileAttributeCache {
+
+    private static FileAttributeCache cache;
+
+    /**
+     * Map<absolute path, attributes>. Sorted so the entries under a folder can be removed together.
+     */
+    private final ConcurrentNavigableMap<String, Snapshot> snapshots = new ConcurrentSkipListMap<>();
+    private volatile boolean enabled = false;
+    private volatile Set<String> invalidated;       // absolute paths, null if not recording
+
+    public static synchronized FileAttributeCache get() {
+        if (cache == null) {
+            cache = new FileAttributeCache();
+        }
+        return cache;
+    }
+
+    /**
+     * Starts caching attributes. Called by the Executor when a run starts.
+     */
+    public void enable() {
+        clear();
+        DirectorySizeCache.get().enable();
+        enabled = true;
+    }
+
+    /**
+     * Stops caching attributes and drops everything that was cached. Called by the Executor when a run ends.
+     */
+    public void disable() {
+        enabled = false;
+        clear();
+        DirectorySizeCache.get().disable();
+    }
+
+    /**
+     * Starts recording the paths that are invalidated, whether the cache is enabled or not
+     */
+    public void startRecording() {
+        invalidated = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Stops recording the paths that are invalidated
+     *
+     * @return the absolute paths invalidated since recording started
+     */
+    public Set<String> stopRecording() {
+        Set<String> paths = invalidated;
+        invalidated = null;
+        return paths == null ? Set.of() : paths;
+    }
+
+    /**
+     * Get the attributes of the given file or folder
+     *
+     * @param file file or folder to read
+     * @return the attributes of the file, or null if it does not exist
+     */
+    public BasicFileAttributes getAttributes(File file) {
+        return getSnapshot(file).getAttributes();
+    }
+
+    /**
+     * @param file file or folder to read
+     * @return the current snapshot of the attributes of the file. Outdated right away if the cache is disabled.
+     */
+    Snapshot getSnapshot(File file) {
+        if (!enabled) {
+            Snapshot snapshot = read(file);
+            snapshot.current = false;
+            return snapshot;
+        }
+        return snapshots.computeIfAbsent(file.getAbsolutePath(), path -> read(file));
+    }
+
+    /**
+     * Caches attributes that were read along with the listing of a folder, so that they are not read again.
+     * Attributes that are already cached are kept, since they may have been read more recently.
+     *
+     * @param file       file or folder the attributes were read for
+     * @param attributes attributes of the file, read by following symbolic links
+     * @return the snapshot cached for the file, or null if the cache is disabled
+     */
+    Snapshot put(File file, BasicFileAttributes attributes) {
+        if (!enabled) {
+            return null;
+        }
+        Snapshot snapshot = new Snapshot(attributes);
+        Snapshot cached = snapshots.putIfAbsent(file.getAbsolutePath(), snapshot);
+        return cached == null ? snapshot : cached;
+    }
+
+    /**
+     * Removes the cached attributes of the given path, of everything under it and of its parent folder,
+     * and the cached sizes of the folders that contain it. Must be called after a path is created, changed or removed on disk.
+     *
+     * @param file the file or folder that changed
+     */
+    public void invalidate(File file) {
+        String path = file.getAbsolutePath();
+        Set<String> recorded = invalidated;
+        if (recorded != null) {
+            recorded.add(path);
+        }
+        if (!enabled) {
+            return;
+        }
+        remove(path);
+        Map<String, Snapshot> children = snapshots.subMap(path + File.separator, path + File.separator + Character.MAX_VALUE);
+        children.values().forEach(Snapshot::outdate);
+        children.clear();
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            remove(parent.getAbsolutePath());
+        }
+        DirectorySizeCache.get().invalidate(file);
+    }
+
+    private void remove(String path) {
+        Snapshot snapshot = snapshots.remove(path);
+        if (snapshot != null) {
+            snapshot.outdate();
+        }
+    }
+
+    private void clear() {
+        snapshots.values().forEach(Snapshot::outdate);
+        snapshots.clear();
+    }
+
+    private static Snapshot read(File file) {
+        try {
+            return new Snapshot(Files.readAttributes(file.toPath(), BasicFileAttributes.class));
+        } catch (IOException e) {
+            // same as Files.exists: a path that cannot be read is treated as missing
+            return new Snapshot(null);
+        }
+    }
+
+    /**
+     * Attributes of a path at the time it was read. Null attributes mean the path did not exist.
+     */
+    static class Snapshot {
+        private final BasicFileAttributes attributes;
+        private volatile boolean current = true;
+
+        Snapshot(BasicFileAttributes attributes) {
+            this.attributes = attributes;
+        }
+
+        BasicFileAttributes getAttributes() {
+            return attributes;
+        }
+
+        /**
+         * @return false once the path may have changed since the attributes were read
+         */
+        boolean isCurrent() {
+            return current;
+        }
+
+        private void outdate() {
+            current = false;
+        }
+    }
+}
@@ -1,15 +1,11 @@
 package Parser.ASTNodes.Variables;
 
 import Exceptions.FMLExecutionException;
-import org.apache.commons.io.FileUtils;
+import Executor.CommandPipeline;
 import org.apache.commons.io.FilenameUtils;
 
 import java.io.File;
-import java.io.IOException;
 import java.math.BigInteger;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
@@ -18,18 +14,41 @@ import static Util.ObjectUtil.nullOrEqual;
 
 public class FileVariable extends Variable {
     private File innerFileObject;
-    private BasicFileAttributes attributes;
+    private BasicFileAttributes attributes;     // attributes read along with the file, or null to read them when needed
+    private FileAttributeCache.Snapshot snapshot;   // last snapshot read from the FileAttributeCache
 
     public FileVariable(String absolutePath) throws FMLExecutionException {
         innerFileObject = new File(absolutePath);
-        initAttributes();
+    }
+
+    /**
+     * Used for files whose attributes were just read, e.g. while listing a folder. The given attributes
+     * are used instead of reading the file again, so the variable should not outlive them.
+     *
+     * @param absolutePath path of the file
+     * @param attributes   attributes of the file
+     */
+    public FileVariable(String absolutePath, BasicFileAttributes attributes) throws FMLExecutionException {
+        this(absolutePath);
+        this.attributes = attributes;
+    }
+
+    /**
+     * Used by lists that cache the attributes of their files while listing them
+     *
+     * @param absolutePath path of the file
+     * @param snapshot     snapshot of the attributes of the file in the FileAttributeCache, may be null
+     */
+    FileVariable(String absolutePath, FileAttributeCache.Snapshot snapshot) throws FMLExecutionException {
+        this(absolutePath);
+        this.snapshot = snapshot;
     }
 
     /**
      * @return true if this FileVariable Points to a location that exists
      */
     public boolean exists() {
-        return Files.exists(innerFileObject.toPath());
+        return getAttributes() != null;
     }
 
     /**
@@ -44,6 +63,20 @@ public class FileVariable extends Variable {
      */
     public void setInnerFileObject(File innerFileObject) {
         this.innerFileObject = innerFileObject;
+        this.attributes = null;
+        this.snapshot = null;
+    }
+
+    /**
+     * Points the variable to a file whose attributes were just read, so that one variable can be reused
+     * for each file of a listing. See FileVariable(String, BasicFileAttributes).
+     *
+     * @param innerFileObject the file
+     * @param attributes      attributes of the file
+     */
+    public void setInnerFileObject(File innerFileObject, BasicFileAttributes attributes) {
+        setInnerFileObject(innerFileObject);
+        this.attributes = attributes;
     }
 
     /**
@@ -67,30 +100,68 @@ public class FileVariable extends Variable {
      * @return the size of the file or folder in bytes
      */
     public BigInteger getSize() throws FMLExecutionException {
-        if (!Files.exists(innerFileObject.toPath())) {
+        return getSize(DirectorySizeCache.NO_LIMIT);
+    }
+
+    /**
+     * Get the size of the file or folder, without walking more of the folder than needed
+     * to know that it is larger than the given limit.
+     *
+     * @param limit number of bytes, or DirectorySizeCache.NO_LIMIT
+     * @return the size in bytes, or any value larger than the limit if the file or folder is larger than the limit
+     */
+    public BigInteger getSize(long limit) throws FMLExecutionException {
+        return BigInteger.valueOf(getSizeInBytes(limit));
+    }
+
+    /**
+     * Same as getSize, without allocating a BigInteger
+     */
+    public long getSizeInBytes(long limit) throws FMLExecutionException {
+        BasicFileAttributes attributes = getAttributes();
+        if (attributes == null) {
             throw new FMLExecutionException("Size of file or directory cannot be read since it does not exist");
         }
-        return FileUtils.sizeOfAsBigInteger(innerFileObject);
+        if (!attributes.isDirectory()) {
+            return attributes.size();
+        }
+        return DirectorySizeCache.get().getSize(innerFileObject, limit);
     }
 
     /**
      * @return the UNIX timestamp for when the file was created
      */
     public BigInteger getTimeCreated() throws FMLExecutionException {
-        if (!Files.exists(innerFileObject.toPath())) {
+        return BigInteger.valueOf(getSecondsCreated());
+    }
+
+    /**
+     * Same as getTimeCreated, without allocating a BigInteger
+     */
+    public long getSecondsCreated() throws FMLExecutionException {
+        BasicFileAttributes attributes = getAttributes();
+        if (attributes == null) {
             throw new FMLExecutionException("Time Created of file or directory cannot be read since it does not exist");
         }
-        return BigInteger.valueOf(attributes.creationTime().to(TimeUnit.SECONDS));
+        return attributes.creationTime().to(TimeUnit.SECONDS);
     }
 
     /**
      * @return the UNIX timestamp for when the file was last modified
      */
     public BigInteger getTimeModified() throws FMLExecutionException {
-        if (!Files.exists(innerFileObject.toPath())) {
+        return BigInteger.valueOf(getSecondsModified());
+    }
+
+    /**
+     * Same as getTimeModified, without allocating a BigInteger
+     */
+    public long getSecondsModified() throws FMLExecutionException {
+        BasicFileAttributes attributes = getAttributes();
+        if (attributes == null) {
             throw new FMLExecutionException("Time Modified of file or directory cannot be read since it does not exist");
         }
-        return BigInteger.valueOf(attributes.lastModifiedTime().to(TimeUnit.SECONDS));
+        return attributes.lastModifiedTime().to(TimeUnit.SECONDS);
     }
 
     /**
@@ -109,7 +180,8 @@ public class FileVariable extends Variable {
      * false otherwise
      */
     public boolean isDirectory() {
-        return innerFileObject.isDirectory();
+        BasicFileAttributes attributes = getAttributes();
+        return attributes != null && attributes.isDirectory();
     }
 
     /**
@@ -117,7 +189,8 @@ public class FileVariable extends Variable {
      * false otherwise
      */
     public boolean isFile() {
-        return innerFileObject.isFile();
+        BasicFileAttributes attributes = getAttributes();
+        return attributes != null && attributes.isRegularFile();
     }
 
     /**
@@ -140,14 +213,20 @@ public class FileVariable extends Variable {
         return Objects.hash(innerFileObject);
     }
 
-    private void initAttributes() throws FMLExecutionException {
-        Path p = Paths.get(innerFileObject.getAbsolutePath());
-        try {
-            if (Files.exists(p)) {
-                attributes = Files.readAttributes(p, BasicFileAttributes.class);
-            }
-        } catch (IOException e) {
-            throw new FMLExecutionException("File attributes could not be read");
+    /**
+     * @return the attributes of the file or folder, or null if it does not exist.
+     * Waits for the commands on it that are still running in the background.
+     */
+    private BasicFileAttributes getAttributes() {
+        if (attributes != null) {
+            return attributes;
+        }
+        CommandPipeline.get().awaitFile(innerFileObject);
+        FileAttributeCache.Snapshot snapshot = this.snapshot;
+        if (snapshot == null || !snapshot.isCurrent()) {
+            snapshot = FileAttributeCache.get().getSnapshot(innerFileObject);
+            this.snapshot = snapshot;
         }
+        return snapshot.getAttributes();
     }
 }
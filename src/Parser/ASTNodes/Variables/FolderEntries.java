@@ -0,0 +1,58 @@
+package Parser.ASTNodes.Variables;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+
+/**
+ * Reads the entries of a folder along with their attributes, in one pass over the folder.
+ *
+ * Where the file system supports it, the folder is kept open and the attributes of its entries are
+ * read relative to it (see SecureDirectoryStream), so the path of the folder is not looked up again
+ * for each entry. Otherwise the attributes are read by path.
+ */
+class FolderEntries implements Iterable<Path>, Closeable {
+
+    private final DirectoryStream<Path> stream;
+    private final SecureDirectoryStream<Path> secureStream;     // null if not supported
+
+    /**
+     * @param folder folder to read
+     * @param filter filter on the entries, e.g. on their names. Attributes are only read for accepted entries.
+     */
+    FolderEntries(Path folder, DirectoryStream.Filter<Path> filter) throws IOException {
+        this.stream = Files.newDirectoryStream(folder, filter);
+        this.secureStream = stream instanceof SecureDirectoryStream ? (SecureDirectoryStream<Path>) stream : null;
+    }
+
+    @Override
+    public Iterator<Path> iterator() {
+        return stream.iterator();
+    }
+
+    /**
+     * @param entry   an entry of the folder
+     * @param options LinkOption.NOFOLLOW_LINKS to read the attributes of a symbolic link itself
+     * @return the attributes of the entry, or null if they cannot be read, e.g. because it was deleted
+     */
+    BasicFileAttributes readAttributes(Path entry, LinkOption... options) {
+        try {
+            if (secureStream != null) {
+                return secureStream.getFileAttributeView(entry.getFileName(), BasicFileAttributeView.class, options)
+                        .readAttributes();
+            }
+            return Files.readAttributes(entry, BasicFileAttributes.class, options);
+        } catch (IOException e) {
+            // same as FileAttributeCache: a path that cannot be read is treated as missing
+            return null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        stream.close();
+    }
+}
@@ -0,0 +1,297 @@
+package Parser.ASTNodes.Variables;
+
+import Exceptions.FMLExecutionException;
+import Util.Logger;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Lists the files matched by a wildcard path that has wildcards in the names of its folders, or that ends
+ * with "**". A "**" segment matches any number of folders, including none: the segments logs, **, *.log
+ * match every .log file under logs, however deeply it is nested.
+ *
+ * The folders are read in parallel on a work-stealing pool, one task per folder. A folder is only read if
+ * the rest of the path can match something under it, so the segments logs, 2021-*, *.log never read
+ * logs/2020-01. Matches are handed to the thread iterating the list as they are found. Symbolic links to
+ * folders are not followed.
+ *
+ * Each walk has a pool of its own. The tasks of a walk wait while the iteration is BUFFER_SIZE matches
+ * behind, so a walk started by the iteration of another, e.g. in a loop over a lazy list, must not need
+ * their threads.
+ *
+ * The filter of a list is tested by the task that finds a match, so only accepted files reach the list.
+ * The attributes of each entry are read once, and are used both to find folders and to test the filter.
+ */
+class GlobWalker {
+
+    static Logger logger = Logger.get();
+
+    private static final String RECURSIVE = "**";
+    private static final String WILDCARD_REPLACEMENT = "_wildcard_";
+
+    /**
+     * Maximum number of folders that are read at the same time
+     */
+    static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Maximum number of matches found ahead of the iteration. Bounds memory when the list is iterated slowly.
+     */
+    static final int BUFFER_SIZE = 4096;
+
+    private static final Path END = Paths.get("");
+
+    private final String absolutePath;
+    private final Path root;              // the folder before the first wildcard
+    private final String[] segments;      // the segments after root
+    private final WildcardMatcher[] matchers;
+    private final EntryFilter filter;     // null if every match is kept
+    private final boolean cacheAttributes;
+
+    GlobWalker(String absolutePath) throws FMLExecutionException {
+        this(absolutePath, null, false);
+    }
+
+    /**
+     * @param absolutePath    wildcard path of the files to list
+     * @param filter          filter the matches must be accepted by, or null to keep every match
+     * @param cacheAttributes true to put the attributes of the matches in the FileAttributeCache
+     */
+    GlobWalker(String absolutePath, EntryFilter filter, boolean cacheAttributes) throws FMLExecutionException {
+        this.absolutePath = absolutePath;
+        this.filter = filter;
+        this.cacheAttributes = cacheAttributes;
+        Path path = Paths.get(absolutePath.replace("*", WILDCARD_REPLACEMENT)).toAbsolutePath();
+        int first = 0;
+        while (first < path.getNameCount() && !path.getName(first).toString().contains(WILDCARD_REPLACEMENT)) {
+            first++;
+        }
+        this.root = first == 0 ? path.getRoot() : path.getRoot().resolve(path.subpath(0, first));
+        this.segments = new String[path.getNameCount() - first];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = path.getName(first + i).toString().replace(WILDCARD_REPLACEMENT, "*");
+        }
+        this.matchers = new WildcardMatcher[segments.length];
+        for (int i = 0; i < segments.length; i++) {
+            matchers[i] = WildcardMatcher.get(segments[i]);
+        }
+        if (segments.length >= Long.SIZE) {
+            throw new FMLExecutionException("Cannot create file list. The path has too many segments: " + absolutePath);
+        }
+    }
+
+    /**
+     * @return true if the path has wildcards before its last segment, or ends with "**"
+     */
+    static boolean isRecursive(String absolutePath) {
+        if (!absolutePath.contains("*")) {
+            return false;
+        }
+        Path path = Paths.get(absolutePath.replace("*", WILDCARD_REPLACEMENT)).toAbsolutePath();
+        Path parent = path.getParent();
+        return (parent != null && parent.toString().contains(WILDCARD_REPLACEMENT))
+                || path.getFileName().toString().replace(WILDCARD_REPLACEMENT, "*").equals(RECURSIVE);
+    }
+
+    /**
+     * @return the folder the walk starts from
+     */
+    Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Runs the given action on each matched file until the action returns false. The action is run
+     * on the calling thread, in the order the files are found.
+     *
+     * @throws FMLExecutionException if the action fails, or the filter fails for any of the files
+     */
+    void forEachFile(ListVariable.FileAction action) throws FMLExecutionException {
+        if (!Files.isDirectory(root)) {
+            throw new FMLExecutionException("Cannot read file list. The given path is invalid: " + absolutePath);
+        }
+        BlockingQueue<Path> matches = new ArrayBlockingQueue<>(BUFFER_SIZE);
+        Walk walk = new Walk(matches);
+        ForkJoinPool pool = new ForkJoinPool(PARALLELISM);
+        pool.execute(ForkJoinTask.adapt(() -> {
+            try {
+                new FolderTask(walk, root, closure(1L)).invoke();
+            } finally {
+                walk.emit(END);
+            }
+        }));
+
+        try {
+            while (true) {
+                Path match = matches.take();
+                if (walk.error != null) {
+                    throw walk.error;
+                }
+                if (match == END || !action.apply(new FileVariable(match.toString()))) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FMLExecutionException("Interrupted while reading file list " + absolutePath, e);
+        } finally {
+            walk.cancelled = true;
+            matches.clear();
+            pool.shutdown();        // its threads end once the tasks see the walk is cancelled
+        }
+    }
+
+    /*
+     * The walk keeps track of which segments the path of a folder has matched so far as a set of states,
+     * with bit i set if the segments before i have been matched. A "**" state also matches the segment
+     * after it, since "**" may match no folders at all.
+     */
+
+    private long closure(long states) {
+        for (int i = 0; i < segments.length; i++) {
+            if ((states & (1L << i)) != 0 && segments[i].equals(RECURSIVE)) {
+                states |= 1L << (i + 1);
+            }
+        }
+        return states;
+    }
+
+    /**
+     * @return the states after matching the given name
+     */
+    private long step(long states, String name) {
+        long next = 0;
+        for (int i = 0; i < segments.length; i++) {
+            if ((states & (1L << i)) == 0) {
+                continue;
+            }
+            if (segments[i].equals(RECURSIVE)) {
+                next |= 1L << i;
+            } else if (matchers[i].matches(name)) {
+                next |= 1L << (i + 1);
+            }
+        }
+        return closure(next);
+    }
+
+    private boolean isMatch(long states) {
+        return (states & (1L << segments.length)) != 0;
+    }
+
+    /**
+     * @return true if a path under a folder with the given states could match
+     */
+    private boolean canDescend(long states) {
+        return (states & ((1L << segments.length) - 1)) != 0;
+    }
+
+    /**
+     * Tests a match against the filter, and caches its attributes if requested
+     *
+     * @param attributes attributes of the match, read without following symbolic links.
+     *                   Null if they cannot be read, or were not needed.
+     * @return true if the match belongs to the list
+     */
+    private boolean accepts(FolderEntries entries, Path match, BasicFileAttributes attributes) throws FMLExecutionException {
+        if (attributes != null && attributes.isSymbolicLink()) {
+            attributes = entries.readAttributes(match);     // the attributes of the file it links to
+        }
+        if (attributes == null) {
+            return filter == null;
+        }
+        if (filter != null && !filter.accepts(match, attributes)) {
+            return false;
+        }
+        if (cacheAttributes) {
+            FileAttributeCache.get().put(match.toFile(), attributes);
+        }
+        return true;
+    }
+
+    /**
+     * State shared by the tasks of one walk
+     */
+    private static class Walk {
+
+        private final BlockingQueue<Path> matches;
+        private volatile boolean cancelled = false;
+        private volatile FMLExecutionException error;     // first failure of the filter, stops the walk
+
+        Walk(BlockingQueue<Path> matches) {
+            this.matches = matches;
+        }
+
+        void emit(Path match) {
+            try {
+                while (!cancelled && !matches.offer(match, 100, TimeUnit.MILLISECONDS)) {
+                    // wait for the iteration to catch up
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelled = true;
+            }
+        }
+
+        boolean isStopped() {
+            return cancelled || error != null;
+        }
+    }
+
+    /**
+     * Reads a folder, emits its matching entries and forks a task for each of its folders that can hold matches
+     */
+    @SuppressWarnings("serial")     // tasks are never serialized
+    private class FolderTask extends RecursiveAction {
+
+        private final Walk walk;
+        private final Path folder;
+        private final long states;
+
+        FolderTask(Walk walk, Path folder, long states) {
+            this.walk = walk;
+            this.folder = folder;
+            this.states = states;
+        }
+
+        @Override
+        protected void compute() {
+            if (walk.isStopped()) {
+                return;
+            }
+            List<FolderTask> subfolders = new ArrayList<>();
+            try (FolderEntries entries = new FolderEntries(folder, entry -> true)) {
+                for (Path entry : entries) {
+                    if (walk.isStopped()) {
+                        return;
+                    }
+                    long next = step(states, entry.getFileName().toString());
+                    boolean match = isMatch(next);
+                    boolean descend = canDescend(next);
+                    boolean needsAttributes = descend || (match && (filter != null || cacheAttributes));
+                    BasicFileAttributes attributes = needsAttributes
+                            ? entries.readAttributes(entry, LinkOption.NOFOLLOW_LINKS) : null;
+                    if (match && accepts(entries, entry, attributes)) {
+                        walk.emit(entry);
+                    }
+                    if (descend && attributes != null && attributes.isDirectory()) {
+                        subfolders.add(new FolderTask(walk, entry, next));
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                // like a listing of the folder itself, an unreadable folder has no matches
+                logger.log("Skipping folder " + folder + ": " + e.getMessage());
+            } catch (FMLExecutionException e) {
+                if (walk.error == null) {
+                    walk.error = e;
+                }
+                return;
+            }
+            invokeAll(subfolders);
+        }
+    }
+}
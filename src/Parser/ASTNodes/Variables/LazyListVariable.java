@@ -0,0 +1,123 @@
+package Parser.ASTNodes.Variables;
+
+import Exceptions.FMLExecutionException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Objects;
+
+import static Util.ObjectUtil.nullOrEqual;
+
+/**
+ * A list of files that is never held in memory. The folder is read again each time the list
+ * is iterated, and a FileVariable is only built once its file is reached, so iterating
+ * the list uses the same amount of memory regardless of the size of the folder.
+ *
+ * Changes made to the folder while the list is iterated may or may not be seen by the iteration.
+ */
+public class LazyListVariable extends ListVariable {
+
+    private final String absolutePath;
+    private final EntryFilter filter;
+
+    public LazyListVariable(String absolutePath) throws FMLExecutionException {
+        this(absolutePath, null);
+    }
+
+    /**
+     * @param absolutePath path of the files of the list, may have wildcards
+     * @param filter       filter the files must be accepted by, or null to keep every file.
+     *                     It is tested each time the list is iterated.
+     */
+    public LazyListVariable(String absolutePath, EntryFilter filter) throws FMLExecutionException {
+        this.absolutePath = absolutePath;
+        this.filter = filter;
+        ListVariable.awaitCommands(absolutePath);
+        if (absolutePath.contains("*")) {
+            File folder = GlobWalker.isRecursive(absolutePath) ? new GlobWalker(absolutePath).getRoot().toFile()
+                    : ListVariable.getWildcardParent(absolutePath);
+            if (!folder.isDirectory()) {
+                throw new FMLExecutionException("Cannot create file list. The given path is invalid: " + absolutePath);
+            }
+        }
+    }
+
+    /**
+     * Reads all the files of this list into memory.
+     * Prefer forEachFile, which does not hold the whole list in memory.
+     */
+    @Override
+    public List<FileVariable> getInnerList() throws FMLExecutionException {
+        List<FileVariable> innerList = new LinkedList<>();
+        forEachFile(innerList::add);
+        return innerList;
+    }
+
+    @Override
+    public void forEachFile(FileAction action) throws FMLExecutionException {
+        ListVariable.awaitCommands(absolutePath);
+        if (!absolutePath.contains("*")) {
+            if (ListVariable.accepts(filter, new File(absolutePath).toPath())) {
+                action.apply(new FileVariable(absolutePath));
+            }
+            return;
+        }
+        if (GlobWalker.isRecursive(absolutePath)) {
+            new GlobWalker(absolutePath, filter, false).forEachFile(action);
+            return;
+        }
+
+        File parent = ListVariable.getWildcardParent(absolutePath);
+        WildcardMatcher matcher = WildcardMatcher.get(ListVariable.getWildcard(absolutePath));
+        DirectoryStream.Filter<Path> entryFilter = entry -> matcher.matches(entry.getFileName().toString());
+
+        Collection<Path> changedFiles = ChangedFiles.get().getChangedFiles(parent.toPath());
+        if (changedFiles != null) {
+            for (Path file : changedFiles) {
+                if (matcher.matches(file.getFileName().toString()) && Files.exists(file)
+                        && ListVariable.accepts(filter, file) && !action.apply(new FileVariable(file.toString()))) {
+                    return;
+                }
+            }
+            return;
+        }
+
+        // the attributes read for the filter are not cached, so that memory does not grow with the folder
+        try (FolderEntries entries = new FolderEntries(parent.toPath(), entryFilter)) {
+            for (Path entry : entries) {
+                boolean accepted = filter == null;
+                if (!accepted) {
+                    BasicFileAttributes attributes = entries.readAttributes(entry);
+                    accepted = attributes != null && filter.accepts(entry, attributes);
+                }
+                if (accepted && !action.apply(new FileVariable(entry.toString()))) {
+                    return;
+                }
+            }
+        } catch (IOException | DirectoryIteratorException e) {
+            throw new FMLExecutionException("Cannot read file list. The given path is invalid: " + absolutePath, e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof LazyListVariable)) {
+            return false;
+        }
+        LazyListVariable other = (LazyListVariable) obj;
+        return nullOrEqual(this.absolutePath, other.absolutePath) && nullOrEqual(this.filter, other.filter);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(absolutePath, filter);
+    }
+}
@@ -1,12 +1,16 @@
 package Parser.ASTNodes.Variables;
 
 import Exceptions.FMLExecutionException;
-import org.apache.commons.io.filefilter.WildcardFileFilter;
+import Executor.CommandPipeline;
 
 import java.io.File;
-import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -17,45 +21,173 @@ public class ListVariable extends Variable {
     private final List<FileVariable> innerList;
 
     public ListVariable(String absolutePath) throws FMLExecutionException {
-        this.innerList = buildInnerList(absolutePath);
+        this(absolutePath, null);
     }
 
-    public List<FileVariable> getInnerList() {
+    /**
+     * @param absolutePath path of the files of the list, may have wildcards
+     * @param filter       filter the files must be accepted by, or null to keep every file
+     */
+    public ListVariable(String absolutePath, EntryFilter filter) throws FMLExecutionException {
+        this.innerList = buildInnerList(absolutePath, filter);
+    }
+
+    /**
+     * @param files the files of the list, e.g. the share of a worker process, see ShardWorker
+     */
+    public ListVariable(List<FileVariable> files) {
+        this.innerList = files;
+    }
+
+    /**
+     * Used by lists that do not hold their files in memory
+     */
+    protected ListVariable() {
+        this.innerList = null;
+    }
+
+    public List<FileVariable> getInnerList() throws FMLExecutionException {
         return innerList;
     }
 
-    private List<FileVariable> buildInnerList(String absolutePath) throws FMLExecutionException {
-        File[] files = listFiles(absolutePath);
-        if (files == null) {
-            throw new FMLExecutionException("Cannot create file list. The given path is invalid: " + absolutePath);
+    /**
+     * Runs the given action on each file of this list, in order, until the action returns false
+     *
+     * @param action action to run on each file
+     * @throws FMLExecutionException if the action fails for any of the files
+     */
+    public void forEachFile(FileAction action) throws FMLExecutionException {
+        for (FileVariable fileVariable : innerList) {
+            if (!action.apply(fileVariable)) {
+                return;
+            }
         }
+    }
 
+    private List<FileVariable> buildInnerList(String absolutePath, EntryFilter filter) throws FMLExecutionException {
         List<FileVariable> innerList = new LinkedList<>();
-        for (File file: files) {
-            innerList.add(new FileVariable(file.getAbsolutePath()));
+        awaitCommands(absolutePath);
+        if (GlobWalker.isRecursive(absolutePath)) {
+            new GlobWalker(absolutePath, filter, true).forEachFile(innerList::add);
+            return innerList;
+        }
+        if (!absolutePath.contains("*")) {
+            File file = new File(absolutePath);
+            if (accepts(filter, file.toPath())) {
+                innerList.add(new FileVariable(file.getAbsolutePath()));
+            }
+            return innerList;
+        }
+
+        WildcardMatcher matcher = WildcardMatcher.get(getWildcard(absolutePath));
+        File parent = getWildcardParent(absolutePath);
+        Collection<Path> changedFiles = ChangedFiles.get().getChangedFiles(parent.toPath());
+        if (changedFiles != null) {
+            for (Path file : changedFiles) {
+                if (matcher.matches(file.getFileName().toString()) && Files.exists(file) && accepts(filter, file)) {
+                    innerList.add(new FileVariable(file.toString()));
+                }
+            }
+            return innerList;
+        }
+
+        // the attributes read while listing are cached, so the conditions on the files do not read them again
+        FileAttributeCache cache = FileAttributeCache.get();
+        DirectoryStream.Filter<Path> entryFilter = entry -> matcher.matches(entry.getFileName().toString());
+        try (FolderEntries entries = new FolderEntries(parent.toPath(), entryFilter)) {
+            for (Path entry : entries) {
+                BasicFileAttributes attributes = entries.readAttributes(entry);
+                if (attributes == null) {
+                    if (filter == null) {
+                        innerList.add(new FileVariable(entry.toString()));
+                    }
+                } else if (filter == null || filter.accepts(entry, attributes)) {
+                    innerList.add(new FileVariable(entry.toString(), cache.put(entry.toFile(), attributes)));
+                }
+            }
+        } catch (IOException | DirectoryIteratorException e) {
+            throw new FMLExecutionException("Cannot create file list. The given path is invalid: " + absolutePath, e);
         }
         return innerList;
     }
 
+    /**
+     * Reads the attributes of the file once and tests them against the filter
+     *
+     * @param filter filter of the list, or null if every file is kept
+     * @return true if the file belongs to the list. Files that cannot be read do not belong to a filtered list.
+     */
+    static boolean accepts(EntryFilter filter, Path file) throws FMLExecutionException {
+        if (filter == null) {
+            return true;
+        }
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return false;
+        }
+        return filter.accepts(file, attributes);
+    }
+
     @Override
     public boolean equals(Object obj) {
-        if (!(obj instanceof ListVariable)) {
+        if (!(obj instanceof ListVariable) || obj.getClass() != this.getClass()) {
             return false;
         }
         ListVariable other = (ListVariable) obj;
         return nullOrEqual(this.innerList, other.innerList);
     }
 
-    private File[] listFiles(String absolutePath) {
+    /**
+     * Waits for the commands still running in the background on the files the list can hold, see CommandPipeline
+     */
+    static void awaitCommands(String absolutePath) throws FMLExecutionException {
+        CommandPipeline pipeline = CommandPipeline.get();
+        if (!pipeline.isEnabled()) {
+            return;
+        }
         if (!absolutePath.contains("*")) {
-            return new File[]{new File(absolutePath)};
-        }
-        String tempPath = absolutePath.replace("*", "_wildcard_");
-        tempPath = Paths.get(".", tempPath).toAbsolutePath().toString();
-        File parent = Paths.get(tempPath).getParent().toFile();
-        Path wildcardReplaced = Paths.get(tempPath).getFileName();
-        String wildcard = wildcardReplaced.toString().replace("_wildcard_", "*");
-        FileFilter wildCardFilter = new WildcardFileFilter(wildcard);
-        return parent.listFiles(wildCardFilter);
+            pipeline.awaitFile(new File(absolutePath));
+        } else if (GlobWalker.isRecursive(absolutePath)) {
+            pipeline.awaitFile(new GlobWalker(absolutePath).getRoot().toFile());
+        } else {
+            pipeline.awaitFile(getWildcardParent(absolutePath));
+        }
+    }
+
+    /**
+     * @return the folder whose entries are matched by the last segment of the wildcard path
+     */
+    static File getWildcardParent(String absolutePath) {
+        int separator = getLastSeparator(absolutePath);
+        return new File(separator < 0 ? "" : absolutePath.substring(0, separator + 1)).getAbsoluteFile();
+    }
+
+    /**
+     * @return the wildcard (last segment) of the wildcard path. eg. "*.txt" for "/some/folder/*.txt"
+     */
+    static String getWildcard(String absolutePath) {
+        return absolutePath.substring(getLastSeparator(absolutePath) + 1);
+    }
+
+    /**
+     * @return the index of the separator before the last segment of the path, or -1 if there is none
+     */
+    private static int getLastSeparator(String path) {
+        return Math.max(path.lastIndexOf('/'), path.lastIndexOf(File.separatorChar));
+    }
+
+    /**
+     * An action run on each file of a list
+     */
+    @FunctionalInterface
+    public interface FileAction {
+
+        /**
+         * @param file the current file of the list
+         * @return true to continue with the next file, false to stop iterating
+         */
+        boolean apply(FileVariable file) throws FMLExecutionException;
     }
 }
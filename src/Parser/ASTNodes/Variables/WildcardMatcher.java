@@ -0,0 +1,124 @@
+package Parser.ASTNodes.Variables;
+
+import org.apache.commons.io.FilenameUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Matches file names against a wildcard, where * matches any number of characters and ? matches one.
+ * Matching is case sensitive.
+ *
+ * Wildcards are compiled once and cached. The common shapes *, *.ext, prefix* and prefix*suffix are
+ * matched with startsWith and endsWith, and only other wildcards use the general matching algorithm.
+ *
+ * The cache is emptied once it holds MAX_MATCHERS wildcards, since a JVM that stays up, e.g. with --daemon,
+ * may run any number of scripts. A script uses a handful of wildcards, which are compiled again the next
+ * time they are used.
+ */
+public abstract class WildcardMatcher {
+
+    static final int MAX_MATCHERS = 1024;
+
+    private static final Map<String, WildcardMatcher> matchers = new ConcurrentHashMap<>();
+
+    /**
+     * @param wildcard wildcard for a single file name, e.g. "*.txt"
+     * @return the compiled matcher for the wildcard
+     */
+    public static WildcardMatcher get(String wildcard) {
+        WildcardMatcher matcher = matchers.get(wildcard);
+        if (matcher != null) {
+            return matcher;
+        }
+        if (matchers.size() >= MAX_MATCHERS) {
+            matchers.clear();
+        }
+        return matchers.computeIfAbsent(wildcard, WildcardMatcher::compile);
+    }
+
+    /**
+     * @return the number of cached matchers
+     */
+    static int cached() {
+        return matchers.size();
+    }
+
+    /**
+     * @return true if the name matches the wildcard
+     */
+    public abstract boolean matches(String name);
+
+    private static WildcardMatcher compile(String wildcard) {
+        String collapsed = wildcard.replaceAll("\\*+", "*");    // a**b matches the same names as a*b
+        if (collapsed.indexOf('?') >= 0) {
+            return new General(collapsed);
+        }
+        int star = collapsed.indexOf('*');
+        if (star < 0) {
+            return new Literal(collapsed);
+        }
+        if (collapsed.indexOf('*', star + 1) >= 0) {
+            return new General(collapsed);
+        }
+        if (collapsed.length() == 1) {
+            return new Any();
+        }
+        return new PrefixSuffix(collapsed.substring(0, star), collapsed.substring(star + 1));
+    }
+
+    private static class Any extends WildcardMatcher {
+        @Override
+        public boolean matches(String name) {
+            return true;
+        }
+    }
+
+    private static class Literal extends WildcardMatcher {
+
+        private final String literal;
+
+        Literal(String literal) {
+            this.literal = literal;
+        }
+
+        @Override
+        public boolean matches(String name) {
+            return name.equals(literal);
+        }
+    }
+
+    /**
+     * prefix*suffix, where either may be empty
+     */
+    private static class PrefixSuffix extends WildcardMatcher {
+
+        private final String prefix;
+        private final String suffix;
+
+        PrefixSuffix(String prefix, String suffix) {
+            this.prefix = prefix;
+            this.suffix = suffix;
+        }
+
+        @Override
+        public boolean matches(String name) {
+            return name.length() >= prefix.length() + suffix.length()
+                    && name.startsWith(prefix) && name.endsWith(suffix);
+        }
+    }
+
+    private static class General extends WildcardMatcher {
+
+        private final String wildcard;
+
+        General(String wildcard) {
+            this.wildcard = wildcard;
+        }
+
+        @Override
+        public boolean matches(String name) {
+            return FilenameUtils.wildcardMatch(name, wildcard);
+        }
+    }
+}
@@ -5,25 +5,37 @@ import Language.FMLGrammar.CommandEnum;
 import Parser.ASTNodes.Commands.*;
 import Parser.ASTNodes.Statements.ActionStatement;
 
+import static Language.FMLGrammar.STORE;
 import static Language.FMLGrammar.USER_DEFINED_STRING_REGEX;
 import static Util.StringUtil.removeEscapedQuotes;
 
 public class ActionStatementBuilder {
 
     public static ActionStatement build(String commandString, String targetIdentifier, String destination) throws FMLParsingException {
+        return build(commandString, targetIdentifier, destination, null);
+    }
+
+    /**
+     * @param level compression level given after 'level', or null if none was given
+     */
+    public static ActionStatement build(String commandString, String targetIdentifier, String destination,
+                                        String level) throws FMLParsingException {
         boolean destinationIsString = destination != null && USER_DEFINED_STRING_REGEX.matcher(destination).matches();
         if (destinationIsString) {
             destination = removeEscapedQuotes(destination);
         }
-        Command command = getCommand(commandString, targetIdentifier, destination);
+        Command command = getCommand(commandString, targetIdentifier, destination, level);
         return new ActionStatement(command, targetIdentifier, destination, destinationIsString);
     }
 
-    private static Command getCommand(String commandString, String target, String dest) throws FMLParsingException {
+    private static Command getCommand(String commandString, String target, String dest, String level) throws FMLParsingException {
         CommandEnum commandEnum = CommandEnum.fromString(commandString);
         if (commandEnum == null) {
             throw new FMLParsingException(commandString + " is not a valid command");
         }
+        if (level != null && commandEnum != CommandEnum.COMPRESS) {
+            throw new FMLParsingException("Only compress can be given a level: " + commandString);
+        }
         switch (commandEnum) {
             case COPY:
                 return new Copy(target, dest);
@@ -36,8 +48,18 @@ public class ActionStatementBuilder {
             case CREATE:
                 return new Create(target);
             case COMPRESS:
-                return new Compress(target);
+                return level == null ? new Compress(target) : new Compress(target, getLevel(level));
         }
         throw new FMLParsingException(commandString + " is not a valid command");
     }
+
+    private static int getLevel(String level) throws FMLParsingException {
+        if (level.equals(STORE)) {
+            return Compress.STORE;
+        }
+        if (level.matches("[0-9]")) {
+            return Integer.parseInt(level);
+        }
+        throw new FMLParsingException("Compression level must be 'store' or a number from 0 to 9: " + level);
+    }
 }
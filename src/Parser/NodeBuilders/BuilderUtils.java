@@ -1,94 +1,63 @@
 package Parser.NodeBuilders;
 
 import Exceptions.FMLParsingException;
-
-import java.util.Deque;
-import java.util.LinkedList;
+import Parser.TokenStream;
 
 import static Language.FMLGrammar.NEWLINE;
 
 public class BuilderUtils {
 
-    /* Does not modify tokens */
-    static Deque<String> deepCopy(Deque<String> deque) {
-        Deque<String> copy = new LinkedList<>();
-        for (String s: deque) copy.addLast(s);
-        return copy;
-    }
-
     /**
      * Modifies tokens.
-     * Removes redundant parenthesis from the front and back
-     * @param tokens input tokens
-     */
-    static boolean stripRedundantParenthesis(Deque<String> tokens) {
-        boolean removedParenthesis = false;
-        while (hasRedundantParenthesis(tokens)) {
-            tokens.removeFirst();
-            tokens.removeLast();
-            removedParenthesis = true;
-        }
-        return removedParenthesis;
-    }
-
-    /**
-     * Does not modify tokens
-     * Returns true if removing first and last parenthesis won't change semantics
+     * Reads everything up to the end of the next block, e.g. "if (...) { ... }" or "{ ... }".
+     * If the block starts with its opening brace, the braces are removed.
+     *
+     * @param tokens input tokens, positioned after the block on return
+     * @return a stream over the tokens of the block
      */
-    static boolean hasRedundantParenthesis(Deque<String> tokens) {
-        if (!(tokens.size() > 1 && tokens.getFirst().equals("(") && tokens.getLast().equals(")"))) {
-            return false;
-        }
-        int balance = 0;
-        int count = 0;
-        for (String token: tokens) {
-            count++;
-            if (token.equals("(")) balance++;
-            if (token.equals(")")) balance--;
-            if (balance == 0) break;
-        }
-        // 0 balance was reached before all tokens were seen
-        return count == tokens.size();
-    }
-
-    public static Deque<String> getBlockTokens(Deque<String> tokens) throws FMLParsingException {
-        Deque<String> blockTokens = new LinkedList<>();
-        // add everything until the first brace
-        while (!(tokens.isEmpty() || tokens.getFirst().equals("{"))) {
-            blockTokens.addLast(tokens.poll());
-        }
+    public static TokenStream getBlockTokens(TokenStream tokens) throws FMLParsingException {
+        int openingBrace = tokens.indexOf("{");
         // if no first brace, throw error
-        if (tokens.isEmpty()) {
+        if (openingBrace < 0) {
             throw new FMLParsingException("Invalid block found - missing opening brace");
         }
-        int balance = 0;
-        while (!tokens.isEmpty()) {
-            if (tokens.getFirst().equals("{")) balance++;
-            if (tokens.getFirst().equals("}")) balance--;
-            blockTokens.addLast(tokens.poll());
-            if (balance == 0) break;
-        }
-        if (tokens.isEmpty() && balance != 0) {
+        int closingBrace = tokens.getMatching(openingBrace);
+        if (closingBrace < 0) {
             throw new FMLParsingException("Invalid block found - missing closing brace");
         }
+        TokenStream blockTokens = tokens.subStream(tokens.getPosition(), closingBrace + 1);
+        tokens.skipTo(closingBrace + 1);
         removeOuterBraces(blockTokens);
         stripNewlines(blockTokens);
         return blockTokens;
     }
 
-    static void stripNewlines(Deque<String> tokens) throws FMLParsingException {
-        while(!tokens.isEmpty() && tokens.getFirst().equals(NEWLINE)) {
-            tokens.removeFirst();
+    /**
+     * Modifies tokens.
+     * Reads everything up to the next newline, which is left in tokens
+     *
+     * @return a stream over the tokens of the line
+     */
+    public static TokenStream getLineTokens(TokenStream tokens) {
+        int newline = tokens.indexOf(NEWLINE);
+        int end = newline < 0 ? tokens.getEnd() : newline;
+        TokenStream lineTokens = tokens.subStream(tokens.getPosition(), end);
+        tokens.skipTo(end);
+        return lineTokens;
+    }
+
+    static void stripNewlines(TokenStream tokens) {
+        while (tokens.nextIs(NEWLINE)) {
+            tokens.trim(1, 0);
         }
-        while(!tokens.isEmpty() && tokens.getLast().equals(NEWLINE)) {
-            tokens.removeLast();
+        while (!tokens.isEmpty() && tokens.peekLast().equals(NEWLINE)) {
+            tokens.trim(0, 1);
         }
     }
 
-    static void removeOuterBraces(Deque<String> tokens) throws FMLParsingException {
-        if (tokens.size() > 1 && tokens.getFirst().equals("{") && tokens.getLast().equals("}")) {
-            tokens.removeFirst();
-            tokens.removeLast();
+    static void removeOuterBraces(TokenStream tokens) {
+        if (tokens.size() > 1 && tokens.nextIs("{") && tokens.peekLast().equals("}")) {
+            tokens.trim(1, 1);
         }
     }
 }
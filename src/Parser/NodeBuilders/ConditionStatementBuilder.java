@@ -6,118 +6,115 @@ import Parser.ASTNodes.Conditions.Booleans.*;
 import Parser.ASTNodes.Conditions.Negation;
 import Parser.ASTNodes.Conditions.OrCondition;
 import Parser.ASTNodes.Conditions.Terms.*;
+import Parser.TokenStream;
 
 import java.math.BigDecimal;
-import java.util.Deque;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 import static Language.FMLGrammar.*;
-import static Parser.NodeBuilders.BuilderUtils.stripRedundantParenthesis;
 import static Util.StringUtil.removeEscapedQuotes;
 
 class ConditionStatementBuilder {
 
     /* Modifies tokens */
-    static OrCondition buildCondition(Deque<String> condTokens) throws FMLParsingException {
+    static OrCondition buildCondition(TokenStream condTokens) throws FMLParsingException {
         return buildOrCondition(condTokens);
     }
 
     /* Modifies tokens */
-    private static OrCondition buildOrCondition(Deque<String> tokens) throws FMLParsingException {
-        stripRedundantParenthesis(tokens);
+    private static OrCondition buildOrCondition(TokenStream tokens) throws FMLParsingException {
+        tokens.stripRedundantParenthesis();
         if (tokens.isEmpty()) {
             throw new FMLParsingException("Invalid OR Condition found");
         }
-        List<AndCondition> innerConditions = new LinkedList<>();
+        List<AndCondition> innerConditions = new ArrayList<>();
         while(!tokens.isEmpty()) {
-            if (tokens.getFirst().equals(OR)) {
-                tokens.removeFirst();
+            if (tokens.nextIs(OR)) {
+                tokens.poll();
                 continue;
             }
-            Deque<String> andConditionTokens = getAndConditionTokens(tokens);
-            if (andConditionTokens.size() > 0) {
-                innerConditions.add(buildAndCondition(andConditionTokens));
-            }
+            innerConditions.add(buildAndCondition(getOperandTokens(tokens, OR)));
         }
         return new OrCondition(innerConditions);
     }
 
-    private static Deque<String> getAndConditionTokens(Deque<String> tokens) throws FMLParsingException {
-        Deque<String> andConditionTokens = new LinkedList<>();
-        if (tokens.isEmpty() || tokens.getFirst().equals(OR)) {
-            return andConditionTokens;
-        }
-
-        int balance = 0;
-        do {
-            if (tokens.getFirst().equals("(")) balance++;
-            if (tokens.getFirst().equals(")")) balance--;
-            andConditionTokens.addLast(tokens.poll());
-        } while ((!tokens.isEmpty() && !tokens.getFirst().equals(OR)) || (balance !=0));
-        return andConditionTokens;
-    }
-
     /* Modifies tokens */
-    private static AndCondition buildAndCondition(Deque<String> tokens) throws FMLParsingException {
-        stripRedundantParenthesis(tokens);
+    private static AndCondition buildAndCondition(TokenStream tokens) throws FMLParsingException {
+        tokens.stripRedundantParenthesis();
         if (tokens.isEmpty()) {
             throw new FMLParsingException("Invalid AND Condition found");
         }
-        List<Negation> innerConditions = new LinkedList<>();
+        List<Negation> innerConditions = new ArrayList<>();
         while(!tokens.isEmpty()) {
-            if (tokens.getFirst().equals(AND)) {
-                tokens.removeFirst();
+            if (tokens.nextIs(AND)) {
+                tokens.poll();
                 continue;
             }
-            Deque<String> negationTokens = getNegationTokens(tokens);
-            if (negationTokens.size() > 0) {
-                innerConditions.add(buildNegation(negationTokens));
-            }
+            innerConditions.add(buildNegation(getOperandTokens(tokens, AND)));
         }
         return new AndCondition(innerConditions);
     }
 
-    private static Deque<String> getNegationTokens(Deque<String> tokens) throws FMLParsingException {
-        Deque<String> negationTokens = new LinkedList<>();
-        if (tokens.isEmpty() || tokens.getFirst().equals(AND)) {
-            return negationTokens;
+    /**
+     * Modifies tokens.
+     * Reads tokens up to the next operator that is not inside parenthesis
+     *
+     * @return a stream over the tokens that were read
+     */
+    private static TokenStream getOperandTokens(TokenStream tokens, String operator) throws FMLParsingException {
+        int start = tokens.getPosition();
+        int i = start;
+        while (i < tokens.getEnd() && !tokens.get(i).equals(operator)) {
+            i = skipToken(tokens, i);
         }
+        tokens.skipTo(i);
+        return tokens.subStream(start, i);
+    }
 
-        int balance = 0;
-        do {
-            if (tokens.getFirst().equals("(")) balance++;
-            if (tokens.getFirst().equals(")")) balance--;
-            negationTokens.addLast(tokens.poll());
-        } while ((!tokens.isEmpty() && !tokens.getFirst().equals(AND)) || (balance !=0));
-        return negationTokens;
+    /**
+     * @return the index after the token at index i, or after its matching parenthesis if it opens one
+     */
+    private static int skipToken(TokenStream tokens, int i) throws FMLParsingException {
+        String token = tokens.get(i);
+        if (token.equals("(")) {
+            int closing = tokens.getMatching(i);
+            if (closing < 0) {
+                throw new FMLParsingException("Invalid condition - missing closing parenthesis");
+            }
+            return closing + 1;
+        }
+        if (token.equals(")")) {
+            throw new FMLParsingException("Invalid condition - missing opening parenthesis");
+        }
+        return i + 1;
     }
 
     /* Modifies tokens */
-    private static Negation buildNegation(Deque<String> tokens) throws FMLParsingException  {
-        stripRedundantParenthesis(tokens);
+    private static Negation buildNegation(TokenStream tokens) throws FMLParsingException  {
+        tokens.stripRedundantParenthesis();
         if (tokens.isEmpty()) {
             throw new FMLParsingException("Invalid Negation found");
         }
-        if (tokens.getFirst().equals(NOT)) {
-            tokens.removeFirst(); // ignore 'NOT'
+        if (tokens.nextIs(NOT)) {
+            tokens.poll(); // ignore 'NOT'
             Negation innerNegation = buildNegation(tokens);
             return new Negation(innerNegation);
         } else {
-            FMLBoolean bool = buildBoolean(tokens, false);
+            FMLBoolean bool = buildBoolean(tokens);
             return new Negation(bool);
         }
     }
 
     /* Modifies tokens */
-    private static FMLBoolean buildBoolean(Deque<String> tokens, boolean isNestedBoolean) throws FMLParsingException  {
-        boolean hadParenthesis = stripRedundantParenthesis(tokens);
+    private static FMLBoolean buildBoolean(TokenStream tokens) throws FMLParsingException  {
+        tokens.stripRedundantParenthesis();
         if (tokens.isEmpty()) {
             throw new FMLParsingException("Invalid Boolean found");
         }
-        if (tokens.getFirst().equalsIgnoreCase(TRUE) && tokens.size() == 1) {
+        if (tokens.peek().equalsIgnoreCase(TRUE) && tokens.size() == 1) {
             return new True();
-        } else if (tokens.getFirst().equalsIgnoreCase(FALSE) && tokens.size() == 1) {
+        } else if (tokens.peek().equalsIgnoreCase(FALSE) && tokens.size() == 1) {
             return new False();
         } else if (containsNonNestedLogicalOperation(tokens)) {
             OrCondition cond = buildCondition(tokens);
@@ -131,23 +128,29 @@ class ConditionStatementBuilder {
     }
 
     // call stripRedundantParenthesis before calling this
-    private static boolean containsNonNestedLogicalOperation(Deque<String> tokens) throws FMLParsingException {
-        int balance = 0;
-        for (String token: tokens) {
-            if (token.equals("(")) balance++;
-            if (token.equals(")")) balance--;
-            if (LOGICAL_OPERATORS.contains(token) && balance == 0) return true;
+    private static boolean containsNonNestedLogicalOperation(TokenStream tokens) {
+        int i = tokens.getPosition();
+        while (i < tokens.getEnd()) {
+            String token = tokens.get(i);
+            if (LOGICAL_OPERATORS.contains(token)) return true;
+            if (token.equals(")")) return false;
+            if (token.equals("(")) {
+                int closing = tokens.getMatching(i);
+                if (closing < 0) return false;
+                i = closing + 1;
+            } else {
+                i++;
+            }
         }
         return false;
     }
 
-    /* Does not modify tokens */
-    private static Comparison tryBuildingComparison(Deque<String> tokens) throws FMLParsingException  {
+    /* Modifies tokens only if a comparison was built */
+    private static Comparison tryBuildingComparison(TokenStream tokens) {
         try {
-            Deque<String> copy = BuilderUtils.deepCopy(tokens);
+            TokenStream copy = tokens.copy();
             Comparison comparison = buildComparison(copy);
-            tokens.clear();
-            tokens.addAll(copy);
+            tokens.skipTo(copy.getPosition());
             return comparison;
         } catch (Exception e) {
             return null;
@@ -155,8 +158,8 @@ class ConditionStatementBuilder {
     }
 
     /* Modifies tokens */
-    private static Comparison buildComparison(Deque<String> tokens) throws FMLParsingException  {
-        stripRedundantParenthesis(tokens);
+    private static Comparison buildComparison(TokenStream tokens) throws FMLParsingException  {
+        tokens.stripRedundantParenthesis();
         if (tokens.isEmpty()) {
             throw new FMLParsingException("Invalid Comparison found");
         }
@@ -174,17 +177,17 @@ class ConditionStatementBuilder {
     }
 
     /* Modifies tokens */
-    private static Term buildTerm(Deque<String> tokens) throws FMLParsingException {
-        Deque<String> termTokens = getTermTokens(tokens);
-        try { return buildAttributeTerm(BuilderUtils.deepCopy(termTokens)); } catch (Exception ignored) {}
-        try { return buildNumberTerm(BuilderUtils.deepCopy(termTokens)); } catch (Exception ignored) {}
-        try { return buildStringTerm(BuilderUtils.deepCopy(termTokens)); } catch (Exception ignored) {}
-        try { return new BooleanTerm(buildBoolean(BuilderUtils.deepCopy(termTokens), true));} catch (Exception ignored) {}
+    private static Term buildTerm(TokenStream tokens) throws FMLParsingException {
+        TokenStream termTokens = getTermTokens(tokens);
+        try { return buildAttributeTerm(termTokens.copy()); } catch (Exception ignored) {}
+        try { return buildNumberTerm(termTokens.copy()); } catch (Exception ignored) {}
+        try { return buildStringTerm(termTokens.copy()); } catch (Exception ignored) {}
+        try { return new BooleanTerm(buildBoolean(termTokens.copy()));} catch (Exception ignored) {}
         throw new FMLParsingException("Invalid Term found");
     }
 
     /* Modifies tokens */
-    private static ComparisonOperator buildComparisonOperator(Deque<String> tokens) throws FMLParsingException {
+    private static ComparisonOperator buildComparisonOperator(TokenStream tokens) throws FMLParsingException {
         if (tokens.isEmpty()) {
             throw new FMLParsingException("Invalid ComparisonOperator found");
         }
@@ -196,15 +199,16 @@ class ConditionStatementBuilder {
     }
 
     /* Modifies tokens */
-    private static AttributeTerm buildAttributeTerm(Deque<String> tokens) throws FMLParsingException {
-        stripRedundantParenthesis(tokens);
+    private static AttributeTerm buildAttributeTerm(TokenStream tokens) throws FMLParsingException {
+        tokens.stripRedundantParenthesis();
         if (tokens.size() != 2) {
             throw new FMLParsingException("Invalid AttributeTerm found");
         }
         String identifier = tokens.poll();
         AttributeName name = AttributeName.fromString(tokens.poll());
 
-        boolean identifierIsCorrect = FILE_VARIABLE_IDENTIFIER.matcher(identifier).matches();
+        boolean identifierIsCorrect = FILE_VARIABLE_IDENTIFIER.matcher(identifier).matches()
+                || identifier.equals(WHERE_ENTRY);
         boolean nameIsCorrect = name != null;
         if (identifierIsCorrect && nameIsCorrect) {
             return new AttributeTerm(identifier, name);
@@ -213,13 +217,13 @@ class ConditionStatementBuilder {
     }
 
     /* Modifies tokens */
-    private static NumberTerm buildNumberTerm(Deque<String> tokens) throws FMLParsingException {
-        stripRedundantParenthesis(tokens);
+    private static NumberTerm buildNumberTerm(TokenStream tokens) throws FMLParsingException {
+        tokens.stripRedundantParenthesis();
         if (tokens.size() != 1) {
             throw new FMLParsingException("Invalid NumberTerm found");
         }
 
-        String[] parts = tokens.getFirst().split("[ ]");
+        String[] parts = tokens.peek().split("[ ]");
         if (parts.length == 0 || parts.length > 2) {
             throw new FMLParsingException("Invalid NumberTerm found");
         }
@@ -243,30 +247,28 @@ class ConditionStatementBuilder {
     }
 
     /* Modifies tokens */
-    private static StringTerm buildStringTerm(Deque<String> tokens) throws FMLParsingException {
-        stripRedundantParenthesis(tokens);
-        if (tokens.size() == 1 && USER_DEFINED_STRING_REGEX.matcher(tokens.getFirst()).matches()) {
-            return new StringTerm(removeEscapedQuotes(tokens.getFirst()));
+    private static StringTerm buildStringTerm(TokenStream tokens) throws FMLParsingException {
+        tokens.stripRedundantParenthesis();
+        if (tokens.size() == 1 && USER_DEFINED_STRING_REGEX.matcher(tokens.peek()).matches()) {
+            return new StringTerm(removeEscapedQuotes(tokens.peek()));
         }
         throw new FMLParsingException("Invalid StringTerm found");
     }
 
-    /* Modifies tokens */
-    private static LinkedList<String> getTermTokens(Deque<String> tokens) throws FMLParsingException {
-        if (tokens.isEmpty() || COMPARISON_OPERATORS.contains(tokens.getFirst())) {
+    /**
+     * Modifies tokens.
+     * Reads tokens up to the next comparison operator that is not inside parenthesis
+     */
+    private static TokenStream getTermTokens(TokenStream tokens) throws FMLParsingException {
+        if (tokens.isEmpty() || COMPARISON_OPERATORS.contains(tokens.peek())) {
             throw new FMLParsingException("Expected comparison term but did not find any");
         }
-        LinkedList<String> termTokens = new LinkedList<>();
-        int balance = 0;
+        int start = tokens.getPosition();
+        int i = start;
         do {
-            if (tokens.getFirst().equals("(")) balance++;
-            if (tokens.getFirst().equals(")")) balance--;
-            termTokens.addLast(tokens.poll());
-        } while (!tokens.isEmpty() && (!COMPARISON_OPERATORS.contains(tokens.getFirst()) || balance != 0));
-
-        if (balance != 0) {
-            throw new FMLParsingException("Expected comparison term but did not find any");
-        }
-        return termTokens;
+            i = skipToken(tokens, i);
+        } while (i < tokens.getEnd() && !COMPARISON_OPERATORS.contains(tokens.get(i)));
+        tokens.skipTo(i);
+        return tokens.subStream(start, i);
     }
 }
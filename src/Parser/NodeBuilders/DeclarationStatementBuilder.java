@@ -1,22 +1,34 @@
 package Parser.NodeBuilders;
 
 import Exceptions.FMLParsingException;
+import Language.FMLGrammar.AttributeName;
+import Parser.ASTNodes.Conditions.OrCondition;
 import Parser.ASTNodes.Statements.Declarations.DeclarationStatement;
 import Parser.ASTNodes.Statements.Declarations.DirectDeclaration;
 import Parser.ASTNodes.Statements.Declarations.Paths.FMLPath;
 import Parser.ASTNodes.Statements.Declarations.ReferenceDeclaration;
+import Parser.Parser;
+import Parser.TokenStream;
 
-import java.util.Deque;
+import java.util.ArrayList;
+import java.util.List;
 
 import static Language.FMLGrammar.RIGHT_ARROW;
 import static Language.FMLGrammar.USER_DEFINED_STRING_REGEX;
+import static Language.FMLGrammar.WHERE;
+import static Language.FMLGrammar.WHERE_ENTRY;
 import static Util.StringUtil.removeEscapedQuotes;
 
 public class DeclarationStatementBuilder {
 
-    public static DeclarationStatement build(Deque<String> declarationTokens) throws FMLParsingException {
+    public static DeclarationStatement build(TokenStream declarationTokens) throws FMLParsingException {
+        boolean lazy = Parser.nextIsLazyModifier(declarationTokens);
+        if (lazy) {
+            declarationTokens.poll(); // ignore "lazy"
+        }
+
         String leftIdentifier = declarationTokens.poll();
-        declarationTokens.remove(); // ignore "="
+        declarationTokens.poll(); // ignore "="
         String rightIdentifier = declarationTokens.poll();
 
         if (rightIdentifier == null) {
@@ -26,14 +38,48 @@ public class DeclarationStatementBuilder {
         FMLPath path = null;
         if (USER_DEFINED_STRING_REGEX.matcher(rightIdentifier).matches()) {                                  // if it's a string
             path = new FMLPath(removeEscapedQuotes(rightIdentifier));
-        } else if (!declarationTokens.isEmpty() && declarationTokens.poll().equals(RIGHT_ARROW)) {     // it's a arrow declaration
+        } else if (declarationTokens.nextIs(RIGHT_ARROW)) {                                             // it's a arrow declaration
+            declarationTokens.poll(); // ignore "->"
             String pathString = declarationTokens.poll();
             path = new FMLPath(removeEscapedQuotes(rightIdentifier), pathString);
         }
 
+        OrCondition where = null;
+        if (declarationTokens.nextIs(WHERE)) {
+            declarationTokens.poll(); // ignore "where"
+            where = ConditionStatementBuilder.buildCondition(getWhereTokens(declarationTokens));
+        }
+
         if (path != null) {
-            return new DirectDeclaration(leftIdentifier, path);
+            return new DirectDeclaration(leftIdentifier, path, lazy, where);
+        }
+        if (lazy) {
+            throw new FMLParsingException("Invalid declaration - only declarations of a path can be lazy.");
+        }
+        if (where != null) {
+            throw new FMLParsingException("Invalid declaration - only declarations of a path can have a where clause.");
         }
         return new ReferenceDeclaration(leftIdentifier, rightIdentifier);                               // it's a reference declaration
     }
+
+    /**
+     * Modifies tokens.
+     * Reads the condition of a where clause. An attribute written without a variable, e.g. "size",
+     * is an attribute of the file being listed and is read as WHERE_ENTRY followed by the attribute.
+     */
+    private static TokenStream getWhereTokens(TokenStream tokens) {
+        List<String> whereTokens = new ArrayList<>();
+        while (!tokens.isEmpty()) {
+            String token = tokens.poll();
+            boolean isAttribute = AttributeName.fromString("." + token) != null;
+            boolean hasAttribute = !tokens.isEmpty() && AttributeName.fromString(tokens.peek()) != null;
+            if (isAttribute && !hasAttribute) {
+                whereTokens.add(WHERE_ENTRY);
+                whereTokens.add("." + token);
+            } else {
+                whereTokens.add(token);
+            }
+        }
+        return new TokenStream(whereTokens);
+    }
 }
@@ -4,38 +4,48 @@ import Exceptions.FMLParsingException;
 import Language.FMLGrammar;
 import Parser.ASTNodes.Program;
 import Parser.ASTNodes.Statements.ForLoop;
-
-import java.util.Deque;
+import Parser.ASTNodes.Statements.ParallelForLoop;
+import Parser.TokenStream;
 
 import static Parser.NodeBuilders.BuilderUtils.getBlockTokens;
 import static Parser.Parser.parse;
 
 public class ForLoopBuilder {
 
-    public static ForLoop build(Deque<String> forTokens) throws FMLParsingException {
+    /* Modifies tokens, reads the for loop up to the end of its block */
+    public static ForLoop build(TokenStream forTokens) throws FMLParsingException {
+
+        boolean parallel = forTokens.nextIs(FMLGrammar.PARALLEL);
+        if (parallel) {
+            forTokens.poll(); // ignore "parallel"
+        }
 
-        forTokens.remove(); // ignore "for"
+        forTokens.poll(); // ignore "for"
 
-        if (!forTokens.poll().equals("("))
+        if (!"(".equals(forTokens.poll()))
             throw new FMLParsingException("For statement missing opening brackets");
 
         String loopIdentifier = forTokens.poll();
 
-        if (!forTokens.poll().equalsIgnoreCase(FMLGrammar.IN))
+        String in = forTokens.poll();
+        if (in == null || !in.equalsIgnoreCase(FMLGrammar.IN))
             throw new FMLParsingException("For variables not separated by 'in'.");
 
         String targetCollectionIdentifier = forTokens.poll();
 
-        if (!targetCollectionIdentifier.endsWith(FMLGrammar.LIST_SYMBOL))
+        if (targetCollectionIdentifier == null || !targetCollectionIdentifier.endsWith(FMLGrammar.LIST_SYMBOL))
             throw new FMLParsingException("Proper list variable not used.");
 
-        if (!forTokens.poll().equals(")"))
+        if (!")".equals(forTokens.poll()))
             throw new FMLParsingException("For statement missing closing brackets");
 
-        Deque<String> programTokens = getBlockTokens(forTokens);
+        TokenStream programTokens = getBlockTokens(forTokens);
 
         Program forProgram = parse(programTokens);
 
+        if (parallel) {
+            return new ParallelForLoop(targetCollectionIdentifier, forProgram, loopIdentifier);
+        }
         return new ForLoop(targetCollectionIdentifier, forProgram, loopIdentifier);
     }
 }
@@ -5,44 +5,42 @@ import Language.FMLGrammar;
 import Parser.ASTNodes.Conditions.OrCondition;
 import Parser.ASTNodes.Program;
 import Parser.ASTNodes.Statements.IfStatement;
-
-import java.util.Deque;
-import java.util.LinkedList;
+import Parser.TokenStream;
 
 import static Language.FMLGrammar.IF;
 import static Parser.NodeBuilders.BuilderUtils.getBlockTokens;
-import static Parser.NodeBuilders.BuilderUtils.hasRedundantParenthesis;
 import static Parser.Parser.parse;
 
 public class IfStatementBuilder {
 
-    public static IfStatement build(Deque<String> ifTokens) throws FMLParsingException {
-        if (!ifTokens.getFirst().equals(IF)) {
+    /* Modifies tokens, reads the if statement and its else block if it has one */
+    public static IfStatement build(TokenStream ifTokens) throws FMLParsingException {
+        if (!ifTokens.nextIs(IF)) {
             throw new FMLParsingException("Invalid conditional - missing \"If\"");
         }
-        ifTokens.removeFirst(); // ignore "if"
+        ifTokens.poll(); // ignore "if"
 
-        Deque<String> conditionTokens = getConditionTokens(ifTokens);
+        TokenStream conditionTokens = getConditionTokens(ifTokens);
         OrCondition condition = ConditionStatementBuilder.buildCondition(conditionTokens);
 
-        Deque<String> ifProgramTokens = getBlockTokens(ifTokens);
+        TokenStream ifProgramTokens = getBlockTokens(ifTokens);
         Program ifProgram = parse(ifProgramTokens);
 
-        if (!ifTokens.isEmpty() && ifTokens.getFirst().equals(FMLGrammar.ELSE)) {
-            ifTokens.removeFirst(); // ignore "else"
-            Deque<String> elseProgramTokens = getBlockTokens(ifTokens);
+        if (ifTokens.nextIs(FMLGrammar.ELSE)) {
+            ifTokens.poll(); // ignore "else"
+            TokenStream elseProgramTokens = getBlockTokens(ifTokens);
             Program elseProgram = parse(elseProgramTokens);
             return new IfStatement(condition,ifProgram,elseProgram);
         }
         return new IfStatement(condition, ifProgram);
     }
 
-    private static Deque<String> getConditionTokens(Deque<String> ifTokens) throws FMLParsingException {
-        Deque<String> conditionTokens = new LinkedList<>();
-        while(!(ifTokens.isEmpty() || ifTokens.getFirst().equals("{"))) {
-            conditionTokens.addLast(ifTokens.poll());
-        }
-        if (!hasRedundantParenthesis(conditionTokens)) {
+    private static TokenStream getConditionTokens(TokenStream ifTokens) throws FMLParsingException {
+        int openingBrace = ifTokens.indexOf("{");
+        int end = openingBrace < 0 ? ifTokens.getEnd() : openingBrace;
+        TokenStream conditionTokens = ifTokens.subStream(ifTokens.getPosition(), end);
+        ifTokens.skipTo(end);
+        if (!conditionTokens.hasRedundantParenthesis()) {
             throw new FMLParsingException("Invalid if-statement: missing parenthesis around condition");
         }
         return conditionTokens;
@@ -7,8 +7,7 @@ import Parser.ASTNodes.Statements.Declarations.DeclarationStatement;
 import Parser.NodeBuilders.*;
 import Util.Logger;
 
-import java.util.Deque;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
 
@@ -28,26 +27,38 @@ public class Parser {
      * @return the parsed Program
      */
     public static Program parse(Queue<String> tokens) throws FMLParsingException {
+        return parse(new TokenStream(tokens));
+    }
+
+    /**
+     * Converts a stream of tokens into an AST (Program) that can be evaluated.
+     * Does not modify tokens, so the same stream can be parsed again.
+     *
+     * @param tokens tokens of the .fml script in order
+     * @return the parsed Program
+     */
+    public static Program parse(TokenStream tokens) throws FMLParsingException {
         logger.log("Starting program parsing");
-        List<Statement> statements = new LinkedList<>();
-        Deque<String> tokensDeque = new LinkedList<>(tokens);
+        List<Statement> statements = new ArrayList<>();
+        TokenStream stream = tokens.copy();
 
         try {
-            while (!tokensDeque.isEmpty()) {
-                if (nextIsActionStatement(tokensDeque)) {
-                    statements.add(buildActionStatement(tokensDeque));
-                } else if (nextIsIfStatement(tokensDeque)) {
-                    statements.add(buildIfStatement(tokensDeque));
-                } else if (nextIsForLoop(tokensDeque)) {
-                    statements.add(buildForLoop(tokensDeque));
-                } else if (nextIsDeclarationStatement(tokensDeque)) {
-                    statements.add(buildDeclarationStatement(tokensDeque));
-                } else if (nextIsReturnStatement(tokensDeque)) {
-                    statements.add(buildReturnStatement(tokensDeque));
-                } else if (nextIsNewline(tokensDeque)) {
-                    tokensDeque.remove();
+            while (!stream.isEmpty()) {
+                if (nextIsActionStatement(stream)) {
+                    statements.add(buildActionStatement(stream));
+                } else if (nextIsIfStatement(stream)) {
+                    statements.add(buildIfStatement(stream));
+                } else if (nextIsForLoop(stream)) {
+                    statements.add(buildForLoop(stream));
+                } else if (nextIsDeclarationStatement(stream)) {
+                    statements.add(buildDeclarationStatement(stream));
+                } else if (nextIsReturnStatement(stream)) {
+                    statements.add(buildReturnStatement(stream));
+                } else if (nextIsNewline(stream)) {
+                    stream.poll();
                 } else {
-                    throw new Exception("Illegal Statement: " + getNextLine(tokensDeque));
+                    String position = stream.describePosition();
+                    throw new Exception("Illegal Statement at " + position + ": " + getNextLine(stream));
                 }
             }
         } catch (Exception e) {
@@ -60,96 +71,99 @@ public class Parser {
 
     /**
      * Returns true if the next set of tokens describe an ActionStatement.
-     * Tokens queue remains unmodified at the end of the method.
+     * Tokens remain unmodified at the end of the method.
      */
-    private static boolean nextIsActionStatement(Deque<String> tokens) {
+    private static boolean nextIsActionStatement(TokenStream tokens) {
         String next = tokens.peek();
         return (next != null && COMMAND_STRINGS.contains(next));
     }
 
     /**
      * Returns true if the next set of tokens describe an IfStatement.
-     * Tokens queue remains unmodified at the end of the method.
+     * Tokens remain unmodified at the end of the method.
      */
-    private static boolean nextIsIfStatement(Deque<String> tokens) {
-        String next = tokens.peek();
-        return (next != null && next.equals(IF));
+    private static boolean nextIsIfStatement(TokenStream tokens) {
+        return tokens.nextIs(IF);
     }
 
     /**
      * Returns true if the next set of tokens describe a ForLoop.
-     * Tokens queue remains unmodified at the end of the method.
+     * Tokens remain unmodified at the end of the method.
+     * "parallel" is only a modifier if it is followed by "for", so it can still be used as an identifier.
      */
-    private static boolean nextIsForLoop(Deque<String> tokens) {
-        String next = tokens.peek();
-        return (next != null && next.equals(FOR));
+    private static boolean nextIsForLoop(TokenStream tokens) {
+        return tokens.nextIs(FOR) || (tokens.nextIs(PARALLEL) && FOR.equals(tokens.peek(1)));
     }
 
     /**
      * Returns true if the next set of tokens describe a DeclarationStatement.
-     * Tokens queue remains unmodified at the end of the method.
+     * Tokens remain unmodified at the end of the method.
      */
-    private static boolean nextIsDeclarationStatement(Deque<String> tokens) {
-        String first = tokens.poll();
-        String second = tokens.peek();
-        boolean isDeclaration = second != null && second.equals(EQUALS);
-        tokens.addFirst(first);
-        return isDeclaration;
+    private static boolean nextIsDeclarationStatement(TokenStream tokens) {
+        String second = tokens.peek(1);
+        return nextIsLazyModifier(tokens) || (second != null && second.equals(EQUALS));
     }
 
-    private static boolean nextIsReturnStatement(Deque<String> tokens) {
-        String next = tokens.peek();
-        return (next != null && next.equals(RETURN));
+    /**
+     * Returns true if the next token is "lazy" used as a modifier, i.e. followed by an identifier and "=".
+     * Otherwise "lazy" is an identifier. Tokens remain unmodified at the end of the method.
+     */
+    public static boolean nextIsLazyModifier(TokenStream tokens) {
+        String identifier = tokens.peek(1);
+        return tokens.nextIs(LAZY) && identifier != null && !identifier.equals(EQUALS) && EQUALS.equals(tokens.peek(2));
+    }
+
+    private static boolean nextIsReturnStatement(TokenStream tokens) {
+        return tokens.nextIs(RETURN);
     }
 
     /**
      * Returns true if the next token identifies a new line
      */
-    private static boolean nextIsNewline(Deque<String> tokens) {
-        String next = tokens.peek();
-        return (next != null && next.equals(NEWLINE));
+    private static boolean nextIsNewline(TokenStream tokens) {
+        return tokens.nextIs(NEWLINE);
     }
 
-    private static ActionStatement buildActionStatement(Deque<String> tokens) throws FMLParsingException {
+    private static ActionStatement buildActionStatement(TokenStream tokens) throws FMLParsingException {
         logger.log("Parsing action");
         String command = tokens.poll();
         String targetIdentifier = tokens.poll();
         String destination = null;
-        if (tokens.peek() != null && tokens.peek().equals(PREPOSITION)) {
-            tokens.remove(); // ignore the preposition
+        if (tokens.nextIs(PREPOSITION)) {
+            tokens.poll(); // ignore the preposition
             destination = tokens.poll();
         }
-        return ActionStatementBuilder.build(command, targetIdentifier, destination);
+        String level = null;
+        if (tokens.nextIs(LEVEL)) {
+            tokens.poll(); // ignore "level"
+            level = tokens.poll();
+        }
+        return ActionStatementBuilder.build(command, targetIdentifier, destination, level);
     }
 
-    private static DeclarationStatement buildDeclarationStatement(Deque<String> tokens) throws FMLParsingException {
+    private static DeclarationStatement buildDeclarationStatement(TokenStream tokens) throws FMLParsingException {
         logger.log("Parsing declaration");
-        Deque<String> declarationTokens = getLineTokens(tokens);
+        TokenStream declarationTokens = BuilderUtils.getLineTokens(tokens);
         return DeclarationStatementBuilder.build(declarationTokens);
     }
 
-    private static ReturnStatement buildReturnStatement(Deque<String> tokens) {
+    private static ReturnStatement buildReturnStatement(TokenStream tokens) {
         logger.log("Parsing return");
         tokens.poll();
         return new ReturnStatement();
     }
 
-    private static IfStatement buildIfStatement(Deque<String> tokens) throws FMLParsingException {
+    private static IfStatement buildIfStatement(TokenStream tokens) throws FMLParsingException {
         logger.log("Parsing if statement");
-        Deque<String> ifStatementTokens = BuilderUtils.getBlockTokens(tokens);
-        if (!tokens.isEmpty() && tokens.peek().equals(ELSE)) {
-            ifStatementTokens.addAll(BuilderUtils.getBlockTokens(tokens));
-        }
-        return IfStatementBuilder.build(ifStatementTokens);
+        return IfStatementBuilder.build(tokens);
     }
 
-    private static ForLoop buildForLoop(Deque<String> tokens) throws FMLParsingException {
+    private static ForLoop buildForLoop(TokenStream tokens) throws FMLParsingException {
         logger.log("Parsing for loop");
-        Deque<String> forLoopTokens = BuilderUtils.getBlockTokens(tokens);
-        return ForLoopBuilder.build(forLoopTokens);
+        return ForLoopBuilder.build(tokens);
     }
 
-    private static String getNextLine(Deque<String> tokens) {
+    private static String getNextLine(TokenStream tokens) {
         StringBuilder nextLine = new StringBuilder();
         while (!tokens.isEmpty()) {
             String token = tokens.poll();
@@ -162,13 +176,4 @@ public class Parser {
         return nextLine.toString().trim();
     }
 
-    private static Deque<String> getLineTokens(Deque<String> tokens) {
-        Deque<String> lineTokens = new LinkedList<>();
-        while (!(tokens.isEmpty() || tokens.getFirst().equals(NEWLINE))) {
-            String token = tokens.poll();
-            lineTokens.addLast(token);
-        }
-        return lineTokens;
-    }
-
 }
@@ -0,0 +1,233 @@
+package Parser;
+
+import Tokenizer.Token;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The tokens of a script in an array, read with a cursor.
+ *
+ * Blocks and conditions are read through sub streams, which are views over the same array, so parsing
+ * never copies tokens. The matching bracket of every bracket is found once when the stream is built,
+ * which lets the parser skip over nested blocks and parenthesis without counting them again.
+ */
+public class TokenStream {
+
+    private static final int UNMATCHED = -1;
+
+    private final String[] texts;
+    private final Token[] tokens; // null if the stream was built from token texts
+    private final int[] matching;
+
+    private int position;
+    private int end;
+
+    /**
+     * @param tokens tokens of the .fml script in order
+     */
+    public TokenStream(List<Token> tokens) {
+        this.tokens = tokens.toArray(new Token[0]);
+        this.texts = new String[this.tokens.length];
+        for (int i = 0; i < texts.length; i++) {
+            texts[i] = this.tokens[i].getText();
+        }
+        this.matching = findMatchingBrackets(texts);
+        this.position = 0;
+        this.end = texts.length;
+    }
+
+    /**
+     * @param texts token texts of the .fml script in order
+     */
+    public TokenStream(Collection<String> texts) {
+        this.tokens = null;
+        this.texts = texts.toArray(new String[0]);
+        this.matching = findMatchingBrackets(this.texts);
+        this.position = 0;
+        this.end = this.texts.length;
+    }
+
+    private TokenStream(TokenStream stream, int start, int end) {
+        this.tokens = stream.tokens;
+        this.texts = stream.texts;
+        this.matching = stream.matching;
+        this.position = start;
+        this.end = end;
+    }
+
+    private static int[] findMatchingBrackets(String[] texts) {
+        int[] matching = new int[texts.length];
+        int[] parenthesis = new int[texts.length];
+        int[] braces = new int[texts.length];
+        int openParenthesis = 0;
+        int openBraces = 0;
+        for (int i = 0; i < texts.length; i++) {
+            matching[i] = UNMATCHED;
+            switch (texts[i]) {
+                case "(":
+                    parenthesis[openParenthesis++] = i;
+                    break;
+                case "{":
+                    braces[openBraces++] = i;
+                    break;
+                case ")":
+                    if (openParenthesis > 0) {
+                        int open = parenthesis[--openParenthesis];
+                        matching[open] = i;
+                        matching[i] = open;
+                    }
+                    break;
+                case "}":
+                    if (openBraces > 0) {
+                        int open = braces[--openBraces];
+                        matching[open] = i;
+                        matching[i] = open;
+                    }
+                    break;
+            }
+        }
+        return matching;
+    }
+
+    /**
+     * @return a stream over the same tokens that can be read independently of this one
+     */
+    public TokenStream copy() {
+        return new TokenStream(this, position, end);
+    }
+
+    /**
+     * @return a stream over the tokens in [start, end)
+     */
+    public TokenStream subStream(int start, int end) {
+        return new TokenStream(this, start, end);
+    }
+
+    public boolean isEmpty() {
+        return position >= end;
+    }
+
+    public int size() {
+        return Math.max(0, end - position);
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+
+    /**
+     * @return the next token, or null if there is none
+     */
+    public String peek() {
+        return peek(0);
+    }
+
+    /**
+     * @return the token offset tokens after the next one, or null if there is none
+     */
+    public String peek(int offset) {
+        int index = position + offset;
+        return index < end ? texts[index] : null;
+    }
+
+    public String peekLast() {
+        return isEmpty() ? null : texts[end - 1];
+    }
+
+    /**
+     * @return true if the next token is the given token
+     */
+    public boolean nextIs(String token) {
+        return !isEmpty() && texts[position].equals(token);
+    }
+
+    /**
+     * Consumes the next token
+     *
+     * @return the consumed token, or null if there is none
+     */
+    public String poll() {
+        return isEmpty() ? null : texts[position++];
+    }
+
+    public String get(int index) {
+        return texts[index];
+    }
+
+    /**
+     * @return the index of the bracket matching the bracket at index, or -1 if it is not in this stream
+     */
+    public int getMatching(int index) {
+        int match = matching[index];
+        return match >= position && match < end ? match : UNMATCHED;
+    }
+
+    /**
+     * @return the index of the first occurrence of token from the next token on, or -1 if there is none
+     */
+    public int indexOf(String token) {
+        for (int i = position; i < end; i++) {
+            if (texts[i].equals(token)) {
+                return i;
+            }
+        }
+        return UNMATCHED;
+    }
+
+    /**
+     * Moves the cursor to index
+     */
+    public void skipTo(int index) {
+        position = index;
+    }
+
+    /**
+     * Removes tokens from the front and back of the stream
+     */
+    public void trim(int front, int back) {
+        position += front;
+        end -= back;
+    }
+
+    /**
+     * Returns true if removing the first and last parenthesis won't change semantics
+     */
+    public boolean hasRedundantParenthesis() {
+        return size() > 1 && texts[position].equals("(") && getMatching(position) == end - 1;
+    }
+
+    /**
+     * Removes redundant parenthesis from the front and back
+     *
+     * @return true if parenthesis were removed
+     */
+    public boolean stripRedundantParenthesis() {
+        boolean removedParenthesis = false;
+        while (hasRedundantParenthesis()) {
+            trim(1, 1);
+            removedParenthesis = true;
+        }
+        return removedParenthesis;
+    }
+
+    /**
+     * @return where the next token was read from in the script, for error messages
+     */
+    public String describePosition() {
+        if (isEmpty()) {
+            return "end of block";
+        }
+        return tokens == null ? "token " + (position + 1) : tokens[position].getPosition();
+    }
+
+    @Override
+    public String toString() {
+        return String.join(" ", Arrays.asList(texts).subList(Math.min(position, end), end));
+    }
+}
@@ -0,0 +1,68 @@
+package Tokenizer;
+
+/**
+ * A token of a .fml script, with the position it was read from
+ */
+public class Token {
+
+    public enum Type {
+        KEYWORD,        // if, else, for, in, to, AND, True, ...
+        COMMAND,        // copy, move, ...
+        IDENTIFIER,     // variable names and unquoted paths
+        STRING,         // "quoted", including the quotes
+        NUMBER,         // 10, 1.5, 100 GB
+        ATTRIBUTE,      // .name, .size, ...
+        OPERATOR,       // =, ->, ==, !=, <, <=, >, >=
+        SYMBOL,         // ( ) { }
+        NEWLINE
+    }
+
+    private final Type type;
+    private final String text;
+    private final int line;
+    private final int column;
+
+    public Token(Type type, String text, int line, int column) {
+        this.type = type;
+        this.text = text;
+        this.line = line;
+        this.column = column;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return the token as the parser reads it, e.g. NEWLINE for a line break
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * @return line of the first character of the token, starting at 1
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * @return column of the first character of the token, starting at 1
+     */
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * @return the position of the token, for error messages
+     */
+    public String getPosition() {
+        return "line " + line + ", column " + column;
+    }
+
+    @Override
+    public String toString() {
+        return type + "(" + text + ") at " + getPosition();
+    }
+}
@@ -1,22 +1,37 @@
 package Tokenizer;
 
 import Exceptions.FMLParsingException;
+import Tokenizer.Token.Type;
 import Util.Logger;
 
 import java.util.*;
+import java.util.regex.Pattern;
 
 import static Language.FMLGrammar.*;
 
+/**
+ * Splits a .fml script into tokens in a single pass over its characters
+ */
 public class Tokenizer {
 
     static Logger logger = Logger.get();
 
-    private static final String separator = "_separator_";
-    public static List<String> PREPOSITIONS = Arrays.asList(addSpaces(PREPOSITION));
-    public static List<String> DECLARATIONS = Arrays.asList(EQUALS, RIGHT_ARROW);
-    public static List<String> IF_STATEMENTS = Arrays.asList("(", ")", addSpaces(AND), addSpaces(OR), NOT);
-    public static List<String> FOR_LOOPS = Arrays.asList("(", ")", addSpaces(IN));
-    private static Queue<String> tokens;
+    private static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList(
+            IF, ELSE, FOR, PARALLEL, LAZY, WHERE, RETURN, PREPOSITION, LEVEL, IN, AND, OR, NOT, TRUE, FALSE));
+    private static final Set<String> COMMANDS = new HashSet<>(COMMAND_STRINGS);
+    private static final Set<String> UNITS = new HashSet<>(SIZES);
+    private static final Set<String> ATTRIBUTE_NAMES = new HashSet<>(ATTRIBUTES);
+    private static final Pattern NUMBER = Pattern.compile("-?[0-9]+(\\.[0-9]+)?");
+
+    private final String data;
+    private final List<Token> tokens = new ArrayList<>();
+    private int position = 0;
+    private int line = 1;
+    private int lineStart = 0;
+
+    private Tokenizer(String data) {
+        this.data = data;
+    }
 
     /**
      * Get the contents of the .fml script as a queue of tokens
@@ -24,139 +39,205 @@ public class Tokenizer {
      * @param data contents of a .fml script to be tokenized
      * @return tokenized .fml script
      */
-    public static Queue<String> getTokens(String data, List<String> Separators) throws FMLParsingException {
-        logger.log("Starting script tokenization");
-        data = removeComments(data);
-        tokens = new LinkedList<>();
-        String[] statements;
-        for (String s : Separators) {
-            data = data.replace(s, separator + s + separator);
-        }
-        data = data.replace(separator + "\r\n" + separator, separator + NEWLINE + separator);
-        data = data.replace(separator + separator, separator);
-        if (data.length() > 0 && data.startsWith(separator)) {
-            data = data.substring(separator.length()); // without first character
-        }
-        statements = data.split(separator);
-        for (String st : statements) {
-            st = st.trim();
-            if (Separators.contains(st)) {
-                tokens.add(st);
-            } else if (st.startsWith(RETURN)) {
-                tokens.add(st);
-            } else if (st.startsWith(IF) || st.startsWith(ELSE)) {
-                tokens.addAll(tokenIf(st));
-            } else if (st.startsWith(FOR)) {
-                tokens.addAll(tokenFor(st));
-            } else {
-                boolean declaration = true;
-                for (String command : COMMAND_STRINGS) {
-                    if (st.startsWith(command+" ")) {
-                        tokens.addAll(tokenAction(st, command+" "));
-                        declaration = false;
-                        break;
-                    }
-                }
-                if (!st.equals("") && declaration) {
-                    tokens.addAll(tokenDeclaration(st));
-                }
-            }
+    public static Queue<String> getTokens(String data) throws FMLParsingException {
+        List<Token> tokens = tokenize(data);
+        Queue<String> texts = new LinkedList<>();
+        for (Token token : tokens) {
+            texts.add(token.getText());
         }
+        return texts;
+    }
+
+    /**
+     * Get the contents of the .fml script as a list of typed tokens.
+     * Lines may end with \r\n or \n. Comments and semicolons are dropped, empty lines are merged
+     * into a single NEWLINE and the script never starts or ends with a NEWLINE.
+     *
+     * @param data contents of a .fml script to be tokenized
+     * @return tokenized .fml script
+     */
+    public static List<Token> tokenize(String data) throws FMLParsingException {
+        logger.log("Starting script tokenization");
+        Tokenizer tokenizer = new Tokenizer(data);
+        tokenizer.run();
         logger.log("Script tokenization complete");
-        return removeSemiColons(tokens);
+        return tokenizer.tokens;
     }
 
-    private static Queue<String> tokenIf(String data) {
-        Queue<String> tokenized = new LinkedList<>();
-        if (data.startsWith(IF)) {
-            data = separator+IF+separator+data.substring(IF.length());
-        } else if (data.startsWith(ELSE)) {
-            data = separator+ELSE+separator+data.substring(ELSE.length());
-        }
-        for (String i : IF_STATEMENTS) {
-            data = data.replace(i, separator + i + separator);
-        }
-        for (String i : COMPARISON_OPERATORS) {
-            data = data.replace(i, separator + i + separator);
-            if (i == ComparisonOperator.LESS_THAN.toString() || i == ComparisonOperator.GREATER_THAN.toString()) {
-                data = data.replace(i + separator + "=", i + "=" + separator);
+    private void run() throws FMLParsingException {
+        while (position < data.length()) {
+            char c = data.charAt(position);
+            switch (c) {
+                case ' ':
+                case '\t':
+                case '\uFEFF': // byte order mark
+                case ';':
+                    position++;
+                    break;
+                case '\r':
+                case '\n':
+                    readNewline();
+                    break;
+                case '"':
+                    readString();
+                    break;
+                case '(':
+                case ')':
+                case '{':
+                case '}':
+                    add(Type.SYMBOL, String.valueOf(c), position, position + 1);
+                    break;
+                default:
+                    if (startsComment(position)) {
+                        skipComment();
+                    } else if (operatorLength(position) > 0) {
+                        add(Type.OPERATOR, data.substring(position, position + operatorLength(position)), position,
+                                position + operatorLength(position));
+                    } else {
+                        readWord();
+                    }
             }
         }
-        for (String i : ATTRIBUTES) {
-            data = data.replace(i, separator + i + separator);
-        }
-        for (String t : data.split(separator)) {
-            t = t.trim();
-            if (!t.isEmpty()) {
-                tokenized.add(t);
-            }
+        if (!tokens.isEmpty() && tokens.get(tokens.size() - 1).getType() == Type.NEWLINE) {
+            tokens.remove(tokens.size() - 1);
         }
-        return tokenized;
     }
 
-    private static Queue<String> tokenFor(String data) {
-        Queue<String> tokenized = new LinkedList<>();
-        if (data.startsWith(FOR)) {
-            data = separator+FOR+separator+data.substring(FOR.length());
+    private void readNewline() {
+        int start = position;
+        if (data.charAt(position) == '\r' && position + 1 < data.length() && data.charAt(position + 1) == '\n') {
+            position++;
+        }
+        position++;
+        boolean redundant = tokens.isEmpty() || tokens.get(tokens.size() - 1).getType() == Type.NEWLINE;
+        if (!redundant) {
+            tokens.add(new Token(Type.NEWLINE, NEWLINE, line, start - lineStart + 1));
+        }
+        line++;
+        lineStart = position;
+    }
+
+    private void readString() throws FMLParsingException {
+        int start = position;
+        int end = position + 1;
+        while (end < data.length() && data.charAt(end) != '"') {
+            if (data.charAt(end) == '\r' || data.charAt(end) == '\n') {
+                break;
+            }
+            end++;
         }
-        for (String f : FOR_LOOPS) {
-            data = data.replace(f, separator + f + separator);
+        if (end >= data.length() || data.charAt(end) != '"') {
+            throw new FMLParsingException("Missing closing quote for string at line " + line
+                    + ", column " + (start - lineStart + 1));
         }
-        for (String t : data.split(separator)) {
-            t = t.trim();
-            if (!t.isEmpty()) {
-                tokenized.add(t);
-            }
+        add(Type.STRING, data.substring(start, end + 1), start, end + 1);
+    }
+
+    private void skipComment() {
+        while (position < data.length() && data.charAt(position) != '\r' && data.charAt(position) != '\n') {
+            position++;
         }
-        return tokenized;
     }
 
-    private static Queue<String> tokenAction(String data, String command) {
-        Queue<String> tokenized = new LinkedList<>();
-        for (String s : PREPOSITIONS) {
-            data = data.replace(s, separator + s + separator);
+    /**
+     * Reads an identifier, keyword, number or unquoted path. An attribute at the end of a word is its
+     * own token, and a number followed by a file size unit is read as one token, e.g. "100 GB".
+     */
+    private void readWord() {
+        int start = position;
+        int end = position;
+        while (end < data.length() && isWordCharacter(end)) {
+            end++;
         }
-        data = data.replace(command, separator + command + separator);
-        for (String t : data.split(separator)) {
-            t = t.trim();
-            if (!t.isEmpty()) {
-                tokenized.add(t);
+        String word = data.substring(start, end);
+
+        String attribute = getAttributeSuffix(word);
+        if (attribute != null) {
+            if (word.length() > attribute.length()) {
+                add(Type.IDENTIFIER, word.substring(0, word.length() - attribute.length()), start, end - attribute.length());
             }
+            add(Type.ATTRIBUTE, attribute, end - attribute.length(), end);
+            return;
         }
-        return tokenized;
-    }
 
-    private static Queue<String> tokenDeclaration(String data) {
-        Queue<String> tokenized = new LinkedList<>();
-        for (String d : DECLARATIONS) {
-            data = data.replace(d, separator + d + separator);
-        }
-        for (String t : data.split(separator)) {
-            t = t.trim();
-            if (!t.isEmpty()) {
-                tokenized.add(t);
+        if (NUMBER.matcher(word).matches()) {
+            int unitStart = end;
+            while (unitStart < data.length() && (data.charAt(unitStart) == ' ' || data.charAt(unitStart) == '\t')) {
+                unitStart++;
+            }
+            int unitEnd = unitStart;
+            while (unitEnd < data.length() && isWordCharacter(unitEnd)) {
+                unitEnd++;
+            }
+            String unit = data.substring(unitStart, unitEnd);
+            if (unitStart > end && UNITS.contains(unit)) {
+                add(Type.NUMBER, word + " " + unit, start, unitEnd);
+            } else {
+                add(Type.NUMBER, word, start, end);
             }
+            return;
+        }
+
+        if (COMMANDS.contains(word)) {
+            add(Type.COMMAND, word, start, end);
+        } else if (KEYWORDS.contains(word)) {
+            add(Type.KEYWORD, word, start, end);
+        } else {
+            add(Type.IDENTIFIER, word, start, end);
         }
-        return tokenized;
     }
 
-    private static String addSpaces(String literal) {
-        return " "+literal+" ";
+    private void add(Type type, String text, int start, int end) {
+        tokens.add(new Token(type, text, line, start - lineStart + 1));
+        position = end;
     }
 
-    private static Queue<String> removeSemiColons(Queue<String> tokens) {
-        LinkedList<String> cleaned = new LinkedList<>();
-        for (String token: tokens) {
-            if (token.contains(SEMI_COLON)) {
-                cleaned.addLast(token.replaceAll(SEMI_COLON, ""));
-            } else {
-                cleaned.add(token);
-            }
-        }
-        return cleaned;
+    private boolean isWordCharacter(int index) {
+        switch (data.charAt(index)) {
+            case ' ':
+            case '\t':
+            case '\r':
+            case '\n':
+            case '"':
+            case ';':
+            case '(':
+            case ')':
+            case '{':
+            case '}':
+                return false;
+        }
+        return !startsComment(index) && operatorLength(index) == 0;
+    }
+
+    private boolean startsComment(int index) {
+        return data.startsWith("//", index);
+    }
+
+    /**
+     * @return the length of the operator at the given index, or 0 if there is none
+     */
+    private int operatorLength(int index) {
+        char c = data.charAt(index);
+        char next = index + 1 < data.length() ? data.charAt(index + 1) : 0;
+        switch (c) {
+            case '=':
+            case '<':
+            case '>':
+                return next == '=' ? 2 : 1;
+            case '!':
+                return next == '=' ? 2 : 0;
+            case '-':
+                return next == '>' ? 2 : 0;
+        }
+        return 0;
     }
 
-    private static String removeComments(String data) {
-        return COMMENT.matcher(data.trim() + "\r\n").replaceAll("\r\n").trim();
+    private static String getAttributeSuffix(String word) {
+        int dot = word.lastIndexOf('.');
+        if (dot < 0) {
+            return null;
+        }
+        String suffix = word.substring(dot);
+        return ATTRIBUTE_NAMES.contains(suffix) ? suffix : null;
     }
 }
@@ -15,6 +15,7 @@ public class Logger {
         TOKENIZING("TOKENIZING"),
         PARSING("PARSING"),
         VALIDATING("VALIDATING"),
+        COMPILING("COMPILING"),
         EVALUATING("EVALUATING");
 
         private String name;
@@ -40,6 +41,10 @@ public class Logger {
         Logger.enabled = enabled;
     }
 
+    public static Boolean isEnabled() {
+        return Logger.enabled;
+    }
+
     public void log(String msg) {
         if (!enabled) {
             return;
@@ -0,0 +1,143 @@
+package Compiler;
+
+import Parser.ASTNodes.Program;
+import Parser.ASTNodes.VariableReference;
+import Parser.ASTNodes.Variables.ListVariable;
+import Parser.Parser;
+import Parser.TokenStream;
+import Tokenizer.Tokenizer;
+import Validator.Validator;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProgramCacheTest {
+
+    private static final String VALID_SCRIPTS = "test/EndToEnd/TestFMLScripts/ValidScripts";
+    private static final String SCRIPT = "folder = \"test/EndToEnd/TestFiles\"\n"
+            + "files[] = folder -> \"*\" where size > 1 B\n"
+            + "parallel for (f in files[]) {\n"
+            + "    if ((f.size > 1 KB AND NOT (f.extension == \"txt\")) OR (f.isFile == False)) {\n"
+            + "        compress f level 9\n"
+            + "    } else {\n"
+            + "        return\n"
+            + "    }\n"
+            + "}\n";
+
+    private Path directory;
+    private ProgramCache cache;
+
+    @BeforeEach
+    void setup() throws Exception {
+        directory = Files.createTempDirectory("ProgramCacheTest");
+        cache = new ProgramCache(directory);
+    }
+
+    @AfterEach
+    void teardown() throws Exception {
+        FileUtils.deleteDirectory(directory.toFile());
+    }
+
+    private static Program parse(String script) throws Exception {
+        Program program = Parser.parse(new TokenStream(Tokenizer.tokenize(script)));
+        Validator.validate(program);
+        return program;
+    }
+
+    @Test
+    void testLoadsSameProgram() throws Exception {
+        Program program = parse(SCRIPT);
+        cache.store(SCRIPT, program);
+
+        Program cached = cache.load(SCRIPT);
+        assertNotNull(cached);
+        assertTrue(cached.isValidated());
+        assertEquals(program, cached);
+    }
+
+    @Test
+    void testLoadsSameProgramForValidScripts() throws Exception {
+        File[] scripts = new File(VALID_SCRIPTS).listFiles();
+        assertNotNull(scripts);
+        for (File file : scripts) {
+            String script = FileUtils.readFileToString(file, StandardCharsets.UTF_8);
+            Program program = parse(script);
+            cache.store(script, program);
+            assertEquals(program, cache.load(script), file.getName());
+        }
+    }
+
+    @Test
+    void testLoadsResolvedVariables() throws Exception {
+        File[] scripts = new File(VALID_SCRIPTS).listFiles();
+        assertNotNull(scripts);
+        for (File file : scripts) {
+            String script = FileUtils.readFileToString(file, StandardCharsets.UTF_8);
+            Program program = parse(script);
+            cache.store(script, program);
+            Program cached = cache.load(script);
+            for (int i = 0; i < program.getStatements().size(); i++) {
+                List<VariableReference> references = program.getStatements().get(i).getReferences();
+                List<VariableReference> cachedReferences = cached.getStatements().get(i).getReferences();
+                assertEquals(references.size(), cachedReferences.size(), file.getName());
+                for (int j = 0; j < references.size(); j++) {
+                    assertEquals(references.get(j).getLocation(), cachedReferences.get(j).getLocation(), file.getName());
+                }
+            }
+        }
+    }
+
+    @Test
+    void testLoadedProgramKeepsSlots() throws Exception {
+        Program program = parse(SCRIPT);
+        cache.store(SCRIPT, program);
+
+        Program cached = cache.load(SCRIPT);
+        VariableReference files = cached.getStatements().get(1).getReferences().get(0);
+        assertEquals(1, files.getLocation());
+        cached.addVariable(files, new ListVariable(List.of()));
+        assertTrue(cached.getVariables().containsKey(files.getIdentifier()));
+    }
+
+    @Test
+    void testChangedScriptIsNotLoaded() throws Exception {
+        cache.store(SCRIPT, parse(SCRIPT));
+        assertNull(cache.load(SCRIPT + "return\n"));
+    }
+
+    @Test
+    void testInvalidProgramIsNotStored() throws Exception {
+        String script = "copy f to g\n";
+        cache.store(script, parse(script));
+        assertNull(cache.load(script));
+    }
+
+    @Test
+    void testDamagedCacheIsIgnored() throws Exception {
+        cache.store(SCRIPT, parse(SCRIPT));
+        Path file = directory.resolve(ProgramCache.getKey(SCRIPT) + ".ast");
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+        assertNull(cache.load(SCRIPT));
+
+        Files.write(file, "not a program".getBytes(StandardCharsets.UTF_8));
+        assertNull(cache.load(SCRIPT));
+    }
+
+    @Test
+    void testDisabledCache() throws Exception {
+        ProgramCache disabled = new ProgramCache(null);
+        disabled.store(SCRIPT, parse(SCRIPT));
+        assertNull(disabled.load(SCRIPT));
+    }
+}
@@ -0,0 +1,107 @@
+package EndToEnd;
+
+import Main.Daemon;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static TestUtils.TestUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DaemonTest {
+
+    private String TEST_SCRIPTS_FOLDER = "test/EndToEnd/TestFMLScripts/ValidScripts";
+
+    private File testFiles;
+    private Path socketFolder;
+    private Path socket;
+    private Daemon daemon;
+    private Thread daemonThread;
+
+    @BeforeEach
+    void setup() throws Exception {
+        deleteTestFilesCopy();
+        testFiles = copyTestFiles();
+        socketFolder = Files.createTempDirectory("DaemonTest");
+        socket = socketFolder.resolve("fml.sock");
+        daemon = new Daemon(socket);
+        daemonThread = new Thread(() -> {
+            try {
+                daemon.serve();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        daemonThread.start();
+        for (int i = 0; i < 100 && !Files.exists(socket); i++) {
+            Thread.sleep(50);
+        }
+    }
+
+    @AfterEach
+    void teardown() throws Exception {
+        daemon.close();
+        daemonThread.join(5000);
+        FileUtils.deleteDirectory(socketFolder.toFile());
+        deleteTestFilesCopy();
+    }
+
+    private String send(String request) throws IOException {
+        try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.connect(UnixDomainSocketAddress.of(socket));
+            OutputStream out = Channels.newOutputStream(channel);
+            out.write((request + "\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            InputStream in = Channels.newInputStream(channel);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    void testRunsScripts() throws IOException {
+        send(Paths.get(TEST_SCRIPTS_FOLDER, "createFolder2.fml").toString());
+        assertTrue(FileUtils.directoryContains(testFiles, new File(testFiles, "newlyCreatedFolder")));
+
+        send(Paths.get(TEST_SCRIPTS_FOLDER, "createFolder.fml").toString());
+        assertTrue(FileUtils.directoryContains(testFiles, new File(testFiles, "createdFolder")));
+    }
+
+    @Test
+    void testSendsOutputOfRequest() throws IOException {
+        String output = send("-v " + Paths.get(TEST_SCRIPTS_FOLDER, "createFolder.fml"));
+        assertTrue(output.contains("Done!"));
+        assertTrue(output.contains("create newfolder"));
+
+        assertEquals("", send(Paths.get(TEST_SCRIPTS_FOLDER, "createFolder.fml").toString()));
+    }
+
+    @Test
+    void testFailedRequestDoesNotStopDaemon() throws IOException {
+        String output = send("-v " + Paths.get(TEST_SCRIPTS_FOLDER, "missing.fml"));
+        assertTrue(output.contains("Failed to run script"));
+
+        send(Paths.get(TEST_SCRIPTS_FOLDER, "createFolder2.fml").toString());
+        assertTrue(FileUtils.directoryContains(testFiles, new File(testFiles, "newlyCreatedFolder")));
+    }
+
+    @Test
+    void testRemovesSocketWhenClosed() throws Exception {
+        daemon.close();
+        daemonThread.join(5000);
+        assertFalse(Files.exists(socket));
+    }
+}
@@ -2,6 +2,8 @@ package EndToEnd;
 
 
 import Exceptions.FMLExecutionException;
+import Executor.CommandPipeline;
+import Executor.ShardCoordinator;
 import Main.Main;
 import org.apache.commons.io.FileUtils;
 import org.junit.jupiter.api.AfterEach;
@@ -38,6 +40,8 @@ public class MainTest {
 
     @AfterEach
     void teardown() throws IOException {
+        CommandPipeline.get().disable();
+        ShardCoordinator.get().disable();
         deleteTestFilesCopy();
     }
 
@@ -170,6 +174,17 @@ public class MainTest {
         assertTrue(FileUtils.directoryContains(testFiles, new File(testFiles, "test.txt")));
     }
 
+    @Test
+    void testMultiActionAsync() throws IOException {
+        Main.main(new String[]{CommandPipeline.FLAG + "=2", getScriptPath("multiaction.fml")});
+        File notAnEmptyFolder = new File(testFiles, "notAnEmptyFolder");
+        File aFilledFolder = new File(notAnEmptyFolder, "aFilledFolder");
+        assertFalse(FileUtils.directoryContains(testFiles, new File(testFiles, "aFilledFolder")));
+        assertFalse(FileUtils.directoryContains(testFiles, new File(testFiles, "anEmptyFolder")));
+        assertTrue(FileUtils.directoryContains(notAnEmptyFolder, aFilledFolder));
+        assertTrue(FileUtils.directoryContains(aFilledFolder, new File(aFilledFolder, "testfile1.txt")));
+    }
+
     //If cond tests
     @Test
     void testIfCondAlwaysTrue() throws IOException{
@@ -326,6 +341,82 @@ public class MainTest {
         assertFalse(FileUtils.directoryContains(testFiles,oldFile2));
     }
 
+    @Test
+    void testMoveFilesForLoopSharded() throws IOException {
+        Main.main(new String[]{ShardCoordinator.FLAG + "=2", getScriptPath("moveFilesToFolderForLoop.fml")});
+        File oldFile1 = new File(testFiles, "aFilledFolder/testfile1.txt");
+        File oldFile2 = new File(testFiles, "aFilledFolder/testfile2.txt");
+        File newFile1 = new File(testFiles, "anEmptyFolder/testfile1.txt");
+        File newFile2 = new File(testFiles, "anEmptyFolder/testfile2.txt");
+        assertTrue(FileUtils.directoryContains(testFiles,newFile1));
+        assertTrue(FileUtils.directoryContains(testFiles,newFile2));
+        assertFalse(FileUtils.directoryContains(testFiles,oldFile1));
+        assertFalse(FileUtils.directoryContains(testFiles,oldFile2));
+    }
+
+    @Test
+    void testMoveFilesForLoopShardedAfterRename() throws IOException {
+        Main.main(new String[]{ShardCoordinator.FLAG + "=2", getScriptPath("moveFilesToRenamedFolderForLoop.fml")});
+        File newFile1 = new File(testFiles, "aRenamedFolder/testfile1.txt");
+        File newFile2 = new File(testFiles, "aRenamedFolder/testfile2.txt");
+        assertTrue(FileUtils.directoryContains(testFiles,newFile1));      // workers see the folder as renamed
+        assertTrue(FileUtils.directoryContains(testFiles,newFile2));
+        assertFalse(new File(testFiles, "anEmptyFolder").exists());
+    }
+
+    @Test
+    void testReturnInForLoopSharded() throws IOException {
+        Main.main(new String[]{ShardCoordinator.FLAG + "=2", getScriptPath("returnInForLoop.fml")});
+        File oldFile2 = new File(testFiles, "aFilledFolder/testfile2.txt");
+        File newFile2 = new File(testFiles, "anEmptyFolder/testfile2.txt");
+        assertTrue(FileUtils.directoryContains(testFiles,oldFile2));     // loops that return are not split
+        assertFalse(FileUtils.directoryContains(testFiles,newFile2));
+    }
+
+    @Test
+    void testMoveFilesParallelForLoop() throws IOException {
+        testScript(getScriptPath("moveFilesToFolderParallelForLoop.fml"));
+        File oldFile1 = new File(testFiles, "aFilledFolder/testfile1.txt");
+        File oldFile2 = new File(testFiles, "aFilledFolder/testfile2.txt");
+        File newFile1 = new File(testFiles, "anEmptyFolder/testfile1.txt");
+        File newFile2 = new File(testFiles, "anEmptyFolder/testfile2.txt");
+        assertTrue(FileUtils.directoryContains(testFiles,newFile1));
+        assertTrue(FileUtils.directoryContains(testFiles,newFile2));
+        assertFalse(FileUtils.directoryContains(testFiles,oldFile1));
+        assertFalse(FileUtils.directoryContains(testFiles,oldFile2));
+    }
+
+    @Test
+    void testCopyFilesParallelForLoopIf() throws IOException {
+        testScript(getScriptPath("copyFilesToFolderParallelForLoopIf.fml"));
+        File newFile1 = new File(testFiles, "anEmptyFolder/testfile1.txt");
+        File newFile2 = new File(testFiles, "anEmptyFolder/testfile2.txt");
+        assertTrue(FileUtils.directoryContains(testFiles,newFile1));
+        assertFalse(FileUtils.directoryContains(testFiles,newFile2));
+    }
+
+    @Test
+    void testMoveFilesForLoopIfAsync() throws IOException {
+        Main.main(new String[]{CommandPipeline.FLAG, getScriptPath("moveFilesToFolderForLoopIf.fml")});
+        File newFile1 = new File(testFiles, "anEmptyFolder/testfile1.txt");
+        File newFile2 = new File(testFiles, "anEmptyFolder/testfile2.txt");
+        assertTrue(FileUtils.directoryContains(testFiles,newFile1));
+        assertFalse(FileUtils.directoryContains(testFiles,newFile2));
+    }
+
+    @Test
+    void testMoveFilesLazyList() throws IOException {
+        testScript(getScriptPath("moveFilesToFolderLazyList.fml"));
+        File oldFile1 = new File(testFiles, "aFilledFolder/testfile1.txt");
+        File oldFile2 = new File(testFiles, "aFilledFolder/testfile2.txt");
+        File newFile1 = new File(testFiles, "anEmptyFolder/testfile1.txt");
+        File newFile2 = new File(testFiles, "anEmptyFolder/testfile2.txt");
+        assertTrue(FileUtils.directoryContains(testFiles,newFile1));
+        assertTrue(FileUtils.directoryContains(testFiles,newFile2));
+        assertFalse(FileUtils.directoryContains(testFiles,oldFile1));
+        assertFalse(FileUtils.directoryContains(testFiles,oldFile2));
+    }
+
     @Test
     void testMoveFilesForLoopIf() throws IOException {
         testScript(getScriptPath("moveFilesToFolderForLoopIf.fml"));
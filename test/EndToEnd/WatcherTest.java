@@ -0,0 +1,104 @@
+package EndToEnd;
+
+import Main.Watcher;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static TestUtils.TestUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WatcherTest {
+
+    private static final String SCRIPT = "inbox[] = \"test/EndToEnd/TestFiles/aFilledFolder/*.txt\"\n"
+            + "outbox = \"test/EndToEnd/TestFiles/anEmptyFolder\"\n"
+            + "for (f in inbox[]) {\n"
+            + "    move f to outbox\n"
+            + "}\n";
+
+    /**
+     * Writes its archives in the folder it watches, so each run would trigger the next without suppression
+     */
+    private static final String COMPRESS_SCRIPT = "inbox[] = \"test/EndToEnd/TestFiles/aFilledFolder/*\"\n"
+            + "for (f in inbox[]) {\n"
+            + "    compress f\n"
+            + "}\n";
+
+    private File testFiles;
+    private File inbox;
+    private File outbox;
+    private Watcher watcher;
+    private Thread watcherThread;
+
+    @BeforeEach
+    void setup() throws IOException {
+        deleteTestFilesCopy();
+        testFiles = copyTestFiles();
+        inbox = new File(testFiles, "aFilledFolder");
+        outbox = new File(testFiles, "anEmptyFolder");
+        createFolderAtPath(outbox.getPath());
+    }
+
+    private void start(String script) {
+        watcher = new Watcher(script);
+        watcherThread = new Thread(() -> {
+            try {
+                watcher.watch();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        watcherThread.start();
+    }
+
+    @AfterEach
+    void teardown() throws Exception {
+        watcher.close();
+        watcherThread.join(5000);
+        deleteTestFilesCopy();
+    }
+
+    private static boolean waitFor(File file) throws InterruptedException {
+        for (int i = 0; i < 200 && !file.exists(); i++) {
+            Thread.sleep(50);
+        }
+        return file.exists();
+    }
+
+    @Test
+    void testRunsScriptForExistingAndNewFiles() throws Exception {
+        start(SCRIPT);
+        assertTrue(waitFor(new File(outbox, "testfile1.txt")));
+        assertTrue(waitFor(new File(outbox, "testfile2.txt")));
+
+        FileUtils.writeStringToFile(new File(inbox, "new.txt"), "new", "UTF-8");
+        FileUtils.writeStringToFile(new File(inbox, "new.log"), "new", "UTF-8");
+        assertTrue(waitFor(new File(outbox, "new.txt")));
+        assertTrue(new File(inbox, "new.log").exists());
+    }
+
+    @Test
+    void testIgnoresOwnChanges() throws Exception {
+        start(COMPRESS_SCRIPT);
+
+        assertTrue(waitFor(new File(inbox, "testfile1.txt.zip")));
+        FileUtils.writeStringToFile(new File(inbox, "new.txt"), "new", "UTF-8");
+        assertTrue(waitFor(new File(inbox, "new.txt.zip")));
+        Thread.sleep(3000);
+        assertFalse(new File(inbox, "testfile1.txt.zip.zip").exists());
+        assertFalse(new File(inbox, "new.txt.zip.zip").exists());
+    }
+
+    @Test
+    void testStopsWhenClosed() throws Exception {
+        start(SCRIPT);
+        assertTrue(waitFor(new File(outbox, "testfile1.txt")));
+        watcher.close();
+        watcherThread.join(5000);
+        assertFalse(watcherThread.isAlive());
+    }
+}
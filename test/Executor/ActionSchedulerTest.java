@@ -0,0 +1,72 @@
+package Executor;
+
+import Exceptions.FMLExecutionException;
+import Parser.ASTNodes.Commands.Compress;
+import Parser.ASTNodes.Commands.Copy;
+import Parser.ASTNodes.Commands.Delete;
+import Parser.ASTNodes.Program;
+import Parser.ASTNodes.Variables.FileVariable;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActionSchedulerTest {
+
+    private File folder;
+    private Program program;
+
+    @BeforeEach
+    void setup() throws IOException, FMLExecutionException {
+        folder = Files.createTempDirectory("ActionSchedulerTest").toFile();
+        program = new Program(new LinkedList<>());
+        for (String name : new String[]{"logsA", "logsB", "backup"}) {
+            FileUtils.forceMkdir(new File(folder, name));
+            program.addVariable(name, new FileVariable(new File(folder, name).getAbsolutePath()));
+        }
+        for (String name : new String[]{"logsA/a.log", "logsB/b.log", "report.txt"}) {
+            FileUtils.writeStringToFile(new File(folder, name), name, "UTF-8");
+        }
+        program.addVariable("report", new FileVariable(new File(folder, "report.txt").getAbsolutePath()));
+    }
+
+    @AfterEach
+    void teardown() throws IOException {
+        FileUtils.deleteDirectory(folder);
+    }
+
+    @Test
+    void testRunsIndependentCommands() throws FMLExecutionException {
+        ActionScheduler.run(List.of(new Compress("logsA"), new Compress("logsB"), new Copy("report", "backup")), program);
+
+        assertTrue(new File(folder, "logsA.zip").exists());
+        assertTrue(new File(folder, "logsB.zip").exists());
+        assertTrue(new File(folder, "backup/report.txt").exists());
+    }
+
+    @Test
+    void testRunsConflictingCommandsInOrder() throws FMLExecutionException {
+        ActionScheduler.run(List.of(new Copy("report", "backup"), new Compress("logsA"), new Delete("report")), program);
+
+        assertTrue(new File(folder, "backup/report.txt").exists());
+        assertFalse(new File(folder, "report.txt").exists());
+    }
+
+    @Test
+    void testSkipsCommandsAfterFailure() throws FMLExecutionException {
+        program.addVariable("notAFolder", new FileVariable(new File(folder, "report.txt").getAbsolutePath()));
+        FMLExecutionException e = assertThrows(FMLExecutionException.class, () ->
+                ActionScheduler.run(List.of(new Copy("report", "notAFolder"), new Delete("report")), program));
+
+        assertTrue(e.getMessage().contains("Destination folder"));
+        assertTrue(new File(folder, "report.txt").exists());
+    }
+}
@@ -0,0 +1,214 @@
+package Executor;
+
+import Exceptions.FMLExecutionException;
+import Parser.ASTNodes.Commands.Copy;
+import Parser.ASTNodes.Commands.Rename;
+import Parser.ASTNodes.Program;
+import Parser.ASTNodes.Statements.ActionStatement;
+import Parser.ASTNodes.Statements.ForLoop;
+import Parser.ASTNodes.Variables.FileVariable;
+import Parser.ASTNodes.Variables.ListVariable;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckpointJournalTest {
+
+    private static final String SCRIPT = "for (f in files[]) {\n    copy f to backup\n}\n";
+
+    private File folder;
+    private Path journalFolder;
+    private CheckpointJournal journal;
+    private Program program;
+    private FileVariable first;
+    private FileVariable second;
+
+    @BeforeEach
+    void setup() throws IOException, FMLExecutionException {
+        folder = Files.createTempDirectory("CheckpointJournalTest").toFile();
+        journalFolder = folder.toPath().resolve("journal");
+        journal = new CheckpointJournal(journalFolder);
+        CheckpointJournal.set(journal);         // used by the statements of the script
+        program = new Program(new ArrayList<>());
+        first = new FileVariable(new File(folder, "a.txt").getAbsolutePath());
+        second = new FileVariable(new File(folder, "b.txt").getAbsolutePath());
+    }
+
+    @AfterEach
+    void teardown() throws IOException {
+        journal.close();
+        CheckpointJournal.set(null);
+        FileUtils.deleteDirectory(folder);
+    }
+
+    @Test
+    void testResumesCompletedWork() {
+        runUntilStopped(journal);
+
+        CheckpointJournal resumed = new CheckpointJournal(journalFolder);
+        resumed.setResume(true);
+        resumed.open(SCRIPT);
+        assertTrue(resumed.isCompleted(1));
+        assertFalse(resumed.isCompleted(2));
+        resumed.begin(2);
+        assertTrue(resumed.isCompleted(program, first));
+        assertFalse(resumed.isCompleted(program, second));
+        assertFalse(resumed.isCompleted(program.newChildScope(), first));     // nested loops are not journaled
+    }
+
+    @Test
+    void testStartsOverWithoutResume() {
+        runUntilStopped(journal);
+
+        CheckpointJournal restarted = new CheckpointJournal(journalFolder);
+        restarted.open(SCRIPT);
+        assertFalse(restarted.isCompleted(1));
+        restarted.begin(2);
+        assertFalse(restarted.isCompleted(program, first));
+    }
+
+    @Test
+    void testIgnoresLineCutByCrash() throws IOException {
+        runUntilStopped(journal);
+        try (var files = Files.list(journalFolder)) {
+            Path file = files.findFirst().orElseThrow();
+            Files.write(file, "F 2".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        }
+
+        CheckpointJournal resumed = new CheckpointJournal(journalFolder);
+        resumed.setResume(true);
+        resumed.open(SCRIPT);
+        resumed.begin(2);
+        assertTrue(resumed.isCompleted(program, first));
+        resumed.complete(program, second);
+        resumed.close();
+
+        CheckpointJournal again = new CheckpointJournal(journalFolder);
+        again.setResume(true);
+        again.open(SCRIPT);
+        again.begin(2);
+        assertTrue(again.isCompleted(program, second));
+    }
+
+    @Test
+    void testDeletesJournalOfCompletedRun() throws IOException {
+        journal.open(SCRIPT);
+        journal.complete(1);
+        journal.finish();
+
+        try (var files = Files.list(journalFolder)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testLoopSkipsCompletedFiles() throws IOException, FMLExecutionException {
+        File backup = new File(folder, "backup");
+        FileUtils.forceMkdir(backup);
+        for (FileVariable file : List.of(first, second)) {
+            FileUtils.writeStringToFile(file.getInnerFileObject(), "text", "UTF-8");
+        }
+        journal.open(SCRIPT);
+        journal.begin(1);
+        journal.complete(program, first);
+        journal.close();
+
+        Program loopProgram = new Program(List.of(new ActionStatement(new Copy("f", "backup"), "f", "backup", false)));
+        Program script = new Program(List.of(new ForLoop("files[]", loopProgram, "f")));
+        script.addVariable("files[]", new ListVariable(List.of(first, second)));
+        script.addVariable("backup", new FileVariable(backup.getAbsolutePath()));
+        journal.setResume(true);
+        journal.open(SCRIPT);
+        script.evaluate(null);
+        journal.finish();
+
+        assertFalse(new File(backup, "a.txt").exists());
+        assertTrue(new File(backup, "b.txt").exists());
+    }
+
+    @Test
+    void testResumeReplaysCompletedRename() throws IOException, FMLExecutionException {
+        File backup = new File(folder, "backup");
+        File renamed = new File(folder, "renamed");
+        FileUtils.forceMkdir(renamed);        // renamed by the run being resumed
+        for (FileVariable file : List.of(first, second)) {
+            FileUtils.writeStringToFile(file.getInnerFileObject(), "text", "UTF-8");
+        }
+        journal.open(SCRIPT);
+        journal.begin(1);
+        journal.complete(1);
+        journal.close();
+
+        Program loopProgram = new Program(List.of(new ActionStatement(new Copy("f", "backup"), "f", "backup", false)));
+        Program script = new Program(List.of(
+                new ActionStatement(new Rename("backup", "renamed"), "backup", "renamed", true),
+                new ForLoop("files[]", loopProgram, "f")));
+        script.addVariable("files[]", new ListVariable(List.of(first, second)));
+        script.addVariable("backup", new FileVariable(backup.getAbsolutePath()));
+        journal.setResume(true);
+        journal.open(SCRIPT);
+        script.evaluate(null);
+        journal.finish();
+
+        assertTrue(new File(renamed, "a.txt").exists());
+        assertTrue(new File(renamed, "b.txt").exists());
+        assertFalse(backup.exists());
+    }
+
+    @Test
+    void testRefusesToResumeLoopThatChangedVariables() throws FMLExecutionException {
+        journal.open(SCRIPT);
+        journal.begin(1);
+        journal.complete(1);
+        journal.close();
+
+        Program loopProgram = new Program(List.of(new ActionStatement(new Rename("f", "renamed"), "f", "renamed", true)));
+        Program script = new Program(List.of(new ForLoop("files[]", loopProgram, "f")));
+        script.addVariable("files[]", new ListVariable(List.of(first, second)));
+        journal.setResume(true);
+        journal.open(SCRIPT);
+        assertThrows(FMLExecutionException.class, () -> script.evaluate(null));
+    }
+
+    @Test
+    void testReportsCompletedFilesOfWorker() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(output, true));
+        try {
+            CheckpointJournal worker = new CheckpointJournal(null);
+            worker.report();
+            worker.complete(program, first);
+            worker.close();
+        } finally {
+            System.setOut(out);
+        }
+        assertEquals(ShardWorker.COMPLETED + " " + first.getAbsolutePath(), output.toString().trim());
+    }
+
+    /**
+     * Completes the first statement and the iteration of the first file in the second, then stops
+     */
+    private void runUntilStopped(CheckpointJournal journal) {
+        journal.open(SCRIPT);
+        journal.begin(1);
+        journal.complete(1);
+        journal.begin(2);
+        journal.complete(program, first);
+        journal.close();
+    }
+}
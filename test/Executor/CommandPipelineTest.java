@@ -0,0 +1,200 @@
+package Executor;
+
+import Compiler.ProgramWriter;
+import Exceptions.FMLExecutionException;
+import Parser.ASTNodes.Commands.Command;
+import Parser.ASTNodes.Commands.Copy;
+import Parser.ASTNodes.Commands.Create;
+import Parser.ASTNodes.Commands.Delete;
+import Parser.ASTNodes.Commands.Rename;
+import Parser.ASTNodes.Program;
+import Parser.ASTNodes.Variables.FileVariable;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.LinkedList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandPipelineTest {
+
+    private final CommandPipeline pipeline = CommandPipeline.get();
+    private File folder;
+    private File backup;
+    private Program program;
+
+    @BeforeEach
+    void setup() throws IOException, FMLExecutionException {
+        folder = Files.createTempDirectory("CommandPipelineTest").toFile();
+        backup = new File(folder, "backup");
+        FileUtils.forceMkdir(backup);
+        for (String name : new String[]{"a.txt", "b.txt"}) {
+            FileUtils.writeStringToFile(new File(folder, name), name, "UTF-8");
+        }
+        program = new Program(new LinkedList<>());
+        program.addVariable("backup", new FileVariable(backup.getAbsolutePath()));
+        pipeline.enable(2);
+    }
+
+    @AfterEach
+    void teardown() throws IOException {
+        pipeline.disable();
+        FileUtils.deleteDirectory(folder);
+    }
+
+    @Test
+    void testParsesLimit() {
+        assertTrue(CommandPipeline.isFlag("--async"));
+        assertTrue(CommandPipeline.isFlag("--async=4"));
+        assertFalse(CommandPipeline.isFlag("--asynchronous"));
+        assertEquals(CommandPipeline.DEFAULT_LIMIT, CommandPipeline.parseLimit("--async"));
+        assertEquals(4, CommandPipeline.parseLimit("--async=4"));
+        assertThrows(IllegalArgumentException.class, () -> CommandPipeline.parseLimit("--async=0"));
+        assertThrows(IllegalArgumentException.class, () -> CommandPipeline.parseLimit("--async=many"));
+    }
+
+    @Test
+    void testParsesMountLimit() {
+        assertTrue(CommandPipeline.isFlag("--async=1000,8"));
+        assertEquals(1000, CommandPipeline.parseLimit("--async=1000,8"));
+        assertEquals(8, CommandPipeline.parseMountLimit("--async=1000,8"));
+        assertEquals(CommandPipeline.NO_MOUNT_LIMIT, CommandPipeline.parseMountLimit("--async=1000"));
+        assertEquals(CommandPipeline.NO_MOUNT_LIMIT, CommandPipeline.parseMountLimit("--async"));
+        assertThrows(IllegalArgumentException.class, () -> CommandPipeline.parseMountLimit("--async=1000,0"));
+        assertThrows(IllegalArgumentException.class, () -> CommandPipeline.parseLimit("--async=,8"));
+    }
+
+    @Test
+    void testRunsCommandsWithLimitPerMount() throws FMLExecutionException {
+        pipeline.enable(8, 1);
+        for (String name : new String[]{"a.txt", "b.txt"}) {
+            program.addVariable("f", new FileVariable(new File(folder, name).getAbsolutePath()));
+            pipeline.submit(new Copy("f", "backup"), program);
+        }
+        pipeline.finish();
+
+        assertTrue(new File(backup, "a.txt").exists());
+        assertTrue(new File(backup, "b.txt").exists());
+    }
+
+    @Test
+    void testRunsCommandsOnFreeMountWhileOtherIsBusy() throws Exception {
+        pipeline.enable(2, MountLimitsTest.twoMounts(1));
+        File slow = new File(folder, "slow");
+        CountDownLatch hung = new CountDownLatch(1);
+        for (String name : new String[]{"a.txt", "b.txt"}) {
+            program.addVariable("s", new FileVariable(new File(slow, name).getAbsolutePath()));
+            pipeline.submit(new HangingCommand("s", hung), program);
+        }
+
+        // the second command on the slow mount waits for it without holding up the fast one
+        program.addVariable("f", new FileVariable(new File(folder, "a.txt").getAbsolutePath()));
+        CompletableFuture.runAsync(() -> {
+            try {
+                pipeline.submit(new Copy("f", "backup"), program);
+            } catch (FMLExecutionException e) {
+                throw new RuntimeException(e);
+            }
+        }).get(5, TimeUnit.SECONDS);
+        for (int i = 0; i < 100 && !new File(backup, "a.txt").exists(); i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(new File(backup, "a.txt").exists());
+
+        hung.countDown();
+        pipeline.finish();
+    }
+
+    @Test
+    void testRunsCommandsOnTheSameFileInOrder() throws FMLExecutionException {
+        program.addVariable("f", new FileVariable(new File(folder, "a.txt").getAbsolutePath()));
+        pipeline.submit(new Copy("f", "backup"), program);
+        pipeline.submit(new Delete("f"), program);
+        pipeline.finish();
+
+        assertTrue(new File(backup, "a.txt").exists());
+        assertFalse(new File(folder, "a.txt").exists());
+    }
+
+    @Test
+    void testKeepsFilesOfVariablesWhenSubmitted() throws FMLExecutionException {
+        for (String name : new String[]{"a.txt", "b.txt"}) {
+            program.addVariable("f", new FileVariable(new File(folder, name).getAbsolutePath()));
+            pipeline.submit(new Copy("f", "backup"), program);
+        }
+        pipeline.finish();
+
+        assertTrue(new File(backup, "a.txt").exists());
+        assertTrue(new File(backup, "b.txt").exists());
+    }
+
+    @Test
+    void testReadsWaitForCommandsOnTheirFiles() throws FMLExecutionException {
+        File created = new File(folder, "created");
+        program.addVariable("f", new FileVariable(created.getAbsolutePath()));
+        pipeline.submit(new Create("f"), program);
+
+        assertTrue(new FileVariable(created.getAbsolutePath()).isDirectory());
+        pipeline.finish();
+    }
+
+    @Test
+    void testRenamesInPlace() throws FMLExecutionException {
+        FileVariable file = new FileVariable(new File(folder, "a.txt").getAbsolutePath());
+        program.addVariable("f", file);
+        pipeline.submit(new Copy("f", "backup"), program);
+        pipeline.submit(new Rename("f", "c.txt"), program);
+
+        assertEquals(new File(folder, "c.txt"), file.getInnerFileObject());
+        pipeline.finish();
+        assertTrue(new File(backup, "a.txt").exists());
+    }
+
+    @Test
+    void testReportsFailureWhenRunFinishes() throws FMLExecutionException {
+        program.addVariable("f", new FileVariable(new File(folder, "a.txt").getAbsolutePath()));
+        program.addVariable("notAFolder", new FileVariable(new File(folder, "b.txt").getAbsolutePath()));
+        pipeline.submit(new Copy("f", "notAFolder"), program);
+
+        assertThrows(FMLExecutionException.class, pipeline::finish);
+        pipeline.finish();     // the failure belongs to the run that ended
+    }
+
+    /**
+     * Waits until released, like a command on a network share that does not answer
+     */
+    private static class HangingCommand extends Command {
+
+        private final CountDownLatch released;
+
+        HangingCommand(String target, CountDownLatch released) {
+            super(target, null);
+            this.released = released;
+        }
+
+        @Override
+        public void evaluate(Program program) throws FMLExecutionException {
+            try {
+                released.await();
+            } catch (InterruptedException e) {
+                throw new FMLExecutionException("Interrupted", e);
+            }
+        }
+
+        @Override
+        public void validate(Program program) {
+        }
+
+        @Override
+        public void write(ProgramWriter out) {
+        }
+    }
+}
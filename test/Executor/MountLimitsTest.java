@@ -0,0 +1,82 @@
+package Executor;
+
+import Parser.ASTNodes.Commands.FileAccess;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MountLimitsTest {
+
+    private File folder;
+
+    @BeforeEach
+    void setup() throws IOException {
+        folder = Files.createTempDirectory("MountLimitsTest").toFile();
+    }
+
+    @AfterEach
+    void teardown() throws IOException {
+        FileUtils.deleteDirectory(folder);
+    }
+
+    /**
+     * @return limits that see the folders named slow as one mount, and every other folder as another
+     */
+    static MountLimits twoMounts(int limit) {
+        return new MountLimits(limit) {
+            @Override
+            Object findStore(Path folder) {
+                return folder.getFileName().toString().equals("slow") ? "slow" : "fast";
+            }
+        };
+    }
+
+    @Test
+    void testTakesPermitsOfAllMountsOrNone() {
+        MountLimits limits = twoMounts(1);
+        File slow = new File(folder, "slow");
+        List<MountLimits.Mount> slowMount = limits.mountsOf(FileAccess.reading(new File(slow, "a.txt")));
+        List<MountLimits.Mount> bothMounts = limits.mountsOf(new FileAccess(List.of(new File(slow, "b.txt")),
+                List.of(new File(folder, "b.txt"))));
+        List<MountLimits.Mount> fastMount = limits.mountsOf(FileAccess.reading(new File(folder, "missing/c.txt")));
+        assertEquals(2, bothMounts.size());
+
+        assertTrue(limits.tryAcquire(slowMount));
+        assertFalse(limits.tryAcquire(bothMounts));
+        assertTrue(limits.tryAcquire(fastMount));
+        assertFalse(limits.tryAcquire(fastMount));
+
+        limits.release(slowMount);
+        limits.release(fastMount);
+        assertTrue(limits.tryAcquire(bothMounts));
+        limits.release(bothMounts);
+    }
+
+    @Test
+    void testTakesOnePermitPerMount() {
+        MountLimits limits = new MountLimits(2);
+        List<MountLimits.Mount> mounts = limits.mountsOf(new FileAccess(List.of(new File(folder, "a.txt")),
+                List.of(new File(folder, "b.txt"))));
+
+        assertEquals(1, mounts.size());
+        assertTrue(limits.tryAcquire(mounts));
+        assertTrue(limits.tryAcquire(mounts));
+        assertFalse(limits.tryAcquire(mounts));
+        limits.release(mounts);
+        assertTrue(limits.tryAcquire(mounts));
+    }
+
+    @Test
+    void testRejectsLimitBelowOne() {
+        assertThrows(IllegalArgumentException.class, () -> new MountLimits(0));
+    }
+}
@@ -0,0 +1,96 @@
+package Executor;
+
+import Main.Main;
+import Parser.ASTNodes.Program;
+import Parser.ASTNodes.Variables.FileVariable;
+import Util.FMLReader;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static TestUtils.TestUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardCoordinatorTest {
+
+    private final List<String> paths = List.of(
+            "/logs/a/1.log", "/logs/a/2.log", "/logs/a/3.log",
+            "/logs/b/1.log", "/logs/b/2.log",
+            "/logs/c/1.log");
+
+    @AfterEach
+    void teardown() throws Exception {
+        ShardCoordinator.get().disable();
+        CheckpointJournal.set(null);
+        deleteTestFilesCopy();
+    }
+
+    @Test
+    void testParsesFlag() {
+        assertTrue(ShardCoordinator.isFlag("--shards=4"));
+        assertFalse(ShardCoordinator.isFlag("--shard=0:file"));
+        ShardCoordinator.get().enable("--shards=4,folder", new String[]{"script.fml"});
+        assertTrue(ShardCoordinator.get().isEnabled());
+
+        assertThrows(IllegalArgumentException.class, () -> ShardCoordinator.get().enable("--shards=0", new String[0]));
+        assertThrows(IllegalArgumentException.class, () -> ShardCoordinator.get().enable("--shards=2,size", new String[0]));
+    }
+
+    @Test
+    void testSplitsEveryFileByHash() {
+        List<List<String>> shares = ShardCoordinator.partition(paths, 3, ShardCoordinator.Partition.HASH);
+
+        assertEquals(3, shares.size());
+        List<String> all = new ArrayList<>();
+        shares.forEach(all::addAll);
+        assertEquals(paths.size(), all.size());
+        assertTrue(all.containsAll(paths));
+        assertEquals(shares, ShardCoordinator.partition(paths, 3, ShardCoordinator.Partition.HASH));
+    }
+
+    @Test
+    void testKeepsFilesOfFolderInOneShare() {
+        List<List<String>> shares = ShardCoordinator.partition(paths, 2, ShardCoordinator.Partition.FOLDER);
+
+        assertEquals(List.of("/logs/a/1.log", "/logs/a/2.log", "/logs/a/3.log"), shares.get(0));
+        assertEquals(List.of("/logs/b/1.log", "/logs/b/2.log", "/logs/c/1.log"), shares.get(1));
+    }
+
+    @Test
+    void testSplitsFilesOfOneFolderByName() {
+        List<String> files = List.of("/logs/a/1.log", "/logs/a/2.log");
+        List<List<String>> shares = ShardCoordinator.partition(files, 2, ShardCoordinator.Partition.FOLDER);
+
+        assertEquals(List.of("/logs/a/1.log"), shares.get(0));
+        assertEquals(List.of("/logs/a/2.log"), shares.get(1));
+    }
+
+    @Test
+    void testResumeLeavesCompletedFilesOutOfShares() throws Exception {
+        File testFiles = copyTestFiles();
+        FileUtils.forceMkdir(new File(testFiles, "anEmptyFolder"));
+        String script = "test/EndToEnd/TestFMLScripts/ValidScripts/moveFilesToFolderForLoop.fml";
+        File journalFolder = Files.createTempDirectory("ShardCoordinatorTest").toFile();
+        CheckpointJournal journal = new CheckpointJournal(journalFolder.toPath());
+        CheckpointJournal.set(journal);
+        try {
+            journal.open(FMLReader.read(script));
+            journal.begin(3);       // the loop
+            journal.complete(new Program(new ArrayList<>()),
+                    new FileVariable(new File(testFiles, "aFilledFolder/testfile1.txt").getAbsolutePath()));
+            journal.close();
+
+            Main.main(new String[]{CheckpointJournal.RESUME_FLAG, ShardCoordinator.FLAG + "=2", script});
+        } finally {
+            journal.setResume(false);
+            FileUtils.deleteDirectory(journalFolder);
+        }
+        assertTrue(new File(testFiles, "aFilledFolder/testfile1.txt").exists());
+        assertTrue(new File(testFiles, "anEmptyFolder/testfile2.txt").exists());
+    }
+}
@@ -5,6 +5,8 @@ import Exceptions.InvalidFMLException;
 import Parser.ASTNodes.Program;
 import Parser.ASTNodes.Variables.FileVariable;
 import TestUtils.TestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.junit.Assert;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
@@ -12,7 +14,17 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
 
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -78,6 +90,136 @@ public class CompressTest {
         Assert.assertTrue(new File(compressedFilePath).exists());
     }
 
+    @Test
+    public void compressFolderContentsTest() throws Exception {
+        File folderToCompress = new File(PATH_TO_TEST_SUB_DIR);
+        FileUtils.writeStringToFile(new File(folderToCompress, "testSubFile.txt"), "some text", "UTF-8");
+        byte[] largeContents = new byte[5 * 1024 * 1024];
+        new Random(0).nextBytes(largeContents);
+        FileUtils.writeByteArrayToFile(new File(folderToCompress, "largeFile.bin"), largeContents);
+
+        for (int level : new int[]{Compress.DEFAULT_LEVEL, 1, 9, Compress.STORE}) {
+            when(mockFileVariable.getInnerFileObject()).thenReturn(folderToCompress);
+            when(mockProgram.getFileVariable(any())).thenReturn(mockFileVariable);
+            new Compress(TEST_VAR_NAME, level).evaluate(mockProgram);
+
+            try (ZipFile zipFile = new ZipFile(new File(PATH_TO_TEST_DIR, "SubFolder.zip"))) {
+                Assert.assertEquals(5, zipFile.size());
+                Assert.assertTrue(zipFile.getEntry("SubFolder/").isDirectory());
+                ZipEntry textEntry = zipFile.getEntry("SubFolder/testSubFile.txt");
+                Assert.assertEquals(level == Compress.STORE ? ZipEntry.STORED : ZipEntry.DEFLATED, textEntry.getMethod());
+                Assert.assertEquals("some text", IOUtils.toString(zipFile.getInputStream(textEntry), "UTF-8"));
+                Assert.assertArrayEquals(largeContents, IOUtils.toByteArray(zipFile.getInputStream(zipFile.getEntry("SubFolder/largeFile.bin"))));
+            }
+        }
+    }
+
+    @Test
+    public void compressHiddenFileTest() throws Exception {
+        File hiddenFile = new File(PATH_TO_TEST_DIR, ".hidden.log");
+        FileUtils.writeStringToFile(hiddenFile, "hidden text", "UTF-8");
+        FileUtils.writeStringToFile(new File(PATH_TO_TEST_SUB_DIR, ".hiddenChild"), "left out", "UTF-8");
+        when(mockFileVariable.getInnerFileObject()).thenReturn(hiddenFile);
+        when(mockProgram.getFileVariable(any())).thenReturn(mockFileVariable);
+        compressCommand.evaluate(mockProgram);
+
+        try (ZipFile zipFile = new ZipFile(new File(PATH_TO_TEST_DIR, ".hidden.log.zip"))) {
+            Assert.assertEquals(1, zipFile.size());
+            Assert.assertEquals("hidden text", IOUtils.toString(zipFile.getInputStream(zipFile.getEntry(".hidden.log")), "UTF-8"));
+        }
+
+        // hidden files inside a folder are still left out
+        File folderToCompress = new File(PATH_TO_TEST_SUB_DIR);
+        when(mockFileVariable.getInnerFileObject()).thenReturn(folderToCompress);
+        compressCommand.evaluate(mockProgram);
+        try (ZipFile zipFile = new ZipFile(new File(PATH_TO_TEST_DIR, "SubFolder.zip"))) {
+            Assert.assertEquals(4, zipFile.size());
+            Assert.assertTrue(zipFile.getEntry("SubFolder/.hiddenChild") == null);
+        }
+    }
+
+    @Test
+    public void compressStoreCrcTest() throws Exception {
+        File folderToCompress = new File(PATH_TO_TEST_SUB_DIR);
+        FileUtils.writeStringToFile(new File(folderToCompress, "testSubFile.txt"), "some text", "UTF-8");
+        byte[] largeContents = new byte[5 * 1024 * 1024];
+        new Random(1).nextBytes(largeContents);
+        FileUtils.writeByteArrayToFile(new File(folderToCompress, "largeFile.bin"), largeContents);
+        when(mockFileVariable.getInnerFileObject()).thenReturn(folderToCompress);
+        when(mockProgram.getFileVariable(any())).thenReturn(mockFileVariable);
+        new Compress(TEST_VAR_NAME, Compress.STORE).evaluate(mockProgram);
+
+        File zip = new File(PATH_TO_TEST_DIR, "SubFolder.zip");
+        try (ZipFile zipFile = new ZipFile(zip)) {
+            Assert.assertEquals(5, zipFile.size());
+            assertEntriesMatch(zipFile, folderToCompress.getParentFile());
+        }
+        Assert.assertEquals(5, readEntries(zip));
+    }
+
+    @Test
+    public void compressZip64Test() throws Exception {
+        File file = new File(PATH_TO_FILE);
+        FileUtils.writeStringToFile(file, "zip64", "UTF-8");
+        int count = 0xFFFF + 1;
+        List<ParallelZipWriter.Entry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            entries.add(new ParallelZipWriter.Entry(file, "entry" + i + ".txt"));
+        }
+        File zip = new File(PATH_TO_TEST_DIR, "zip64.zip");
+        new ParallelZipWriter(zip, Compress.DEFAULT_LEVEL).write(entries);
+
+        long crc = crcOf(file);
+        try (ZipFile zipFile = new ZipFile(zip)) {
+            Assert.assertEquals(count, zipFile.size());
+            Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+            while (zipEntries.hasMoreElements()) {
+                Assert.assertEquals(crc, zipEntries.nextElement().getCrc());
+            }
+            Assert.assertEquals("zip64", IOUtils.toString(zipFile.getInputStream(zipFile.getEntry("entry" + (count - 1) + ".txt")), "UTF-8"));
+        }
+        Assert.assertEquals(count, readEntries(zip));
+    }
+
+    /**
+     * Checks the CRC and contents of every file entry against the file it was read from
+     */
+    private static void assertEntriesMatch(ZipFile zipFile, File root) throws Exception {
+        Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+        while (zipEntries.hasMoreElements()) {
+            ZipEntry entry = zipEntries.nextElement();
+            if (entry.isDirectory()) {
+                continue;
+            }
+            File source = new File(root, entry.getName());
+            Assert.assertEquals(ZipEntry.STORED, entry.getMethod());
+            Assert.assertEquals(crcOf(source), entry.getCrc());
+            Assert.assertArrayEquals(Files.readAllBytes(source.toPath()), IOUtils.toByteArray(zipFile.getInputStream(entry)));
+        }
+    }
+
+    /**
+     * Reads the archive through its local headers. ZipInputStream fails if the data of an entry does not match its CRC.
+     *
+     * @return number of entries read
+     */
+    private static int readEntries(File zip) throws Exception {
+        int count = 0;
+        try (ZipInputStream in = new ZipInputStream(new FileInputStream(zip))) {
+            while (in.getNextEntry() != null) {
+                IOUtils.toByteArray(in);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static long crcOf(File file) throws Exception {
+        CRC32 crc = new CRC32();
+        crc.update(Files.readAllBytes(file.toPath()));
+        return crc.getValue();
+    }
+
     @Test
     public void compressNonExistentFileTest() throws Exception {
         File fileToDelete = new File("SOME RANDOM PATH");
@@ -89,6 +231,7 @@ public class CompressTest {
         } catch (Exception e) {
             assertTrue(e instanceof FMLExecutionException);
         }
+        Assert.assertFalse(new File("SOME RANDOM PATH.zip").exists());
     }
 
     @Test
@@ -0,0 +1,92 @@
+package Parser.ASTNodes.Commands;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CopyEngineTest {
+
+    private static final long LAST_MODIFIED = 1500000000000L;
+
+    private File folder;
+
+    @BeforeEach
+    void setup() throws IOException {
+        folder = Files.createTempDirectory("CopyEngineTest").toFile();
+    }
+
+    @AfterEach
+    void teardown() throws IOException {
+        FileUtils.deleteDirectory(folder);
+    }
+
+    @Test
+    void testCopiesLargeFile() throws IOException {
+        byte[] contents = new byte[3 * 1024 * 1024 + 17];
+        new Random(0).nextBytes(contents);
+        File source = new File(folder, "large.bin");
+        FileUtils.writeByteArrayToFile(source, contents);
+        assertTrue(source.setLastModified(LAST_MODIFIED));
+
+        File copy = new File(folder, "copy.bin");
+        FileUtils.writeStringToFile(copy, "to be replaced", "UTF-8");
+        CopyEngine.copyFile(source.toPath(), copy.toPath());
+        assertArrayEquals(contents, FileUtils.readFileToByteArray(copy));
+        assertEquals(LAST_MODIFIED, copy.lastModified());
+    }
+
+    @Test
+    void testCopiesFolderTree() throws IOException {
+        File source = new File(folder, "source");
+        for (int i = 0; i < 100; i++) {
+            FileUtils.writeStringToFile(new File(source, "sub" + (i % 3) + "/file" + i + ".txt"), "file " + i, "UTF-8");
+        }
+        assertTrue(new File(source, "sub1").setLastModified(LAST_MODIFIED));
+
+        File copy = new File(folder, "copy");
+        CopyEngine.copyDirectory(source.toPath(), copy.toPath());
+        for (int i = 0; i < 100; i++) {
+            assertEquals("file " + i, FileUtils.readFileToString(new File(copy, "sub" + (i % 3) + "/file" + i + ".txt"), "UTF-8"));
+        }
+        assertEquals(LAST_MODIFIED, new File(copy, "sub1").lastModified());
+    }
+
+    @Test
+    void testMergesIntoExistingFolder() throws IOException {
+        File source = new File(folder, "source");
+        FileUtils.writeStringToFile(new File(source, "a.txt"), "new", "UTF-8");
+        File copy = new File(folder, "copy");
+        FileUtils.writeStringToFile(new File(copy, "a.txt"), "old", "UTF-8");
+        FileUtils.writeStringToFile(new File(copy, "b.txt"), "kept", "UTF-8");
+
+        CopyEngine.copyDirectory(source.toPath(), copy.toPath());
+        assertEquals("new", FileUtils.readFileToString(new File(copy, "a.txt"), "UTF-8"));
+        assertEquals("kept", FileUtils.readFileToString(new File(copy, "b.txt"), "UTF-8"));
+    }
+
+    @Test
+    void testCopiesFolderIntoItself() throws IOException {
+        File source = new File(folder, "source");
+        FileUtils.writeStringToFile(new File(source, "a.txt"), "a", "UTF-8");
+        File copy = new File(source, "source");
+
+        CopyEngine.copyDirectory(source.toPath(), copy.toPath());
+        assertTrue(new File(copy, "a.txt").exists());
+        assertFalse(new File(copy, "source").exists());
+    }
+
+    @Test
+    void testThrowsIfSourceAndDestinationAreSame() throws IOException {
+        File source = new File(folder, "a.txt");
+        FileUtils.writeStringToFile(source, "a", "UTF-8");
+        assertThrows(IOException.class, () -> CopyEngine.copyFile(source.toPath(), source.toPath()));
+    }
+}
@@ -0,0 +1,42 @@
+package Parser.ASTNodes.Commands;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileAccessTest {
+
+    private final File folder = new File("folder");
+    private final File file = new File(folder, "file.txt");
+    private final File other = new File("other.txt");
+
+    @Test
+    void testReadsDoNotConflict() {
+        assertFalse(FileAccess.reading(file).conflicts(FileAccess.reading(file)));
+        assertFalse(FileAccess.reading(folder).conflicts(FileAccess.reading(file)));
+    }
+
+    @Test
+    void testChangesConflictWithReadsAndChanges() {
+        FileAccess change = new FileAccess(List.of(), List.of(file));
+        assertTrue(change.conflicts(FileAccess.reading(file)));
+        assertTrue(FileAccess.reading(file).conflicts(change));
+        assertTrue(change.conflicts(new FileAccess(List.of(), List.of(file))));
+    }
+
+    @Test
+    void testChangesConflictWithFilesInsideAndAround() {
+        assertTrue(new FileAccess(List.of(), List.of(folder)).conflicts(FileAccess.reading(file)));
+        assertTrue(new FileAccess(List.of(), List.of(file)).conflicts(FileAccess.reading(folder)));
+        assertFalse(new FileAccess(List.of(), List.of(file)).conflicts(FileAccess.reading(other)));
+    }
+
+    @Test
+    void testComparesNormalizedPaths() {
+        File same = new File(new File(folder, "sub"), "../file.txt");
+        assertTrue(new FileAccess(List.of(), List.of(file)).conflicts(FileAccess.reading(same.getAbsoluteFile())));
+    }
+}
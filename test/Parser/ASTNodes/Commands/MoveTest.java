@@ -6,6 +6,7 @@ import Parser.ASTNodes.Program;
 import Parser.ASTNodes.Statements.ActionStatement;
 import Parser.ASTNodes.Statements.Statement;
 import Parser.ASTNodes.Variables.FileVariable;
+import Util.Logger;
 import org.apache.commons.io.FileUtils;
 import org.junit.After;
 import org.junit.Before;
@@ -13,8 +14,10 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -25,16 +28,28 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class MoveTest {
 
+    private static final String RENAMED = "by renaming it";
+    private static final String COPIED = "Executing Move as Copy + Delete";
+
     private File testFiles;
+    private PrintStream out;
+    private Boolean logging;
+    private final ByteArrayOutputStream log = new ByteArrayOutputStream();
 
     @BeforeEach
     void setup() throws IOException {
         deleteTestFilesCopy();
         testFiles = copyTestFiles();
+        out = System.out;
+        logging = Logger.isEnabled();
+        System.setOut(new PrintStream(log, true));
+        Logger.setEnabled(true);
     }
 
     @AfterEach
     void teardown() throws IOException {
+        System.setOut(out);
+        Logger.setEnabled(logging);
         deleteTestFilesCopy();
     }
 
@@ -56,5 +71,50 @@ public class MoveTest {
         move.evaluate(program);
         assertFalse(FileUtils.directoryContains(testFiles, new File(testFiles, "aTestFile.txt")));
         assertTrue(FileUtils.directoryContains(destFolder, new File(destFolder, "aTestFile.txt")));
+        assertTrue(log.toString().contains(RENAMED));
+        assertFalse(log.toString().contains(COPIED));
+    }
+
+    @Test
+    void testMoveFolder() throws FMLExecutionException, InvalidFMLException, IOException {
+        File targetFolder = new File(testFiles, "aFilledFolder");
+        File destFolder = new File(testFiles, "aNewFolder");
+        FileUtils.forceMkdir(destFolder);
+
+        Program program = programWith(targetFolder, destFolder);
+        Move move = new Move("target", "destination");
+        move.validate(program);
+        move.evaluate(program);
+        assertFalse(targetFolder.exists());
+        assertTrue(new File(destFolder, "aFilledFolder/testfile1.txt").exists());
+        assertTrue(new File(destFolder, "aFilledFolder/testfile2.txt").exists());
+        assertTrue(log.toString().contains(RENAMED));
+        assertFalse(log.toString().contains(COPIED));
+    }
+
+    @Test
+    void testMoveFolderIntoExistingFolderMergesThem() throws FMLExecutionException, InvalidFMLException, IOException {
+        File targetFolder = new File(testFiles, "aFilledFolder");
+        File destFolder = new File(testFiles, "aNewFolder");
+        File existingFile = new File(destFolder, "aFilledFolder/existing.txt");
+        FileUtils.touch(existingFile);
+
+        Program program = programWith(targetFolder, destFolder);
+        Move move = new Move("target", "destination");
+        move.validate(program);
+        move.evaluate(program);
+        assertFalse(targetFolder.exists());
+        assertTrue(existingFile.exists());
+        assertTrue(new File(destFolder, "aFilledFolder/testfile1.txt").exists());
+        assertTrue(log.toString().contains(COPIED));
+    }
+
+    private Program programWith(File target, File destination) throws FMLExecutionException {
+        Program program = new Program(null);
+        program.addIdentifierDeclaration("target");
+        program.addIdentifierDeclaration("destination");
+        program.addVariable("target", new FileVariable(target.getAbsolutePath()));
+        program.addVariable("destination", new FileVariable(destination.getAbsolutePath()));
+        return program;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,113 @@
+package Parser.ASTNodes.Commands;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PathLocksTest {
+
+    private final PathLocks locks = new PathLocks();
+    private final File folder = new File("folder");
+    private final File file = new File(folder, "file.txt");
+    private final File sibling = new File(folder, "sibling.txt");
+
+    @Test
+    void testReadsShareLocks() throws Exception {
+        PathLocks.Held first = locks.lock(FileAccess.reading(file));
+        PathLocks.Held second = lockInBackground(FileAccess.reading(file)).get(5, TimeUnit.SECONDS);
+
+        first.release();
+        second.release();
+        assertEquals(0, locks.getMetrics().getContended());
+    }
+
+    @Test
+    void testChangesToOtherFilesInFolderDoNotWait() throws Exception {
+        PathLocks.Held first = locks.lock(changing(file));
+        PathLocks.Held second = lockInBackground(changing(sibling)).get(5, TimeUnit.SECONDS);
+
+        first.release();
+        second.release();
+        assertEquals(2, locks.getMetrics().getAcquired());
+        assertEquals(0, locks.getMetrics().getContended());
+    }
+
+    @Test
+    void testIntentLocksOnSharedFoldersDoNotWait() throws Exception {
+        List<CompletableFuture<Void>> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            File own = new File(folder, "file" + t + ".txt");
+            threads.add(CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < 200; i++) {
+                    try {
+                        locks.lock(changing(own)).release();
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            }));
+        }
+        CompletableFuture.allOf(threads.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        assertEquals(1600, locks.getMetrics().getAcquired());
+        assertEquals(0, locks.getMetrics().getContended());
+    }
+
+    @Test
+    void testChangeWaitsForReadOfSameFile() throws Exception {
+        PathLocks.Held read = locks.lock(FileAccess.reading(file));
+        CompletableFuture<PathLocks.Held> change = lockInBackground(changing(file));
+        Thread.sleep(100);
+        assertFalse(change.isDone());
+
+        read.release();
+        change.get(5, TimeUnit.SECONDS).release();
+        assertEquals(1, locks.getMetrics().getContended());
+    }
+
+    @Test
+    void testChangeToFolderWaitsForFilesInside() throws Exception {
+        PathLocks.Held read = locks.lock(FileAccess.reading(file));
+        CompletableFuture<PathLocks.Held> delete = lockInBackground(changing(folder));
+        Thread.sleep(100);
+        assertFalse(delete.isDone());
+
+        read.release();
+        PathLocks.Held deleted = delete.get(5, TimeUnit.SECONDS);
+        CompletableFuture<PathLocks.Held> reread = lockInBackground(FileAccess.reading(file));
+        Thread.sleep(100);
+        assertFalse(reread.isDone());
+
+        deleted.release();
+        reread.get(5, TimeUnit.SECONDS).release();
+    }
+
+    @Test
+    void testResetsMetrics() throws Exception {
+        locks.lock(FileAccess.reading(file)).release();
+        assertEquals(1, locks.getMetrics().getAcquired());
+
+        locks.resetMetrics();
+        assertEquals(0, locks.getMetrics().getAcquired());
+    }
+
+    private static FileAccess changing(File file) {
+        return new FileAccess(List.of(), List.of(file));
+    }
+
+    private CompletableFuture<PathLocks.Held> lockInBackground(FileAccess access) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return locks.lock(access);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+}
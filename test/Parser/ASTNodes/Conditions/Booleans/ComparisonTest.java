@@ -2,6 +2,7 @@ package Parser.ASTNodes.Conditions.Booleans;
 
 import Exceptions.FMLExecutionException;
 import Language.FMLGrammar;
+import Parser.ASTNodes.Conditions.CompiledCondition;
 import Parser.ASTNodes.Conditions.Terms.*;
 import Parser.ASTNodes.Program;
 import Parser.ASTNodes.Variables.FileVariable;
@@ -16,6 +17,7 @@ import java.math.BigInteger;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 
 public class ComparisonTest {
 
@@ -260,7 +262,7 @@ public class ComparisonTest {
         operator = FMLGrammar.ComparisonOperator.fromString("==");
         right = new AttributeTerm("RANDOM IDENTIFIER", FMLGrammar.AttributeName.SIZE);
         left = new NumberTerm(new BigDecimal(10));
-        Mockito.when(mockFileVariable.getSize()).thenReturn(new BigInteger("10"));
+        Mockito.when(mockFileVariable.getSize(anyLong())).thenReturn(new BigInteger("10"));
         comparison = new Comparison(left, right, operator);
         comparison.evaluate(mockProgram);
         Assert.assertTrue(comparison.getResult());
@@ -333,4 +335,77 @@ public class ComparisonTest {
             assertTrue(e instanceof UnsupportedOperationException);
         }
     }
+
+    @Test
+    public void compiledComparisonMatchesEvaluate() throws FMLExecutionException {
+        Mockito.when(mockFileVariable.getName()).thenReturn("notes.txt");
+        Mockito.when(mockFileVariable.getSize(anyLong())).thenReturn(new BigInteger("1500"));
+        Mockito.when(mockFileVariable.getSizeInBytes(anyLong())).thenReturn(1500L);
+        Mockito.when(mockFileVariable.isDirectory()).thenReturn(false);
+        Mockito.when(mockProgram.getFileVariable(any())).thenReturn(mockFileVariable);
+
+        Term name = new AttributeTerm("RANDOM IDENTIFIER", FMLGrammar.AttributeName.NAME);
+        Term size = new AttributeTerm("RANDOM IDENTIFIER", FMLGrammar.AttributeName.SIZE);
+        Term isDirectory = new AttributeTerm("RANDOM IDENTIFIER", FMLGrammar.AttributeName.IS_DIRECTORY);
+        Comparison[] comparisons = {
+                new Comparison(name, new StringTerm("notes.txt"), FMLGrammar.ComparisonOperator.EQUAL_TO),
+                new Comparison(name, new StringTerm("other.txt"), FMLGrammar.ComparisonOperator.EQUAL_TO),
+                new Comparison(size, new NumberTerm(new BigDecimal("1.5"), FMLGrammar.FileSizeUnit.KB), FMLGrammar.ComparisonOperator.EQUAL_TO),
+                new Comparison(size, new NumberTerm(new BigDecimal(1), FMLGrammar.FileSizeUnit.KB), FMLGrammar.ComparisonOperator.GREATER_THAN),
+                new Comparison(new NumberTerm(new BigDecimal(2000)), size, FMLGrammar.ComparisonOperator.LESS_THAN_EQUAL_TO),
+                new Comparison(isDirectory, new BooleanTerm(new False()), FMLGrammar.ComparisonOperator.EQUAL_TO),
+        };
+        boolean[] expected = {true, false, true, true, false, true};
+
+        for (int i = 0; i < comparisons.length; i++) {
+            comparisons[i].evaluate(mockProgram);
+            Assert.assertEquals(expected[i], comparisons[i].getResult());
+            comparisons[i].reset();
+
+            CompiledCondition compiled = comparisons[i].compile();
+            Assert.assertEquals(expected[i], compiled.test(mockProgram));
+            Assert.assertEquals(expected[i], compiled.test(mockProgram));
+        }
+    }
+
+    @Test
+    public void compiledUnsupportedComparisonThrowsWhenTested() throws FMLExecutionException {
+        Term left = new NumberTerm(new BigDecimal(10));
+        Term right = new StringTerm("10");
+        CompiledCondition compiled = new Comparison(left, right, FMLGrammar.ComparisonOperator.EQUAL_TO).compile();
+        try {
+            compiled.test(mockProgram);
+            fail();
+        } catch (Exception e) {
+            assertTrue(e instanceof UnsupportedOperationException);
+        }
+    }
+
+    @Test
+    public void numberTermFoldsUnitIntoLong() {
+        Assert.assertTrue(new NumberTerm(new BigDecimal("1.5"), FMLGrammar.FileSizeUnit.GB).hasLongValue());
+        Assert.assertEquals(new BigDecimal("1500000000.0"), new NumberTerm(new BigDecimal("1.5"), FMLGrammar.FileSizeUnit.GB).getConstantValue());
+        Assert.assertFalse(new NumberTerm(new BigDecimal("1.5"), FMLGrammar.FileSizeUnit.B).hasLongValue());
+        Assert.assertFalse(new NumberTerm(new BigDecimal(100000), FMLGrammar.FileSizeUnit.PB).hasLongValue());
+    }
+
+    @Test
+    public void compiledComparisonFallsBackToBigDecimal() throws FMLExecutionException {
+        Mockito.when(mockFileVariable.getSize(anyLong())).thenReturn(new BigInteger("1"));
+        Mockito.when(mockFileVariable.getSizeInBytes(anyLong())).thenReturn(1L);
+        Mockito.when(mockProgram.getFileVariable(any())).thenReturn(mockFileVariable);
+
+        Term size = new AttributeTerm("RANDOM IDENTIFIER", FMLGrammar.AttributeName.SIZE);
+        Comparison[] comparisons = {
+                new Comparison(size, new NumberTerm(new BigDecimal("1.5"), FMLGrammar.FileSizeUnit.B), FMLGrammar.ComparisonOperator.LESS_THAN),
+                new Comparison(size, new NumberTerm(new BigDecimal("0.5"), FMLGrammar.FileSizeUnit.B), FMLGrammar.ComparisonOperator.LESS_THAN),
+                new Comparison(size, new NumberTerm(new BigDecimal(100000), FMLGrammar.FileSizeUnit.PB), FMLGrammar.ComparisonOperator.LESS_THAN),
+                new Comparison(new NumberTerm(new BigDecimal(100000), FMLGrammar.FileSizeUnit.PB), size, FMLGrammar.ComparisonOperator.NOT_EQUAL_TO),
+        };
+        boolean[] expected = {true, false, true, true};
+
+        for (int i = 0; i < comparisons.length; i++) {
+            Assert.assertEquals(expected[i], comparisons[i].compile().test(mockProgram));
+        }
+    }
 }
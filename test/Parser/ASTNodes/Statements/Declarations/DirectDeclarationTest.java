@@ -2,16 +2,28 @@ package Parser.ASTNodes.Statements.Declarations;
 
 import Exceptions.FMLExecutionException;
 import Exceptions.InvalidFMLException;
+import Language.FMLGrammar.AttributeName;
+import Language.FMLGrammar.ComparisonOperator;
+import Parser.ASTNodes.Conditions.AndCondition;
+import Parser.ASTNodes.Conditions.Booleans.Comparison;
+import Parser.ASTNodes.Conditions.Negation;
+import Parser.ASTNodes.Conditions.OrCondition;
+import Parser.ASTNodes.Conditions.Terms.AttributeTerm;
+import Parser.ASTNodes.Conditions.Terms.StringTerm;
 import Parser.ASTNodes.Program;
 import Parser.ASTNodes.Statements.Declarations.Paths.FMLPath;
 import Parser.ASTNodes.Variables.FileVariable;
+import Parser.ASTNodes.Variables.LazyListVariable;
 import Parser.ASTNodes.Variables.ListVariable;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
+import static Language.FMLGrammar.WHERE_ENTRY;
 import static org.junit.jupiter.api.Assertions.*;
 
 class DirectDeclarationTest {
@@ -31,6 +43,14 @@ class DirectDeclarationTest {
         wildcardFMLPath = new FMLPath("test/resources/FileTestData/*");
     }
 
+    /**
+     * @return a where clause that compares the given attribute of the listed file to a string
+     */
+    private OrCondition where(String identifier, AttributeName attribute, String value) {
+        Comparison comparison = new Comparison(new AttributeTerm(identifier, attribute), new StringTerm(value), ComparisonOperator.EQUAL_TO);
+        return new OrCondition(Arrays.asList(new AndCondition(Arrays.asList(new Negation(comparison)))));
+    }
+
     @Nested
     class FileVariableDeclarations {
 
@@ -81,6 +101,64 @@ class DirectDeclarationTest {
             assertNotNull(fv);
         }
 
+        @Test
+        void testAddsLazyListVariableToProgramOnEvaluate() throws InvalidFMLException, FMLExecutionException {
+            DirectDeclaration dd = new DirectDeclaration(listIdentifier, wildcardFMLPath, true);
+            dd.validate(program);
+            dd.evaluate(program);
+            ListVariable lv = program.getListVariable(listIdentifier);
+            assertTrue(lv instanceof LazyListVariable);
+        }
+
+        @Test
+        void testThrowsErrorIfLazyFileVariable() {
+            assertThrows(InvalidFMLException.class, () -> {
+                DirectDeclaration dd = new DirectDeclaration(fileIdentifier, regularFMLPath, true);
+                dd.validate(program);
+            });
+        }
+
+        @Test
+        void testKeepsOnlyFilesMatchingWhereClause() throws InvalidFMLException, FMLExecutionException {
+            FMLPath jokes = new FMLPath("test/resources/FileTestData/Jokes/*");
+            DirectDeclaration dd = new DirectDeclaration(listIdentifier, jokes, false, where(WHERE_ENTRY, AttributeName.EXTENSION, "txt"));
+            dd.validate(program);
+            dd.evaluate(program);
+            List<FileVariable> files = program.getListVariable(listIdentifier).getInnerList();
+            assertEquals(2, files.size());
+            for (FileVariable file : files) {
+                assertEquals("txt", file.getExtension());
+            }
+        }
+
+        @Test
+        void testTestsWhereClauseOnEachIterationOfLazyList() throws InvalidFMLException, FMLExecutionException {
+            FMLPath jokes = new FMLPath("test/resources/FileTestData/Jokes/*");
+            DirectDeclaration dd = new DirectDeclaration(listIdentifier, jokes, true, where(WHERE_ENTRY, AttributeName.NAME, "DadJoke1.txt"));
+            dd.validate(program);
+            dd.evaluate(program);
+            ListVariable lv = program.getListVariable(listIdentifier);
+            assertEquals(1, lv.getInnerList().size());
+            assertEquals(1, lv.getInnerList().size());
+        }
+
+        @Test
+        void testWritesWhereClause() {
+            DirectDeclaration dd = new DirectDeclaration(listIdentifier, wildcardFMLPath, true, where(WHERE_ENTRY, AttributeName.EXTENSION, "txt"));
+            assertTrue(dd.toString().startsWith("lazy folders[] = "));
+            assertTrue(dd.toString().endsWith(" where extension == \"txt\""));
+            DirectDeclaration other = new DirectDeclaration(listIdentifier, wildcardFMLPath, false, where("file", AttributeName.NAME, "Jokes"));
+            assertTrue(other.toString().endsWith(" where file.name == \"Jokes\""));
+        }
+
+        @Test
+        void testThrowsErrorIfFileVariableHasWhereClause() {
+            assertThrows(InvalidFMLException.class, () -> {
+                DirectDeclaration dd = new DirectDeclaration(fileIdentifier, regularFMLPath, false, where(WHERE_ENTRY, AttributeName.NAME, "Jokes"));
+                dd.validate(program);
+            });
+        }
+
         @Test
         void doesNotThrowErrorIfPathHasNoWildcard() throws InvalidFMLException {
             DirectDeclaration dd = new DirectDeclaration(listIdentifier, regularFMLPath);
@@ -0,0 +1,140 @@
+package Parser.ASTNodes;
+
+import Exceptions.FMLExecutionException;
+import Parser.ASTNodes.Variables.FileVariable;
+import Parser.ASTNodes.Variables.ListVariable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VariableReferenceTest {
+
+    private Program program;
+    private FileVariable fileVar;
+    private FileVariable otherFileVar;
+
+    @BeforeEach
+    void setup() throws FMLExecutionException {
+        program = new Program(new ArrayList<>());
+        fileVar = new FileVariable(".");
+        otherFileVar = new FileVariable("..");
+    }
+
+    @Test
+    void testResolvesToScopeThatDeclaresVariable() throws FMLExecutionException {
+        program.addIdentifierDeclaration("file");
+        Program loop = program.newChildScope().newChildScope();
+        VariableReference reference = new VariableReference("file");
+        reference.resolve(loop);
+        assertEquals(2, VariableReference.depthOf(reference.getLocation()));
+
+        program.addVariable("file", fileVar);
+        assertSame(fileVar, reference.getFileVariable(loop));
+        assertSame(fileVar, reference.getFileVariable(loop));
+    }
+
+    @Test
+    void testResolvesToNearestDeclaration() throws FMLExecutionException {
+        program.addIdentifierDeclaration("file");
+        Program child = program.newChildScope();
+        child.addIdentifierDeclaration("file");
+        VariableReference reference = new VariableReference("file");
+        reference.resolve(child);
+        assertEquals(0, VariableReference.depthOf(reference.getLocation()));
+
+        program.addVariable("file", fileVar);
+        child.addVariable("file", otherFileVar);
+        assertSame(otherFileVar, reference.getFileVariable(child));
+    }
+
+    @Test
+    void testIsNotShadowedByLaterDeclaration() throws FMLExecutionException {
+        program.addIdentifierDeclaration("file");
+        Program child = program.newChildScope();
+        VariableReference reference = new VariableReference("file");
+        reference.resolve(child);
+        child.addIdentifierDeclaration("file");
+
+        program.addVariable("file", fileVar);
+        child.addVariable("file", otherFileVar);
+        assertSame(fileVar, reference.getFileVariable(child));
+    }
+
+    @Test
+    void testSeesVariableReplacedInItsSlot() throws FMLExecutionException {
+        program.addIdentifierDeclaration("file");
+        VariableReference declaration = new VariableReference("file");
+        VariableReference use = new VariableReference("file");
+        declaration.resolve(program);
+        use.resolve(program);
+
+        program.addVariable(declaration, fileVar);
+        assertSame(fileVar, use.getFileVariable(program));
+        program.addVariable(declaration, otherFileVar);
+        assertSame(otherFileVar, use.getFileVariable(program));
+    }
+
+    @Test
+    void testFindsScopesOfProgram() throws FMLExecutionException {
+        Program loopProgram = new Program(new ArrayList<>());
+        loopProgram.addIdentifierDeclaration("f");
+        VariableReference reference = new VariableReference("f");
+        reference.resolve(loopProgram);
+
+        Program first = loopProgram.newScope(program);
+        Program second = loopProgram.newScope(program);
+        first.addVariable("f", fileVar);
+        second.addVariable("f", otherFileVar);
+        assertSame(fileVar, reference.getFileVariable(first));
+        assertSame(otherFileVar, reference.getFileVariable(second));
+    }
+
+    @Test
+    void testLooksUpUnresolvedReferenceByName() throws FMLExecutionException {
+        Program other = new Program(new ArrayList<>());
+        other.addVariable("padding", otherFileVar);
+        other.addVariable("file", otherFileVar);
+        program.addVariable("file", fileVar);
+        VariableReference reference = new VariableReference("file");
+
+        assertSame(fileVar, reference.getFileVariable(program.newChildScope()));
+        assertSame(otherFileVar, reference.getFileVariable(other));
+        assertEquals(VariableReference.NONE, reference.getLocation());
+    }
+
+    @Test
+    void testThrowsOnMissingVariableAfterReset() throws FMLExecutionException {
+        program.addVariable("file", fileVar);
+        VariableReference reference = new VariableReference("file");
+        assertSame(fileVar, reference.getVariable(program));
+
+        program.reset();
+        assertThrows(FMLExecutionException.class, () -> reference.getVariable(program));
+    }
+
+    @Test
+    void testThrowsOnWrongVariableType() throws FMLExecutionException {
+        program.addVariable("list[]", new ListVariable("."));
+        program.addVariable("file", fileVar);
+
+        assertThrows(FMLExecutionException.class, () -> new VariableReference("list[]").getFileVariable(program));
+        assertThrows(FMLExecutionException.class, () -> new VariableReference("file").getListVariable(program));
+    }
+
+    @Test
+    void testSnapshotKeepsVariables() throws FMLExecutionException {
+        program.addVariable("file", fileVar);
+        Program loop = program.newChildScope();
+        loop.addVariable("f", fileVar);
+        Program snapshot = loop.snapshot();
+        VariableReference reference = new VariableReference("f");
+
+        loop.addVariable("f", otherFileVar);
+        assertSame(fileVar, reference.getFileVariable(snapshot));
+        assertSame(otherFileVar, reference.getFileVariable(loop));
+        assertSame(fileVar, new VariableReference("file").getFileVariable(snapshot));
+    }
+}
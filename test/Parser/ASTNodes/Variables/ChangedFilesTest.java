@@ -0,0 +1,116 @@
+package Parser.ASTNodes.Variables;
+
+import Exceptions.FMLExecutionException;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangedFilesTest {
+
+    private final ChangedFiles changedFiles = ChangedFiles.get();
+    private File folder;
+    private String wildcard;
+
+    @BeforeEach
+    void setup() throws IOException {
+        folder = Files.createTempDirectory("ChangedFilesTest").toFile();
+        FileUtils.writeStringToFile(new File(folder, "a.txt"), "a", "UTF-8");
+        FileUtils.writeStringToFile(new File(folder, "b.txt"), "b", "UTF-8");
+        FileUtils.writeStringToFile(new File(folder, "c.log"), "c", "UTF-8");
+        wildcard = folder.getAbsolutePath() + File.separator + "*.txt";
+    }
+
+    @AfterEach
+    void teardown() throws IOException {
+        changedFiles.disable();
+        FileUtils.deleteDirectory(folder);
+    }
+
+    private static Set<String> names(List<FileVariable> files) {
+        Set<String> names = new HashSet<>();
+        for (FileVariable file : files) {
+            names.add(file.getName());
+        }
+        return names;
+    }
+
+    private Map<Path, Set<Path>> changes(String... names) {
+        Set<Path> files = new LinkedHashSet<>();
+        for (String name : names) {
+            files.add(new File(folder, name).toPath());
+        }
+        return Collections.singletonMap(folder.toPath(), files);
+    }
+
+    @Test
+    void testListsAllFilesWhenNotWatching() throws FMLExecutionException {
+        changedFiles.watchChanges(changes("a.txt"));
+        changedFiles.disable();
+        assertEquals(Set.of("a.txt", "b.txt"), names(new ListVariable(wildcard).getInnerList()));
+        assertTrue(changedFiles.getFolders().isEmpty());
+    }
+
+    @Test
+    void testListsChangedFilesOfKnownFolders() throws FMLExecutionException {
+        changedFiles.watchAll();
+        assertEquals(Set.of("a.txt", "b.txt"), names(new ListVariable(wildcard).getInnerList()));
+        assertEquals(Set.of(folder.toPath().toAbsolutePath().normalize()), changedFiles.getFolders());
+
+        changedFiles.watchChanges(changes("b.txt", "c.log", "deleted.txt"));
+        assertEquals(Set.of("b.txt"), names(new ListVariable(wildcard).getInnerList()));
+        assertEquals(Set.of("b.txt"), names(new LazyListVariable(wildcard).getInnerList()));
+    }
+
+    @Test
+    void testReportsNewFolderBeforeListingIt() throws FMLExecutionException {
+        List<Path> seen = new ArrayList<>();
+        changedFiles.setFolderListener(seenFolder -> {
+            seen.add(seenFolder);
+            try {
+                FileUtils.writeStringToFile(new File(seenFolder.toFile(), "d.txt"), "d", "UTF-8");
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        changedFiles.watchAll();
+        assertEquals(Set.of("a.txt", "b.txt", "d.txt"), names(new ListVariable(wildcard).getInnerList()));
+        new ListVariable(wildcard).getInnerList();
+
+        assertEquals(List.of(folder.toPath().toAbsolutePath().normalize()), seen);
+    }
+
+    @Test
+    void testListsNothingForUnchangedFolders() throws FMLExecutionException {
+        changedFiles.watchAll();
+        new ListVariable(wildcard).getInnerList();
+
+        changedFiles.watchChanges(Collections.emptyMap());
+        assertTrue(new ListVariable(wildcard).getInnerList().isEmpty());
+        assertTrue(new LazyListVariable(wildcard).getInnerList().isEmpty());
+    }
+
+    @Test
+    void testListsNewFoldersInFull() throws FMLExecutionException {
+        changedFiles.watchChanges(Collections.emptyMap());
+        assertEquals(Set.of("a.txt", "b.txt"), names(new ListVariable(wildcard).getInnerList()));
+        assertTrue(new ListVariable(wildcard).getInnerList().isEmpty());
+    }
+
+    @Test
+    void testListsFolderInFullAfterLostEvents() throws FMLExecutionException {
+        changedFiles.watchAll();
+        new ListVariable(wildcard).getInnerList();
+
+        changedFiles.watchChanges(Collections.singletonMap(folder.toPath(), null));
+        assertEquals(Set.of("a.txt", "b.txt"), names(new LazyListVariable(wildcard).getInnerList()));
+    }
+}
@@ -0,0 +1,66 @@
+package Parser.ASTNodes.Variables;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DirectorySizeCacheTest {
+
+    private final DirectorySizeCache cache = DirectorySizeCache.get();
+    private File folder;
+
+    @BeforeEach
+    void setup() throws IOException {
+        folder = Files.createTempDirectory("DirectorySizeCacheTest").toFile();
+        FileUtils.writeStringToFile(new File(folder, "a.txt"), "1234567890", "UTF-8");
+        FileUtils.writeStringToFile(new File(folder, "sub/b.txt"), "12345", "UTF-8");
+        FileUtils.writeStringToFile(new File(folder, "sub/deeper/c.txt"), "123", "UTF-8");
+    }
+
+    @AfterEach
+    void teardown() throws IOException {
+        FileAttributeCache.get().disable();
+        FileUtils.deleteDirectory(folder);
+    }
+
+    @Test
+    void testSizeIsSameAsFileUtils() {
+        assertEquals(FileUtils.sizeOfDirectory(folder), cache.getSize(folder, DirectorySizeCache.NO_LIMIT));
+        assertEquals(18, cache.getSize(folder, DirectorySizeCache.NO_LIMIT));
+    }
+
+    @Test
+    void testStopsAtLimit() {
+        long size = cache.getSize(folder, 4);
+        assertTrue(size > 4);
+        assertTrue(size <= 18);
+        assertEquals(18, cache.getSize(folder, 18));
+    }
+
+    @Test
+    void testKeepsTotalsUntilInvalidated() throws IOException {
+        FileAttributeCache.get().enable();
+        File newFile = new File(folder, "sub/deeper/d.txt");
+        assertEquals(18, cache.getSize(folder, DirectorySizeCache.NO_LIMIT));
+        FileUtils.writeStringToFile(newFile, "12", "UTF-8");
+        assertEquals(18, cache.getSize(folder, DirectorySizeCache.NO_LIMIT));
+
+        FileAttributeCache.get().invalidate(newFile);
+        assertEquals(20, cache.getSize(folder, DirectorySizeCache.NO_LIMIT));
+        assertEquals(10, cache.getSize(new File(folder, "sub"), DirectorySizeCache.NO_LIMIT));
+    }
+
+    @Test
+    void testDoesNotKeepTotalsOutsideOfRun() throws IOException {
+        assertEquals(18, cache.getSize(folder, DirectorySizeCache.NO_LIMIT));
+        FileUtils.writeStringToFile(new File(folder, "d.txt"), "12", "UTF-8");
+        assertEquals(20, cache.getSize(folder, DirectorySizeCache.NO_LIMIT));
+    }
+}
@@ -0,0 +1,104 @@
+package Parser.ASTNodes.Variables;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileAttributeCacheTest {
+
+    private final FileAttributeCache cache = FileAttributeCache.get();
+    private File folder;
+    private File file;
+
+    @BeforeEach
+    void setup() throws IOException {
+        folder = Files.createTempDirectory("FileAttributeCacheTest").toFile();
+        file = new File(folder, "file.txt");
+        FileUtils.writeStringToFile(file, "some text", "UTF-8");
+    }
+
+    @AfterEach
+    void teardown() throws IOException {
+        cache.disable();
+        FileUtils.deleteDirectory(folder);
+    }
+
+    @Test
+    void testReadsFromDiskWhenDisabled() throws IOException {
+        assertNotNull(cache.getAttributes(file));
+        FileUtils.forceDelete(file);
+        assertNull(cache.getAttributes(file));
+    }
+
+    @Test
+    void testKeepsAttributesUntilInvalidated() throws IOException {
+        cache.enable();
+        assertEquals(9, cache.getAttributes(file).size());
+        FileUtils.writeStringToFile(file, "some more text", "UTF-8");
+        assertEquals(9, cache.getAttributes(file).size());
+
+        cache.invalidate(file);
+        assertEquals(14, cache.getAttributes(file).size());
+    }
+
+    @Test
+    void testInvalidatingFolderInvalidatesItsFiles() throws IOException {
+        cache.enable();
+        assertNotNull(cache.getAttributes(file));
+        FileUtils.forceDelete(file);
+
+        cache.invalidate(folder);
+        assertNull(cache.getAttributes(file));
+    }
+
+    @Test
+    void testCachesMissingFiles() throws IOException {
+        File missing = new File(folder, "missing.txt");
+        cache.enable();
+        assertNull(cache.getAttributes(missing));
+        FileUtils.touch(missing);
+        assertNull(cache.getAttributes(missing));
+
+        cache.invalidate(missing);
+        assertNotNull(cache.getAttributes(missing));
+    }
+
+    @Test
+    void testListsCacheAttributesOfTheirFiles() throws Exception {
+        cache.enable();
+        FileVariable listed = new ListVariable(folder.getAbsolutePath() + File.separator + "*.txt").getInnerList().get(0);
+        FileUtils.writeStringToFile(file, "some more text", "UTF-8");
+        assertEquals(9, cache.getAttributes(file).size());
+        assertEquals(9, listed.getSizeInBytes(DirectorySizeCache.NO_LIMIT));
+    }
+
+    @Test
+    void testFileVariablesReadAttributesAgainAfterInvalidation() throws Exception {
+        cache.enable();
+        FileVariable fileVariable = new FileVariable(file.getAbsolutePath());
+        assertEquals(9, fileVariable.getSizeInBytes(DirectorySizeCache.NO_LIMIT));
+        FileUtils.writeStringToFile(file, "some more text", "UTF-8");
+        assertEquals(9, fileVariable.getSizeInBytes(DirectorySizeCache.NO_LIMIT));
+
+        cache.invalidate(folder);
+        assertEquals(14, fileVariable.getSizeInBytes(DirectorySizeCache.NO_LIMIT));
+    }
+
+    @Test
+    void testFileVariablesReadAttributesAgainAfterRun() throws Exception {
+        cache.enable();
+        FileVariable fileVariable = new FileVariable(file.getAbsolutePath());
+        assertEquals(9, fileVariable.getSizeInBytes(DirectorySizeCache.NO_LIMIT));
+        cache.disable();
+
+        FileUtils.writeStringToFile(file, "some more text", "UTF-8");
+        assertEquals(14, fileVariable.getSizeInBytes(DirectorySizeCache.NO_LIMIT));
+    }
+}
@@ -0,0 +1,132 @@
+package Parser.ASTNodes.Variables;
+
+import Exceptions.FMLExecutionException;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GlobWalkerTest {
+
+    private File root;
+
+    @BeforeEach
+    void setup() throws IOException {
+        root = Files.createTempDirectory("GlobWalkerTest").toFile();
+        FileUtils.writeStringToFile(new File(root, "e.log"), "e", "UTF-8");
+        FileUtils.writeStringToFile(new File(root, "2020-01/a.log"), "a", "UTF-8");
+        FileUtils.writeStringToFile(new File(root, "2020-01/b.txt"), "b", "UTF-8");
+        FileUtils.writeStringToFile(new File(root, "2021-01/x/c.log"), "c", "UTF-8");
+        FileUtils.writeStringToFile(new File(root, "2021-02/d.log"), "d", "UTF-8");
+    }
+
+    @AfterEach
+    void teardown() throws IOException {
+        FileUtils.deleteDirectory(root);
+    }
+
+    private String path(String glob) {
+        return root.getAbsolutePath() + File.separator + glob.replace("/", File.separator);
+    }
+
+    private Set<String> list(String glob) throws FMLExecutionException {
+        Set<String> names = new HashSet<>();
+        List<FileVariable> files = new ListVariable(path(glob)).getInnerList();
+        for (FileVariable file : files) {
+            names.add(root.toPath().relativize(file.getInnerFileObject().toPath()).toString().replace(File.separator, "/"));
+        }
+        assertEquals(files.size(), names.size());
+        assertEquals(files.size(), new LazyListVariable(path(glob)).getInnerList().size());
+        return names;
+    }
+
+    @Test
+    void testIteratesRecursiveListInsideLazyRecursiveList() throws Exception {
+        // enough folders to block every thread of the outer walk while its matches wait to be taken
+        int folders = 2 * GlobWalker.PARALLELISM;
+        for (int i = 0; i < folders; i++) {
+            File folder = new File(root, "many/" + i);
+            FileUtils.forceMkdir(folder);
+            for (int j = 0; j <= GlobWalker.BUFFER_SIZE / folders + 10; j++) {
+                Files.createFile(new File(folder, j + ".log").toPath());
+            }
+        }
+        LazyListVariable outer = new LazyListVariable(path("many/**/*.log"));
+        int[] inner = new int[1];
+
+        CompletableFuture<Void> iteration = CompletableFuture.runAsync(() -> {
+            try {
+                outer.forEachFile(file -> {
+                    try {
+                        Thread.sleep(500);      // the outer walk fills its buffer
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    inner[0] = new ListVariable(path("20*/**/*.log")).getInnerList().size();
+                    return false;
+                });
+            } catch (FMLExecutionException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        iteration.get(10, TimeUnit.SECONDS);
+        assertEquals(3, inner[0]);
+    }
+
+    @Test
+    void testIsRecursive() {
+        assertTrue(GlobWalker.isRecursive(path("**/*.log")));
+        assertTrue(GlobWalker.isRecursive(path("2021-*/*.log")));
+        assertTrue(GlobWalker.isRecursive(path("**")));
+        assertFalse(GlobWalker.isRecursive(path("2021-01/*.log")));
+        assertFalse(GlobWalker.isRecursive(path("*")));
+        assertFalse(GlobWalker.isRecursive(path("2021-01")));
+    }
+
+    @Test
+    void testRecursiveWildcardMatchesAnyDepth() throws FMLExecutionException {
+        assertEquals(Set.of("e.log", "2020-01/a.log", "2021-01/x/c.log", "2021-02/d.log"), list("**/*.log"));
+        assertEquals(Set.of("2021-01/x/c.log", "2021-02/d.log"), list("2021-*/**/*.log"));
+        assertEquals(Set.of("2021-01/x/c.log"), list("**/x/*"));
+    }
+
+    @Test
+    void testWildcardFolderMatchesOneLevel() throws FMLExecutionException {
+        assertEquals(Set.of("2021-02/d.log"), list("2021-*/*.log"));
+        assertEquals(Set.of("2021-01/x/c.log"), list("*/*/*.log"));
+    }
+
+    @Test
+    void testTrailingRecursiveWildcardMatchesEverything() throws FMLExecutionException {
+        assertEquals(Set.of("e.log", "2020-01", "2020-01/a.log", "2020-01/b.txt", "2021-01", "2021-01/x",
+                "2021-01/x/c.log", "2021-02", "2021-02/d.log"), list("**"));
+    }
+
+    @Test
+    void testStopsWhenActionReturnsFalse() throws FMLExecutionException {
+        int[] visited = {0};
+        new LazyListVariable(path("**")).forEachFile(file -> {
+            visited[0]++;
+            return false;
+        });
+        assertEquals(1, visited[0]);
+        assertEquals(9, new ListVariable(path("**")).getInnerList().size());
+    }
+
+    @Test
+    void testMissingRootIsInvalid() {
+        assertThrows(FMLExecutionException.class, () -> new ListVariable(path("missing/**/*.log")));
+        assertThrows(FMLExecutionException.class, () -> new LazyListVariable(path("missing/**/*.log")));
+    }
+}
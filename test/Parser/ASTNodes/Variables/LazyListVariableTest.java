@@ -0,0 +1,56 @@
+package Parser.ASTNodes.Variables;
+
+import Exceptions.FMLExecutionException;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazyListVariableTest {
+
+    private static final String JOKES_PATH = new File("test/resources/FileTestData/Jokes").getAbsolutePath();
+
+    @Test
+    void testHasSameFilesAsListVariable() throws FMLExecutionException {
+        String path = JOKES_PATH + File.separator + "*";
+        List<FileVariable> expected = new ListVariable(path).getInnerList();
+        List<FileVariable> actual = new LazyListVariable(path).getInnerList();
+        assertEquals(expected.size(), actual.size());
+        assertTrue(actual.containsAll(expected));
+    }
+
+    @Test
+    void testMatchesWildcard() throws FMLExecutionException {
+        List<FileVariable> files = new LazyListVariable(JOKES_PATH + File.separator + "*.txt").getInnerList();
+        assertEquals(2, files.size());
+        for (FileVariable file : files) {
+            assertEquals("txt", file.getExtension());
+        }
+    }
+
+    @Test
+    void testStopsIteratingWhenActionReturnsFalse() throws FMLExecutionException {
+        List<FileVariable> visited = new LinkedList<>();
+        new LazyListVariable(JOKES_PATH + File.separator + "*").forEachFile(file -> {
+            visited.add(file);
+            return false;
+        });
+        assertEquals(1, visited.size());
+    }
+
+    @Test
+    void testPathWithoutWildcardHasOneFile() throws FMLExecutionException {
+        List<FileVariable> files = new LazyListVariable(JOKES_PATH).getInnerList();
+        assertEquals(1, files.size());
+        assertEquals("Jokes", files.get(0).getName());
+    }
+
+    @Test
+    void testThrowsErrorIfFolderDoesNotExist() {
+        assertThrows(FMLExecutionException.class,
+                () -> new LazyListVariable(JOKES_PATH + File.separator + "Memes" + File.separator + "*"));
+    }
+}
@@ -0,0 +1,47 @@
+package Parser.ASTNodes.Variables;
+
+import org.apache.commons.io.FilenameUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WildcardMatcherTest {
+
+    private static final String[] WILDCARDS = {"*", "**", "*.txt", "file*", "file*.txt", "**.txt", "file.txt",
+            "f?le.txt", "*le*", "*.", ".*", "a*b*c", ""};
+    private static final String[] NAMES = {"", "file.txt", "file", "file.txt.bak", "FILE.TXT", ".txt", "a.txt",
+            "fle.txt", "abc", "axbyc", "txt", ".hidden", "ends."};
+
+    @Test
+    void testMatchesSameNamesAsFilenameUtils() {
+        for (String wildcard : WILDCARDS) {
+            WildcardMatcher matcher = WildcardMatcher.get(wildcard);
+            for (String name : NAMES) {
+                assertEquals(FilenameUtils.wildcardMatch(name, wildcard), matcher.matches(name),
+                        wildcard + " " + name);
+            }
+        }
+    }
+
+    @Test
+    void testPrefixAndSuffixDoNotOverlap() {
+        WildcardMatcher matcher = WildcardMatcher.get("ab*ba");
+        assertFalse(matcher.matches("aba"));
+        assertTrue(matcher.matches("abba"));
+        assertTrue(matcher.matches("ab-ba"));
+    }
+
+    @Test
+    void testCachesCompiledMatchers() {
+        assertSame(WildcardMatcher.get("*.log"), WildcardMatcher.get("*.log"));
+    }
+
+    @Test
+    void testCacheIsBounded() {
+        for (int i = 0; i < 3 * WildcardMatcher.MAX_MATCHERS; i++) {
+            WildcardMatcher matcher = WildcardMatcher.get("file" + i + "*.txt");
+            assertTrue(matcher.matches("file" + i + ".txt"));
+            assertTrue(WildcardMatcher.cached() <= WildcardMatcher.MAX_MATCHERS);
+        }
+    }
+}
@@ -64,6 +64,9 @@ class ParserTest {
         private final Queue<String> COMPRESS_ACTION_STATEMENT_TOKENS = new LinkedList<>(Arrays.asList("compress", "folder2"));
         private final ActionStatement COMPRESS_ACTION_STATEMENT_EXPECTED = new ActionStatement(new Compress("folder2"), "folder2", null, false);
 
+        private final Queue<String> COMPRESS_LEVEL_ACTION_STATEMENT_TOKENS = new LinkedList<>(Arrays.asList("compress", "folder2", "level", "9"));
+        private final ActionStatement COMPRESS_LEVEL_ACTION_STATEMENT_EXPECTED = new ActionStatement(new Compress("folder2", 9), "folder2", null, false);
+
         @Test
         void testParsesCopyActionStatement() throws FMLParsingException {
             testStatement(new LinkedList<>(COPY_ACTION_STATEMENT_TOKENS), COPY_ACTION_STATEMENT_EXPECTED);
@@ -94,6 +97,17 @@ class ParserTest {
             testStatement(new LinkedList<>(COMPRESS_ACTION_STATEMENT_TOKENS), COMPRESS_ACTION_STATEMENT_EXPECTED);
         }
 
+        @Test
+        void testParsesCompressLevelActionStatement() throws FMLParsingException {
+            testStatement(new LinkedList<>(COMPRESS_LEVEL_ACTION_STATEMENT_TOKENS), COMPRESS_LEVEL_ACTION_STATEMENT_EXPECTED);
+        }
+
+        @Test
+        void testThrowsErrorForInvalidCompressLevel() {
+            Queue<String> tokens = new LinkedList<>(Arrays.asList("compress", "folder2", "level", "11"));
+            assertThrows(FMLParsingException.class, () -> Parser.parse(tokens));
+        }
+
         @Test
         void testParsesMultipleActionStatement() throws FMLParsingException {
             Queue<String> tokens = concatTokens(
@@ -126,6 +140,12 @@ class ParserTest {
         private final Queue<String> DIRECT_DECLARATION_ARROW_LIST = new LinkedList<>(Arrays.asList("file", "=", "folder", "->", "\"/some/path/*\""));
         private final DirectDeclaration DIRECT_DECLARATION_ARROW_LIST_EXPECTED = new DirectDeclaration("file", new FMLPath("folder", "/some/path/*"));
 
+        private final Queue<String> DIRECT_DECLARATION_WHERE = new LinkedList<>(Arrays.asList("files[]", "=", "folder", "->", "\"*\"", WHERE, "size", ">", "1 GB", AND, "file", ".name", "!=", "name"));
+        private final Comparison WHERE_SIZE = new Comparison(new AttributeTerm(WHERE_ENTRY, AttributeName.SIZE), new NumberTerm(BigDecimal.valueOf(1), FileSizeUnit.GB), ComparisonOperator.GREATER_THAN);
+        private final Comparison WHERE_NAME = new Comparison(new AttributeTerm("file", AttributeName.NAME), new AttributeTerm(WHERE_ENTRY, AttributeName.NAME), ComparisonOperator.NOT_EQUAL_TO);
+        private final DirectDeclaration DIRECT_DECLARATION_WHERE_EXPECTED = new DirectDeclaration("files[]", new FMLPath("folder", "*"), false,
+                new OrCondition(new LinkedList<>(Arrays.asList(new AndCondition(new LinkedList<>(Arrays.asList(new Negation(WHERE_SIZE), new Negation(WHERE_NAME))))))));
+
         @Test
         void testParsesDirectStringDeclaration() throws FMLParsingException {
             testStatement(DIRECT_DECLARATION_STRING, DIRECT_DECLARATION_STRING_EXPECTED);
@@ -146,6 +166,29 @@ class ParserTest {
             testStatement(DIRECT_DECLARATION_ARROW_LIST, DIRECT_DECLARATION_ARROW_LIST_EXPECTED);
         }
 
+        @Test
+        void testParsesWhereDeclaration() throws FMLParsingException {
+            testStatement(DIRECT_DECLARATION_WHERE, DIRECT_DECLARATION_WHERE_EXPECTED);
+        }
+
+        @Test
+        void testParsesLazyDeclaration() throws FMLParsingException {
+            Queue<String> tokens = new LinkedList<>(Arrays.asList(LAZY, "files[]", "=", "\"/some/path/*\""));
+            testStatement(tokens, new DirectDeclaration("files[]", new FMLPath("/some/path/*"), true));
+        }
+
+        @Test
+        void testParsesLazyAsIdentifier() throws FMLParsingException {
+            Queue<String> tokens = new LinkedList<>(Arrays.asList(LAZY, "=", "\"/x\""));
+            testStatement(tokens, new DirectDeclaration(LAZY, new FMLPath("/x")));
+        }
+
+        @Test
+        void testThrowsErrorForWhereReferenceDeclaration() {
+            Queue<String> tokens = new LinkedList<>(Arrays.asList("files[]", "=", "others[]", WHERE, "size", ">", "1 GB"));
+            assertThrows(FMLParsingException.class, () -> Parser.parse(tokens));
+        }
+
         @Test
         void testParsesMultipleDeclaration() throws FMLParsingException {
             Queue<String> tokens = concatTokens(
@@ -388,6 +431,30 @@ class ParserTest {
         }
     }
 
+    @Nested
+    class testParsesParallelForLoop {
+        private final Program TEST_PROGRAM = new Program(new LinkedList<>(Arrays.asList(new ActionStatement(new Move("fileVariable2", "folderVariable2"), "fileVariable2", "folderVariable2", false))));
+
+        private final Queue<String> FOR_LOOP_TOKENS = new LinkedList<>(Arrays.asList(PARALLEL,FOR,"(","file",IN,"filesToCheck[]",")","{",NEWLINE, "move", "fileVariable2", "to", "folderVariable2",NEWLINE,"}"));
+        private final ForLoop FOR_LOOP_EXPECTED = new ParallelForLoop("filesToCheck[]",TEST_PROGRAM,"file");
+
+        @Test
+        void testParsesParallelForLoop() throws FMLParsingException {
+            testStatement(new LinkedList<>(FOR_LOOP_TOKENS), FOR_LOOP_EXPECTED);
+        }
+
+        @Test
+        void testParallelForLoopDoesNotEqualForLoop() throws FMLParsingException {
+            assertNotEquals(new ForLoop("filesToCheck[]",TEST_PROGRAM,"file"), FOR_LOOP_EXPECTED);
+        }
+
+        @Test
+        void testParsesParallelAsIdentifier() throws FMLParsingException {
+            Queue<String> tokens = new LinkedList<>(Arrays.asList(PARALLEL, "=", "\"/data\""));
+            testStatement(tokens, new DirectDeclaration(PARALLEL, new FMLPath("/data")));
+        }
+    }
+
 //    @Test
 //    public void testParsesMultipleForLoop() throws FMLParsingException {
 //        // TODO
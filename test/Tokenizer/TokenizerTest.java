@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 import static Language.FMLGrammar.*;
 import java.util.Arrays;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
 
 import static Tokenizer.Tokenizer.getTokens;
@@ -27,6 +28,9 @@ class TokenizerTest {
     private String DELETE_ACTION_STATEMENT = "delete fileVariable2\r\n";
     private Queue<String> DELETE_ACTION_STATEMENT_TOKENS = new LinkedList<>(Arrays.asList("delete", "fileVariable2"));
 
+    private String COMPRESS_LEVEL_ACTION_STATEMENT = "compress logFolder level store\r\n";
+    private Queue<String> COMPRESS_LEVEL_ACTION_STATEMENT_TOKENS = new LinkedList<>(Arrays.asList("compress", "logFolder", LEVEL, STORE));
+
     private String RENAME_ACTION_STATEMENT = "rename fileVariable2 to \"a new name\"\r\n";
     private Queue<String> RENAME_ACTION_STATEMENT_TOKENS = new LinkedList<>(Arrays.asList("rename", "fileVariable2", PREPOSITION, "\"a new name\""));
 
@@ -52,9 +56,15 @@ class TokenizerTest {
     private String FOR_LOOP = "for(file in filesInFolder[]) {\r\n";
     private Queue<String> FOR_LOOP_TOKENS = new LinkedList<>(Arrays.asList(FOR,"(","file",IN,"filesInFolder[]",")","{"));
 
+    private String PARALLEL_FOR_LOOP = "parallel for(file in filesInFolder[]) {\r\n";
+    private Queue<String> PARALLEL_FOR_LOOP_TOKENS = new LinkedList<>(Arrays.asList(PARALLEL,FOR,"(","file",IN,"filesInFolder[]",")","{"));
+
     private String DIRECT_DECLARATION = "filesInFolder[] = absPath -> \"path/to/*\"\r\n";
     private Queue<String> DIRECT_DECLARATION_TOKENS = new LinkedList<>(Arrays.asList("filesInFolder[]",EQUALS,"absPath",RIGHT_ARROW,"\"path/to/*\""));
 
+    private String LAZY_DECLARATION = "lazy filesInFolder[] = absPath -> \"path/to/*\"\r\n";
+    private Queue<String> LAZY_DECLARATION_TOKENS = new LinkedList<>(Arrays.asList(LAZY,"filesInFolder[]",EQUALS,"absPath",RIGHT_ARROW,"\"path/to/*\""));
+
     private String RELATIVE_DECLARATION = "newFolder = oldFolder\r\n";
     private Queue<String> RELATIVE_DECLARATION_TOKENS = new LinkedList<>(Arrays.asList("newFolder",EQUALS,"oldFolder"));
 
@@ -76,92 +86,154 @@ class TokenizerTest {
 
     @Test
     void testTokenizeEmptyString() throws FMLParsingException {
-        tokens = getTokens(EMPTY,SEPARATORS);
+        tokens = getTokens(EMPTY);
         assertEquals(tokens, EMPTY_TOKENS);
     }
 
 
     @Test
     void testTokenizeCopyString() throws FMLParsingException {
-        tokens = getTokens(COPY_ACTION_STATEMENT,SEPARATORS);
+        tokens = getTokens(COPY_ACTION_STATEMENT);
         assertEquals(tokens, COPY_ACTION_STATEMENT_TOKENS);
     }
     @Test
     void testTokenizeMoveString() throws FMLParsingException {
-        tokens = getTokens(MOVE_ACTION_STATEMENT,SEPARATORS);
+        tokens = getTokens(MOVE_ACTION_STATEMENT);
         assertEquals(tokens, MOVE_ACTION_STATEMENT_TOKENS);
     }
 
     @Test
     void testTokenizeDeleteString() throws FMLParsingException {
-        tokens = getTokens(DELETE_ACTION_STATEMENT,SEPARATORS);
+        tokens = getTokens(DELETE_ACTION_STATEMENT);
         assertEquals(tokens, DELETE_ACTION_STATEMENT_TOKENS);
     }
 
     @Test
     void testTokenizeRenameString() throws FMLParsingException {
-        tokens = getTokens(RENAME_ACTION_STATEMENT,SEPARATORS);
+        tokens = getTokens(RENAME_ACTION_STATEMENT);
         assertEquals(tokens, RENAME_ACTION_STATEMENT_TOKENS);
     }
 
+    @Test
+    void testTokenizeCompressLevelString() throws FMLParsingException {
+        tokens = getTokens(COMPRESS_LEVEL_ACTION_STATEMENT);
+        assertEquals(tokens, COMPRESS_LEVEL_ACTION_STATEMENT_TOKENS);
+    }
+
     @Test
     void testTokenizeStringfString() throws FMLParsingException {
-        tokens = getTokens(STRING_IF_STATEMENT,SEPARATORS);
+        tokens = getTokens(STRING_IF_STATEMENT);
         assertEquals(tokens, STRING_IF_STATEMENT_TOKENS);
     }
 
     @Test
     void testTokenizeNumIfString() throws FMLParsingException {
-        tokens = getTokens(NUM_IF_STATEMENT,SEPARATORS);
+        tokens = getTokens(NUM_IF_STATEMENT);
         assertEquals(tokens, NUM_IF_STATEMENT_TOKENS);
     }
 
     @Test
     void testTokenizeNotIfString() throws FMLParsingException {
-        tokens = getTokens(NOT_IF_STATEMENT,SEPARATORS);
+        tokens = getTokens(NOT_IF_STATEMENT);
         assertEquals(tokens, NOT_IF_STATEMENT_TOKENS);
     }
 
     @Test
     void testTokenizeAndIfString() throws FMLParsingException {
-        tokens = getTokens(AND_IF_STATEMENT,SEPARATORS);
+        tokens = getTokens(AND_IF_STATEMENT);
         assertEquals(tokens, AND_IF_STATEMENT_TOKENS);
     }
 
     @Test
     void testTokenizeOrIfString() throws FMLParsingException {
-        tokens = getTokens(OR_IF_STATEMENT,SEPARATORS);
+        tokens = getTokens(OR_IF_STATEMENT);
         assertEquals(tokens, OR_IF_STATEMENT_TOKENS);
     }
 
     @Test
     void testTokenizeElseString() throws FMLParsingException {
-        tokens = getTokens(ELSE_STATEMENT,SEPARATORS);
+        tokens = getTokens(ELSE_STATEMENT);
         assertEquals(tokens, ELSE_STATEMENT_TOKENS);
     }
 
     @Test
     void testTokenizeForLoopString() throws FMLParsingException {
-        tokens = getTokens(FOR_LOOP,SEPARATORS);
+        tokens = getTokens(FOR_LOOP);
         assertEquals(tokens, FOR_LOOP_TOKENS);
     }
 
+    @Test
+    void testTokenizeParallelForLoopString() throws FMLParsingException {
+        tokens = getTokens(PARALLEL_FOR_LOOP);
+        assertEquals(tokens, PARALLEL_FOR_LOOP_TOKENS);
+    }
+
     @Test
     void testTokenizeDirectDeclareString() throws FMLParsingException {
-        tokens = getTokens(DIRECT_DECLARATION,SEPARATORS);
+        tokens = getTokens(DIRECT_DECLARATION);
         assertEquals(tokens, DIRECT_DECLARATION_TOKENS);
     }
 
+    @Test
+    void testTokenizeLazyDeclareString() throws FMLParsingException {
+        tokens = getTokens(LAZY_DECLARATION);
+        assertEquals(tokens, LAZY_DECLARATION_TOKENS);
+    }
+
     @Test
     void testTokenizeRelativeDeclareString() throws FMLParsingException {
-        tokens = getTokens(RELATIVE_DECLARATION,SEPARATORS);
+        tokens = getTokens(RELATIVE_DECLARATION);
         assertEquals(tokens, RELATIVE_DECLARATION_TOKENS);
     }
 
     @Test
     void testTokenizeFullProgramString() throws FMLParsingException {
-        tokens = getTokens(FULL_PROGRAM,SEPARATORS);
+        tokens = getTokens(FULL_PROGRAM);
         assertEquals(tokens, FULL_PROGRAM_TOKENS);
     }
+
+    @Test
+    void testTokenizeLineFeedsAndComments() throws FMLParsingException {
+        String script = "// header\n\nnewFolder = oldFolder   // rename\n\n\ndelete newFolder;\n";
+        tokens = getTokens(script);
+        assertEquals(new LinkedList<>(Arrays.asList("newFolder", EQUALS, "oldFolder", NEWLINE, "delete", "newFolder")), tokens);
+    }
+
+    @Test
+    void testTokenizeStringsContainingGrammar() throws FMLParsingException {
+        String script = "rename file to \"to AND (x) -> y.name // no comment\"\r\n";
+        tokens = getTokens(script);
+        assertEquals(new LinkedList<>(Arrays.asList("rename", "file", PREPOSITION, "\"to AND (x) -> y.name // no comment\"")), tokens);
+    }
+
+    @Test
+    void testTokenizeIdentifiersStartingWithKeywords() throws FMLParsingException {
+        tokens = getTokens("iffy = returnFolder -> \"NOTES\"\r\n");
+        assertEquals(new LinkedList<>(Arrays.asList("iffy", EQUALS, "returnFolder", RIGHT_ARROW, "\"NOTES\"")), tokens);
+    }
+
+    @Test
+    void testTokenPositions() throws FMLParsingException {
+        tokens = new LinkedList<>();
+        List<Token> typed = Tokenizer.tokenize("if (file.size > 1.5 GB) {\n    delete file\n}");
+        assertEquals(Token.Type.KEYWORD, typed.get(0).getType());
+        assertEquals(Token.Type.ATTRIBUTE, typed.get(3).getType());
+        assertEquals(".size", typed.get(3).getText());
+        assertEquals(9, typed.get(3).getColumn());
+        assertEquals(Token.Type.NUMBER, typed.get(5).getType());
+        assertEquals("1.5 GB", typed.get(5).getText());
+        assertEquals(Token.Type.COMMAND, typed.get(9).getType());
+        assertEquals(2, typed.get(9).getLine());
+        assertEquals(5, typed.get(9).getColumn());
+        assertEquals(3, typed.get(typed.size() - 1).getLine());
+    }
+
     /* Invalid inputs */
+
+    @Test
+    void testTokenizeUnterminatedString() {
+        tokens = new LinkedList<>();
+        FMLParsingException e = assertThrows(FMLParsingException.class, () -> getTokens("a = b\r\nc = \"path\r\n"));
+        assertTrue(e.getMessage().contains("line 2, column 5"));
+    }
 }